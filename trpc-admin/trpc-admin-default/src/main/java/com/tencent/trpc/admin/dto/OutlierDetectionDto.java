@@ -0,0 +1,59 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.admin.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.tencent.trpc.core.selector.outlier.OutlierEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Outlier detection of the selectors
+ * Corresponding query interface: /cmds/selector/outlier
+ */
+public class OutlierDetectionDto extends CommonDto {
+
+    /**
+     * selector -> ejected instance address -> remaining ejection time in milliseconds
+     */
+    @JsonProperty("ejected")
+    private Map<String, Map<String, Long>> ejected = new TreeMap<>();
+
+    /**
+     * Recent ejections, the latest first
+     */
+    @JsonProperty("events")
+    private List<OutlierEvent> events = new ArrayList<>();
+
+    public Map<String, Map<String, Long>> getEjected() {
+        return ejected;
+    }
+
+    public void setEjected(Map<String, Map<String, Long>> ejected) {
+        this.ejected = ejected;
+    }
+
+    public List<OutlierEvent> getEvents() {
+        return events;
+    }
+
+    public void setEvents(List<OutlierEvent> events) {
+        this.events = events;
+    }
+
+    @Override
+    public String toString() {
+        return "OutlierDetectionDto{" + "ejected=" + ejected + ", events=" + events + "} " + super.toString();
+    }
+}
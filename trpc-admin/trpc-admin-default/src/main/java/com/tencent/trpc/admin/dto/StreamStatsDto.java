@@ -0,0 +1,43 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.admin.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.tencent.trpc.core.metrics.StreamStats;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Stream multiplexing of the clients and servers
+ * Corresponding query interface: /cmds/stream/stats
+ */
+public class StreamStatsDto extends CommonDto {
+
+    /**
+     * side/address -> stream stats
+     */
+    @JsonProperty("streams")
+    private Map<String, StreamStats> streams = new TreeMap<>();
+
+    public Map<String, StreamStats> getStreams() {
+        return streams;
+    }
+
+    public void setStreams(Map<String, StreamStats> streams) {
+        this.streams = streams;
+    }
+
+    @Override
+    public String toString() {
+        return "StreamStatsDto{" + "streams=" + streams + "} " + super.toString();
+    }
+}
@@ -15,14 +15,21 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.tencent.trpc.core.management.ForkJoinPoolMXBean;
 import com.tencent.trpc.core.management.PoolMXBean;
+import com.tencent.trpc.core.metrics.RpcLatencyStats;
+import com.tencent.trpc.core.metrics.histogram.HistogramSnapshot;
 import com.tencent.trpc.core.management.ThreadPoolMXBean;
 import com.tencent.trpc.core.worker.handler.TrpcThreadExceptionHandler;
 import com.tencent.trpc.core.worker.spi.WorkerPool;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 public class RPCStatsCommonDto {
 
+    private static final BigDecimal MICROS_PER_MILLI = BigDecimal.valueOf(1000);
+
     /**
      * RPC framework-related field: number of connections
      */
@@ -119,6 +126,12 @@ public class RPCStatsCommonDto {
     protected Map<String, Double> latencyAvg;
 
 
+    /**
+     * p50, p90, p99 and p999 latency in milliseconds of each func.
+     */
+    @JsonProperty("latency_funcs")
+    protected Map<String, Map<String, Double>> latencyFuncs;
+
     @JsonIgnore
     protected WorkerPool workerPool;
 
@@ -224,6 +237,48 @@ public class RPCStatsCommonDto {
         this.latencyAvg = latencyAvg;
     }
 
+    public Map<String, Map<String, Double>> getLatencyFuncs() {
+        return latencyFuncs;
+    }
+
+    public void setLatencyFuncs(Map<String, Map<String, Double>> latencyFuncs) {
+        this.latencyFuncs = latencyFuncs;
+    }
+
+    /**
+     * Fill the latency fields with the in process latency statistics.
+     *
+     * @param stats latency statistics of the service or client, in microseconds
+     */
+    public void fillLatency(RpcLatencyStats stats) {
+        if (stats == null) {
+            return;
+        }
+        HistogramSnapshot snapshot = stats.getTotal().snapshot();
+        this.latencyP1 = toMillis(snapshot.valueAtQuantile(0.8));
+        this.latencyP2 = toMillis(snapshot.valueAtQuantile(0.9));
+        this.latencyP3 = toMillis(snapshot.valueAtQuantile(0.99));
+        this.latency999 = toMillis(snapshot.valueAtQuantile(0.999));
+        this.latencyAvg = new LinkedHashMap<>();
+        this.latencyAvg.put("avg", toMillis((long) snapshot.getMean()).doubleValue());
+        this.latencyAvg.put("max", toMillis(snapshot.getMax()).doubleValue());
+        this.latencyAvg.put("min", toMillis(snapshot.getMin()).doubleValue());
+        this.latencyFuncs = new TreeMap<>();
+        stats.getFuncs().forEach((func, histogram) -> {
+            HistogramSnapshot funcSnapshot = histogram.snapshot();
+            Map<String, Double> percentiles = new LinkedHashMap<>();
+            percentiles.put("p50", toMillis(funcSnapshot.valueAtQuantile(0.5)).doubleValue());
+            percentiles.put("p90", toMillis(funcSnapshot.valueAtQuantile(0.9)).doubleValue());
+            percentiles.put("p99", toMillis(funcSnapshot.valueAtQuantile(0.99)).doubleValue());
+            percentiles.put("p999", toMillis(funcSnapshot.valueAtQuantile(0.999)).doubleValue());
+            latencyFuncs.put(func, percentiles);
+        });
+    }
+
+    protected static BigDecimal toMillis(long micros) {
+        return BigDecimal.valueOf(micros).divide(MICROS_PER_MILLI, 3, RoundingMode.HALF_UP);
+    }
+
     protected void setWorkerPool(WorkerPool workerPool) {
         this.workerPool = workerPool;
     }
@@ -0,0 +1,92 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.admin.dto.rpc;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.tencent.trpc.admin.dto.CommonDto;
+import com.tencent.trpc.core.metrics.RequestStageStats;
+import com.tencent.trpc.core.metrics.RequestStageTimer.Stage;
+import com.tencent.trpc.core.metrics.histogram.HistogramSnapshot;
+import com.tencent.trpc.core.metrics.histogram.QuantileHistogram;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per func, per stage latency of the server requests, in milliseconds
+ * Corresponding query interface: /cmds/stats/stage
+ */
+public class RpcStageStatsDto extends CommonDto {
+
+    /**
+     * Whether the stage stats are enabled by server.enable_stage_stats
+     */
+    @JsonProperty("enabled")
+    private boolean enabled;
+
+    /**
+     * func -> stage -> count, avg, p50, p90, p99, p999, the stage "total" covers the whole request
+     */
+    @JsonProperty("func_stages")
+    private Map<String, Map<String, Map<String, Double>>> funcStages = new TreeMap<>();
+
+    /**
+     * Fill the latency of the stages.
+     *
+     * @param funcStats the stage stats of each func
+     */
+    public void fill(Map<String, RequestStageStats> funcStats) {
+        funcStats.forEach((func, stats) -> {
+            Map<String, Map<String, Double>> stages = new LinkedHashMap<>();
+            for (Stage stage : Stage.values()) {
+                if (stage != Stage.WRITE_COMPLETE) {
+                    stages.put(stage.getStageName(), percentiles(stats.getStage(stage)));
+                }
+            }
+            stages.put("total", percentiles(stats.getTotal()));
+            funcStages.put(func, stages);
+        });
+    }
+
+    private static Map<String, Double> percentiles(QuantileHistogram histogram) {
+        HistogramSnapshot snapshot = histogram.snapshot();
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        percentiles.put("count", (double) snapshot.getCount());
+        percentiles.put("avg", RPCStatsCommonDto.toMillis((long) snapshot.getMean()).doubleValue());
+        percentiles.put("p50", RPCStatsCommonDto.toMillis(snapshot.valueAtQuantile(0.5)).doubleValue());
+        percentiles.put("p90", RPCStatsCommonDto.toMillis(snapshot.valueAtQuantile(0.9)).doubleValue());
+        percentiles.put("p99", RPCStatsCommonDto.toMillis(snapshot.valueAtQuantile(0.99)).doubleValue());
+        percentiles.put("p999", RPCStatsCommonDto.toMillis(snapshot.valueAtQuantile(0.999)).doubleValue());
+        return percentiles;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Map<String, Map<String, Map<String, Double>>> getFuncStages() {
+        return funcStages;
+    }
+
+    public void setFuncStages(Map<String, Map<String, Map<String, Double>>> funcStages) {
+        this.funcStages = funcStages;
+    }
+
+    @Override
+    public String toString() {
+        return "RpcStageStatsDto{" + "enabled=" + enabled + ", funcStages=" + funcStages + "} " + super.toString();
+    }
+}
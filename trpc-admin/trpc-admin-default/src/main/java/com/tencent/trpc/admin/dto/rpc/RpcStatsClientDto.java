@@ -12,6 +12,7 @@
 package com.tencent.trpc.admin.dto.rpc;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.tencent.trpc.core.metrics.RpcLatencyStats;
 import com.tencent.trpc.core.worker.spi.WorkerPool;
 import java.math.BigDecimal;
 
@@ -42,6 +43,14 @@ public class RpcStatsClientDto extends RPCStatsCommonDto {
         super(workerPool);
     }
 
+    @Override
+    public void fillLatency(RpcLatencyStats stats) {
+        super.fillLatency(stats);
+        if (stats != null) {
+            this.latency99 = toMillis(stats.getTotal().snapshot().valueAtQuantile(0.99));
+        }
+    }
+
     public BigDecimal getLatency99() {
         return latency99;
     }
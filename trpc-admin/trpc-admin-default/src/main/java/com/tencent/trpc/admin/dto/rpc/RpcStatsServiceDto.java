@@ -13,6 +13,7 @@ package com.tencent.trpc.admin.dto.rpc;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.tencent.trpc.core.metrics.RpcLatencyStats;
 import com.tencent.trpc.core.worker.handler.TrpcThreadExceptionHandler;
 import com.tencent.trpc.core.worker.spi.WorkerPool;
 import java.math.BigDecimal;
@@ -93,6 +94,14 @@ public class RpcStatsServiceDto extends RPCStatsCommonDto {
                 .longValue();
     }
 
+    @Override
+    public void fillLatency(RpcLatencyStats stats) {
+        super.fillLatency(stats);
+        if (stats != null) {
+            this.latency9999 = toMillis(stats.getTotal().snapshot().valueAtQuantile(0.9999));
+        }
+    }
+
     public Double getReqAvgLen() {
         return reqAvgLen;
     }
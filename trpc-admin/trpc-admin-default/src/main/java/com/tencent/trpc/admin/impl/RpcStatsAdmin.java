@@ -13,6 +13,8 @@ package com.tencent.trpc.admin.impl;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.tencent.trpc.admin.dto.rpc.RPCStatsCommonDto;
+import com.tencent.trpc.admin.dto.rpc.RpcStageStatsDto;
 import com.tencent.trpc.admin.dto.rpc.RpcStatsClientDto;
 import com.tencent.trpc.admin.dto.rpc.RpcStatsDto;
 import com.tencent.trpc.admin.dto.rpc.RpcStatsServiceDto;
@@ -26,8 +28,11 @@ import com.tencent.trpc.core.logger.Logger;
 import com.tencent.trpc.core.logger.LoggerFactory;
 import com.tencent.trpc.core.management.ForkJoinPoolMXBean;
 import com.tencent.trpc.core.management.ThreadPoolMXBean;
+import com.tencent.trpc.core.metrics.RequestStageStats;
+import com.tencent.trpc.core.metrics.RpcLatencyStats;
 import com.tencent.trpc.core.worker.WorkerPoolManager;
 import com.tencent.trpc.core.worker.spi.WorkerPool;
+import com.tencent.trpc.core.worker.support.thread.AffinityWorkerPool;
 import com.tencent.trpc.core.worker.support.thread.ForkJoinWorkerPool;
 import com.tencent.trpc.core.worker.support.thread.ThreadWorkerPool;
 import java.lang.reflect.Field;
@@ -67,13 +72,23 @@ public class RpcStatsAdmin implements Admin {
         Map<String, Object> rpcServiceMap = new HashMap<>();
         ConfigManager.getInstance().getServerConfig().getServiceMap().forEach((key, service) -> {
             RpcStatsServiceDto rpcStatsServiceDto = new RpcStatsServiceDto(service.getWorkerPoolObj());
+            RpcLatencyStats latencyStats = getLatencyStats(RpcLatencyStats.getCalleeStats(), service.getName());
+            rpcStatsServiceDto.fillLatency(latencyStats);
             tvarServiceFieldSet(rpcServiceMap, service.getName(), "rpc_service_", rpcStatsServiceDto);
+            if (latencyStats != null) {
+                tvarLatencyFieldSet(rpcServiceMap, service.getName(), "rpc_service_", rpcStatsServiceDto);
+            }
         });
 
         Map<String, Object> rpcClientMap = new HashMap<>();
         ConfigManager.getInstance().getClientConfig().getBackendConfigMap().forEach((key, client) -> {
             RpcStatsClientDto rpcStatsClientDto = new RpcStatsClientDto(client.getWorkerPoolObj());
+            RpcLatencyStats latencyStats = getLatencyStats(RpcLatencyStats.getCallerStats(), client.getName());
+            rpcStatsClientDto.fillLatency(latencyStats);
             tvarServiceFieldSet(rpcClientMap, client.getName(), "rpc_client_", rpcStatsClientDto);
+            if (latencyStats != null) {
+                tvarLatencyFieldSet(rpcClientMap, client.getName(), "rpc_client_", rpcStatsClientDto);
+            }
         });
         rpcStatsDto.setRpcServiceMap(rpcServiceMap);
         rpcStatsDto.setRpcClientMap(rpcClientMap);
@@ -117,7 +132,7 @@ public class RpcStatsAdmin implements Admin {
         // If the user has configured threads, use the configured threads. Otherwise, get the default threads.
         if (CollectionUtils.isNotEmpty(workerPoolList)) {
             for (WorkerPool workerPool : workerPoolList) {
-                if (workerPool instanceof ThreadWorkerPool) {
+                if (workerPool instanceof ThreadWorkerPool || workerPool instanceof AffinityWorkerPool) {
                     totalWorkerPool += ((ThreadPoolMXBean) workerPool.report()).getMaximumPoolSize();
                 }
                 if (workerPool instanceof ForkJoinWorkerPool) {
@@ -138,6 +153,10 @@ public class RpcStatsAdmin implements Admin {
         return totalWorkerPool;
     }
 
+    private static RpcLatencyStats getLatencyStats(Map<String, RpcLatencyStats> latencyStats, String name) {
+        return name == null ? null : latencyStats.get(name);
+    }
+
     private static void tvarServiceFieldSet(Map<String, Object> rpcServiceMap, String name, String prefix,
             Object obj) {
         try {
@@ -162,6 +181,20 @@ public class RpcStatsAdmin implements Admin {
         }
     }
 
+    /**
+     * Export the common latency fields, only set when the latency stats are enabled.
+     */
+    private static void tvarLatencyFieldSet(Map<String, Object> rpcServiceMap, String name, String prefix,
+            RPCStatsCommonDto dto) {
+        String fieldPrefix = prefix + name + "_";
+        rpcServiceMap.put(fieldPrefix + "latency_p1", dto.getLatencyP1());
+        rpcServiceMap.put(fieldPrefix + "latency_p2", dto.getLatencyP2());
+        rpcServiceMap.put(fieldPrefix + "latency_p3", dto.getLatencyP3());
+        rpcServiceMap.put(fieldPrefix + "latency_999", dto.getLatency999());
+        rpcServiceMap.put(fieldPrefix + "latency_avg", dto.getLatencyAvg());
+        rpcServiceMap.put(fieldPrefix + "latency_funcs", dto.getLatencyFuncs());
+    }
+
     /**
      * Get all RPC TAVR data
      *
@@ -174,4 +207,19 @@ public class RpcStatsAdmin implements Admin {
         return getRpcStatsDto();
     }
 
+    /**
+     * Get the per func, per stage latency of the server requests
+     *
+     * @return rpc stage stats dto
+     */
+    @Path("/stage")
+    @GET
+    @Produces({MediaType.APPLICATION_JSON})
+    public RpcStageStatsDto stage() {
+        RpcStageStatsDto rpcStageStatsDto = new RpcStageStatsDto();
+        rpcStageStatsDto.setEnabled(RequestStageStats.isEnabled());
+        rpcStageStatsDto.fill(RequestStageStats.getFuncStats());
+        return rpcStageStatsDto;
+    }
+
 }
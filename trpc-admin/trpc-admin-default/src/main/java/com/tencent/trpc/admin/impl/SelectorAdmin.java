@@ -0,0 +1,41 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.admin.impl;
+
+import com.tencent.trpc.admin.dto.OutlierDetectionDto;
+import com.tencent.trpc.core.admin.spi.Admin;
+import com.tencent.trpc.core.selector.outlier.OutlierDetector;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+@Path("/cmds/selector")
+public class SelectorAdmin implements Admin {
+
+    /**
+     * Get the ejected instances and the recent ejections of the outlier detection
+     *
+     * @return outlier detection dto
+     */
+    @Path("/outlier")
+    @GET
+    @Produces({MediaType.APPLICATION_JSON})
+    public OutlierDetectionDto outlier() {
+        OutlierDetectionDto outlierDetectionDto = new OutlierDetectionDto();
+        OutlierDetector.getDetectors().forEach((name, detector) ->
+                outlierDetectionDto.getEjected().put(name, detector.getEjectedInstances()));
+        outlierDetectionDto.setEvents(OutlierDetector.getRecentEvents());
+        return outlierDetectionDto;
+    }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.admin.impl;
+
+import com.tencent.trpc.admin.dto.StreamStatsDto;
+import com.tencent.trpc.core.admin.spi.Admin;
+import com.tencent.trpc.core.metrics.StreamStats;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+@Path("/cmds/stream")
+public class StreamAdmin implements Admin {
+
+    /**
+     * Get the open streams, the buffered bytes, the window stalls and the frame rates of the clients and servers
+     *
+     * @return stream stats dto
+     */
+    @Path("/stats")
+    @GET
+    @Produces({MediaType.APPLICATION_JSON})
+    public StreamStatsDto stats() {
+        StreamStatsDto streamStatsDto = new StreamStatsDto();
+        streamStatsDto.getStreams().putAll(StreamStats.getAll());
+        return streamStatsDto;
+    }
+
+}
@@ -13,11 +13,14 @@ package com.tencent.trpc.admin.impl;
 
 import com.tencent.trpc.admin.dto.WorkerPoolInfoDto;
 import com.tencent.trpc.core.admin.spi.Admin;
+import com.tencent.trpc.core.metrics.EventLoopStats;
 import com.tencent.trpc.core.worker.WorkerPoolManager;
+import com.tencent.trpc.core.worker.bulkhead.MethodBulkheadManager;
 import com.tencent.trpc.core.worker.spi.WorkerPool;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
@@ -36,4 +39,20 @@ public class WorkerPoolAdmin implements Admin {
         return new WorkerPoolInfoDto(workerReportMap);
     }
 
+    @Path("/bulkhead")
+    @GET
+    @Produces({MediaType.APPLICATION_JSON})
+    public WorkerPoolInfoDto bulkhead() {
+        Map<String, Object> bulkheadReportMap = new HashMap<>();
+        MethodBulkheadManager.getAll().forEach(bulkhead -> bulkheadReportMap.put(bulkhead.getName(), bulkhead));
+        return new WorkerPoolInfoDto(bulkheadReportMap);
+    }
+
+    @Path("/eventloop")
+    @GET
+    @Produces({MediaType.APPLICATION_JSON})
+    public WorkerPoolInfoDto eventLoop() {
+        return new WorkerPoolInfoDto(new TreeMap<>(EventLoopStats.getLoopStats()));
+    }
+
 }
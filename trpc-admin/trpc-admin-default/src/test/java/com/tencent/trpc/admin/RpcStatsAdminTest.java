@@ -12,6 +12,7 @@
 package com.tencent.trpc.admin;
 
 import com.google.common.collect.Maps;
+import com.tencent.trpc.admin.dto.rpc.RpcStageStatsDto;
 import com.tencent.trpc.admin.dto.rpc.RpcStatsClientDto;
 import com.tencent.trpc.admin.dto.rpc.RpcStatsDto;
 import com.tencent.trpc.admin.dto.rpc.RpcStatsServiceDto;
@@ -23,6 +24,11 @@ import com.tencent.trpc.core.common.config.ServiceConfig;
 import com.tencent.trpc.core.management.ForkJoinPoolMXBeanImpl;
 import com.tencent.trpc.core.management.ForkJoinPoolMXBean;
 import com.tencent.trpc.core.management.ThreadPoolMXBeanImpl;
+import com.tencent.trpc.core.metrics.RequestStageStats;
+import com.tencent.trpc.core.metrics.RpcLatencyStats;
+import com.tencent.trpc.core.rpc.RpcInvocation;
+import com.tencent.trpc.core.rpc.common.FuncRouteTable;
+import com.tencent.trpc.core.rpc.def.DefRequest;
 import com.tencent.trpc.core.worker.WorkerPoolManager;
 import com.tencent.trpc.core.worker.handler.TrpcThreadExceptionHandler;
 import com.tencent.trpc.core.worker.spi.WorkerPool;
@@ -35,6 +41,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -115,6 +122,84 @@ public class RpcStatsAdminTest {
         RpcStatsDto rpcStats = rpcStatsAdmin.rpc();
     }
 
+    @Test
+    public void testRpcStatsAdminLatency() {
+        WorkerPool workerPool = PowerMockito.mock(ThreadWorkerPool.class);
+        AtomicLong atomicLong = new AtomicLong();
+        PowerMockito.when(workerPool.getUncaughtExceptionHandler())
+                .thenReturn(new TrpcThreadExceptionHandler(atomicLong, atomicLong, atomicLong));
+        ServiceConfig serviceConfig = PowerMockito.mock(ServiceConfig.class);
+        PowerMockito.when(serviceConfig.getWorkerPoolObj()).thenReturn(workerPool);
+        PowerMockito.when(serviceConfig.getName()).thenReturn("trpc_latency_test");
+        ServiceConfig noStatsServiceConfig = PowerMockito.mock(ServiceConfig.class);
+        PowerMockito.when(noStatsServiceConfig.getWorkerPoolObj()).thenReturn(workerPool);
+        PowerMockito.when(noStatsServiceConfig.getName()).thenReturn("trpc_no_latency_test");
+        Map<String, ServiceConfig> serviceMap = ConfigManager.getInstance().getServerConfig().getServiceMap();
+        serviceMap.put("trpc_latency_test", serviceConfig);
+        serviceMap.put("trpc_no_latency_test", noStatsServiceConfig);
+        ClientConfig clientConfig = PowerMockito.mock(ClientConfig.class);
+        PowerMockito.when(clientConfig.getBackendConfigMap()).thenReturn(new HashMap<>());
+        ConfigManager.getInstance().setClientConfig(clientConfig);
+        RpcLatencyStats.callee("trpc_latency_test").record("/trpc.app.server.Greeter/sayHello", 1000L);
+        try {
+            Map<String, Object> rpcServiceMap = new RpcStatsAdmin().rpc().getRpcServiceMap();
+            Assert.assertTrue(rpcServiceMap.containsKey("rpc_service_trpc_latency_test_latency_9999"));
+            Assert.assertNotNull(rpcServiceMap.get("rpc_service_trpc_latency_test_latency_p3"));
+            Assert.assertNotNull(rpcServiceMap.get("rpc_service_trpc_latency_test_latency_funcs"));
+            Assert.assertTrue(rpcServiceMap.containsKey("rpc_service_trpc_no_latency_test_latency_9999"));
+            Assert.assertFalse(rpcServiceMap.containsKey("rpc_service_trpc_no_latency_test_latency_p3"));
+            Assert.assertFalse(rpcServiceMap.containsKey("rpc_service_trpc_no_latency_test_req_total"));
+        } finally {
+            serviceMap.remove("trpc_latency_test");
+            serviceMap.remove("trpc_no_latency_test");
+            RpcLatencyStats.reset();
+        }
+    }
+
+    @Test
+    public void testFillLatency() {
+        WorkerPool workerPool = PowerMockito.mock(ThreadWorkerPool.class);
+        AtomicLong atomicLong = new AtomicLong();
+        PowerMockito.when(workerPool.getUncaughtExceptionHandler())
+                .thenReturn(new TrpcThreadExceptionHandler(atomicLong, atomicLong, atomicLong));
+        RpcLatencyStats stats = RpcLatencyStats.callee("trpc_latency_test");
+        for (int i = 1; i <= 1000; i++) {
+            stats.record("/trpc.app.server.Greeter/sayHello", i * 100L);
+        }
+        RpcStatsServiceDto serviceDto = new RpcStatsServiceDto(workerPool);
+        serviceDto.fillLatency(stats);
+        Assert.assertEquals(50.0, serviceDto.getLatencyFuncs().get("/trpc.app.server.Greeter/sayHello")
+                .get("p50"), 1.0);
+        Assert.assertEquals(99.0, serviceDto.getLatencyP3().doubleValue(), 2.0);
+        Assert.assertEquals(100.0, serviceDto.getLatency9999().doubleValue(), 0.001);
+        Assert.assertEquals(50.05, serviceDto.getLatencyAvg().get("avg"), 0.001);
+        RpcStatsClientDto clientDto = new RpcStatsClientDto(workerPool);
+        clientDto.fillLatency(stats);
+        Assert.assertEquals(99.0, clientDto.getLatency99().doubleValue(), 2.0);
+        clientDto.fillLatency(null);
+        RpcLatencyStats.reset();
+    }
+
+    @Test
+    public void testStage() {
+        RequestStageStats.configure(true, 0, 0);
+        FuncRouteTable.register("/trpc.app.server.Greeter/sayHello");
+        RpcInvocation invocation = new RpcInvocation();
+        invocation.setFunc("/trpc.app.server.Greeter/sayHello");
+        DefRequest request = new DefRequest();
+        request.setInvocation(invocation);
+        RequestStageStats.start(request, System.nanoTime());
+        RequestStageStats.complete(request);
+        RpcStageStatsDto stageStats = new RpcStatsAdmin().stage();
+        Assert.assertTrue(stageStats.isEnabled());
+        Map<String, Map<String, Double>> stages = stageStats.getFuncStages().get("/trpc.app.server.Greeter/sayHello");
+        Assert.assertEquals(1.0, stages.get("total").get("count"), 0.001);
+        Assert.assertEquals(1.0, stages.get("decode").get("count"), 0.001);
+        Assert.assertEquals(0.0, stages.get("invoke").get("count"), 0.001);
+        RequestStageStats.reset();
+        FuncRouteTable.unregister("/trpc.app.server.Greeter/sayHello");
+    }
+
     @Test
     public void testRpcStatsDto() {
         RpcStatsDto rpcStatsDto = new RpcStatsDto();
@@ -0,0 +1,57 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.admin;
+
+import com.tencent.trpc.admin.dto.CommonDto;
+import com.tencent.trpc.admin.dto.OutlierDetectionDto;
+import com.tencent.trpc.admin.impl.SelectorAdmin;
+import com.tencent.trpc.core.exception.ErrorCode;
+import com.tencent.trpc.core.selector.ServiceInstance;
+import com.tencent.trpc.core.selector.ServiceInstanceSnapshot;
+import com.tencent.trpc.core.selector.outlier.OutlierDetectionConfig;
+import com.tencent.trpc.core.selector.outlier.OutlierDetector;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SelectorAdminTest {
+
+    @After
+    public void tearDown() {
+        OutlierDetector.reset();
+    }
+
+    @Test
+    public void testOutlier() {
+        SelectorAdmin selectorAdmin = new SelectorAdmin();
+        OutlierDetectionDto outlierDetectionDto = selectorAdmin.outlier();
+        Assert.assertEquals(CommonDto.SUCCESS, outlierDetectionDto.getErrorcode());
+        Assert.assertTrue(outlierDetectionDto.getEvents().isEmpty());
+
+        OutlierDetector detector = new OutlierDetector("assemble", OutlierDetectionConfig.parse(
+                Collections.singletonMap(OutlierDetectionConfig.CONSECUTIVE_ERRORS, 1)));
+        OutlierDetector.register(detector);
+        ServiceInstance instance = new ServiceInstance("127.0.0.1", 8000, true);
+        detector.observe("service", ServiceInstanceSnapshot.of(Arrays.asList(instance,
+                new ServiceInstance("127.0.0.1", 8001, true))));
+        detector.report("service", instance, ErrorCode.TRPC_CLIENT_NETWORK_ERR, 1);
+
+        outlierDetectionDto = selectorAdmin.outlier();
+        Assert.assertTrue(outlierDetectionDto.getEjected().get("assemble").containsKey("service/127.0.0.1:8000"));
+        Assert.assertEquals(1, outlierDetectionDto.getEvents().size());
+        Assert.assertEquals("127.0.0.1:8000", outlierDetectionDto.getEvents().get(0).getAddress());
+        Assert.assertTrue(outlierDetectionDto.toString().contains("OutlierDetectionDto{"));
+    }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.admin;
+
+import com.tencent.trpc.admin.dto.CommonDto;
+import com.tencent.trpc.admin.dto.StreamStatsDto;
+import com.tencent.trpc.admin.impl.StreamAdmin;
+import com.tencent.trpc.core.metrics.StreamStats;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StreamAdminTest {
+
+    @After
+    public void tearDown() {
+        StreamStats.reset();
+    }
+
+    @Test
+    public void testStats() {
+        StreamAdmin streamAdmin = new StreamAdmin();
+        StreamStatsDto streamStatsDto = streamAdmin.stats();
+        Assert.assertEquals(CommonDto.SUCCESS, streamStatsDto.getErrorcode());
+        Assert.assertTrue(streamStatsDto.getStreams().isEmpty());
+
+        StreamStats stats = StreamStats.connectionOpened(StreamStats.SERVER, "127.0.0.1:12345");
+        stats.streamOpened();
+        stats.addBufferedBytes(100);
+
+        streamStatsDto = streamAdmin.stats();
+        StreamStats reported = streamStatsDto.getStreams().get("server/127.0.0.1:12345");
+        Assert.assertEquals(1, reported.getConnections());
+        Assert.assertEquals(1, reported.getOpenStreams());
+        Assert.assertEquals(100, reported.getBufferedBytes());
+        Assert.assertTrue(streamStatsDto.toString().contains("StreamStatsDto{"));
+    }
+
+}
@@ -15,7 +15,10 @@ import com.tencent.trpc.admin.dto.CommonDto;
 import com.tencent.trpc.admin.dto.WorkerPoolInfoDto;
 import com.tencent.trpc.admin.impl.WorkerPoolAdmin;
 import com.tencent.trpc.core.common.ConfigManager;
+import com.tencent.trpc.core.metrics.EventLoopStats;
 import com.tencent.trpc.core.worker.WorkerPoolManager;
+import com.tencent.trpc.core.worker.bulkhead.BulkheadConfig;
+import com.tencent.trpc.core.worker.bulkhead.MethodBulkheadManager;
 import com.tencent.trpc.core.worker.spi.WorkerPool;
 import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -52,4 +55,36 @@ public class WorkerPoolAdminTest {
         Assert.assertTrue(MapUtils.isNotEmpty(workerPoolInfoDto.getWorkerPoolInfo()));
     }
 
+    @Test
+    public void testGetBulkheadInfo() {
+        WorkerPoolAdmin workerPoolAdmin = new WorkerPoolAdmin();
+        WorkerPoolInfoDto workerPoolInfoDto = workerPoolAdmin.bulkhead();
+        Assert.assertEquals(CommonDto.SUCCESS, workerPoolInfoDto.getErrorcode());
+        Assert.assertTrue(MapUtils.isEmpty(workerPoolInfoDto.getWorkerPoolInfo()));
+
+        WorkerPool workerPool = WorkerPoolManager.get(WorkerPoolManager.DEF_PROVIDER_WORKER_POOL_NAME);
+        MethodBulkheadManager.register("/trpc.app.server.Greeter/query",
+                new BulkheadConfig().setMethod("query").setMaxConcurrency(1), workerPool);
+        try {
+            workerPoolInfoDto = workerPoolAdmin.bulkhead();
+            Assert.assertTrue(workerPoolInfoDto.getWorkerPoolInfo().containsKey("/trpc.app.server.Greeter/query"));
+        } finally {
+            MethodBulkheadManager.reset();
+        }
+    }
+
+    @Test
+    public void testGetEventLoopInfo() {
+        WorkerPoolAdmin workerPoolAdmin = new WorkerPoolAdmin();
+        EventLoopStats stats = EventLoopStats.register("Netty-NIO-TcpServerWorker-1", "0", 50);
+        try {
+            stats.recordProbe(Thread.currentThread(), 1000, 2);
+            WorkerPoolInfoDto workerPoolInfoDto = workerPoolAdmin.eventLoop();
+            Assert.assertEquals(CommonDto.SUCCESS, workerPoolInfoDto.getErrorcode());
+            Assert.assertSame(stats, workerPoolInfoDto.getWorkerPoolInfo().get("Netty-NIO-TcpServerWorker-1/0"));
+        } finally {
+            EventLoopStats.reset();
+        }
+    }
+
 }
@@ -53,15 +53,21 @@ public class CodeFileGenerator<T, C> {
      * Will not generate pom.xml if set to true
      */
     private final boolean noPom;
+    /**
+     * Will not generate the service stubs if set to true
+     */
+    private final boolean noStub;
 
     private CodeFileGenerator(CodeTemplateEngine<T, C> codeTemplateEngine,
                               List<CodeTemplate<T>> codeTemplates,
                               TemplateContextProvider<C> templateContextProvider,
-                              boolean noPom) {
+                              boolean noPom,
+                              boolean noStub) {
         this.codeTemplateEngine = codeTemplateEngine;
         this.codeTemplates = codeTemplates;
         this.templateContextProvider = templateContextProvider;
         this.noPom = noPom;
+        this.noStub = noStub;
     }
 
     /**
@@ -87,12 +93,17 @@ public class CodeFileGenerator<T, C> {
             if (noPom && template.getCodeType() == CodeType.POM_XML) {
                 return;
             }
+            // stubs are only consumed by the tRPC runtime
+            if (template.getCodeType().isStub() && (noStub || protocol != Protocol.TRPC)) {
+                return;
+            }
             if (template.getCodeScope() == CodeScope.GLOBAL) {
                 writeCodeTo(outputPath.resolve(template.getCodeFilename()),
                         generateCode(template, baseContext, ImmutableMap.of("sourceInfo", sourceInfo)));
             } else if (template.getCodeScope() == CodeScope.SERVICE) {
                 sourceInfo.getServices().forEach(service -> {
-                    if (template.getCodeType() == CodeType.STREAM_API && !service.hasStreamingMethod()) {
+                    if ((template.getCodeType() == CodeType.STREAM_API
+                            || template.getCodeType() == CodeType.STREAM_API_STUB) && !service.hasStreamingMethod()) {
                         return;
                     }
                     writeCodeTo(getServiceCodeFilePath(service, template, outputPath),
@@ -165,6 +176,7 @@ public class CodeFileGenerator<T, C> {
         private List<CodeTemplate<T>> codeTemplates = Collections.emptyList();
         private TemplateContextProvider<C> templateContextProvider;
         private boolean noPom;
+        private boolean noStub;
 
         private CodeFileGeneratorBuilder() {
         }
@@ -202,6 +214,14 @@ public class CodeFileGenerator<T, C> {
             return this;
         }
 
+        /**
+         * Will not generate the service stubs if set to true
+         */
+        public CodeFileGeneratorBuilder<T, C> noStub(boolean noStub) {
+            this.noStub = noStub;
+            return this;
+        }
+
         /**
          * Build {@link CodeFileGenerator}
          */
@@ -212,7 +232,8 @@ public class CodeFileGenerator<T, C> {
             if (templateContextProvider == null) {
                 throw new IllegalArgumentException("templateContextProvider must not be null");
             }
-            return new CodeFileGenerator<>(codeTemplateEngine, codeTemplates, templateContextProvider, noPom);
+            return new CodeFileGenerator<>(codeTemplateEngine, codeTemplates, templateContextProvider, noPom,
+                    noStub);
         }
     }
 }
@@ -27,6 +27,18 @@ public enum CodeType {
      * Stream API interface
      */
     STREAM_API,
+    /**
+     * Generated stub (method table, dispatcher and client) of the standard API interface
+     */
+    API_STUB,
+    /**
+     * Generated stub (method table, dispatcher and client) of the async API interface
+     */
+    ASYNC_API_STUB,
+    /**
+     * Generated stub (method table, dispatcher and client) of the stream API interface
+     */
+    STREAM_API_STUB,
     /**
      * pom.xml
      */
@@ -34,5 +46,14 @@ public enum CodeType {
     /**
      * User custom
      */
-    CUSTOM
+    CUSTOM;
+
+    /**
+     * Whether the code is a generated stub used by the tRPC runtime in place of reflection
+     *
+     * @return true if it is one of the stub types
+     */
+    public boolean isStub() {
+        return this == API_STUB || this == ASYNC_API_STUB || this == STREAM_API_STUB;
+    }
 }
@@ -41,6 +41,11 @@ public class DefaultCodeTemplates {
                 new CodeTemplateInfo("API.java", CodeType.API, CodeScope.SERVICE, "%sAPI.java"),
                 new CodeTemplateInfo("AsyncAPI.java", CodeType.ASYNC_API, CodeScope.SERVICE, "%sAsyncAPI.java"),
                 new CodeTemplateInfo("StreamAPI.java", CodeType.STREAM_API, CodeScope.SERVICE, "%sStreamAPI.java"),
+                new CodeTemplateInfo("APIStub.java", CodeType.API_STUB, CodeScope.SERVICE, "%sAPIStub.java"),
+                new CodeTemplateInfo("AsyncAPIStub.java", CodeType.ASYNC_API_STUB, CodeScope.SERVICE,
+                        "%sAsyncAPIStub.java"),
+                new CodeTemplateInfo("StreamAPIStub.java", CodeType.STREAM_API_STUB, CodeScope.SERVICE,
+                        "%sStreamAPIStub.java"),
                 new CodeTemplateInfo("pom.xml", CodeType.POM_XML, CodeScope.GLOBAL, "pom.xml")
         );
         codeTemplates = resources.stream()
@@ -0,0 +1,125 @@
+<#if service.javaPackage?has_content>
+  <#assign package = service.javaPackage>
+<#else>
+  <#assign package = service.packageName>
+</#if>
+<#assign apiName = service.interfaceNamePrefix + "StreamAPI">
+<#function constName method>
+  <#return "METHOD_" + method.name?replace("([a-z0-9])([A-Z])", "$1_$2", "r")?upper_case>
+</#function>
+<#function invokeMode method>
+  <#if method.clientStreaming>
+    <#return method.serverStreaming?then("DUPLEX_STREAM", "CLIENT_STREAM")>
+  </#if>
+  <#return method.serverStreaming?then("SERVER_STREAM", "SYNC")>
+</#function>
+<#function requestType method>
+  <#return method.clientStreaming?then("Publisher<" + method.inputType.name + ">", method.inputType.name)>
+</#function>
+<#function responseType method>
+  <#return method.serverStreaming?then("Flux", "Mono") + "<" + method.outputType.name + ">">
+</#function>
+<#function javaName method>
+  <#return method.name[0]?c_lower_case + method.name[1..]>
+</#function>
+package ${package?c_lower_case};
+
+import com.tencent.trpc.core.rpc.InvokeMode;
+import com.tencent.trpc.core.rpc.RpcContext;
+import com.tencent.trpc.core.rpc.stub.MethodDescriptor;
+import com.tencent.trpc.core.rpc.stub.ServiceDescriptor;
+import com.tencent.trpc.core.rpc.stub.ServiceDispatcher;
+import com.tencent.trpc.core.rpc.stub.ServiceStub;
+import com.tencent.trpc.core.rpc.stub.StubInvoker;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+<#list service.messageTypes as name, msgType>
+  <#if msgType.javaPackage?has_content>
+    <#assign msgPackage = msgType.javaPackage>
+  <#else>
+    <#assign msgPackage = msgType.packageName>
+  </#if>
+  <#if msgType.multipleClasses>
+    <#assign msgClass = msgType.name?cap_first>
+  <#elseif msgType.javaOuterClass?has_content>
+    <#assign msgClass = msgType.javaOuterClass + '.' + msgType.name?cap_first>
+  <#else>
+    <#assign msgClass = msgType.fallbackClassname + '.' + msgType.name?cap_first>
+  </#if>
+import ${msgPackage?c_lower_case}.${msgClass};
+</#list>
+
+/**
+ * Generated by trpc-java-codegen
+ * <p>Method table, server dispatcher and client of {@link ${apiName}}, used by the tRPC runtime in place of
+ * reflection and dynamic proxies.</p>
+ */
+public final class ${apiName}Stub implements ServiceStub<${apiName}> {
+<#list service.methods as method>
+
+    public static final MethodDescriptor ${constName(method)} = MethodDescriptor.builder()
+            .index(${method?index})
+            .rpcMethodName("${method.name}")
+  <#if method.alias?has_content>
+            .aliases("${method.alias}")
+  </#if>
+            .javaMethodName("${javaName(method)}")
+            .invokeMode(InvokeMode.${invokeMode(method)})
+            .requestType(${method.inputType.name}.class, ${method.inputType.name}.getDefaultInstance())
+            .responseType(${method.outputType.name}.class, ${method.outputType.name}.getDefaultInstance())
+            .build();
+</#list>
+
+    public static final ServiceDescriptor DESCRIPTOR = new ServiceDescriptor(${apiName}.class,
+            "${service.packageName}.${service.name}"<#list service.methods as method>,
+            ${constName(method)}</#list>);
+
+    private static final ServiceDispatcher<${apiName}> DISPATCHER = ${apiName}Stub::dispatch;
+
+    @Override
+    public ServiceDescriptor getDescriptor() {
+        return DESCRIPTOR;
+    }
+
+    @Override
+    public ServiceDispatcher<${apiName}> getDispatcher() {
+        return DISPATCHER;
+    }
+
+    @Override
+    public ${apiName} newClient(StubInvoker invoker) {
+        return new Client(invoker);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object dispatch(${apiName} service, MethodDescriptor method, RpcContext context,
+            Object[] arguments) {
+        switch (method.getIndex()) {
+<#list service.methods as method>
+            case ${method?index}:
+                return service.${javaName(method)}(context, (${requestType(method)}) arguments[0]);
+</#list>
+            default:
+                throw new IllegalArgumentException("unknown method " + method);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static final class Client implements ${apiName} {
+
+        private final StubInvoker invoker;
+
+        private Client(StubInvoker invoker) {
+            this.invoker = invoker;
+        }
+<#list service.methods as method>
+
+        @Override
+        public ${responseType(method)} ${javaName(method)}(RpcContext context, ${requestType(method)} request) {
+            return (${responseType(method)}) invoker.invoke(${constName(method)}, context, request);
+        }
+</#list>
+    }
+}
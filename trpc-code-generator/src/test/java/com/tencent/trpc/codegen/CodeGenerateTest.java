@@ -23,16 +23,33 @@ import com.tencent.trpc.codegen.template.CodeType;
 import com.tencent.trpc.codegen.template.DefaultCodeTemplates;
 import com.tencent.trpc.codegen.template.FreeMarkerContextProvider;
 import com.tencent.trpc.codegen.template.FreeMarkerStringTemplateEngine;
+import com.tencent.trpc.core.rpc.stub.MethodDescriptor;
+import com.tencent.trpc.core.rpc.stub.ServiceDescriptor;
+import com.tencent.trpc.core.rpc.stub.ServiceStub;
+import com.tencent.trpc.core.rpc.stub.ServiceStubs;
+import java.io.File;
 import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
 import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
 
 public class CodeGenerateTest {
@@ -56,6 +73,10 @@ public class CodeGenerateTest {
                 DigestUtils.md5Hex(Files.readAllBytes(java.resolve("GreeterAsyncAPI.java"))));
         Assert.assertEquals("9caa57d08d0b3fcb9d617ac8d8d135e5",
                 DigestUtils.md5Hex(Files.readAllBytes(java.resolve("GreeterService.java"))));
+        Assert.assertEquals("a5501666db77a51397092fb5eec2820d",
+                DigestUtils.md5Hex(Files.readAllBytes(java.resolve("GreeterAPIStub.java"))));
+        Assert.assertEquals("c823c5f08d6fd960022e6b5ac9c38aac",
+                DigestUtils.md5Hex(Files.readAllBytes(java.resolve("GreeterAsyncAPIStub.java"))));
     }
 
     /**
@@ -92,6 +113,59 @@ public class CodeGenerateTest {
                 DigestUtils.md5Hex(Files.readAllBytes(java.resolve("GreeterStreamAPI.java"))));
         Assert.assertEquals("2eb8ad08c973e8cb107cc596db1709b1",
                 DigestUtils.md5Hex(Files.readAllBytes(java.resolve("GreeterService.java"))));
+        Assert.assertEquals("b7d13241e33129936e04b90544640c2d",
+                DigestUtils.md5Hex(Files.readAllBytes(java.resolve("GreeterAPIStub.java"))));
+        Assert.assertEquals("910d2ed2612e4afd6eba398dd5e40df1",
+                DigestUtils.md5Hex(Files.readAllBytes(java.resolve("GreeterAsyncAPIStub.java"))));
+        Assert.assertEquals("b3c0f6ece643cfd30df80f55224ce530",
+                DigestUtils.md5Hex(Files.readAllBytes(java.resolve("GreeterStreamAPIStub.java"))));
+    }
+
+    /**
+     * Run code-generation with protocol TRPC on src/test/resources/TEST-2, then compile the generated sources
+     * and load the generated stubs through {@link ServiceStubs}
+     * <p></p>Case: generated stubs compile against trpc-core and describe every rpc method
+     */
+    @Test
+    public void testTRpcStubCompile() throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assume.assumeNotNull(compiler);
+        Path outPath = Paths.get("target", "generated-sources", "trpc-stub").toAbsolutePath();
+        Path classesPath = Paths.get("target", "trpc-stub-classes").toAbsolutePath();
+        FileUtils.deleteDirectory(outPath.toFile());
+        FileUtils.deleteDirectory(classesPath.toFile());
+        Files.createDirectories(classesPath);
+        TRpcCodeGenerator.builder()
+                .codeFileGenerator(CodeFileGenerator.createDefault())
+                .protocol(Protocol.TRPC)
+                .language(Language.JAVA)
+                .protoc(new Protoc(protocExecutable))
+                .protoPath(rootPath.resolve("TEST-2"))
+                .outPath(outPath)
+                .build()
+                .generateCode();
+        List<File> sources;
+        try (Stream<Path> paths = Files.walk(outPath)) {
+            sources = paths.filter(path -> path.toString().endsWith(".java"))
+                    .map(Path::toFile)
+                    .collect(Collectors.toList());
+        }
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null)) {
+            boolean success = compiler.getTask(null, fileManager, diagnostics,
+                    Arrays.asList("-classpath", System.getProperty("java.class.path"),
+                            "-d", classesPath.toString()),
+                    null, fileManager.getJavaFileObjectsFromFiles(sources)).call();
+            Assert.assertTrue(diagnostics.getDiagnostics().toString(), success);
+        }
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{classesPath.toUri().toURL()},
+                getClass().getClassLoader())) {
+            String pkg = "com.tencent.trpc.codegen.test.";
+            assertStub(classLoader.loadClass(pkg + "GreeterAPI"));
+            assertStub(classLoader.loadClass(pkg + "GreeterAsyncAPI"));
+            assertStub(classLoader.loadClass(pkg + "GreeterStreamAPI"));
+        }
     }
 
     /**
@@ -415,6 +489,20 @@ public class CodeGenerateTest {
                 .generateCode();
     }
 
+    private void assertStub(Class<?> serviceInterface) {
+        ServiceStub<?> stub = ServiceStubs.lookup(serviceInterface);
+        Assert.assertNotNull(stub);
+        ServiceDescriptor descriptor = stub.getDescriptor();
+        Assert.assertSame(serviceInterface, descriptor.getServiceInterface());
+        Assert.assertEquals("trpc.exp.helloworld.Greeter", descriptor.getRpcServiceName());
+        Assert.assertEquals(4, descriptor.getMethods().size());
+        for (String rpcMethodName : Arrays.asList("SayHello", "SayHello2", "SayHello3", "SayHello4")) {
+            MethodDescriptor method = descriptor.getMethod(rpcMethodName);
+            Assert.assertNotNull(rpcMethodName, method);
+            Assert.assertSame(method, descriptor.getMethod(method.getMethod()));
+        }
+    }
+
     private Path getOutputBasePath() {
         return Paths.get("target", "generated-sources", "trpc").toAbsolutePath();
     }
@@ -21,9 +21,13 @@ import com.tencent.trpc.core.rpc.CallInfo;
 import com.tencent.trpc.core.rpc.Request;
 import com.tencent.trpc.core.rpc.Response;
 import com.tencent.trpc.core.rpc.RpcClientContext;
+import com.tencent.trpc.core.rpc.RpcContext;
 import com.tencent.trpc.core.rpc.RpcInvocation;
+import com.tencent.trpc.core.rpc.common.MethodRouterKey;
 import com.tencent.trpc.core.rpc.common.RpcMethodInfo;
 import com.tencent.trpc.core.rpc.def.LeftTimeout;
+import com.tencent.trpc.core.rpc.stub.MethodDescriptor;
+import com.tencent.trpc.core.rpc.stub.StubInvoker;
 import com.tencent.trpc.core.utils.RpcUtils;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
@@ -37,8 +41,9 @@ import org.apache.commons.lang3.StringUtils;
  * Mainly abstracts the common process part of standard and streaming services.
  * Validate local method -> check parameters -> build RpcInvocation -> validate timeout -> build Request ->
  * send request -> parse response.
+ * Serves both the dynamic proxy and the generated client stub, which passes the precomputed method information.
  */
-public abstract class AbstractClusterInvocationHandler implements InvocationHandler {
+public abstract class AbstractClusterInvocationHandler implements InvocationHandler, StubInvoker {
 
     protected final ClusterInvoker<?> invoker;
 
@@ -58,7 +63,17 @@ public abstract class AbstractClusterInvocationHandler implements InvocationHand
             return invokeLocal(method, args);
         }
         validateArgs(method, args);
-        RpcInvocation rpcInvocation = buildRpcInvocation(method, args);
+        return doInvoke(buildRpcInvocation(method, args), args);
+    }
+
+    @Override
+    public Object invoke(MethodDescriptor method, RpcContext context, Object request) {
+        Object[] args = new Object[]{context, request};
+        validateArgs(method.getMethod(), args);
+        return doInvoke(buildRpcInvocation(method, args), args);
+    }
+
+    private Object doInvoke(RpcInvocation rpcInvocation, Object[] args) {
         LeftTimeout leftTimeout = validateTimeout(rpcInvocation, args);
         Request request = buildRequest(leftTimeout, rpcInvocation, args);
         CompletionStage<Response> response = invoker.invoke(request);
@@ -104,6 +119,42 @@ public abstract class AbstractClusterInvocationHandler implements InvocationHand
         return invocation;
     }
 
+    /**
+     * Build RpcInvocation from the method of a generated client stub.
+     * Names set in the context still take precedence, as they do for the dynamic proxy.
+     *
+     * @param method the method descriptor
+     * @param args parameters
+     * @return RpcInvocation
+     */
+    protected RpcInvocation buildRpcInvocation(MethodDescriptor method, Object[] args) {
+        RpcClientContext ctx = (RpcClientContext) args[0];
+        String rpcServiceName = ctx.getRpcServiceName();
+        String rpcMethodName = ctx.getRpcMethodName();
+        RpcInvocation invocation = new RpcInvocation();
+        if (StringUtils.isBlank(rpcServiceName) && StringUtils.isBlank(rpcMethodName)) {
+            invocation.setRpcServiceName(method.getRpcServiceName());
+            invocation.setRpcMethodName(method.getRpcMethodName());
+            invocation.setFunc(method.getFunc());
+        } else {
+            rpcServiceName = StringUtils.isNotBlank(rpcServiceName) ? rpcServiceName : method.getRpcServiceName();
+            rpcMethodName = StringUtils.isNotBlank(rpcMethodName) ? rpcMethodName : method.getRpcMethodName();
+            invocation.setRpcServiceName(rpcServiceName);
+            invocation.setRpcMethodName(rpcMethodName);
+            invocation.setFunc(MethodRouterKey.toFunc(rpcServiceName, rpcMethodName));
+        }
+        String rpcMethodAlias = ctx.getRpcMethodAlias();
+        if (StringUtils.isBlank(rpcMethodAlias) && method.getAliases().length > 0) {
+            rpcMethodAlias = method.getAliases()[0];
+        }
+        if (StringUtils.isNotBlank(rpcMethodAlias)) {
+            invocation.setFunc(rpcMethodAlias);
+        }
+        invocation.setRpcMethodInfo(method.getMethodInfo());
+        invocation.setArguments(getActualArgs(args));
+        return invocation;
+    }
+
     /**
      * Get the actual parameter types.
      *
@@ -32,6 +32,7 @@ import com.tencent.trpc.core.rpc.Response;
 import com.tencent.trpc.core.rpc.RpcClient;
 import com.tencent.trpc.core.selector.SelectorManager;
 import com.tencent.trpc.core.selector.ServiceInstance;
+import com.tencent.trpc.core.selector.ServiceInstanceInflight;
 import com.tencent.trpc.core.selector.spi.Selector;
 import com.tencent.trpc.core.utils.FutureUtils;
 import com.tencent.trpc.core.utils.RpcUtils;
@@ -39,6 +40,7 @@ import com.tencent.trpc.core.utils.TimerUtil;
 import java.util.Optional;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 public class DefClusterInvoker<T> extends AbstractClusterInvoker<T> {
@@ -152,6 +154,11 @@ public class DefClusterInvoker<T> extends AbstractClusterInvoker<T> {
 
         private RpcClient client;
 
+        /**
+         * Requests in flight to the instance, obtained on the first invocation
+         */
+        private volatile AtomicInteger inflight;
+
         ConsumerInvokerProxy(ConsumerInvoker<T> invoker, RpcClient client) {
             this.invoker = invoker;
             this.client = client;
@@ -172,7 +179,21 @@ public class DefClusterInvoker<T> extends AbstractClusterInvoker<T> {
             TimerUtil timer = TimerUtil.newInstance();
             timer.start();
             fillCallInfo(request, serviceInstance);
-            return invoker.invoke(request).whenComplete((r, t) -> {
+            AtomicInteger counter = inflight;
+            if (counter == null) {
+                inflight = counter = ServiceInstanceInflight.counter(serviceInstance);
+            }
+            AtomicInteger inflightCounter = counter;
+            inflightCounter.incrementAndGet();
+            CompletionStage<Response> response;
+            try {
+                response = invoker.invoke(request);
+            } catch (RuntimeException ex) {
+                inflightCounter.decrementAndGet();
+                throw ex;
+            }
+            return response.whenComplete((r, t) -> {
+                inflightCounter.decrementAndGet();
                 timer.end();
                 Throwable e = ExceptionHelper.parseResponseException(r, t);
                 if (e != null) {
@@ -218,7 +239,8 @@ public class DefClusterInvoker<T> extends AbstractClusterInvoker<T> {
             String selectorId = backendConfig.getNamingOptions().getSelectorId();
             try {
                 Selector selector = SelectorManager.getManager().get(selectorId);
-                Optional.ofNullable(selector).ifPresent(s -> s.report(serviceInstance, code, costMs));
+                Optional.ofNullable(selector).ifPresent(s -> s.report(backendConfig.toNamingServiceId(), serviceInstance,
+                        code, costMs));
                 if (logger.isDebugEnabled()) {
                     ConsumerConfig<T> config = invoker.getConfig();
                     logger.debug("Service [name=" + config.getServiceInterface().getName() + ", naming="
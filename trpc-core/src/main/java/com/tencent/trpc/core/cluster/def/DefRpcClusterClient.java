@@ -15,6 +15,8 @@ import com.tencent.trpc.core.cluster.AbstractRpcClusterClient;
 import com.tencent.trpc.core.cluster.ClusterInterceptorInvoker;
 import com.tencent.trpc.core.common.config.BackendConfig;
 import com.tencent.trpc.core.common.config.ConsumerConfig;
+import com.tencent.trpc.core.rpc.stub.ServiceStub;
+import com.tencent.trpc.core.rpc.stub.ServiceStubs;
 
 public class DefRpcClusterClient extends AbstractRpcClusterClient {
 
@@ -23,7 +25,7 @@ public class DefRpcClusterClient extends AbstractRpcClusterClient {
     }
 
     /**
-     * New proxy instance
+     * New proxy instance, the generated client stub of the interface is preferred over a dynamic proxy
      *
      * @param config consumer config
      * @param clazz Class
@@ -32,7 +34,9 @@ public class DefRpcClusterClient extends AbstractRpcClusterClient {
     public <T> ProxyWrapper<T> newProxyWrapper(ConsumerConfig<T> config, Class<T> clazz) {
         DefClusterInvokerMockWrapper<T> mockClusterInvoker = new DefClusterInvokerMockWrapper<>(
                 new ClusterInterceptorInvoker<>(new DefClusterInvoker<>(config)));
-        T proxy = proxyFactory.getProxy(clazz, new DefClusterInvocationHandler(mockClusterInvoker));
+        DefClusterInvocationHandler handler = new DefClusterInvocationHandler(mockClusterInvoker);
+        ServiceStub<T> stub = ServiceStubs.lookup(clazz);
+        T proxy = stub != null ? stub.newClient(handler) : proxyFactory.getProxy(clazz, handler);
         return new ProxyWrapper<>(mockClusterInvoker, proxy);
     }
 
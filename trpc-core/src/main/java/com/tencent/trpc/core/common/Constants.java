@@ -213,6 +213,11 @@ public class Constants {
      */
     public static final String METADATA = "metadata";
 
+    /**
+     * Key of the naming service name of the instances being routed, put to the request value map by the selector
+     */
+    public static final String ROUTE_SERVICE = "route_service";
+
     /**
      * TRPC service serviceId format prefix
      */
@@ -19,6 +19,8 @@ import com.tencent.trpc.core.common.config.annotation.ConfigProperty;
 import com.tencent.trpc.core.common.config.constant.ConfigConstants;
 import com.tencent.trpc.core.logger.Logger;
 import com.tencent.trpc.core.logger.LoggerFactory;
+import com.tencent.trpc.core.metrics.EventLoopStats;
+import com.tencent.trpc.core.metrics.RpcLatencyStats;
 import com.tencent.trpc.core.utils.BinderUtils;
 import com.tencent.trpc.core.worker.WorkerPoolManager;
 import java.util.Collections;
@@ -72,6 +74,24 @@ public class ClientConfig extends BaseProtocolConfig {
     @ConfigProperty(value = WorkerPoolManager.DEF_CONSUMER_WORKER_POOL_NAME)
     protected String workerPool;
 
+    /**
+     * Whether to record the latency of the requests to each backend, see {@link RpcLatencyStats}.
+     */
+    @ConfigProperty(value = "false", type = Boolean.class)
+    protected Boolean enableLatencyStats;
+
+    /**
+     * Whether to also report the latency to the monitoring systems when the latency stats are enabled.
+     */
+    @ConfigProperty(value = "false", type = Boolean.class)
+    protected Boolean enableLatencyMetrics;
+
+    /**
+     * Whether to probe the IO event loops of the client transports for lag and stalls, see {@link EventLoopStats}.
+     */
+    @ConfigProperty(value = "false", type = Boolean.class)
+    protected Boolean enableEventLoopMonitor;
+
     /**
      * BackendConfig mapping.
      */
@@ -117,6 +137,9 @@ public class ClientConfig extends BaseProtocolConfig {
         if (!initialized) {
             logger.info(">>>Starting init clientConfig");
             setDefault();
+            RpcLatencyStats.configureCaller(Boolean.TRUE.equals(enableLatencyStats),
+                    Boolean.TRUE.equals(enableLatencyMetrics));
+            EventLoopStats.configureClient(Boolean.TRUE.equals(enableEventLoopMonitor));
             backendConfigMap.values().forEach(BackendConfig::init);
             logger.info(">>>Started init clientConfig");
             initialized = true;
@@ -240,6 +263,33 @@ public class ClientConfig extends BaseProtocolConfig {
         this.proxyType = proxyType;
     }
 
+    public Boolean getEnableLatencyStats() {
+        return enableLatencyStats;
+    }
+
+    public void setEnableLatencyStats(Boolean enableLatencyStats) {
+        checkFiledModifyPrivilege();
+        this.enableLatencyStats = enableLatencyStats;
+    }
+
+    public Boolean getEnableLatencyMetrics() {
+        return enableLatencyMetrics;
+    }
+
+    public void setEnableLatencyMetrics(Boolean enableLatencyMetrics) {
+        checkFiledModifyPrivilege();
+        this.enableLatencyMetrics = enableLatencyMetrics;
+    }
+
+    public Boolean getEnableEventLoopMonitor() {
+        return enableEventLoopMonitor;
+    }
+
+    public void setEnableEventLoopMonitor(Boolean enableEventLoopMonitor) {
+        checkFiledModifyPrivilege();
+        this.enableEventLoopMonitor = enableEventLoopMonitor;
+    }
+
     public boolean isSetDefault() {
         return setDefault;
     }
@@ -22,6 +22,9 @@ import com.tencent.trpc.core.common.config.constant.ConfigConstants;
 import com.tencent.trpc.core.container.spi.ServerListener;
 import com.tencent.trpc.core.logger.Logger;
 import com.tencent.trpc.core.logger.LoggerFactory;
+import com.tencent.trpc.core.metrics.EventLoopStats;
+import com.tencent.trpc.core.metrics.RequestStageStats;
+import com.tencent.trpc.core.metrics.RpcLatencyStats;
 import com.tencent.trpc.core.rpc.RpcServerManager;
 import com.tencent.trpc.core.utils.BinderUtils;
 import com.tencent.trpc.core.utils.NetUtils;
@@ -83,6 +86,47 @@ public class ServerConfig {
     protected Boolean disableDefaultFilter;
     @ConfigProperty
     protected List<String> filters = Lists.newArrayList();
+    /**
+     * Whether to record the per-stage latency of the requests, see {@link RequestStageStats}.
+     */
+    @ConfigProperty(value = "false", type = Boolean.class)
+    protected Boolean enableStageStats;
+    /**
+     * Requests slower than this are logged with their stage breakdown when the stage stats are enabled,
+     * 0 to disable.
+     */
+    @ConfigProperty(value = "0", type = Long.class)
+    protected long slowRequestThresholdMills;
+    /**
+     * Max number of slow requests logged per second.
+     */
+    @ConfigProperty(value = "10", type = Integer.class)
+    protected int slowRequestLogLimit;
+    /**
+     * Whether to record the latency of the requests to each service, see {@link RpcLatencyStats}.
+     */
+    @ConfigProperty(value = "false", type = Boolean.class)
+    protected Boolean enableLatencyStats;
+    /**
+     * Whether to also report the latency to the monitoring systems when the latency stats are enabled.
+     */
+    @ConfigProperty(value = "false", type = Boolean.class)
+    protected Boolean enableLatencyMetrics;
+    /**
+     * Whether to probe the IO event loops of the transports for lag and stalls, see {@link EventLoopStats}.
+     */
+    @ConfigProperty(value = "false", type = Boolean.class)
+    protected Boolean enableEventLoopMonitor;
+    /**
+     * Interval between two probes of an event loop.
+     */
+    @ConfigProperty(value = "1000", type = Long.class)
+    protected long eventLoopProbeIntervalMills;
+    /**
+     * An event loop probe waiting longer than this is a stall, logged with the stack trace of the loop thread.
+     */
+    @ConfigProperty(value = "1000", type = Long.class)
+    protected long eventLoopStallThresholdMills;
     /**
      * Timeout duration to close the service.
      */
@@ -146,6 +190,12 @@ public class ServerConfig {
                 Preconditions.checkArgument(StringUtils.isNotBlank(localIp),
                         "serverConfig,localIp is null");
                 // Initialize
+                RequestStageStats.configure(Boolean.TRUE.equals(enableStageStats), slowRequestThresholdMills,
+                        slowRequestLogLimit);
+                RpcLatencyStats.configureCallee(Boolean.TRUE.equals(enableLatencyStats),
+                        Boolean.TRUE.equals(enableLatencyMetrics));
+                EventLoopStats.configure(Boolean.TRUE.equals(enableEventLoopMonitor), eventLoopProbeIntervalMills,
+                        eventLoopStallThresholdMills);
                 serviceMap.values().forEach(ServiceConfig::init);
                 // Start business listeners
                 serverListeners.forEach(v -> {
@@ -209,6 +259,78 @@ public class ServerConfig {
         this.enableLinkTimeout = enableLinkTimeout;
     }
 
+    public Boolean getEnableStageStats() {
+        return enableStageStats;
+    }
+
+    public void setEnableStageStats(Boolean enableStageStats) {
+        checkFiledModifyPrivilege();
+        this.enableStageStats = enableStageStats;
+    }
+
+    public long getSlowRequestThresholdMills() {
+        return slowRequestThresholdMills;
+    }
+
+    public void setSlowRequestThresholdMills(long slowRequestThresholdMills) {
+        checkFiledModifyPrivilege();
+        this.slowRequestThresholdMills = slowRequestThresholdMills;
+    }
+
+    public int getSlowRequestLogLimit() {
+        return slowRequestLogLimit;
+    }
+
+    public void setSlowRequestLogLimit(int slowRequestLogLimit) {
+        checkFiledModifyPrivilege();
+        this.slowRequestLogLimit = slowRequestLogLimit;
+    }
+
+    public Boolean getEnableLatencyStats() {
+        return enableLatencyStats;
+    }
+
+    public void setEnableLatencyStats(Boolean enableLatencyStats) {
+        checkFiledModifyPrivilege();
+        this.enableLatencyStats = enableLatencyStats;
+    }
+
+    public Boolean getEnableLatencyMetrics() {
+        return enableLatencyMetrics;
+    }
+
+    public void setEnableLatencyMetrics(Boolean enableLatencyMetrics) {
+        checkFiledModifyPrivilege();
+        this.enableLatencyMetrics = enableLatencyMetrics;
+    }
+
+    public Boolean getEnableEventLoopMonitor() {
+        return enableEventLoopMonitor;
+    }
+
+    public void setEnableEventLoopMonitor(Boolean enableEventLoopMonitor) {
+        checkFiledModifyPrivilege();
+        this.enableEventLoopMonitor = enableEventLoopMonitor;
+    }
+
+    public long getEventLoopProbeIntervalMills() {
+        return eventLoopProbeIntervalMills;
+    }
+
+    public void setEventLoopProbeIntervalMills(long eventLoopProbeIntervalMills) {
+        checkFiledModifyPrivilege();
+        this.eventLoopProbeIntervalMills = eventLoopProbeIntervalMills;
+    }
+
+    public long getEventLoopStallThresholdMills() {
+        return eventLoopStallThresholdMills;
+    }
+
+    public void setEventLoopStallThresholdMills(long eventLoopStallThresholdMills) {
+        checkFiledModifyPrivilege();
+        this.eventLoopStallThresholdMills = eventLoopStallThresholdMills;
+    }
+
     protected void initAdmin() {
         if (adminConfig != null && adminConfig.getAdminPort() != 0) {
             this.adminService = AdminServiceManager.getManager().getDefaultExtension();
@@ -28,12 +28,14 @@ import com.tencent.trpc.core.registry.RegisterInfo;
 import com.tencent.trpc.core.registry.spi.Registry;
 import com.tencent.trpc.core.rpc.RpcServer;
 import com.tencent.trpc.core.rpc.RpcServerManager;
+import com.tencent.trpc.core.rpc.common.MethodRouterKey;
 import com.tencent.trpc.core.rpc.def.DefProviderInvoker;
 import com.tencent.trpc.core.utils.BinderUtils;
 import com.tencent.trpc.core.utils.NetUtils;
 import com.tencent.trpc.core.utils.PreconditionUtils;
 import com.tencent.trpc.core.utils.RpcUtils;
 import com.tencent.trpc.core.worker.WorkerPoolManager;
+import com.tencent.trpc.core.worker.bulkhead.BulkheadConfig;
 import com.tencent.trpc.core.worker.spi.WorkerPool;
 import java.util.Collections;
 import java.util.HashMap;
@@ -144,6 +146,15 @@ public class ServiceConfig extends BaseProtocolConfig {
      */
     @ConfigProperty(value = "false", type = Boolean.class, override = true)
     protected Boolean enableLinkTimeout;
+    /**
+     * Per-method bulkhead configuration, see {@link BulkheadConfig}.
+     */
+    @ConfigProperty
+    protected List<Map<String, Object>> bulkheads;
+    /**
+     * Parsed bulkhead configurations.
+     */
+    protected List<BulkheadConfig> bulkheadConfigs = Collections.emptyList();
 
     protected AtomicBoolean setDefault = new AtomicBoolean(Boolean.FALSE);
     protected AtomicBoolean initialized = new AtomicBoolean(Boolean.FALSE);
@@ -182,6 +193,7 @@ public class ServiceConfig extends BaseProtocolConfig {
             setDefault();
             initFilterConfig();
             initWorkerPool();
+            initBulkheadConfig();
             providerConfigs.forEach(ProviderConfig::init);
             checkAndSetProtocolType();
             initRegistryConfig();
@@ -283,6 +295,18 @@ public class ServiceConfig extends BaseProtocolConfig {
         Objects.requireNonNull(workerPoolObj, "Not found worker pool with name <" + workerPool + ">");
     }
 
+    protected void initBulkheadConfig() {
+        if (CollectionUtils.isNotEmpty(bulkheads)) {
+            bulkheadConfigs = Lists.newArrayListWithExpectedSize(bulkheads.size());
+            bulkheads.forEach(map -> {
+                BulkheadConfig config = BulkheadConfig.parse(map);
+                config.validate();
+                Optional.ofNullable(config.getWorkerPool()).ifPresent(WorkerPoolManager::validate);
+                bulkheadConfigs.add(config);
+            });
+        }
+    }
+
     protected void initRegistryConfig() {
         if (MapUtils.isNotEmpty(registries)) {
             registryConfigs = Lists.newArrayListWithExpectedSize(registries.size());
@@ -422,7 +446,8 @@ public class ServiceConfig extends BaseProtocolConfig {
                 + ", lazyinit="
                 + lazyinit + ", ioMode=" + ioMode + ", ioThreadGroupShare=" + ioThreadGroupShare
                 + ", ioThreads=" + ioThreads + ", workerPool=" + workerPool + ", requestTimeout="
-                + requestTimeout + ", filters=" + filters + ", extMap=" + extMap + ", address=" + address
+                + requestTimeout + ", filters=" + filters + ", bulkheads=" + bulkheads + ", extMap=" + extMap
+                + ", address=" + address
                 + ", setDefault="
                 + setDefault + ", inited=" + initialized + ", exported=" + exported + ", registed="
                 + registered
@@ -581,6 +606,34 @@ public class ServiceConfig extends BaseProtocolConfig {
         return workerPoolObj;
     }
 
+    public List<Map<String, Object>> getBulkheads() {
+        return bulkheads;
+    }
+
+    public void setBulkheads(List<Map<String, Object>> bulkheads) {
+        checkFiledModifyPrivilege();
+        this.bulkheads = bulkheads;
+    }
+
+    public List<BulkheadConfig> getBulkheadConfigs() {
+        return bulkheadConfigs;
+    }
+
+    /**
+     * Get the bulkhead configuration of the method.
+     *
+     * @param methodRouterKey method route key
+     * @return bulkhead configuration, null if the method has no bulkhead
+     */
+    public BulkheadConfig getBulkheadConfig(MethodRouterKey methodRouterKey) {
+        for (BulkheadConfig config : bulkheadConfigs) {
+            if (config.matches(methodRouterKey)) {
+                return config;
+            }
+        }
+        return null;
+    }
+
     @Override
     public Integer getIdleTimeout() {
         return idleTimeout;
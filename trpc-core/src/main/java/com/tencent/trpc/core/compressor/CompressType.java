@@ -19,4 +19,6 @@ public class CompressType {
 
     public static final int SNAPPY = 2;
 
+    public static final int ZLIB = 3;
+
 }
\ No newline at end of file
@@ -12,6 +12,7 @@
 package com.tencent.trpc.core.compressor.spi;
 
 import com.tencent.trpc.core.extension.Extensible;
+import io.netty.buffer.ByteBuf;
 import java.io.IOException;
 
 @Extensible
@@ -19,6 +20,23 @@ public interface Compressor {
 
     byte[] compress(byte[] src) throws IOException;
 
+    /**
+     * Compress the readable bytes of a netty buffer into another one, the input is consumed and the output written
+     * from its writer index.
+     *
+     * <p>The default implementation goes through arrays, the implementations able to compress buffers should
+     * override this method.</p>
+     *
+     * @param in the bytes to compress
+     * @param out the buffer to write the compressed bytes to
+     * @throws IOException if the compression fails
+     */
+    default void compress(ByteBuf in, ByteBuf out) throws IOException {
+        byte[] src = new byte[in.readableBytes()];
+        in.readBytes(src);
+        out.writeBytes(compress(src));
+    }
+
     byte[] decompress(byte[] src) throws IOException;
 
     /**
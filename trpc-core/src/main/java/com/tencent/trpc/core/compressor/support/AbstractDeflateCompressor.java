@@ -0,0 +1,430 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.compressor.support;
+
+import com.tencent.trpc.core.compressor.spi.Compressor;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.FastThreadLocal;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * DEFLATE compressors in the gzip (RFC 1952) or the zlib (RFC 1950) format.
+ *
+ * <p>Each thread reuses its own {@link Deflater} and {@link Inflater}, reset between the calls, instead of creating
+ * native zlib streams per call which are only freed by finalization. The compressed bytes are written straight to
+ * the output with room for the worst case, and the decompressed bytes to an array sized from the uncompressed size
+ * of the gzip trailer, so that the result is usually returned without a copy. The trailer is sent by the peer, so
+ * it is only trusted up to a bound of the compressed size, past which the array grows as the data is inflated.</p>
+ */
+public abstract class AbstractDeflateCompressor implements Compressor {
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int GZIP_HEADER_SIZE = 10;
+    private static final int GZIP_TRAILER_SIZE = 8;
+    private static final byte[] GZIP_HEADER = {(byte) GZIP_MAGIC, (byte) (GZIP_MAGIC >> 8), Deflater.DEFLATED,
+            0, 0, 0, 0, 0, 0, 0};
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+    /**
+     * The uncompressed size in the gzip trailer is trusted up to this ratio of the compressed size, or up to
+     * {@link #MAX_TRUSTED_SIZE}, whichever is larger. A larger result is grown as the data is actually inflated.
+     */
+    private static final int MAX_TRUSTED_RATIO = 4;
+    private static final int MAX_TRUSTED_SIZE = 256 * 1024;
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private static final FastThreadLocal<Context> GZIP_CONTEXT = new FastThreadLocal<Context>() {
+        @Override
+        protected Context initialValue() {
+            return new Context(true);
+        }
+
+        @Override
+        protected void onRemoval(Context context) {
+            context.end();
+        }
+    };
+
+    private static final FastThreadLocal<Context> ZLIB_CONTEXT = new FastThreadLocal<Context>() {
+        @Override
+        protected Context initialValue() {
+            return new Context(false);
+        }
+
+        @Override
+        protected void onRemoval(Context context) {
+            context.end();
+        }
+    };
+
+    /**
+     * Whether in the gzip format, otherwise the zlib one.
+     */
+    private final boolean gzip;
+
+    protected AbstractDeflateCompressor(boolean gzip) {
+        this.gzip = gzip;
+    }
+
+    @Override
+    public byte[] compress(byte[] src) throws IOException {
+        if (src == null || src.length == 0) {
+            return src;
+        }
+        Context context = context();
+        byte[] out = context.output(maxCompressedLength(src.length));
+        int n = 0;
+        if (gzip) {
+            System.arraycopy(GZIP_HEADER, 0, out, 0, GZIP_HEADER_SIZE);
+            n = GZIP_HEADER_SIZE;
+            context.crc.update(src, 0, src.length);
+        }
+        Deflater deflater = context.deflater;
+        deflater.setInput(src, 0, src.length);
+        deflater.finish();
+        while (!deflater.finished()) {
+            if (n == out.length) {
+                out = Arrays.copyOf(out, grow(out.length, n + 1));
+            }
+            n += deflater.deflate(out, n, out.length - n);
+        }
+        if (gzip) {
+            if (out.length - n < GZIP_TRAILER_SIZE) {
+                out = Arrays.copyOf(out, n + GZIP_TRAILER_SIZE);
+            }
+            writeTrailer(out, n, context.crc.getValue(), src.length);
+            n += GZIP_TRAILER_SIZE;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    @Override
+    public void compress(ByteBuf in, ByteBuf out) throws IOException {
+        int length = in.readableBytes();
+        if (length == 0) {
+            return;
+        }
+        Context context = context();
+        Deflater deflater = context.deflater;
+        out.ensureWritable(maxCompressedLength(length));
+        if (gzip) {
+            out.writeBytes(GZIP_HEADER);
+        }
+        if (in.hasArray()) {
+            int offset = in.arrayOffset() + in.readerIndex();
+            if (gzip) {
+                context.crc.update(in.array(), offset, length);
+            }
+            deflater.setInput(in.array(), offset, length);
+            in.skipBytes(length);
+            deflate(context, out, false);
+        } else {
+            byte[] chunk = context.chunk;
+            while (in.isReadable()) {
+                int n = Math.min(chunk.length, in.readableBytes());
+                in.readBytes(chunk, 0, n);
+                if (gzip) {
+                    context.crc.update(chunk, 0, n);
+                }
+                deflater.setInput(chunk, 0, n);
+                deflate(context, out, false);
+            }
+        }
+        deflater.finish();
+        deflate(context, out, true);
+        if (gzip) {
+            out.writeIntLE((int) context.crc.getValue());
+            out.writeIntLE(length);
+        }
+    }
+
+    @Override
+    public byte[] decompress(byte[] src) throws IOException {
+        if (src == null || src.length == 0) {
+            return src;
+        }
+        Context context = context();
+        if (!gzip) {
+            context.result = new byte[(int) Math.min(MAX_ARRAY_SIZE, Math.max(256, 4L * src.length))];
+            context.inflater.setInput(src, 0, src.length);
+            return context.takeResult(inflate(context, 0));
+        }
+        context.result = new byte[uncompressedSizeHint(src)];
+        int n = 0;
+        int offset = 0;
+        do {
+            offset = readHeader(src, offset);
+            context.inflater.reset();
+            context.crc.reset();
+            context.inflater.setInput(src, offset, src.length - offset);
+            int start = n;
+            n = inflate(context, n);
+            offset = src.length - context.inflater.getRemaining();
+            if (src.length - offset < GZIP_TRAILER_SIZE) {
+                throw new EOFException("Unexpected end of gzip trailer");
+            }
+            if (readIntLE(src, offset) != (int) context.crc.getValue()
+                    || readIntLE(src, offset + 4) != n - start) {
+                throw new ZipException("Corrupt GZIP trailer");
+            }
+            offset += GZIP_TRAILER_SIZE;
+            // concatenated members are read as GZIPInputStream does, trailing bytes are ignored
+        } while (src.length - offset >= GZIP_HEADER_SIZE && readShortLE(src, offset) == GZIP_MAGIC);
+        return context.takeResult(n);
+    }
+
+    private Context context() {
+        Context context = gzip ? GZIP_CONTEXT.get() : ZLIB_CONTEXT.get();
+        context.reset();
+        return context;
+    }
+
+    /**
+     * Deflate the pending input of the deflater into the buffer, growing it when full.
+     *
+     * @param finish whether the input is finished, and so deflated until the end of the compressed data
+     */
+    private static void deflate(Context context, ByteBuf out, boolean finish) {
+        Deflater deflater = context.deflater;
+        while (finish ? !deflater.finished() : !deflater.needsInput()) {
+            if (!out.isWritable()) {
+                out.ensureWritable(Context.CHUNK_SIZE);
+            }
+            int n;
+            if (out.hasArray()) {
+                n = deflater.deflate(out.array(), out.arrayOffset() + out.writerIndex(), out.writableBytes());
+                out.writerIndex(out.writerIndex() + n);
+            } else {
+                // the chunk may be the input, the output goes through the pooled output
+                byte[] buffer = context.output(Context.CHUNK_SIZE);
+                n = deflater.deflate(buffer);
+                out.writeBytes(buffer, 0, n);
+            }
+        }
+    }
+
+    /**
+     * Inflate the input of the inflater into {@link Context#result} from the offset, until the end of the
+     * compressed data.
+     *
+     * <p>The result is filled first, and only grown if the inflater still has output once it is full, which is
+     * inflated into the chunk to be found out.</p>
+     *
+     * @return the result offset after the inflated bytes
+     */
+    private int inflate(Context context, int offset) throws IOException {
+        Inflater inflater = context.inflater;
+        byte[] out = context.result;
+        try {
+            while (!inflater.finished()) {
+                int n;
+                if (offset < out.length) {
+                    n = inflater.inflate(out, offset, out.length - offset);
+                } else {
+                    n = inflater.inflate(context.chunk);
+                    if (n > 0) {
+                        out = Arrays.copyOf(out, grow(out.length, offset + n));
+                        System.arraycopy(context.chunk, 0, out, offset, n);
+                    }
+                }
+                if (n == 0) {
+                    if (inflater.needsDictionary()) {
+                        throw new ZipException("Unexpected preset dictionary");
+                    }
+                    if (inflater.needsInput()) {
+                        throw new EOFException("Unexpected end of ZLIB input stream");
+                    }
+                }
+                if (gzip) {
+                    context.crc.update(out, offset, n);
+                }
+                offset += n;
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException(e.getMessage());
+        } finally {
+            context.result = out;
+        }
+        return offset;
+    }
+
+    /**
+     * The bound of the compressed size, as compressBound of zlib with room for the gzip header and trailer.
+     */
+    private static int maxCompressedLength(int length) {
+        long bound = (long) length + (length >> 12) + (length >> 14) + (length >> 25) + 13
+                + GZIP_HEADER_SIZE + GZIP_TRAILER_SIZE;
+        return (int) Math.min(bound, MAX_ARRAY_SIZE);
+    }
+
+    private static int uncompressedSizeHint(byte[] src) {
+        if (src.length < GZIP_HEADER_SIZE + GZIP_TRAILER_SIZE) {
+            return 0;
+        }
+        long size = readIntLE(src, src.length - 4) & 0xFFFFFFFFL;
+        long trusted = Math.max(MAX_TRUSTED_SIZE, (long) src.length * MAX_TRUSTED_RATIO);
+        return (int) Math.min(size, Math.min(MAX_ARRAY_SIZE, trusted));
+    }
+
+    private static int grow(int length, int minLength) {
+        return (int) Math.min(MAX_ARRAY_SIZE, Math.max(minLength, 2L * length));
+    }
+
+    /**
+     * Skip the gzip header, checked as GZIPInputStream does.
+     *
+     * @return the offset of the compressed data
+     */
+    private static int readHeader(byte[] src, int offset) throws IOException {
+        if (src.length - offset < GZIP_HEADER_SIZE) {
+            throw new EOFException("Unexpected end of gzip header");
+        }
+        if (readShortLE(src, offset) != GZIP_MAGIC) {
+            throw new ZipException("Not in GZIP format");
+        }
+        if (src[offset + 2] != Deflater.DEFLATED) {
+            throw new ZipException("Unsupported compression method");
+        }
+        int flags = src[offset + 3] & 0xFF;
+        int pos = offset + GZIP_HEADER_SIZE;
+        if ((flags & FEXTRA) != 0) {
+            checkHeaderBytes(src, pos, 2);
+            pos += 2 + readShortLE(src, pos);
+        }
+        if ((flags & FNAME) != 0) {
+            pos = skipZeroTerminated(src, pos);
+        }
+        if ((flags & FCOMMENT) != 0) {
+            pos = skipZeroTerminated(src, pos);
+        }
+        if ((flags & FHCRC) != 0) {
+            checkHeaderBytes(src, pos, 2);
+            CRC32 crc = new CRC32();
+            crc.update(src, offset, pos - offset);
+            if (readShortLE(src, pos) != ((int) crc.getValue() & 0xFFFF)) {
+                throw new ZipException("Corrupt GZIP header");
+            }
+            pos += 2;
+        }
+        checkHeaderBytes(src, pos, 0);
+        return pos;
+    }
+
+    private static int skipZeroTerminated(byte[] src, int pos) throws IOException {
+        while (pos < src.length && src[pos] != 0) {
+            pos++;
+        }
+        checkHeaderBytes(src, pos, 1);
+        return pos + 1;
+    }
+
+    private static void checkHeaderBytes(byte[] src, int pos, int length) throws IOException {
+        if (pos + length > src.length) {
+            throw new EOFException("Unexpected end of gzip header");
+        }
+    }
+
+    private static void writeTrailer(byte[] out, int offset, long crc, int length) {
+        writeIntLE(out, offset, (int) crc);
+        writeIntLE(out, offset + 4, length);
+    }
+
+    private static int readShortLE(byte[] src, int offset) {
+        return (src[offset] & 0xFF) | (src[offset + 1] & 0xFF) << 8;
+    }
+
+    private static int readIntLE(byte[] src, int offset) {
+        return readShortLE(src, offset) | readShortLE(src, offset + 2) << 16;
+    }
+
+    private static void writeIntLE(byte[] out, int offset, int value) {
+        out[offset] = (byte) value;
+        out[offset + 1] = (byte) (value >> 8);
+        out[offset + 2] = (byte) (value >> 16);
+        out[offset + 3] = (byte) (value >> 24);
+    }
+
+    /**
+     * The zlib streams and buffers of a thread.
+     */
+    private static class Context {
+
+        /**
+         * Chunk of the input read from direct buffers, and of the output past the sized result.
+         */
+        private static final int CHUNK_SIZE = 8192;
+        /**
+         * The pooled compression output is not kept above this size, so that a thread holds at most this much per
+         * format, larger outputs are allocated per call.
+         */
+        private static final int MAX_POOLED_SIZE = 128 * 1024;
+
+        private final Deflater deflater;
+        private final Inflater inflater;
+        private final CRC32 crc = new CRC32();
+        private final byte[] chunk = new byte[CHUNK_SIZE];
+        private byte[] output = new byte[CHUNK_SIZE];
+        /**
+         * The output of the last inflate, which may have been grown.
+         */
+        private byte[] result;
+
+        Context(boolean nowrap) {
+            this.deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap);
+            this.inflater = new Inflater(nowrap);
+        }
+
+        /**
+         * Get the pooled output with the size at least, a larger one is not pooled.
+         */
+        byte[] output(int size) {
+            if (size > MAX_POOLED_SIZE) {
+                return new byte[size];
+            }
+            if (output.length < size) {
+                output = new byte[Math.max(size, Math.min(MAX_POOLED_SIZE, 2 * output.length))];
+            }
+            return output;
+        }
+
+        /**
+         * Take the result of the inflation, trimmed to its length.
+         */
+        byte[] takeResult(int length) {
+            byte[] taken = result;
+            result = null;
+            return taken.length == length ? taken : Arrays.copyOf(taken, length);
+        }
+
+        void reset() {
+            deflater.reset();
+            inflater.reset();
+            crc.reset();
+            result = null;
+        }
+
+        void end() {
+            deflater.end();
+            inflater.end();
+        }
+    }
+
+}
@@ -12,46 +12,19 @@
 package com.tencent.trpc.core.compressor.support;
 
 import com.tencent.trpc.core.compressor.CompressType;
-import com.tencent.trpc.core.compressor.spi.Compressor;
 import com.tencent.trpc.core.extension.Extension;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
+/**
+ * Gzip compressor, the same format as {@link java.util.zip.GZIPOutputStream} with the zlib streams reused by
+ * thread.
+ */
 @Extension(GZipCompressor.NAME)
-public class GZipCompressor implements Compressor {
+public class GZipCompressor extends AbstractDeflateCompressor {
 
     public static final String NAME = "gzip";
 
-    @Override
-    public byte[] compress(byte[] src) throws IOException {
-        if (src == null || src.length == 0) {
-            return src;
-        }
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
-            gzip.write(src);
-        }
-        return out.toByteArray();
-    }
-
-    @Override
-    public byte[] decompress(byte[] src) throws IOException {
-        if (src == null || src.length == 0) {
-            return src;
-        }
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        ByteArrayInputStream in = new ByteArrayInputStream(src);
-        try (GZIPInputStream ungzip = new GZIPInputStream(in)) {
-            byte[] buffer = new byte[2048];
-            int n;
-            while ((n = ungzip.read(buffer)) >= 0) {
-                out.write(buffer, 0, n);
-            }
-            return out.toByteArray();
-        }
+    public GZipCompressor() {
+        super(true);
     }
 
     @Override
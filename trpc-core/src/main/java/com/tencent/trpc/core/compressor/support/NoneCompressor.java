@@ -14,6 +14,7 @@ package com.tencent.trpc.core.compressor.support;
 import com.tencent.trpc.core.compressor.CompressType;
 import com.tencent.trpc.core.compressor.spi.Compressor;
 import com.tencent.trpc.core.extension.Extension;
+import io.netty.buffer.ByteBuf;
 import java.io.IOException;
 
 @Extension(NoneCompressor.NAME)
@@ -26,6 +27,11 @@ public class NoneCompressor implements Compressor {
         return src;
     }
 
+    @Override
+    public void compress(ByteBuf in, ByteBuf out) {
+        out.writeBytes(in);
+    }
+
     @Override
     public byte[] decompress(byte[] src) throws IOException {
         return src;
@@ -14,6 +14,7 @@ package com.tencent.trpc.core.compressor.support;
 import com.tencent.trpc.core.compressor.CompressType;
 import com.tencent.trpc.core.compressor.spi.Compressor;
 import com.tencent.trpc.core.extension.Extension;
+import io.netty.buffer.ByteBuf;
 import java.io.IOException;
 import org.xerial.snappy.Snappy;
 
@@ -30,6 +31,23 @@ public class SnappyCompressor implements Compressor {
         return Snappy.compress(src);
     }
 
+    /**
+     * Compress between direct buffers without copying them, other buffers go through arrays.
+     */
+    @Override
+    public void compress(ByteBuf in, ByteBuf out) throws IOException {
+        int length = in.readableBytes();
+        int maxLength = Snappy.maxCompressedLength(length);
+        out.ensureWritable(maxLength);
+        if (!in.isDirect() || !out.isDirect() || in.nioBufferCount() != 1 || out.nioBufferCount() != 1) {
+            Compressor.super.compress(in, out);
+            return;
+        }
+        int n = Snappy.compress(in.nioBuffer(), out.nioBuffer(out.writerIndex(), maxLength));
+        in.skipBytes(length);
+        out.writerIndex(out.writerIndex() + n);
+    }
+
     @Override
     public byte[] decompress(byte[] src) throws IOException {
         if (src == null) {
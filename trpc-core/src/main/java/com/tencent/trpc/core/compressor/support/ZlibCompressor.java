@@ -0,0 +1,40 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.compressor.support;
+
+import com.tencent.trpc.core.compressor.CompressType;
+import com.tencent.trpc.core.extension.Extension;
+
+/**
+ * Zlib compressor, the same format as {@link java.util.zip.DeflaterOutputStream} with the zlib streams reused by
+ * thread.
+ */
+@Extension(ZlibCompressor.NAME)
+public class ZlibCompressor extends AbstractDeflateCompressor {
+
+    public static final String NAME = "zlib";
+
+    public ZlibCompressor() {
+        super(false);
+    }
+
+    @Override
+    public int type() {
+        return CompressType.ZLIB;
+    }
+
+    @Override
+    public String name() {
+        return ZlibCompressor.NAME;
+    }
+
+}
\ No newline at end of file
@@ -11,9 +11,11 @@
 
 package com.tencent.trpc.core.filter;
 
+import com.tencent.trpc.core.common.config.BackendConfig;
 import com.tencent.trpc.core.filter.spi.Filter;
 import com.tencent.trpc.core.logger.Logger;
 import com.tencent.trpc.core.logger.LoggerFactory;
+import com.tencent.trpc.core.metrics.RpcLatencyStats;
 import com.tencent.trpc.core.rpc.ConsumerInvoker;
 import com.tencent.trpc.core.rpc.Invoker;
 import com.tencent.trpc.core.rpc.Request;
@@ -26,6 +28,7 @@ import com.tencent.trpc.core.utils.RpcContextUtils;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Used for setting the context and request pre-information before the chain call.
@@ -49,9 +52,19 @@ public class ConsumerInvokerHeadFilter implements Filter {
         prepareRequestInfoBeforeInvoke(request, consumerInvoker);
         contextWithRemoteCalleeAddr(context, request);
         startLog(context, request);
+        BackendConfig backendConfig = consumerInvoker.getConfig().getBackendConfig();
+        RpcLatencyStats.Recorder latencyRecorder = !RpcLatencyStats.isCallerEnabled() || backendConfig == null
+                || backendConfig.getName() == null ? null
+                : RpcLatencyStats.caller(backendConfig.getName()).bind(request.getInvocation().getFunc());
+        long startNanos = System.nanoTime();
         CompletableFuture<Response> future = invoker.invoke(request).toCompletableFuture();
-        if (logger.isDebugEnabled()) {
-            future.whenComplete((rsp, t) -> endLog(context, request, rsp, t));
+        if (latencyRecorder != null || logger.isDebugEnabled()) {
+            future.whenComplete((rsp, t) -> {
+                endLog(context, request, rsp, t);
+                if (latencyRecorder != null) {
+                    latencyRecorder.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+                }
+            });
         }
         // after the RPC call is completed, copy the response to ClientContext for business use.
         return future.thenApply(r -> {
@@ -14,9 +14,13 @@ package com.tencent.trpc.core.filter;
 import com.tencent.trpc.core.common.ConfigManager;
 import com.tencent.trpc.core.common.config.GlobalConfig;
 import com.tencent.trpc.core.common.config.ServerConfig;
+import com.tencent.trpc.core.common.config.ServiceConfig;
 import com.tencent.trpc.core.filter.spi.Filter;
 import com.tencent.trpc.core.logger.Logger;
 import com.tencent.trpc.core.logger.LoggerFactory;
+import com.tencent.trpc.core.metrics.RequestStageTimer;
+import com.tencent.trpc.core.metrics.RequestStageTimer.Stage;
+import com.tencent.trpc.core.metrics.RpcLatencyStats;
 import com.tencent.trpc.core.rpc.CallInfo;
 import com.tencent.trpc.core.rpc.Invoker;
 import com.tencent.trpc.core.rpc.ProviderInvoker;
@@ -32,6 +36,7 @@ import com.tencent.trpc.core.utils.RpcContextUtils;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.lang3.StringUtils;
 
 /**
@@ -50,13 +55,24 @@ public class ProviderInvokerHeadFilter implements Filter {
     @SuppressWarnings("rawtypes")
     @Override
     public CompletionStage<Response> filter(Invoker<?> invoker, Request request) {
+        RequestStageTimer.mark(request, Stage.FILTER);
         RpcServerContext serverContext = (RpcServerContext) (request.getContext());
         prepareRequestInfoBeforeInvoke(request, (ProviderInvoker) invoker);
         contextWithRemoteCallerAddr(serverContext, request);
         startLog(serverContext, request);
+        ServiceConfig serviceConfig = ((ProviderInvoker) invoker).getConfig().getServiceConfig();
+        RpcLatencyStats.Recorder latencyRecorder = !RpcLatencyStats.isCalleeEnabled() || serviceConfig == null
+                || serviceConfig.getName() == null ? null
+                : RpcLatencyStats.callee(serviceConfig.getName()).bind(request.getInvocation().getFunc());
+        long startNanos = System.nanoTime();
         CompletableFuture<Response> future = invoker.invoke(request).toCompletableFuture();
-        if (logger.isDebugEnabled()) {
-            future.whenComplete((rsp, t) -> endLog(serverContext, request, rsp, t));
+        if (latencyRecorder != null || logger.isDebugEnabled()) {
+            future.whenComplete((rsp, t) -> {
+                endLog(serverContext, request, rsp, t);
+                if (latencyRecorder != null) {
+                    latencyRecorder.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+                }
+            });
         }
         return future;
     }
@@ -87,6 +103,9 @@ public class ProviderInvokerHeadFilter implements Filter {
     }
 
     private void endLog(RpcContext context, Request request, Response response, Throwable ex) {
+        if (!logger.isDebugEnabled()) {
+            return;
+        }
         logger.debug("<<<Provider filter end, rpcServiceName={}, rpcMethodName={}, context({}), "
                         + "request({}), response({}), exception({})",
                 request.getInvocation().getRpcServiceName(),
@@ -12,6 +12,8 @@
 package com.tencent.trpc.core.filter;
 
 import com.tencent.trpc.core.filter.spi.Filter;
+import com.tencent.trpc.core.metrics.RequestStageTimer;
+import com.tencent.trpc.core.metrics.RequestStageTimer.Stage;
 import com.tencent.trpc.core.rpc.Invoker;
 import com.tencent.trpc.core.rpc.Request;
 import com.tencent.trpc.core.rpc.RequestMeta;
@@ -39,6 +41,7 @@ public class ProviderInvokerTailFilter implements Filter {
     public CompletionStage<Response> filter(Invoker<?> invoker, Request request) {
         RpcServerContext serverContext = (RpcServerContext) (request.getContext());
         prepareServerContext(serverContext, request);
+        RequestStageTimer.mark(request, Stage.INVOKE);
         CompletableFuture<Response> future = invoker.invoke(request).toCompletableFuture();
         // copy to the attachMap of the response after the real method call.
         return future.thenApply(r -> {
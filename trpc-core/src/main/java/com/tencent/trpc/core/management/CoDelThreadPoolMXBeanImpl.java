@@ -0,0 +1,53 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+
+package com.tencent.trpc.core.management;
+
+import com.tencent.trpc.core.worker.queue.CoDelBlockingQueue;
+import java.util.Objects;
+import java.util.concurrent.ThreadPoolExecutor;
+
+public class CoDelThreadPoolMXBeanImpl extends ThreadPoolMXBeanImpl implements CoDelThreadPoolMXBean {
+
+    private final CoDelBlockingQueue queue;
+
+    public CoDelThreadPoolMXBeanImpl(ThreadPoolExecutor threadPool, CoDelBlockingQueue queue) {
+        super(threadPool);
+        this.queue = Objects.requireNonNull(queue, "queue is null");
+    }
+
+    @Override
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    @Override
+    public boolean isOverloaded() {
+        return queue.isOverloaded();
+    }
+
+    @Override
+    public long getMinSojournTimeMicros() {
+        return queue.getMinSojournTimeMicros();
+    }
+
+    @Override
+    public long getAvgSojournTimeMicros() {
+        return queue.getAvgSojournTimeMicros();
+    }
+
+    @Override
+    public long getDroppedTaskCount() {
+        return queue.getDroppedCount();
+    }
+
+}
@@ -0,0 +1,34 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.metrics;
+
+/**
+ * A {@link Counter} bound to a fixed set of label values, obtained once by {@link Counter#bind(String...)} and kept
+ * by the caller, so that the label values need not be passed and resolved on every call.
+ */
+public interface BoundCounter {
+
+    /**
+     * The counter self-increasing by 1
+     */
+    default void incr() {
+        incr(1);
+    }
+
+    /**
+     * The counter is self-increasing by n, and n is the input parameter
+     *
+     * @param value numeric value, can be negative
+     */
+    void incr(double value);
+
+}
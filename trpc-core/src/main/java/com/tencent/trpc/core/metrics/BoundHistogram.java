@@ -0,0 +1,27 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.metrics;
+
+/**
+ * A {@link Histogram} bound to a fixed set of label values, obtained once by {@link Histogram#bind(String...)} and
+ * kept by the caller.
+ */
+public interface BoundHistogram {
+
+    /**
+     * Record a monitoring data
+     *
+     * @param value specific values
+     */
+    void record(double value);
+
+}
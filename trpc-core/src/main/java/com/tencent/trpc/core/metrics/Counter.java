@@ -46,4 +46,24 @@ public interface Counter extends Metric {
      */
     void incr(double value, String... labelValues);
 
+    /**
+     * Bind the label values, the returned handle records with them without resolving the metric again, it is
+     * meant to be obtained once and kept by the caller, e.g. per caller/callee/method.
+     *
+     * @param labelValues Tag value, consistent in order and number with the tag names of the {@code Counter}
+     * @return the bound {@code Counter}
+     */
+    default BoundCounter bind(String... labelValues) {
+        return value -> incr(value, labelValues);
+    }
+
+    /**
+     * Release the series of the label values once their bound handle is dropped, e.g. for a remote address that is
+     * gone, so the monitoring systems stop reporting it. Nothing is released by default.
+     *
+     * @param labelValues Tag value, consistent in order and number with the tag names of the {@code Counter}
+     */
+    default void unbind(String... labelValues) {
+    }
+
 }
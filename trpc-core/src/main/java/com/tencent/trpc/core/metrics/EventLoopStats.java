@@ -0,0 +1,259 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.metrics;
+
+import com.tencent.trpc.core.logger.Logger;
+import com.tencent.trpc.core.logger.LoggerFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Health of an IO event loop, probed by the transport which periodically schedules a no-op task on the loop and
+ * measures how long it waits to run.
+ * <p>Disabled by default, enabled by {@code server.enable_event_loop_monitor} for the server loops and by
+ * {@code client.enable_event_loop_monitor} for the client loops. Nothing is registered and no probe runs for the
+ * loops of a disabled side. A probe still waiting after {@code server.event_loop_stall_threshold_mills} is a stall, it is logged with the stack trace of the loop thread,
+ * which usually shows the blocking call.</p>
+ * <p>The lag and the pending tasks are reported to the configured monitoring systems through {@link Metrics} as
+ * {@value #LAG_METRIC} and {@value #PENDING_TASKS_METRIC}, the stalls as {@value #STALL_METRIC}, all labeled by group
+ * and loop.</p>
+ */
+public class EventLoopStats {
+
+    /**
+     * Name of the scheduling lag gauge reported to {@link Metrics}, in milliseconds.
+     */
+    public static final String LAG_METRIC = "trpc.eventloop.lag";
+    /**
+     * Name of the pending tasks gauge reported to {@link Metrics}.
+     */
+    public static final String PENDING_TASKS_METRIC = "trpc.eventloop.pending_tasks";
+    /**
+     * Name of the stall counter reported to {@link Metrics}.
+     */
+    public static final String STALL_METRIC = "trpc.eventloop.stalls";
+
+    private static final Logger logger = LoggerFactory.getLogger(EventLoopStats.class);
+
+    private static final Map<String, EventLoopStats> LOOP_STATS = new ConcurrentHashMap<>();
+
+    private static volatile boolean enabled;
+    private static volatile boolean clientEnabled;
+    private static volatile long probeIntervalMills = 1000;
+    private static volatile long stallThresholdMills = 1000;
+
+    private final String group;
+    private final String loop;
+    private final int ioRatio;
+    private final BoundGauge lagGauge;
+    private final BoundGauge pendingTasksGauge;
+    private final BoundCounter stallCounter;
+    private volatile String threadName;
+    private volatile long lagMicros;
+    private volatile long maxLagMicros;
+    private volatile int pendingTasks;
+    private final AtomicLong stallCount = new AtomicLong();
+    private volatile long lastStallTime;
+    private volatile long lastStallMicros;
+    private volatile String lastStallStack;
+
+    private EventLoopStats(String group, String loop, int ioRatio) {
+        this.group = group;
+        this.loop = loop;
+        this.ioRatio = ioRatio;
+        this.lagGauge = Metrics.gauge(LAG_METRIC, "group", "loop").bind(group, loop);
+        this.pendingTasksGauge = Metrics.gauge(PENDING_TASKS_METRIC, "group", "loop").bind(group, loop);
+        this.stallCounter = Metrics.counter(STALL_METRIC, "group", "loop").bind(group, loop);
+    }
+
+    /**
+     * Configure the event loop monitor.
+     *
+     * @param enable whether to probe the event loops
+     * @param intervalMills interval between two probes of a loop
+     * @param thresholdMills a probe waiting longer than this is a stall
+     */
+    public static void configure(boolean enable, long intervalMills, long thresholdMills) {
+        probeIntervalMills = intervalMills > 0 ? intervalMills : 1000;
+        stallThresholdMills = thresholdMills > 0 ? thresholdMills : 1000;
+        enabled = enable;
+    }
+
+    /**
+     * Enable or disable the monitor of the client event loops, which share the probe interval and the stall
+     * threshold with the server event loops.
+     *
+     * @param enable whether to probe the client event loops
+     */
+    public static void configureClient(boolean enable) {
+        clientEnabled = enable;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static boolean isClientEnabled() {
+        return clientEnabled;
+    }
+
+    public static long getProbeIntervalMills() {
+        return probeIntervalMills;
+    }
+
+    public static long getStallThresholdMills() {
+        return stallThresholdMills;
+    }
+
+    /**
+     * Register the stats of an event loop, called by the transports only when the monitor of their side is enabled.
+     *
+     * @param group name of the event loop group, unique in the process
+     * @param loop name of the loop in the group
+     * @param ioRatio configured percentage of the loop time spent on IO, -1 if unknown
+     * @return the stats
+     */
+    public static EventLoopStats register(String group, String loop, int ioRatio) {
+        EventLoopStats stats = new EventLoopStats(Objects.requireNonNull(group, "group"),
+                Objects.requireNonNull(loop, "loop"), ioRatio);
+        LOOP_STATS.put(stats.getName(), stats);
+        return stats;
+    }
+
+    public static void unregister(EventLoopStats stats) {
+        LOOP_STATS.remove(stats.getName(), stats);
+    }
+
+    /**
+     * Get the stats of all the monitored event loops.
+     *
+     * @return stats keyed by {@link #getName()}
+     */
+    public static Map<String, EventLoopStats> getLoopStats() {
+        return Collections.unmodifiableMap(LOOP_STATS);
+    }
+
+    /**
+     * For Test purpose
+     */
+    public static void reset() {
+        LOOP_STATS.clear();
+        configure(false, 0, 0);
+        configureClient(false);
+    }
+
+    /**
+     * Record a probe run on the loop.
+     *
+     * @param thread the loop thread
+     * @param lagNanos how long the probe waited to run
+     * @param pendingTasks number of tasks waiting on the loop, -1 if unknown
+     */
+    public void recordProbe(Thread thread, long lagNanos, int pendingTasks) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(lagNanos);
+        this.threadName = thread.getName();
+        this.lagMicros = micros;
+        if (micros > maxLagMicros) {
+            maxLagMicros = micros;
+        }
+        this.pendingTasks = pendingTasks;
+        lagGauge.set(micros / 1000.0);
+        pendingTasksGauge.set(pendingTasks);
+    }
+
+    /**
+     * Record a stall of the loop, called once for each stalled probe.
+     *
+     * @param stallNanos how long the probe has been waiting
+     * @param stackTrace stack trace of the loop thread, null if the thread is not known yet
+     */
+    public void recordStall(long stallNanos, StackTraceElement[] stackTrace) {
+        stallCount.incrementAndGet();
+        lastStallTime = System.currentTimeMillis();
+        lastStallMicros = TimeUnit.NANOSECONDS.toMicros(stallNanos);
+        lastStallStack = format(stackTrace);
+        stallCounter.incr();
+        logger.warn("Event loop stalled, loop={}, thread={}, stalled={}ms, stack:\n{}", getName(), threadName,
+                TimeUnit.NANOSECONDS.toMillis(stallNanos), lastStallStack);
+    }
+
+    private static String format(StackTraceElement[] stackTrace) {
+        if (stackTrace == null) {
+            return null;
+        }
+        StringBuilder builder = new StringBuilder();
+        for (StackTraceElement element : stackTrace) {
+            builder.append("\tat ").append(element).append('\n');
+        }
+        return builder.toString();
+    }
+
+    public String getName() {
+        return group + "/" + loop;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public String getLoop() {
+        return loop;
+    }
+
+    public String getThreadName() {
+        return threadName;
+    }
+
+    public int getIoRatio() {
+        return ioRatio;
+    }
+
+    public long getLagMicros() {
+        return lagMicros;
+    }
+
+    public long getMaxLagMicros() {
+        return maxLagMicros;
+    }
+
+    public int getPendingTasks() {
+        return pendingTasks;
+    }
+
+    public long getStallCount() {
+        return stallCount.get();
+    }
+
+    public long getLastStallTime() {
+        return lastStallTime;
+    }
+
+    public long getLastStallMicros() {
+        return lastStallMicros;
+    }
+
+    public String getLastStallStack() {
+        return lastStallStack;
+    }
+
+    @Override
+    public String toString() {
+        return "EventLoopStats{" + "name=" + getName() + ", threadName=" + threadName + ", lagMicros=" + lagMicros
+                + ", maxLagMicros=" + maxLagMicros + ", pendingTasks=" + pendingTasks + ", stallCount="
+                + stallCount + '}';
+    }
+
+}
@@ -39,4 +39,15 @@ public interface Histogram extends Metric {
      */
     void record(double value, String... labelValues);
 
+    /**
+     * Bind the label values, the returned handle records with them without resolving the metric again, it is
+     * meant to be obtained once and kept by the caller, e.g. per caller/callee/method.
+     *
+     * @param labelValues Tag value, consistent in order and number with the tag names of the {@code Histogram}
+     * @return the bound {@code Histogram}
+     */
+    default BoundHistogram bind(String... labelValues) {
+        return value -> record(value, labelValues);
+    }
+
 }
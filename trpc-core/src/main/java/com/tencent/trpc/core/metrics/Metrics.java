@@ -15,8 +15,13 @@ import com.tencent.trpc.core.common.ConfigManager;
 import com.tencent.trpc.core.common.config.PluginConfig;
 import com.tencent.trpc.core.extension.ExtensionLoader;
 import com.tencent.trpc.core.metrics.spi.MetricsFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * Metrics Classes that specifically handle monitoring metrics
@@ -27,6 +32,10 @@ public class Metrics {
     private static final Map<MetricName, Gauge> GAUGES = new ConcurrentHashMap<>();
     private static final Map<MetricName, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
     private static final Map<String, MetricsFactory> METRICS_FACTORS = new ConcurrentHashMap<>();
+    /**
+     * Changed every time the factories are (re)loaded, the resolved backends of a metric are refreshed by it
+     */
+    private static final AtomicInteger FACTORIES_VERSION = new AtomicInteger();
 
     public static void init() {
         Map<String, PluginConfig> pluginConfigMap =
@@ -38,6 +47,7 @@ public class Metrics {
             METRICS_FACTORS.computeIfAbsent(entry.getKey(),
                     n -> ExtensionLoader.getExtensionLoader(MetricsFactory.class).getExtension(entry.getKey()));
         }
+        FACTORIES_VERSION.incrementAndGet();
     }
 
 
@@ -53,6 +63,10 @@ public class Metrics {
      * --> Metrics.counter("example_counter").incr(10);
      * If you want to use labels, use as the following show:
      * --> Metrics.counter("example_counter", "a").incr(10, "1");
+     * On hot paths, bind the label values once and keep the handle, recording then goes to the underlying monitoring
+     * systems directly:
+     * --> BoundCounter counter = Metrics.counter("example_counter", "a").bind("1");
+     * --> counter.incr();
      *
      * @param name the name of the counter
      * @param labelNames the label names of the counter
@@ -60,8 +74,7 @@ public class Metrics {
      */
     public static Counter counter(String name, String... labelNames) {
         MetricName mName = MetricName.build(name, labelNames);
-        return COUNTERS.computeIfAbsent(mName, n -> (value, labelValues) ->
-                METRICS_FACTORS.values().forEach(x -> x.counter(name, labelNames).incr(value, labelValues)));
+        return COUNTERS.computeIfAbsent(mName, n -> new FanOutCounter(x -> x.counter(name, labelNames)));
     }
 
     /**
@@ -80,8 +93,7 @@ public class Metrics {
      */
     public static Gauge gauge(String name, String... labelNames) {
         MetricName mName = MetricName.build(name, labelNames);
-        return GAUGES.computeIfAbsent(mName, n -> (value, labelValues) ->
-                METRICS_FACTORS.values().forEach(x -> x.gauge(name, labelNames).set(value, labelValues)));
+        return GAUGES.computeIfAbsent(mName, n -> new FanOutGauge(x -> x.gauge(name, labelNames)));
     }
 
     /**
@@ -97,12 +109,8 @@ public class Metrics {
      */
     public static Histogram histogram(String name, double[] buckets, String... labelNames) {
         MetricName mName = MetricName.build(name, labelNames);
-        return HISTOGRAMS.computeIfAbsent(mName, n -> (value, labelValues) ->
-                METRICS_FACTORS.values().forEach(x -> {
-                    Histogram histogram =
-                            labelNames == null ? x.histogram(name, buckets) : x.histogram(name, buckets, labelNames);
-                    histogram.record(value, labelValues);
-                }));
+        return HISTOGRAMS.computeIfAbsent(mName, n -> new FanOutHistogram(
+                x -> labelNames == null ? x.histogram(name, buckets) : x.histogram(name, buckets, labelNames)));
     }
 
     /**
@@ -117,8 +125,131 @@ public class Metrics {
      */
     public static Histogram histogram(String name, double... buckets) {
         MetricName mName = MetricName.build(name);
-        return HISTOGRAMS.computeIfAbsent(mName, n -> (value, labelValues) ->
-                METRICS_FACTORS.values().forEach(x -> x.histogram(name).record(value, labelValues)));
+        return HISTOGRAMS.computeIfAbsent(mName, n -> new FanOutHistogram(x -> x.histogram(name, buckets)));
+    }
+
+    /**
+     * The metrics of all the loaded factories resolved for one metric, resolved again after the factories are
+     * reloaded.
+     *
+     * @param <T> type of the resolved metric
+     */
+    private static class Backends<T> {
+
+        private final Function<MetricsFactory, T> resolver;
+        private volatile List<T> resolved = Collections.emptyList();
+        private volatile int version = -1;
+
+        Backends(Function<MetricsFactory, T> resolver) {
+            this.resolver = resolver;
+        }
+
+        List<T> get() {
+            int current = FACTORIES_VERSION.get();
+            if (version != current) {
+                List<T> metrics = new ArrayList<>(METRICS_FACTORS.size());
+                METRICS_FACTORS.values().forEach(x -> metrics.add(resolver.apply(x)));
+                resolved = metrics;
+                version = current;
+            }
+            return resolved;
+        }
+
+    }
+
+    private static class FanOutCounter implements Counter {
+
+        private final Backends<Counter> backends;
+
+        FanOutCounter(Function<MetricsFactory, Counter> resolver) {
+            this.backends = new Backends<>(resolver);
+        }
+
+        @Override
+        public void incr(double value, String... labelValues) {
+            for (Counter counter : backends.get()) {
+                counter.incr(value, labelValues);
+            }
+        }
+
+        @Override
+        public BoundCounter bind(String... labelValues) {
+            Backends<BoundCounter> bound = new Backends<>(x -> backends.resolver.apply(x).bind(labelValues));
+            return value -> {
+                for (BoundCounter counter : bound.get()) {
+                    counter.incr(value);
+                }
+            };
+        }
+
+        @Override
+        public void unbind(String... labelValues) {
+            for (Counter counter : backends.get()) {
+                counter.unbind(labelValues);
+            }
+        }
+
+    }
+
+    private static class FanOutGauge implements Gauge {
+
+        private final Backends<Gauge> backends;
+
+        FanOutGauge(Function<MetricsFactory, Gauge> resolver) {
+            this.backends = new Backends<>(resolver);
+        }
+
+        @Override
+        public void set(double value, String... labelValues) {
+            for (Gauge gauge : backends.get()) {
+                gauge.set(value, labelValues);
+            }
+        }
+
+        @Override
+        public BoundGauge bind(String... labelValues) {
+            Backends<BoundGauge> bound = new Backends<>(x -> backends.resolver.apply(x).bind(labelValues));
+            return value -> {
+                for (BoundGauge gauge : bound.get()) {
+                    gauge.set(value);
+                }
+            };
+        }
+
+        @Override
+        public void unbind(String... labelValues) {
+            for (Gauge gauge : backends.get()) {
+                gauge.unbind(labelValues);
+            }
+        }
+
+    }
+
+    private static class FanOutHistogram implements Histogram {
+
+        private final Backends<Histogram> backends;
+
+        FanOutHistogram(Function<MetricsFactory, Histogram> resolver) {
+            this.backends = new Backends<>(resolver);
+        }
+
+        @Override
+        public void record(double value, String... labelValues) {
+            for (Histogram histogram : backends.get()) {
+                histogram.record(value, labelValues);
+            }
+        }
+
+        @Override
+        public BoundHistogram bind(String... labelValues) {
+            Backends<BoundHistogram> bound = new Backends<>(x -> backends.resolver.apply(x).bind(labelValues));
+            return value -> {
+                for (BoundHistogram histogram : bound.get()) {
+                    histogram.record(value);
+                }
+            };
+        }
+
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,212 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.metrics;
+
+import com.google.protobuf.ByteString;
+import com.tencent.trpc.core.logger.Logger;
+import com.tencent.trpc.core.logger.LoggerFactory;
+import com.tencent.trpc.core.metrics.RequestStageTimer.Stage;
+import com.tencent.trpc.core.metrics.histogram.LogLinearHistogram;
+import com.tencent.trpc.core.metrics.histogram.QuantileHistogram;
+import com.tencent.trpc.core.rpc.Request;
+import com.tencent.trpc.core.rpc.RequestMeta;
+import com.tencent.trpc.core.rpc.common.FuncRouteTable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per func, per stage latency histograms of the server requests, in microseconds, see
+ * {@link RequestStageTimer.Stage} for the stages.
+ * <p>Disabled by default, enabled by {@code server.enable_stage_stats}. When enabled, the server attaches a
+ * {@link RequestStageTimer} to each decoded request, and the request is recorded here once its response is written.
+ * Requests slower than {@code server.slow_request_threshold_mills} are logged with their stage breakdown, at most
+ * {@code server.slow_request_log_limit} per second.</p>
+ * <p>Only the exported funcs are tracked on their own, the requests of any other func are recorded under
+ * {@link #UNKNOWN_FUNC}.</p>
+ */
+public class RequestStageStats {
+
+    /**
+     * Max number of funcs tracked, requests of the funcs beyond the bound are not recorded.
+     */
+    public static final int MAX_FUNC_COUNT = 1000;
+    /**
+     * Func under which the requests of the funcs not exported are recorded, so that a client sending random funcs
+     * can not take the slots of the exported ones.
+     */
+    public static final String UNKNOWN_FUNC = "unknown";
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestStageStats.class);
+
+    private static final Stage[] STAGES = Stage.values();
+    private static final Map<String, RequestStageStats> FUNC_STATS = new ConcurrentHashMap<>();
+
+    private static volatile boolean enabled;
+    private static volatile long slowRequestMicros;
+    private static volatile int slowRequestLogLimit;
+    private static final AtomicLong SLOW_LOG_SECOND = new AtomicLong();
+    private static final AtomicInteger SLOW_LOG_COUNT = new AtomicInteger();
+
+    private final String func;
+    private final QuantileHistogram total = new LogLinearHistogram();
+    /**
+     * Histograms indexed by {@link Stage#ordinal()}, without {@link Stage#WRITE_COMPLETE} which ends the request.
+     */
+    private final QuantileHistogram[] stages = new QuantileHistogram[STAGES.length - 1];
+
+    private RequestStageStats(String func) {
+        this.func = func;
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = new LogLinearHistogram();
+        }
+    }
+
+    /**
+     * Configure the stage stats.
+     *
+     * @param enable whether to record the stages of the requests
+     * @param slowRequestMills requests slower than this are logged, 0 to disable
+     * @param slowLogLimit max number of slow requests logged per second
+     */
+    public static void configure(boolean enable, long slowRequestMills, int slowLogLimit) {
+        slowRequestMicros = TimeUnit.MILLISECONDS.toMicros(slowRequestMills);
+        slowRequestLogLimit = slowLogLimit;
+        enabled = enable;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Attach a timer to the request and mark its {@link Stage#DECODE} stage, if enabled.
+     *
+     * @param request the decoded request
+     * @param decodeStartNanos nanoTime before decoding the request
+     */
+    public static void start(Request request, long decodeStartNanos) {
+        if (enabled) {
+            RequestStageTimer timer = new RequestStageTimer();
+            timer.mark(Stage.DECODE, decodeStartNanos);
+            request.getMeta().setStageTimer(timer);
+        }
+    }
+
+    /**
+     * Mark the {@link Stage#WRITE_COMPLETE} stage of the request, record its stages and log it if slow.
+     *
+     * @param request the request whose response is written
+     */
+    public static void complete(Request request) {
+        RequestMeta meta = request == null ? null : request.getMeta();
+        RequestStageTimer timer = meta == null ? null : meta.getStageTimer();
+        if (timer == null) {
+            return;
+        }
+        timer.mark(Stage.WRITE_COMPLETE);
+        meta.setStageTimer(null);
+        String func = request.getInvocation() == null ? null : request.getInvocation().getFunc();
+        if (func == null) {
+            return;
+        }
+        long[] micros = timer.getStageMicros();
+        long totalMicros = timer.getTotalMicros();
+        RequestStageStats stats = getOrCreate(func);
+        if (stats != null) {
+            stats.record(micros, totalMicros);
+        }
+        long threshold = slowRequestMicros;
+        if (threshold > 0 && totalMicros >= threshold && acquireSlowLog()) {
+            logger.warn("Slow request, func={}, requestId={}, remote={}, total={}us, stages(us)={}", func,
+                    request.getRequestId(), meta.getRemoteAddress(), totalMicros, format(micros));
+        }
+    }
+
+    public static Map<String, RequestStageStats> getFuncStats() {
+        return Collections.unmodifiableMap(FUNC_STATS);
+    }
+
+    public static void reset() {
+        FUNC_STATS.clear();
+        configure(false, 0, 0);
+    }
+
+    private static RequestStageStats getOrCreate(String func) {
+        RequestStageStats stats = FUNC_STATS.get(func);
+        if (stats != null) {
+            return stats;
+        }
+        if (FuncRouteTable.lookup(ByteString.copyFromUtf8(func)) == null) {
+            func = UNKNOWN_FUNC;
+            stats = FUNC_STATS.get(func);
+            if (stats != null) {
+                return stats;
+            }
+        }
+        if (FUNC_STATS.size() >= MAX_FUNC_COUNT) {
+            return null;
+        }
+        return FUNC_STATS.computeIfAbsent(func, RequestStageStats::new);
+    }
+
+    private static boolean acquireSlowLog() {
+        long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        long current = SLOW_LOG_SECOND.get();
+        if (second != current && SLOW_LOG_SECOND.compareAndSet(current, second)) {
+            SLOW_LOG_COUNT.set(0);
+        }
+        return SLOW_LOG_COUNT.incrementAndGet() <= slowRequestLogLimit;
+    }
+
+    private static String format(long[] micros) {
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < micros.length; i++) {
+            if (micros[i] >= 0) {
+                builder.append(builder.length() > 1 ? ", " : "").append(STAGES[i].getStageName()).append('=')
+                        .append(micros[i]);
+            }
+        }
+        return builder.append('}').toString();
+    }
+
+    private void record(long[] micros, long totalMicros) {
+        total.record(totalMicros);
+        for (int i = 0; i < stages.length; i++) {
+            if (micros[i] >= 0) {
+                stages[i].record(micros[i]);
+            }
+        }
+    }
+
+    public String getFunc() {
+        return func;
+    }
+
+    public QuantileHistogram getTotal() {
+        return total;
+    }
+
+    /**
+     * Get the histogram of a stage.
+     *
+     * @param stage the stage, except {@link Stage#WRITE_COMPLETE}
+     * @return the histogram
+     */
+    public QuantileHistogram getStage(Stage stage) {
+        return stages[stage.ordinal()];
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.metrics;
+
+import com.tencent.trpc.core.rpc.Request;
+import com.tencent.trpc.core.rpc.RequestMeta;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link System#nanoTime()} marks of a server request at each stage of its processing, attached to the
+ * {@link RequestMeta} when {@link RequestStageStats} is enabled. A stage lasts from its mark to the next present mark,
+ * so a missing mark, e.g. no worker pool queueing, is accounted to the previous stage.
+ */
+public class RequestStageTimer {
+
+    private final long[] marks = new long[Stage.values().length];
+
+    /**
+     * Mark the stage of the request if it has a timer.
+     *
+     * @param request the request
+     * @param stage the stage
+     */
+    public static void mark(Request request, Stage stage) {
+        if (request != null && request.getMeta() != null) {
+            RequestStageTimer timer = request.getMeta().getStageTimer();
+            if (timer != null) {
+                timer.mark(stage);
+            }
+        }
+    }
+
+    public void mark(Stage stage) {
+        marks[stage.ordinal()] = System.nanoTime();
+    }
+
+    public void mark(Stage stage, long nanoTime) {
+        marks[stage.ordinal()] = nanoTime;
+    }
+
+    /**
+     * Get the mark of the stage.
+     *
+     * @param stage the stage
+     * @return nanoTime of the mark, 0 if not marked
+     */
+    public long getMark(Stage stage) {
+        return marks[stage.ordinal()];
+    }
+
+    /**
+     * Get the duration of each stage, in microseconds. The duration of the stages not marked, and of
+     * {@link Stage#WRITE_COMPLETE} which ends the request, is -1.
+     *
+     * @return durations indexed by {@link Stage#ordinal()}
+     */
+    public long[] getStageMicros() {
+        long[] durations = new long[marks.length];
+        int previous = -1;
+        for (int i = 0; i < marks.length; i++) {
+            durations[i] = -1;
+            if (marks[i] == 0) {
+                continue;
+            }
+            if (previous >= 0) {
+                durations[previous] = TimeUnit.NANOSECONDS.toMicros(marks[i] - marks[previous]);
+            }
+            previous = i;
+        }
+        return durations;
+    }
+
+    /**
+     * Get the duration from the first to the last mark, in microseconds.
+     *
+     * @return total duration, 0 if less than two stages are marked
+     */
+    public long getTotalMicros() {
+        long first = 0;
+        long last = 0;
+        for (long mark : marks) {
+            if (mark != 0) {
+                first = first == 0 ? mark : first;
+                last = mark;
+            }
+        }
+        return TimeUnit.NANOSECONDS.toMicros(last - first);
+    }
+
+    /**
+     * The stages of a server request, in processing order.
+     */
+    public enum Stage {
+        /**
+         * Decoding the request frame on the IO thread, marked before decoding.
+         */
+        DECODE("decode"),
+        /**
+         * Routing the func and decoding the request body, marked before routing.
+         */
+        ROUTE("route"),
+        /**
+         * Waiting in the worker pool queue, marked before submitting to the worker pool.
+         */
+        ENQUEUE("queue"),
+        /**
+         * From leaving the queue to entering the filter chain, marked when the worker starts the task.
+         */
+        DEQUEUE("dispatch"),
+        /**
+         * The filter chain before the business method, marked in the head filter.
+         */
+        FILTER("filter"),
+        /**
+         * The business method and the filters after it, marked in the tail filter.
+         */
+        INVOKE("invoke"),
+        /**
+         * Encoding the response and flushing it to the socket, marked before encoding.
+         */
+        ENCODE("encode"),
+        /**
+         * The response is written, ends the request.
+         */
+        WRITE_COMPLETE("write_complete");
+
+        private final String stageName;
+
+        Stage(String stageName) {
+            this.stageName = stageName;
+        }
+
+        public String getStageName() {
+            return stageName;
+        }
+    }
+
+}
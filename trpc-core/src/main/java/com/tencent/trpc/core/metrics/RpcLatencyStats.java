@@ -0,0 +1,242 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+
+package com.tencent.trpc.core.metrics;
+
+import com.tencent.trpc.core.metrics.histogram.LogLinearHistogram;
+import com.tencent.trpc.core.metrics.histogram.QuantileHistogram;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * In process latency statistics of a service (callee side) or a backend (caller side), in microseconds, with a
+ * histogram for all the requests and one for each func.
+ * <p>Disabled by default, the callee side is enabled by {@code server.enable_latency_stats} and the caller side by
+ * {@code client.enable_latency_stats}.</p>
+ * <p>The number of funcs tracked for each service or backend is bounded, requests of the funcs beyond the bound are
+ * only recorded in the total histogram.</p>
+ * <p>When {@code server.enable_latency_metrics} or {@code client.enable_latency_metrics} is also set, the latency is
+ * reported in milliseconds to the configured monitoring systems through {@link Metrics}, as
+ * {@value #CALLEE_LATENCY_METRIC} labeled by service and func, or {@value #CALLER_LATENCY_METRIC} labeled by backend
+ * and func. The metrics are only registered for the stats created while reporting is enabled. The filters get a
+ * {@link Recorder} by {@link #bind(String)} before the call, so the recording after the call does not resolve the
+ * metrics again.</p>
+ */
+public class RpcLatencyStats {
+
+    /**
+     * Max number of funcs tracked by each stats.
+     */
+    public static final int MAX_FUNC_COUNT = 1000;
+    /**
+     * Name of the callee side latency metric reported to {@link Metrics}.
+     */
+    public static final String CALLEE_LATENCY_METRIC = "trpc.server.latency";
+    /**
+     * Name of the caller side latency metric reported to {@link Metrics}.
+     */
+    public static final String CALLER_LATENCY_METRIC = "trpc.client.latency";
+    /**
+     * Func label value of the requests whose func is absent or beyond {@link #MAX_FUNC_COUNT}.
+     */
+    public static final String OTHER_FUNC = "other";
+
+    private static final double[] LATENCY_BUCKETS_MILLIS = {1, 5, 10, 20, 50, 100, 200, 500, 1000, 3000};
+
+    private static final Map<String, RpcLatencyStats> CALLEE_STATS = new ConcurrentHashMap<>();
+    private static final Map<String, RpcLatencyStats> CALLER_STATS = new ConcurrentHashMap<>();
+
+    private static volatile boolean calleeEnabled;
+    private static volatile boolean callerEnabled;
+    private static volatile boolean calleeMetricsEnabled;
+    private static volatile boolean callerMetricsEnabled;
+    private static volatile Supplier<QuantileHistogram> histogramFactory = LogLinearHistogram::new;
+
+    private final String name;
+    private final QuantileHistogram total;
+    private final Map<String, QuantileHistogram> funcs = new ConcurrentHashMap<>();
+    private final Map<String, Recorder> recorders = new ConcurrentHashMap<>();
+    private final Histogram metric;
+    private final Recorder otherRecorder;
+
+    private RpcLatencyStats(String name, Histogram metric) {
+        this.name = name;
+        this.total = histogramFactory.get();
+        this.metric = metric;
+        this.otherRecorder = new Recorder(total, null, metric == null ? null : metric.bind(name, OTHER_FUNC));
+    }
+
+    /**
+     * Get the callee side stats of a service, create it if absent.
+     *
+     * @param serviceName name of the service
+     * @return the stats
+     */
+    public static RpcLatencyStats callee(String serviceName) {
+        return CALLEE_STATS.computeIfAbsent(Objects.requireNonNull(serviceName, "serviceName"),
+                n -> new RpcLatencyStats(n, calleeMetricsEnabled
+                        ? Metrics.histogram(CALLEE_LATENCY_METRIC, LATENCY_BUCKETS_MILLIS, "service", "func") : null));
+    }
+
+    /**
+     * Get the caller side stats of a backend, create it if absent.
+     *
+     * @param backendName name of the backend
+     * @return the stats
+     */
+    public static RpcLatencyStats caller(String backendName) {
+        return CALLER_STATS.computeIfAbsent(Objects.requireNonNull(backendName, "backendName"),
+                n -> new RpcLatencyStats(n, callerMetricsEnabled
+                        ? Metrics.histogram(CALLER_LATENCY_METRIC, LATENCY_BUCKETS_MILLIS, "backend", "func") : null));
+    }
+
+    /**
+     * Enable or disable the recording of the callee side latency by the provider head filter.
+     *
+     * @param enabled whether to record
+     * @param reportMetrics whether to also report {@value #CALLEE_LATENCY_METRIC}, only effective when enabled
+     */
+    public static void configureCallee(boolean enabled, boolean reportMetrics) {
+        calleeEnabled = enabled;
+        calleeMetricsEnabled = enabled && reportMetrics;
+    }
+
+    /**
+     * Enable or disable the recording of the caller side latency by the consumer head filter.
+     *
+     * @param enabled whether to record
+     * @param reportMetrics whether to also report {@value #CALLER_LATENCY_METRIC}, only effective when enabled
+     */
+    public static void configureCaller(boolean enabled, boolean reportMetrics) {
+        callerEnabled = enabled;
+        callerMetricsEnabled = enabled && reportMetrics;
+    }
+
+    public static boolean isCalleeEnabled() {
+        return calleeEnabled;
+    }
+
+    public static boolean isCallerEnabled() {
+        return callerEnabled;
+    }
+
+    public static Map<String, RpcLatencyStats> getCalleeStats() {
+        return Collections.unmodifiableMap(CALLEE_STATS);
+    }
+
+    public static Map<String, RpcLatencyStats> getCallerStats() {
+        return Collections.unmodifiableMap(CALLER_STATS);
+    }
+
+    /**
+     * Set the histogram implementation used by the stats created afterwards, {@link LogLinearHistogram} by default.
+     *
+     * @param factory histogram factory
+     */
+    public static void setHistogramFactory(Supplier<QuantileHistogram> factory) {
+        histogramFactory = Objects.requireNonNull(factory, "factory");
+    }
+
+    public static void reset() {
+        CALLEE_STATS.clear();
+        CALLER_STATS.clear();
+        calleeEnabled = false;
+        callerEnabled = false;
+        calleeMetricsEnabled = false;
+        callerMetricsEnabled = false;
+        histogramFactory = LogLinearHistogram::new;
+    }
+
+    /**
+     * Record the latency of a request.
+     *
+     * @param func func of the request
+     * @param micros latency in microseconds
+     */
+    public void record(String func, long micros) {
+        bind(func).record(micros);
+    }
+
+    /**
+     * Get the recorder of a func, which records into the total histogram, the func histogram and the latency metric,
+     * if reported, without further lookups. Absent funcs or funcs beyond {@link #MAX_FUNC_COUNT} share a recorder
+     * that only records into the total histogram and the {@value #OTHER_FUNC} metric.
+     *
+     * @param func func of the requests
+     * @return the recorder
+     */
+    public Recorder bind(String func) {
+        if (func == null) {
+            return otherRecorder;
+        }
+        Recorder recorder = recorders.get(func);
+        if (recorder != null) {
+            return recorder;
+        }
+        if (recorders.size() >= MAX_FUNC_COUNT) {
+            return otherRecorder;
+        }
+        return recorders.computeIfAbsent(func, f -> {
+            QuantileHistogram histogram = histogramFactory.get();
+            funcs.put(f, histogram);
+            return new Recorder(total, histogram, metric == null ? null : metric.bind(name, f));
+        });
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public QuantileHistogram getTotal() {
+        return total;
+    }
+
+    public Map<String, QuantileHistogram> getFuncs() {
+        return Collections.unmodifiableMap(funcs);
+    }
+
+    /**
+     * Latency recorder of a func, bound to its histograms and metric.
+     */
+    public static class Recorder {
+
+        private final QuantileHistogram total;
+        private final QuantileHistogram func;
+        private final BoundHistogram metric;
+
+        private Recorder(QuantileHistogram total, QuantileHistogram func, BoundHistogram metric) {
+            this.total = total;
+            this.func = func;
+            this.metric = metric;
+        }
+
+        /**
+         * Record the latency of a request.
+         *
+         * @param micros latency in microseconds
+         */
+        public void record(long micros) {
+            total.record(micros);
+            if (func != null) {
+                func.record(micros);
+            }
+            if (metric != null) {
+                metric.record(micros / 1000.0);
+            }
+        }
+
+    }
+
+}
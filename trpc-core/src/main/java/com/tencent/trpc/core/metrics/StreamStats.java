@@ -0,0 +1,346 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Multiplexing of the streams on the connections of a client or a server, recorded by the stream protocols.
+ * <p>It keeps the open streams, the streams rejected by the max concurrent streams of a connection, the received
+ * bytes buffered and not consumed yet, the reads suspended because of them, the time the streams waited for the
+ * flow control window of the peer, and the frames per second.</p>
+ * <p>The open streams and the buffered bytes are reported to the configured monitoring systems through
+ * {@link Metrics} as {@value #OPEN_STREAMS_METRIC} and {@value #BUFFERED_BYTES_METRIC}, the window stalls as
+ * {@value #WINDOW_STALL_METRIC}, all labeled by side and address.</p>
+ * <p>The stats of a client are keyed by the remote address, they are removed and their series unbound once the last
+ * connection to the address is closed, so the addresses a client has moved away from are not kept.</p>
+ */
+public class StreamStats {
+
+    /**
+     * Name of the open streams gauge reported to {@link Metrics}.
+     */
+    public static final String OPEN_STREAMS_METRIC = "trpc.stream.open_streams";
+    /**
+     * Name of the buffered bytes gauge reported to {@link Metrics}.
+     */
+    public static final String BUFFERED_BYTES_METRIC = "trpc.stream.buffered_bytes";
+    /**
+     * Name of the counter of the time waiting for the window reported to {@link Metrics}, in milliseconds.
+     */
+    public static final String WINDOW_STALL_METRIC = "trpc.stream.window_stall";
+    /**
+     * Side of the stats of a server.
+     */
+    public static final String SERVER = "server";
+    /**
+     * Side of the stats of a client.
+     */
+    public static final String CLIENT = "client";
+
+    private static final Map<String, StreamStats> STREAM_STATS = new ConcurrentHashMap<>();
+    private static final BoundGauge UNBOUND_GAUGE = value -> {
+    };
+    private static final BoundCounter UNBOUND_COUNTER = value -> {
+    };
+
+    private final String side;
+    private final String address;
+    private volatile BoundGauge openStreamsGauge;
+    private volatile BoundGauge bufferedBytesGauge;
+    private volatile BoundCounter windowStallCounter;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger openStreams = new AtomicInteger();
+    private final LongAdder totalStreams = new LongAdder();
+    private final LongAdder rejectedStreams = new LongAdder();
+    private final AtomicLong bufferedBytes = new AtomicLong();
+    private final AtomicInteger suspendedReads = new AtomicInteger();
+    private final LongAdder readSuspensions = new LongAdder();
+    private final LongAdder windowStalls = new LongAdder();
+    private final LongAdder windowStallNanos = new LongAdder();
+    private final FrameRate receivedFrames = new FrameRate();
+    private final FrameRate sentFrames = new FrameRate();
+
+    private StreamStats(String side, String address) {
+        this.side = side;
+        this.address = address;
+        this.openStreamsGauge = Metrics.gauge(OPEN_STREAMS_METRIC, "side", "address").bind(side, address);
+        this.bufferedBytesGauge = Metrics.gauge(BUFFERED_BYTES_METRIC, "side", "address").bind(side, address);
+        this.windowStallCounter = Metrics.counter(WINDOW_STALL_METRIC, "side", "address").bind(side, address);
+    }
+
+    /**
+     * Get the stats of the streams of a client or a server, registered on first use.
+     *
+     * @param side {@link #CLIENT} or {@link #SERVER}
+     * @param address the address of the server, the remote one for a client
+     * @return the stats
+     */
+    public static StreamStats of(String side, String address) {
+        Objects.requireNonNull(side, "side");
+        Objects.requireNonNull(address, "address");
+        return STREAM_STATS.computeIfAbsent(side + "/" + address, name -> new StreamStats(side, address));
+    }
+
+    /**
+     * Get the stats of the streams of a client or a server and record a connection opened, the connection must be
+     * recorded closed by {@link #connectionClosed()}.
+     *
+     * @param side {@link #CLIENT} or {@link #SERVER}
+     * @param address the address of the server, the remote one for a client
+     * @return the stats
+     */
+    public static StreamStats connectionOpened(String side, String address) {
+        Objects.requireNonNull(side, "side");
+        Objects.requireNonNull(address, "address");
+        // counted while the entry is locked, a client entry is not removed with an opened connection
+        return STREAM_STATS.compute(side + "/" + address, (name, stats) -> {
+            StreamStats opened = stats != null ? stats : new StreamStats(side, address);
+            opened.connections.incrementAndGet();
+            return opened;
+        });
+    }
+
+    /**
+     * Get the stats of all the clients and servers with streams.
+     *
+     * @return stats keyed by {@link #getName()}
+     */
+    public static Map<String, StreamStats> getAll() {
+        return Collections.unmodifiableMap(STREAM_STATS);
+    }
+
+    /**
+     * For Test purpose
+     */
+    public static void reset() {
+        STREAM_STATS.clear();
+    }
+
+    /**
+     * Record a connection closed, the stats of a client are removed with the last one.
+     */
+    public void connectionClosed() {
+        if (connections.decrementAndGet() > 0 || !CLIENT.equals(side)) {
+            return;
+        }
+        STREAM_STATS.computeIfPresent(getName(), (name, stats) -> {
+            if (stats != this || connections.get() > 0) {
+                return stats;
+            }
+            unbind();
+            return null;
+        });
+    }
+
+    public void streamOpened() {
+        totalStreams.increment();
+        openStreamsGauge.set(openStreams.incrementAndGet());
+    }
+
+    public void streamClosed() {
+        openStreamsGauge.set(openStreams.decrementAndGet());
+    }
+
+    public void streamRejected() {
+        rejectedStreams.increment();
+    }
+
+    /**
+     * Record received bytes buffered or consumed.
+     *
+     * @param delta buffered bytes, negative when consumed
+     */
+    public void addBufferedBytes(long delta) {
+        bufferedBytesGauge.set(bufferedBytes.addAndGet(delta));
+    }
+
+    public void readSuspended() {
+        readSuspensions.increment();
+        suspendedReads.incrementAndGet();
+    }
+
+    public void readResumed() {
+        suspendedReads.decrementAndGet();
+    }
+
+    /**
+     * Record a stream waiting for the flow control window of the peer.
+     *
+     * @param stallNanos how long the stream waited
+     */
+    public void recordWindowStall(long stallNanos) {
+        windowStalls.increment();
+        windowStallNanos.add(stallNanos);
+        windowStallCounter.incr(TimeUnit.NANOSECONDS.toMillis(stallNanos));
+    }
+
+    public void frameReceived() {
+        receivedFrames.record();
+    }
+
+    public void frameSent() {
+        sentFrames.record();
+    }
+
+    /**
+     * Zero the gauges and release the series, the late records of the closed connections are dropped.
+     */
+    private void unbind() {
+        openStreamsGauge.set(0);
+        bufferedBytesGauge.set(0);
+        openStreamsGauge = UNBOUND_GAUGE;
+        bufferedBytesGauge = UNBOUND_GAUGE;
+        windowStallCounter = UNBOUND_COUNTER;
+        Metrics.gauge(OPEN_STREAMS_METRIC, "side", "address").unbind(side, address);
+        Metrics.gauge(BUFFERED_BYTES_METRIC, "side", "address").unbind(side, address);
+        Metrics.counter(WINDOW_STALL_METRIC, "side", "address").unbind(side, address);
+    }
+
+    public String getName() {
+        return side + "/" + address;
+    }
+
+    public String getSide() {
+        return side;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    public int getOpenStreams() {
+        return openStreams.get();
+    }
+
+    public long getTotalStreams() {
+        return totalStreams.sum();
+    }
+
+    public long getRejectedStreams() {
+        return rejectedStreams.sum();
+    }
+
+    public long getBufferedBytes() {
+        return bufferedBytes.get();
+    }
+
+    /**
+     * Connections whose read is currently suspended.
+     *
+     * @return the connections
+     */
+    public int getSuspendedReads() {
+        return suspendedReads.get();
+    }
+
+    public long getReadSuspensions() {
+        return readSuspensions.sum();
+    }
+
+    public long getWindowStalls() {
+        return windowStalls.sum();
+    }
+
+    public long getWindowStallMills() {
+        return TimeUnit.NANOSECONDS.toMillis(windowStallNanos.sum());
+    }
+
+    public long getReceivedFrames() {
+        return receivedFrames.getTotal();
+    }
+
+    public long getSentFrames() {
+        return sentFrames.getTotal();
+    }
+
+    /**
+     * Frames received during the last second.
+     *
+     * @return the frames
+     */
+    public long getReceivedFramesPerSecond() {
+        return receivedFrames.getLastSecond();
+    }
+
+    /**
+     * Frames sent during the last second.
+     *
+     * @return the frames
+     */
+    public long getSentFramesPerSecond() {
+        return sentFrames.getLastSecond();
+    }
+
+    @Override
+    public String toString() {
+        return "StreamStats{" + "name=" + getName() + ", connections=" + connections + ", openStreams="
+                + openStreams + ", rejectedStreams=" + rejectedStreams + ", bufferedBytes=" + bufferedBytes
+                + ", suspendedReads=" + suspendedReads + ", windowStalls=" + windowStalls + '}';
+    }
+
+    /**
+     * Frames counted by second, the count of the last complete second is kept.
+     */
+    private static class FrameRate {
+
+        private final LongAdder total = new LongAdder();
+        private final LongAdder current = new LongAdder();
+        private volatile long currentSecond = currentSecond();
+        private volatile long lastSecond;
+
+        void record() {
+            roll();
+            current.increment();
+            total.increment();
+        }
+
+        long getTotal() {
+            return total.sum();
+        }
+
+        long getLastSecond() {
+            roll();
+            return lastSecond;
+        }
+
+        private void roll() {
+            long second = currentSecond();
+            if (second == currentSecond) {
+                return;
+            }
+            synchronized (this) {
+                if (second != currentSecond) {
+                    long frames = current.sumThenReset();
+                    lastSecond = second == currentSecond + 1 ? frames : 0;
+                    currentSecond = second;
+                }
+            }
+        }
+
+        private static long currentSecond() {
+            return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+
+package com.tencent.trpc.core.metrics.histogram;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Base class of the bucketed histograms, the buckets are kept by the subclasses.
+ */
+public abstract class AbstractQuantileHistogram implements QuantileHistogram {
+
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+    /**
+     * Bucket counts and sum of the last interval snapshot, guarded by this.
+     */
+    private long[] lastCounts;
+    private long lastSum;
+
+    @Override
+    public void record(long value) {
+        long v = Math.max(0, value);
+        increment(indexOf(v));
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    @Override
+    public HistogramSnapshot snapshot() {
+        return newSnapshot(counts(), sum.sum(), max.get());
+    }
+
+    @Override
+    public synchronized HistogramSnapshot intervalSnapshot() {
+        long[] counts = counts();
+        long currentSum = sum.sum();
+        long[] delta = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            delta[i] = lastCounts == null ? counts[i] : counts[i] - lastCounts[i];
+        }
+        long deltaSum = currentSum - lastSum;
+        lastCounts = counts;
+        lastSum = currentSum;
+        // the max of the interval is unknown, the max ever recorded bounds the overflow buckets
+        return newSnapshot(delta, deltaSum, max.get());
+    }
+
+    private long[] counts() {
+        long[] counts = new long[bucketCount()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = countAt(i);
+        }
+        return counts;
+    }
+
+    private HistogramSnapshot newSnapshot(long[] counts, long sum, long max) {
+        int nonEmpty = 0;
+        for (long count : counts) {
+            if (count > 0) {
+                nonEmpty++;
+            }
+        }
+        long[] values = new long[nonEmpty];
+        long[] valueCounts = new long[nonEmpty];
+        long total = 0;
+        for (int i = 0, j = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                values[j] = Math.min(highestValueAt(i), max);
+                valueCounts[j++] = counts[i];
+                total += counts[i];
+            }
+        }
+        return new HistogramSnapshot(total, sum, values, valueCounts);
+    }
+
+    /**
+     * Number of the buckets.
+     */
+    protected abstract int bucketCount();
+
+    /**
+     * Index of the bucket the value falls in.
+     *
+     * @param value non negative value
+     * @return bucket index
+     */
+    protected abstract int indexOf(long value);
+
+    protected abstract void increment(int index);
+
+    protected abstract long countAt(int index);
+
+    /**
+     * Highest value of the bucket, which is reported for all the values in the bucket.
+     *
+     * @param index bucket index
+     * @return highest value
+     */
+    protected abstract long highestValueAt(int index);
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+
+package com.tencent.trpc.core.metrics.histogram;
+
+import com.tencent.trpc.core.utils.PreconditionUtils;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram with fixed bucket boundaries, each bucket is a {@link LongAdder}, so that recording is lock free and
+ * scales with the number of recording threads. Quantiles are reported as the upper boundary of the bucket.
+ */
+public class BucketHistogram extends AbstractQuantileHistogram {
+
+    /**
+     * Default latency boundaries in microseconds, from 100us to 10s.
+     */
+    public static final long[] DEFAULT_LATENCY_BOUNDS = {100, 250, 500, 1000, 2500, 5000, 10000, 25000, 50000,
+            100000, 250000, 500000, 1000000, 2500000, 5000000, 10000000};
+
+    /**
+     * Upper boundaries of the buckets, left open and right closed. Values above the last boundary fall in an
+     * overflow bucket.
+     */
+    private final long[] bounds;
+    private final LongAdder[] buckets;
+
+    public BucketHistogram() {
+        this(DEFAULT_LATENCY_BOUNDS);
+    }
+
+    public BucketHistogram(long[] bounds) {
+        PreconditionUtils.checkArgument(bounds != null && bounds.length > 0, "bounds should not be empty");
+        for (int i = 1; i < bounds.length; i++) {
+            PreconditionUtils.checkArgument(bounds[i] > bounds[i - 1], "bounds%s should be ascending",
+                    Arrays.toString(bounds));
+        }
+        this.bounds = bounds.clone();
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    protected int bucketCount() {
+        return buckets.length;
+    }
+
+    @Override
+    protected int indexOf(long value) {
+        int index = Arrays.binarySearch(bounds, value);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    @Override
+    protected void increment(int index) {
+        buckets[index].increment();
+    }
+
+    @Override
+    protected long countAt(int index) {
+        return buckets[index].sum();
+    }
+
+    @Override
+    protected long highestValueAt(int index) {
+        return index < bounds.length ? bounds[index] : Long.MAX_VALUE;
+    }
+
+}
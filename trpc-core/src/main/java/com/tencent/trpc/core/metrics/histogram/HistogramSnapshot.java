@@ -0,0 +1,79 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+
+package com.tencent.trpc.core.metrics.histogram;
+
+/**
+ * Immutable view of the values recorded by a {@link QuantileHistogram}. Values are reported with the precision of
+ * the histogram buckets, except the sum and the mean.
+ */
+public class HistogramSnapshot {
+
+    private final long count;
+    private final long sum;
+    /**
+     * Distinct values in ascending order, each stands for a bucket.
+     */
+    private final long[] values;
+    private final long[] counts;
+
+    public HistogramSnapshot(long count, long sum, long[] values, long[] counts) {
+        this.count = count;
+        this.sum = sum;
+        this.values = values;
+        this.counts = counts;
+    }
+
+    /**
+     * Value at the quantile, that is the smallest recorded value which is greater than or equal to
+     * {@code quantile * count} values.
+     *
+     * @param quantile quantile in [0, 1], e.g. 0.99
+     * @return the value, 0 if nothing is recorded
+     */
+    public long valueAtQuantile(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        double q = Math.min(1, Math.max(0, quantile));
+        long rank = Math.max(1, (long) Math.ceil(q * count));
+        long seen = 0;
+        for (int i = 0; i < values.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return values[i];
+            }
+        }
+        return values[values.length - 1];
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    public long getMin() {
+        return values.length == 0 ? 0 : values[0];
+    }
+
+    public long getMax() {
+        return values.length == 0 ? 0 : values[values.length - 1];
+    }
+
+}
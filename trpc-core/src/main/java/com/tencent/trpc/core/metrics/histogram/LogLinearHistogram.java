@@ -0,0 +1,92 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+
+package com.tencent.trpc.core.metrics.histogram;
+
+import com.tencent.trpc.core.utils.PreconditionUtils;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * HDR style log-linear histogram. Values are split by powers of two, and each power of two range is split into
+ * {@code 2^(precisionBits-1)} linear sub buckets, so that the relative error of a reported value is below
+ * {@code 2^-(precisionBits-1)} on the whole range, e.g. 1.6% with the default 7 bits.
+ * <p>The bucket of a value is located with a few bit operations, and recording is a single atomic increment.</p>
+ */
+public class LogLinearHistogram extends AbstractQuantileHistogram {
+
+    public static final int DEFAULT_PRECISION_BITS = 7;
+    /**
+     * Default highest trackable value is 2^36, about 19 hours in microseconds.
+     */
+    public static final int DEFAULT_MAX_VALUE_BITS = 36;
+
+    private final int precisionBits;
+    private final int halfCount;
+    private final long subBucketMask;
+    private final long maxValue;
+    private final AtomicLongArray counts;
+
+    public LogLinearHistogram() {
+        this(DEFAULT_PRECISION_BITS, DEFAULT_MAX_VALUE_BITS);
+    }
+
+    /**
+     * Create the histogram.
+     *
+     * @param precisionBits bits of the linear sub buckets, in [2, 16]
+     * @param maxValueBits highest trackable value is {@code 2^maxValueBits - 1}, larger values are recorded as it
+     */
+    public LogLinearHistogram(int precisionBits, int maxValueBits) {
+        PreconditionUtils.checkArgument(precisionBits >= 2 && precisionBits <= 16,
+                "precisionBits[%s] should in [2, 16]", precisionBits);
+        PreconditionUtils.checkArgument(maxValueBits >= precisionBits && maxValueBits <= 62,
+                "maxValueBits[%s] should in [precisionBits, 62]", maxValueBits);
+        this.precisionBits = precisionBits;
+        this.halfCount = 1 << (precisionBits - 1);
+        this.subBucketMask = (1L << precisionBits) - 1;
+        this.maxValue = (1L << maxValueBits) - 1;
+        this.counts = new AtomicLongArray(indexOf(maxValue) + 1);
+    }
+
+    @Override
+    protected int bucketCount() {
+        return counts.length();
+    }
+
+    @Override
+    protected int indexOf(long value) {
+        long v = Math.min(value, maxValue);
+        // power of two range, 0 for the values below 2^precisionBits which are tracked exactly
+        int bucket = 64 - Long.numberOfLeadingZeros(v | subBucketMask) - precisionBits;
+        int subBucket = (int) (v >>> bucket);
+        return bucket * halfCount + subBucket;
+    }
+
+    @Override
+    protected void increment(int index) {
+        counts.incrementAndGet(index);
+    }
+
+    @Override
+    protected long countAt(int index) {
+        return counts.get(index);
+    }
+
+    @Override
+    protected long highestValueAt(int index) {
+        int subCount = halfCount << 1;
+        int bucket = index < subCount ? 0 : (index - subCount) / halfCount + 1;
+        long subBucket = index - (long) bucket * halfCount;
+        return ((subBucket + 1) << bucket) - 1;
+    }
+
+}
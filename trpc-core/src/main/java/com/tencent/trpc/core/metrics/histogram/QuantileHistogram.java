@@ -0,0 +1,51 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+
+package com.tencent.trpc.core.metrics.histogram;
+
+import com.tencent.trpc.core.metrics.Histogram;
+
+/**
+ * Histogram kept in process, which can answer quantile queries such as p99 latency.
+ * <p>Values are recorded as long, for latency the unit is decided by the caller, usually microseconds. Labels are
+ * not supported, a histogram should be obtained for each label set.</p>
+ */
+public interface QuantileHistogram extends Histogram {
+
+    /**
+     * Record a value, negative values are recorded as 0.
+     *
+     * @param value the value
+     */
+    void record(long value);
+
+    @Override
+    default void record(double value, String... labelValues) {
+        record((long) value);
+    }
+
+    /**
+     * Snapshot of all the values recorded since the histogram is created.
+     *
+     * @return the snapshot
+     */
+    HistogramSnapshot snapshot();
+
+    /**
+     * Snapshot of the values recorded since the last call of this method, which is suitable for reporting
+     * to a monitoring system periodically.
+     *
+     * @return the snapshot
+     */
+    HistogramSnapshot intervalSnapshot();
+
+}
@@ -14,6 +14,7 @@ package com.tencent.trpc.core.rpc;
 import com.google.common.collect.Maps;
 import com.tencent.trpc.core.common.config.ConsumerConfig;
 import com.tencent.trpc.core.common.config.ProviderConfig;
+import com.tencent.trpc.core.metrics.RequestStageTimer;
 import java.net.InetSocketAddress;
 import java.util.HashMap;
 import java.util.Map;
@@ -75,6 +76,10 @@ public class RequestMeta implements Cloneable {
      * Extension map
      */
     private Map<String, Object> map = Maps.newHashMap();
+    /**
+     * Stage marks of a server request, only present when the stage stats are enabled
+     */
+    private RequestStageTimer stageTimer;
 
     public RequestMeta clone() {
         RequestMeta clone;
@@ -86,6 +91,7 @@ public class RequestMeta implements Cloneable {
         clone.setCreateTime(System.currentTimeMillis());
         clone.setCallInfo(callInfo.clone());
         clone.setMap(new HashMap<String, Object>(map));
+        clone.setStageTimer(null);
         return clone;
     }
 
@@ -190,6 +196,14 @@ public class RequestMeta implements Cloneable {
         this.hashVal = hashVal;
     }
 
+    public RequestStageTimer getStageTimer() {
+        return stageTimer;
+    }
+
+    public void setStageTimer(RequestStageTimer stageTimer) {
+        this.stageTimer = stageTimer;
+    }
+
     public Map<String, Object> getMap() {
         return map;
     }
@@ -0,0 +1,126 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+
+package com.tencent.trpc.core.rpc.common;
+
+import com.google.protobuf.ByteString;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Byte keyed table of the exported funcs, which is built at export time.
+ * <p>Protocol codecs look up the raw func bytes of a request, to get the interned func string and the rpc service
+ * and method names without decoding or splitting the func on every request. {@link ByteString} caches nothing for
+ * a freshly parsed request, but its hash and equality are computed over the bytes without allocation. Unknown funcs
+ * are never added to the table, so that a client sending random funcs can not grow it.</p>
+ */
+public class FuncRouteTable {
+
+    private static final Map<ByteString, FuncRoute> ROUTES = new ConcurrentHashMap<>();
+
+    /**
+     * Register an exported func. The same func may be exported by several servers, so registrations are counted.
+     *
+     * @param func the func, which should be the same instance used as the route key
+     */
+    public static void register(String func) {
+        Objects.requireNonNull(func, "func");
+        ROUTES.compute(ByteString.copyFromUtf8(func), (k, v) -> {
+            FuncRoute route = v == null ? FuncRoute.parse(func) : v;
+            route.refCount++;
+            return route;
+        });
+    }
+
+    /**
+     * Unregister an exported func.
+     *
+     * @param func the func
+     */
+    public static void unregister(String func) {
+        if (func == null) {
+            return;
+        }
+        ROUTES.computeIfPresent(ByteString.copyFromUtf8(func), (k, v) -> --v.refCount > 0 ? v : null);
+    }
+
+    /**
+     * Look up the route of the raw func bytes.
+     *
+     * @param func func bytes
+     * @return the route, or null if the func is not exported
+     */
+    public static FuncRoute lookup(ByteString func) {
+        return func == null ? null : ROUTES.get(func);
+    }
+
+    public static int size() {
+        return ROUTES.size();
+    }
+
+    public static void reset() {
+        ROUTES.clear();
+    }
+
+    /**
+     * Func and the rpc service and method names split from it.
+     */
+    public static class FuncRoute {
+
+        private static final FuncRoute EMPTY = new FuncRoute("", "", "");
+
+        private final String func;
+        private final String rpcServiceName;
+        private final String rpcMethodName;
+        /**
+         * Guarded by the table.
+         */
+        private int refCount;
+
+        private FuncRoute(String func, String rpcServiceName, String rpcMethodName) {
+            this.func = func;
+            this.rpcServiceName = rpcServiceName;
+            this.rpcMethodName = rpcMethodName;
+        }
+
+        /**
+         * Split the func in format /serviceName/methodName.
+         *
+         * @param func the func
+         * @return the route, with empty service and method names if the func is malformed
+         */
+        public static FuncRoute parse(String func) {
+            if (func == null || func.isEmpty()) {
+                return EMPTY;
+            }
+            int idx = func.lastIndexOf("/");
+            return (idx > 1 && func.length() > idx + 1)
+                    ? new FuncRoute(func, func.substring(1, idx), func.substring(idx + 1))
+                    : new FuncRoute(func, "", "");
+        }
+
+        public String getFunc() {
+            return func;
+        }
+
+        public String getRpcServiceName() {
+            return rpcServiceName;
+        }
+
+        public String getRpcMethodName() {
+            return rpcMethodName;
+        }
+
+    }
+
+}
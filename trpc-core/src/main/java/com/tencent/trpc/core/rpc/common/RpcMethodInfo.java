@@ -13,6 +13,7 @@ package com.tencent.trpc.core.rpc.common;
 
 import com.tencent.trpc.core.common.RpcResult;
 import com.tencent.trpc.core.rpc.InvokeMode;
+import com.tencent.trpc.core.rpc.RpcContext;
 import com.tencent.trpc.core.utils.RpcUtils;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
@@ -100,6 +101,36 @@ public class RpcMethodInfo {
         this.isGeneric = RpcUtils.isGenericClient(serviceInterface) || RpcUtils.isGenericMethod(method);
     }
 
+    /**
+     * RpcMethodInfo constructor for a method described by a generated stub, whose invocation mode and message types
+     * are known, so the generic signature of the method is not parsed.
+     *
+     * @param serviceInterface the service interface
+     * @param method the method, declared as {@code method(RpcContext, request)}
+     * @param invokeMode the invocation mode
+     * @param requestType the request message type
+     * @param responseType the response message type
+     */
+    public RpcMethodInfo(Class<?> serviceInterface, Method method, InvokeMode invokeMode, Class<?> requestType,
+            Class<?> responseType) {
+        this.serviceInterface = serviceInterface;
+        this.method = method;
+        this.invokeMode = invokeMode;
+        this.returnType = method.getReturnType();
+        this.actualParamsTypes = new Type[]{RpcContext.class, requestType};
+        if (invokeMode == InvokeMode.CLIENT_STREAM || invokeMode == InvokeMode.DUPLEX_STREAM) {
+            this.paramsTypes = method.getGenericParameterTypes();
+        } else {
+            this.paramsTypes = actualParamsTypes;
+        }
+        if (invokeMode == InvokeMode.SYNC && returnType != responseType) {
+            this.actualReturnType = method.getGenericReturnType();
+        } else {
+            this.actualReturnType = responseType;
+        }
+        this.isGeneric = RpcUtils.isGenericClient(serviceInterface);
+    }
+
     public Type[] getParamsTypes() {
         return paramsTypes;
     }
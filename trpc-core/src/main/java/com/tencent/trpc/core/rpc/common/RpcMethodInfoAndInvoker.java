@@ -12,6 +12,7 @@
 package com.tencent.trpc.core.rpc.common;
 
 import com.tencent.trpc.core.rpc.ProviderInvoker;
+import com.tencent.trpc.core.worker.bulkhead.MethodBulkhead;
 
 /**
  * Route mapping information, the mapping of route method information and its implementation.
@@ -30,6 +31,10 @@ public class RpcMethodInfoAndInvoker {
      * Route key.
      */
     private MethodRouterKey methodRouterKey;
+    /**
+     * Method bulkhead, null if the method shares the provider worker pool.
+     */
+    private MethodBulkhead bulkhead;
 
     public RpcMethodInfoAndInvoker() {
         super();
@@ -67,4 +72,12 @@ public class RpcMethodInfoAndInvoker {
         this.methodRouterKey = methodRouterKey;
     }
 
+    public MethodBulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    public void setBulkhead(MethodBulkhead bulkhead) {
+        this.bulkhead = bulkhead;
+    }
+
 }
@@ -13,14 +13,21 @@ package com.tencent.trpc.core.rpc.def;
 
 import com.google.common.collect.Maps;
 import com.tencent.trpc.core.common.config.ProviderConfig;
+import com.tencent.trpc.core.common.config.ServiceConfig;
 import com.tencent.trpc.core.logger.Logger;
 import com.tencent.trpc.core.logger.LoggerFactory;
 import com.tencent.trpc.core.rpc.ProviderInvoker;
+import com.tencent.trpc.core.rpc.common.FuncRouteTable;
 import com.tencent.trpc.core.rpc.common.MethodRouterKey;
 import com.tencent.trpc.core.rpc.common.RpcMethodInfo;
 import com.tencent.trpc.core.rpc.common.RpcMethodInfoAndInvoker;
+import com.tencent.trpc.core.rpc.stub.ServiceStub;
+import com.tencent.trpc.core.rpc.stub.ServiceStubs;
 import com.tencent.trpc.core.utils.PreconditionUtils;
 import com.tencent.trpc.core.utils.RpcUtils;
+import com.tencent.trpc.core.worker.bulkhead.BulkheadConfig;
+import com.tencent.trpc.core.worker.bulkhead.MethodBulkheadManager;
+import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
@@ -57,6 +64,14 @@ public class DefMethodInfoRegister {
         String rpcServiceName = RpcUtils.parseRpcServiceName(serviceInterface, null);
         PreconditionUtils.checkArgument(rpcServiceName != null,
                 "export {interface = %s} error, no rpc service name", serviceInterfaceName);
+        ServiceStub<?> stub = ServiceStubs.lookup(serviceInterface);
+        if (stub != null) {
+            // the generated stub already carries the names and types, no annotation or generic parsing needed
+            stub.getDescriptor().getMethods().forEach(method -> registerMethod(providerInvoker, rpcServiceName,
+                    method.getMethod(), method.getRpcMethodName(), method.getAliases(), method.getMethodInfo(),
+                    method.isDefault()));
+            return;
+        }
         Arrays.stream(serviceInterface.getDeclaredMethods()).forEach(method -> {
             String rpcMethodName = RpcUtils.parseRpcMethodName(method, null);
             if (rpcMethodName == null) {
@@ -64,32 +79,76 @@ public class DefMethodInfoRegister {
                         serviceInterfaceName, method.getName(), rpcServiceName);
                 return;
             }
-            RpcMethodInfo methodInfo = new RpcMethodInfo(serviceInterface, method);
-            MethodRouterKey methodRouterKey = new MethodRouterKey(rpcServiceName, rpcMethodName);
-            RpcMethodInfoAndInvoker obj = new RpcMethodInfoAndInvoker(methodInfo, providerInvoker, methodRouterKey);
-            PreconditionUtils.checkArgument(!rpcMethodRouterMap.containsKey(methodRouterKey.getNativeFunc()),
-                    "Export service fail, found duplicate router key {" + methodRouterKey.getNativeFunc() + "}");
-            // Register internal method route 1. /trpc.${app}.${server}.${service}/${method}
-            // 2. /trpc/${app}/${server}/${service}/${method}
-            rpcMethodRouterMap.put(methodRouterKey.getNativeFunc(), obj);
-            rpcMethodRouterMap.put(methodRouterKey.getSlashFunc(), obj);
-            if (RpcUtils.isDefaultRpcMethod(method)) {
-                defaultRpcMethodRouterMap.put(rpcServiceName, obj);
-            }
-            String[] rpcMethodAliases = RpcUtils.parseRpcMethodAliases(method, null);
-            if (rpcMethodAliases != null) {
-                Arrays.stream(rpcMethodAliases).forEach(rpcMethodAlias -> {
-                    PreconditionUtils.checkArgument(!rpcMethodRouterMap.containsKey(rpcMethodAlias),
-                            "Export service fail, found duplicate router key {" + rpcMethodAlias + "}");
-                    rpcMethodRouterMap.put(rpcMethodAlias, obj);
-                });
-            }
-            registerNativeHttpMapping(providerConfig, methodRouterKey, rpcMethodAliases);
-            logger.info("Export service {service={}, method={}, rpcService={}, rpcMethod={}}",
-                    serviceInterfaceName, method.getName(), rpcServiceName, rpcMethodName);
+            registerMethod(providerInvoker, rpcServiceName, method, rpcMethodName,
+                    RpcUtils.parseRpcMethodAliases(method, null), new RpcMethodInfo(serviceInterface, method),
+                    RpcUtils.isDefaultRpcMethod(method));
         });
     }
 
+    /**
+     * Register the routes of one method.
+     *
+     * @param providerInvoker provider
+     * @param rpcServiceName rpc service name
+     * @param method java method
+     * @param rpcMethodName rpc method name
+     * @param rpcMethodAliases rpc method aliases, may be null
+     * @param methodInfo rpc method information
+     * @param isDefault whether it is the default method of the service
+     */
+    private void registerMethod(ProviderInvoker<?> providerInvoker, String rpcServiceName, Method method,
+            String rpcMethodName, String[] rpcMethodAliases, RpcMethodInfo methodInfo, boolean isDefault) {
+        ProviderConfig<?> providerConfig = providerInvoker.getConfig();
+        MethodRouterKey methodRouterKey = new MethodRouterKey(rpcServiceName, rpcMethodName);
+        RpcMethodInfoAndInvoker obj = new RpcMethodInfoAndInvoker(methodInfo, providerInvoker, methodRouterKey);
+        PreconditionUtils.checkArgument(!rpcMethodRouterMap.containsKey(methodRouterKey.getNativeFunc()),
+                "Export service fail, found duplicate router key {" + methodRouterKey.getNativeFunc() + "}");
+        if (rpcMethodAliases != null) {
+            Arrays.stream(rpcMethodAliases).forEach(rpcMethodAlias -> PreconditionUtils.checkArgument(
+                    !rpcMethodRouterMap.containsKey(rpcMethodAlias),
+                    "Export service fail, found duplicate router key {" + rpcMethodAlias + "}"));
+        }
+        // only bind the bulkhead once the route keys are known to be free, a rejected duplicate must not
+        // replace the bulkhead of the method that is already exported
+        registerBulkhead(providerConfig, methodRouterKey, obj);
+        // Register internal method route 1. /trpc.${app}.${server}.${service}/${method}
+        // 2. /trpc/${app}/${server}/${service}/${method}
+        String slashFunc = methodRouterKey.getSlashFunc();
+        rpcMethodRouterMap.put(methodRouterKey.getNativeFunc(), obj);
+        rpcMethodRouterMap.put(slashFunc, obj);
+        FuncRouteTable.register(methodRouterKey.getNativeFunc());
+        FuncRouteTable.register(slashFunc);
+        if (isDefault) {
+            defaultRpcMethodRouterMap.put(rpcServiceName, obj);
+        }
+        if (rpcMethodAliases != null) {
+            Arrays.stream(rpcMethodAliases).forEach(rpcMethodAlias -> {
+                rpcMethodRouterMap.put(rpcMethodAlias, obj);
+                FuncRouteTable.register(rpcMethodAlias);
+            });
+        }
+        registerNativeHttpMapping(providerConfig, methodRouterKey, rpcMethodAliases);
+        logger.info("Export service {service={}, method={}, rpcService={}, rpcMethod={}}",
+                providerConfig.getServiceInterface().getName(), method.getName(), rpcServiceName, rpcMethodName);
+    }
+
+    /**
+     * Bind the method bulkhead if it is configured in the service.
+     *
+     * @param providerConfig service provider configuration
+     * @param methodRouterKey route key
+     * @param obj method route
+     */
+    private void registerBulkhead(ProviderConfig<?> providerConfig, MethodRouterKey methodRouterKey,
+            RpcMethodInfoAndInvoker obj) {
+        ServiceConfig serviceConfig = providerConfig.getServiceConfig();
+        BulkheadConfig bulkheadConfig = serviceConfig == null ? null : serviceConfig.getBulkheadConfig(methodRouterKey);
+        if (bulkheadConfig != null) {
+            obj.setBulkhead(MethodBulkheadManager.register(methodRouterKey.getNativeFunc(), bulkheadConfig,
+                    providerConfig.getWorkerPoolObj()));
+        }
+    }
+
     /**
      * Register native HTTP internal route mapping.
      *
@@ -187,26 +246,54 @@ public class DefMethodInfoRegister {
         String rpcServiceName = RpcUtils.parseRpcServiceName(serviceInterface, null);
         PreconditionUtils.checkArgument(rpcServiceName != null,
                 "UnExport {interface = %s} error, no rpc service name", serviceInterfaceName);
-        Arrays.stream(serviceInterface.getDeclaredMethods()).forEach(method -> {
-            String rpcMethodName = RpcUtils.parseRpcMethodName(method, null);
-            String[] rpcMethodAliases = RpcUtils.parseRpcMethodAliases(method, null);
-            if (rpcMethodName != null) {
-                MethodRouterKey methodRouterKey = new MethodRouterKey(rpcServiceName, rpcMethodName);
-                rpcMethodRouterMap.remove(methodRouterKey.getSlashFunc());
-                rpcMethodRouterMap.remove(methodRouterKey.getNativeFunc());
-                if (rpcMethodAliases != null) {
-                    Arrays.stream(rpcMethodAliases).forEach(rpcMethodAlias ->
-                            rpcMethodRouterMap.remove(rpcMethodAlias));
+        ServiceStub<?> stub = ServiceStubs.lookup(serviceInterface);
+        if (stub != null) {
+            // the same names as registered from the stub
+            stub.getDescriptor().getMethods().forEach(method -> unregisterMethod(providerConfig, rpcServiceName,
+                    method.getMethod(), method.getRpcMethodName(), method.getAliases()));
+        } else {
+            Arrays.stream(serviceInterface.getDeclaredMethods()).forEach(method -> {
+                String rpcMethodName = RpcUtils.parseRpcMethodName(method, null);
+                if (rpcMethodName != null) {
+                    unregisterMethod(providerConfig, rpcServiceName, method, rpcMethodName,
+                            RpcUtils.parseRpcMethodAliases(method, null));
                 }
-                unregisterNativeHttpMapping(providerConfig, methodRouterKey, rpcMethodAliases);
-                logger.info("UnExport service {service={}, method={}, rpcService={}, rpcMethod={}}",
-                        serviceInterfaceName, method.getName(), rpcServiceName, rpcMethodName);
-            }
-        });
-
+            });
+        }
         this.defaultRpcMethodRouterMap.remove(rpcServiceName);
     }
 
+    /**
+     * Unregister the routes of one method.
+     *
+     * @param providerConfig service provider configuration
+     * @param rpcServiceName rpc service name
+     * @param method java method
+     * @param rpcMethodName rpc method name
+     * @param rpcMethodAliases rpc method aliases, may be null
+     */
+    private void unregisterMethod(ProviderConfig<?> providerConfig, String rpcServiceName, Method method,
+            String rpcMethodName, String[] rpcMethodAliases) {
+        MethodRouterKey methodRouterKey = new MethodRouterKey(rpcServiceName, rpcMethodName);
+        if (rpcMethodRouterMap.remove(methodRouterKey.getSlashFunc()) != null) {
+            FuncRouteTable.unregister(methodRouterKey.getSlashFunc());
+        }
+        if (rpcMethodRouterMap.remove(methodRouterKey.getNativeFunc()) != null) {
+            FuncRouteTable.unregister(methodRouterKey.getNativeFunc());
+        }
+        MethodBulkheadManager.unregister(methodRouterKey.getNativeFunc());
+        if (rpcMethodAliases != null) {
+            Arrays.stream(rpcMethodAliases).forEach(rpcMethodAlias -> {
+                if (rpcMethodRouterMap.remove(rpcMethodAlias) != null) {
+                    FuncRouteTable.unregister(rpcMethodAlias);
+                }
+            });
+        }
+        unregisterNativeHttpMapping(providerConfig, methodRouterKey, rpcMethodAliases);
+        logger.info("UnExport service {service={}, method={}, rpcService={}, rpcMethod={}}",
+                providerConfig.getServiceInterface().getName(), method.getName(), rpcServiceName, rpcMethodName);
+    }
+
     public RpcMethodInfoAndInvoker route(String func) {
         return rpcMethodRouterMap.get(func == null ? "" : func);
     }
@@ -240,6 +327,7 @@ public class DefMethodInfoRegister {
     }
 
     public void clear() {
+        rpcMethodRouterMap.keySet().forEach(FuncRouteTable::unregister);
         rpcMethodRouterMap.clear();
     }
 
@@ -26,6 +26,10 @@ import com.tencent.trpc.core.rpc.Response;
 import com.tencent.trpc.core.rpc.RpcContext;
 import com.tencent.trpc.core.rpc.RpcContextValueKeys;
 import com.tencent.trpc.core.rpc.RpcInvocation;
+import com.tencent.trpc.core.rpc.stub.MethodDescriptor;
+import com.tencent.trpc.core.rpc.stub.ServiceDispatcher;
+import com.tencent.trpc.core.rpc.stub.ServiceStub;
+import com.tencent.trpc.core.rpc.stub.ServiceStubs;
 import com.tencent.trpc.core.utils.PreconditionUtils;
 import com.tencent.trpc.core.utils.RpcContextUtils;
 import com.tencent.trpc.core.utils.RpcUtils;
@@ -46,6 +50,14 @@ public class DefProviderInvoker<T> implements ProviderInvoker<T> {
     private ProtocolConfig config;
     private ProviderConfig<T> providerConfig;
     private Map<String, Method> rpcMethodMap = Maps.newHashMap();
+    /**
+     * Dispatcher of the generated service stub, null if the interface has no stub.
+     */
+    private ServiceDispatcher<T> dispatcher;
+    /**
+     * Methods of the generated service stub, empty if the interface has no stub.
+     */
+    private Map<String, MethodDescriptor> stubMethodMap = Maps.newHashMap();
 
     /**
      * Provider constructor.
@@ -57,6 +69,14 @@ public class DefProviderInvoker<T> implements ProviderInvoker<T> {
         this.config = config;
         this.providerConfig = pConfig;
         Class<T> serviceType = pConfig.getServiceInterface();
+        ServiceStub<T> stub = ServiceStubs.lookup(serviceType);
+        if (stub != null) {
+            // the generated stub calls the implementation directly, no reflection needed
+            this.dispatcher = stub.getDispatcher();
+            stub.getDescriptor().getMethods().forEach(method -> stubMethodMap.put(method.getRpcMethodName(), method));
+            PreconditionUtils.checkArgument(pConfig.getRef() != null, "providerConfig ref is null");
+            return;
+        }
         Arrays.stream(serviceType.getDeclaredMethods()).forEach(method -> {
             String rpcMethodName = RpcUtils.parseRpcMethodName(method, null);
             if (rpcMethodName == null) {
@@ -101,12 +121,12 @@ public class DefProviderInvoker<T> implements ProviderInvoker<T> {
     public CompletionStage<Response> invoke(Request request) {
         RpcContext context = request.getContext();
         RpcInvocation invocation = request.getInvocation();
-        Object[] params = ArrayUtils.addAll(new Object[]{context}, invocation.getArguments());
         CompletableFuture<Response> responseFuture = new CompletableFuture<>();
         try {
-            Method method = rpcMethodMap.get(invocation.getRpcMethodName());
+            MethodDescriptor stubMethod = dispatcher == null ? null : stubMethodMap.get(invocation.getRpcMethodName());
+            Method method = dispatcher == null ? rpcMethodMap.get(invocation.getRpcMethodName()) : null;
             // unexpected cases theoretically do not exist
-            if (method == null) {
+            if (stubMethod == null && method == null) {
                 responseFuture.complete(RpcUtils.newResponse(request, null,
                         TRpcException.newFrameException(ErrorCode.TRPC_INVOKE_UNKNOWN_ERR,
                                 "Unknown rpcMethod[" + invocation.getRpcMethodName()
@@ -131,7 +151,13 @@ public class DefProviderInvoker<T> implements ProviderInvoker<T> {
                             .build());
 
             T serviceImpl = providerConfig.getRef();
-            Object result = method.invoke(serviceImpl, params);
+            Object result;
+            if (stubMethod != null) {
+                result = dispatcher.dispatch(serviceImpl, stubMethod, context, invocation.getArguments());
+            } else {
+                Object[] params = ArrayUtils.addAll(new Object[]{context}, invocation.getArguments());
+                result = method.invoke(serviceImpl, params);
+            }
             if (InvokeMode.isAsync(invocation.getInvokeMode())) {
                 PreconditionUtils.checkArgument(result != null,
                         "Found invoker(rpcServiceName=%s, rpcMethodName=%s) return value is null",
@@ -11,9 +11,11 @@
 
 package com.tencent.trpc.core.rpc.def;
 
+import com.tencent.trpc.core.compressor.CompressType;
 import com.tencent.trpc.core.compressor.spi.Compressor;
 import com.tencent.trpc.core.serialization.spi.Serialization;
 import com.tencent.trpc.core.utils.ClassUtils;
+import io.netty.buffer.ByteBuf;
 import java.io.IOException;
 
 /**
@@ -79,6 +81,52 @@ public class EncodableValue {
         }
     }
 
+    /**
+     * Encode into a netty buffer from its writer index, same as {@link #encode()} without the intermediate arrays.
+     * The value is serialized in place, and when compressed, moved to a buffer of the same allocator and compressed
+     * back.
+     *
+     * @param out the buffer to write to
+     * @return the bytes written, zero if the value is null
+     */
+    public int encode(ByteBuf out) {
+        if (rawValue == null) {
+            return 0;
+        }
+        int start = out.writerIndex();
+        // If it's a byte type, it means to get the raw data information and not to do the following (serialization
+        // or other) operations
+        if (generic) {
+            out.writeBytes(ClassUtils.cast2ByteArray(rawValue));
+        } else {
+            try {
+                serialization.serializeTo(rawValue, out);
+            } catch (IOException e) {
+                throw new RuntimeException(serialization.getClass() + " serialize "
+                        + rawValue.getClass().getName() + " error", e);
+            }
+        }
+        int size = out.writerIndex() - start;
+        if (size < compressMinBytes) {
+            return size;
+        }
+        compressed = Boolean.TRUE;
+        if (compressor.type() == CompressType.NONE) {
+            return size;
+        }
+        ByteBuf uncompressed = out.alloc().buffer(size);
+        try {
+            uncompressed.writeBytes(out, start, size);
+            out.writerIndex(start);
+            compressor.compress(uncompressed, out);
+            return out.writerIndex() - start;
+        } catch (IOException e) {
+            throw new RuntimeException(compressor.getClass() + " compress error", e);
+        } finally {
+            uncompressed.release();
+        }
+    }
+
     public Object getRawValue() {
         return rawValue;
     }
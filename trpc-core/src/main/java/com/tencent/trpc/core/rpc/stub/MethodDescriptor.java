@@ -0,0 +1,282 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.rpc.stub;
+
+import com.google.protobuf.Message;
+import com.tencent.trpc.core.rpc.InvokeMode;
+import com.tencent.trpc.core.rpc.RpcContext;
+import com.tencent.trpc.core.rpc.common.MethodRouterKey;
+import com.tencent.trpc.core.rpc.common.RpcMethodInfo;
+import com.tencent.trpc.core.serialization.support.helper.ProtoParserManager;
+import com.tencent.trpc.core.utils.RpcUtils;
+import java.lang.reflect.Method;
+import java.util.Objects;
+import org.apache.commons.lang3.ArrayUtils;
+import org.reactivestreams.Publisher;
+
+/**
+ * Describes one rpc method of a generated {@link ServiceStub}.
+ *
+ * <p>The names, the invocation mode and the message types are written down by the code generator, so the runtime
+ * does not have to read the {@code TRpcMethod} annotation or parse the generic signature of the method. The java
+ * {@link Method} and the {@link RpcMethodInfo} are resolved once when the owning {@link ServiceDescriptor} is
+ * created.</p>
+ */
+public final class MethodDescriptor {
+
+    /**
+     * Position of the method in its {@link ServiceDescriptor}, used by the generated dispatcher.
+     */
+    private final int index;
+    /**
+     * RPC method name, the same as {@code TRpcMethod#name()}.
+     */
+    private final String rpcMethodName;
+    /**
+     * RPC method aliases, the same as {@code TRpcMethod#alias()}.
+     */
+    private final String[] aliases;
+    /**
+     * Name of the java method in the service interface.
+     */
+    private final String javaMethodName;
+    /**
+     * Invocation mode.
+     */
+    private final InvokeMode invokeMode;
+    /**
+     * Request message type.
+     */
+    private final Class<?> requestType;
+    /**
+     * Default instance of the request message, null if the request is not a pb message.
+     */
+    private final Message requestDefaultInstance;
+    /**
+     * Response message type.
+     */
+    private final Class<?> responseType;
+    /**
+     * Default instance of the response message, null if the response is not a pb message.
+     */
+    private final Message responseDefaultInstance;
+    /**
+     * RPC service name, set when bound to the service interface.
+     */
+    private String rpcServiceName;
+    /**
+     * Route function /rpcServiceName/rpcMethodName, set when bound to the service interface.
+     */
+    private String func;
+    /**
+     * Java method, set when bound to the service interface.
+     */
+    private Method method;
+    /**
+     * RPC method information, set when bound to the service interface.
+     */
+    private RpcMethodInfo methodInfo;
+    /**
+     * Whether it is the default method of the service, the same as {@code TRpcMethod#isDefault()}, set when bound
+     * to the service interface.
+     */
+    private boolean defaultMethod;
+
+    private MethodDescriptor(MethodDescriptorBuilder builder) {
+        this.index = builder.index;
+        this.rpcMethodName = Objects.requireNonNull(builder.rpcMethodName, "rpcMethodName is null");
+        this.aliases = builder.aliases == null ? ArrayUtils.EMPTY_STRING_ARRAY : builder.aliases;
+        this.javaMethodName = Objects.requireNonNull(builder.javaMethodName, "javaMethodName is null");
+        this.invokeMode = Objects.requireNonNull(builder.invokeMode, "invokeMode is null");
+        this.requestType = Objects.requireNonNull(builder.requestType, "requestType is null");
+        this.requestDefaultInstance = builder.requestDefaultInstance;
+        this.responseType = Objects.requireNonNull(builder.responseType, "responseType is null");
+        this.responseDefaultInstance = builder.responseDefaultInstance;
+    }
+
+    public static MethodDescriptorBuilder builder() {
+        return new MethodDescriptorBuilder();
+    }
+
+    /**
+     * Resolve the java method of the service interface and build its {@link RpcMethodInfo}.
+     *
+     * @param serviceInterface the service interface
+     * @param serviceName the rpc service name
+     * @throws IllegalStateException if the interface does not declare the described method
+     */
+    synchronized void bind(Class<?> serviceInterface, String serviceName) {
+        if (methodInfo != null) {
+            if (methodInfo.getServiceInterface() != serviceInterface) {
+                throw new IllegalStateException("method " + rpcMethodName + " is already bound to "
+                        + methodInfo.getServiceInterface().getName());
+            }
+            return;
+        }
+        Class<?> parameterType = invokeMode == InvokeMode.CLIENT_STREAM || invokeMode == InvokeMode.DUPLEX_STREAM
+                ? Publisher.class : requestType;
+        Method resolved;
+        try {
+            resolved = serviceInterface.getMethod(javaMethodName, RpcContext.class, parameterType);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("interface " + serviceInterface.getName() + " has no method "
+                    + javaMethodName + "(RpcContext, " + parameterType.getSimpleName() + ")", e);
+        }
+        if (requestDefaultInstance != null) {
+            ProtoParserManager.preload(requestType, requestDefaultInstance);
+        }
+        if (responseDefaultInstance != null) {
+            ProtoParserManager.preload(responseType, responseDefaultInstance);
+        }
+        this.rpcServiceName = serviceName;
+        this.func = MethodRouterKey.toFunc(serviceName, rpcMethodName);
+        this.methodInfo = new RpcMethodInfo(serviceInterface, resolved, invokeMode, requestType, responseType);
+        this.defaultMethod = RpcUtils.isDefaultRpcMethod(resolved);
+        this.method = resolved;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getRpcMethodName() {
+        return rpcMethodName;
+    }
+
+    public String[] getAliases() {
+        return aliases;
+    }
+
+    public String getJavaMethodName() {
+        return javaMethodName;
+    }
+
+    public InvokeMode getInvokeMode() {
+        return invokeMode;
+    }
+
+    public Class<?> getRequestType() {
+        return requestType;
+    }
+
+    public Class<?> getResponseType() {
+        return responseType;
+    }
+
+    public String getRpcServiceName() {
+        return rpcServiceName;
+    }
+
+    public String getFunc() {
+        return func;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public RpcMethodInfo getMethodInfo() {
+        return methodInfo;
+    }
+
+    public boolean isDefault() {
+        return defaultMethod;
+    }
+
+    @Override
+    public String toString() {
+        return "MethodDescriptor{"
+                + "index=" + index
+                + ", rpcMethodName='" + rpcMethodName + '\''
+                + ", javaMethodName='" + javaMethodName + '\''
+                + ", invokeMode=" + invokeMode
+                + ", requestType=" + requestType.getName()
+                + ", responseType=" + responseType.getName()
+                + '}';
+    }
+
+    public static final class MethodDescriptorBuilder {
+
+        private int index;
+        private String rpcMethodName;
+        private String[] aliases;
+        private String javaMethodName;
+        private InvokeMode invokeMode;
+        private Class<?> requestType;
+        private Message requestDefaultInstance;
+        private Class<?> responseType;
+        private Message responseDefaultInstance;
+
+        private MethodDescriptorBuilder() {
+        }
+
+        public MethodDescriptorBuilder index(int index) {
+            this.index = index;
+            return this;
+        }
+
+        public MethodDescriptorBuilder rpcMethodName(String rpcMethodName) {
+            this.rpcMethodName = rpcMethodName;
+            return this;
+        }
+
+        public MethodDescriptorBuilder aliases(String... aliases) {
+            this.aliases = aliases;
+            return this;
+        }
+
+        public MethodDescriptorBuilder javaMethodName(String javaMethodName) {
+            this.javaMethodName = javaMethodName;
+            return this;
+        }
+
+        public MethodDescriptorBuilder invokeMode(InvokeMode invokeMode) {
+            this.invokeMode = invokeMode;
+            return this;
+        }
+
+        public MethodDescriptorBuilder requestType(Class<?> requestType) {
+            this.requestType = requestType;
+            return this;
+        }
+
+        /**
+         * Set the request type together with its pb default instance, which is handed to
+         * {@link ProtoParserManager} so the parser is not looked up by reflection.
+         */
+        public <T extends Message> MethodDescriptorBuilder requestType(Class<T> requestType, T defaultInstance) {
+            this.requestType = requestType;
+            this.requestDefaultInstance = defaultInstance;
+            return this;
+        }
+
+        public MethodDescriptorBuilder responseType(Class<?> responseType) {
+            this.responseType = responseType;
+            return this;
+        }
+
+        /**
+         * Set the response type together with its pb default instance, which is handed to
+         * {@link ProtoParserManager} so the parser is not looked up by reflection.
+         */
+        public <T extends Message> MethodDescriptorBuilder responseType(Class<T> responseType, T defaultInstance) {
+            this.responseType = responseType;
+            this.responseDefaultInstance = defaultInstance;
+            return this;
+        }
+
+        public MethodDescriptor build() {
+            return new MethodDescriptor(this);
+        }
+    }
+
+}
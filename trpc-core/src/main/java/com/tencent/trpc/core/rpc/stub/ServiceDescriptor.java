@@ -0,0 +1,112 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.rpc.stub;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.tencent.trpc.core.utils.PreconditionUtils;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The static method table of a generated {@link ServiceStub}.
+ *
+ * <p>Each {@link MethodDescriptor} must sit at the position of its index, which is what the generated dispatcher
+ * switches on. All methods are bound to the service interface when the descriptor is created, so a stub that no
+ * longer matches its interface fails here instead of on the first call.</p>
+ */
+public final class ServiceDescriptor {
+
+    /**
+     * Service interface.
+     */
+    private final Class<?> serviceInterface;
+    /**
+     * RPC service name, the same as {@code TRpcService#name()}.
+     */
+    private final String rpcServiceName;
+    /**
+     * Methods ordered by index.
+     */
+    private final List<MethodDescriptor> methods;
+    /**
+     * rpcMethodName -> MethodDescriptor.
+     */
+    private final Map<String, MethodDescriptor> rpcMethodNameToMethod;
+    /**
+     * java method -> MethodDescriptor.
+     */
+    private final Map<Method, MethodDescriptor> javaMethodToMethod;
+
+    public ServiceDescriptor(Class<?> serviceInterface, String rpcServiceName, MethodDescriptor... methods) {
+        this.serviceInterface = Objects.requireNonNull(serviceInterface, "serviceInterface is null");
+        this.rpcServiceName = Objects.requireNonNull(rpcServiceName, "rpcServiceName is null");
+        this.methods = ImmutableList.copyOf(methods);
+        ImmutableMap.Builder<String, MethodDescriptor> byName = ImmutableMap.builder();
+        ImmutableMap.Builder<Method, MethodDescriptor> byMethod = ImmutableMap.builder();
+        for (int i = 0; i < methods.length; i++) {
+            MethodDescriptor method = methods[i];
+            PreconditionUtils.checkArgument(method.getIndex() == i,
+                    "interface=[%s], rpcMethod[%s], index %s does not match position %s",
+                    serviceInterface.getName(), method.getRpcMethodName(), method.getIndex(), i);
+            method.bind(serviceInterface, rpcServiceName);
+            byName.put(method.getRpcMethodName(), method);
+            byMethod.put(method.getMethod(), method);
+        }
+        this.rpcMethodNameToMethod = byName.build();
+        this.javaMethodToMethod = byMethod.build();
+    }
+
+    public Class<?> getServiceInterface() {
+        return serviceInterface;
+    }
+
+    public String getRpcServiceName() {
+        return rpcServiceName;
+    }
+
+    public List<MethodDescriptor> getMethods() {
+        return methods;
+    }
+
+    /**
+     * Get the method by its rpc method name.
+     *
+     * @param rpcMethodName the rpc method name
+     * @return the method, or null if not found
+     */
+    public MethodDescriptor getMethod(String rpcMethodName) {
+        return rpcMethodName == null ? null : rpcMethodNameToMethod.get(rpcMethodName);
+    }
+
+    /**
+     * Get the method by its java method.
+     *
+     * @param method the java method of the service interface
+     * @return the method, or null if not found
+     */
+    public MethodDescriptor getMethod(Method method) {
+        return method == null ? null : javaMethodToMethod.get(method);
+    }
+
+    @Override
+    public String toString() {
+        return "ServiceDescriptor{"
+                + "serviceInterface=" + serviceInterface.getName()
+                + ", rpcServiceName='" + rpcServiceName + '\''
+                + ", methods=" + methods
+                + '}';
+    }
+
+}
@@ -0,0 +1,35 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.rpc.stub;
+
+import com.tencent.trpc.core.rpc.RpcContext;
+
+/**
+ * Calls the service implementation directly, in place of {@code Method#invoke}.
+ *
+ * @param <T> the service interface
+ */
+@FunctionalInterface
+public interface ServiceDispatcher<T> {
+
+    /**
+     * Call a method of the service implementation.
+     *
+     * @param service the service implementation
+     * @param method the method to call
+     * @param context the server context
+     * @param arguments the decoded arguments, without the context
+     * @return the return value of the method
+     */
+    Object dispatch(T service, MethodDescriptor method, RpcContext context, Object[] arguments);
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.rpc.stub;
+
+/**
+ * Generated companion of a service interface, which lets the runtime skip reflection for that interface.
+ *
+ * <p>The code generator writes one for each generated interface, named after the interface with a {@code Stub}
+ * suffix (e.g. {@code GreeterAPIStub} for {@code GreeterAPI}) and with a public no-arg constructor. It is found by
+ * {@link ServiceStubs#lookup(Class)}.</p>
+ *
+ * @param <T> the service interface
+ */
+public interface ServiceStub<T> {
+
+    /**
+     * Get the static method table.
+     *
+     * @return the service descriptor
+     */
+    ServiceDescriptor getDescriptor();
+
+    /**
+     * Get the dispatcher that calls the server side implementation.
+     *
+     * @return the service dispatcher
+     */
+    ServiceDispatcher<T> getDispatcher();
+
+    /**
+     * Create a client implementing the service interface.
+     *
+     * @param invoker the invoker that sends the calls
+     * @return the client
+     */
+    T newClient(StubInvoker invoker);
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.rpc.stub;
+
+import com.tencent.trpc.core.logger.Logger;
+import com.tencent.trpc.core.logger.LoggerFactory;
+import java.util.Optional;
+
+/**
+ * Finds the generated {@link ServiceStub} of a service interface.
+ *
+ * <p>The stub is looked up once per interface by its conventional name and kept in a {@link ClassValue}. Interfaces
+ * without a usable stub keep being served by reflection and dynamic proxies.</p>
+ */
+public class ServiceStubs {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServiceStubs.class);
+    /**
+     * Suffix appended to the interface name to get the stub class name.
+     */
+    public static final String STUB_CLASS_SUFFIX = "Stub";
+
+    /**
+     * Stores the stub of each service interface.
+     */
+    private static final ClassValue<Optional<ServiceStub<?>>> STUBS = new ClassValue<Optional<ServiceStub<?>>>() {
+        @Override
+        protected Optional<ServiceStub<?>> computeValue(Class<?> type) {
+            return Optional.ofNullable(loadStub(type));
+        }
+    };
+
+    /**
+     * Get the generated stub of a service interface.
+     *
+     * @param serviceInterface the service interface
+     * @param <T> the service interface type
+     * @return the stub, or null if the interface has no usable stub
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ServiceStub<T> lookup(Class<T> serviceInterface) {
+        if (serviceInterface == null || !serviceInterface.isInterface()) {
+            return null;
+        }
+        return (ServiceStub<T>) STUBS.get(serviceInterface).orElse(null);
+    }
+
+    private static ServiceStub<?> loadStub(Class<?> serviceInterface) {
+        ClassLoader classLoader = serviceInterface.getClassLoader();
+        if (classLoader == null) {
+            return null;
+        }
+        String stubClassName = serviceInterface.getName() + STUB_CLASS_SUFFIX;
+        Class<?> stubClass;
+        try {
+            stubClass = Class.forName(stubClassName, true, classLoader);
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (LinkageError e) {
+            logger.warn("Load service stub {} failed, fall back to reflection", stubClassName, e);
+            return null;
+        }
+        if (!ServiceStub.class.isAssignableFrom(stubClass)) {
+            return null;
+        }
+        try {
+            ServiceStub<?> stub = (ServiceStub<?>) stubClass.getDeclaredConstructor().newInstance();
+            if (stub.getDescriptor().getServiceInterface() != serviceInterface) {
+                logger.warn("Service stub {} describes {}, not {}, fall back to reflection", stubClassName,
+                        stub.getDescriptor().getServiceInterface().getName(), serviceInterface.getName());
+                return null;
+            }
+            logger.info("Use service stub {} for {}", stubClassName, serviceInterface.getName());
+            return stub;
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            logger.warn("Create service stub {} failed, fall back to reflection", stubClassName, e);
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.rpc.stub;
+
+import com.tencent.trpc.core.rpc.RpcContext;
+
+/**
+ * Sends the calls of a generated client stub, in place of the {@code InvocationHandler} behind a dynamic proxy.
+ */
+public interface StubInvoker {
+
+    /**
+     * Invoke a remote method.
+     *
+     * @param method the method to invoke
+     * @param context the client context
+     * @param request the request, or the request publisher of a client or duplex stream
+     * @return the value the service interface method returns
+     */
+    Object invoke(MethodDescriptor method, RpcContext context, Object request);
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.selector;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Number of the requests in flight from this process to each instance address, maintained by the cluster invoker
+ * and read by the routers and load balancers to detect overloaded instances.
+ * <p>The counter of an address is obtained once and kept by its holder, e.g. the invoker of the instance or the
+ * route table built for an instance snapshot, so that counting does not look up the address.</p>
+ * <p>The counters are weakly referenced, the counter of an instance that left the selectors is dropped once its
+ * invoker and the route tables holding it are gone.</p>
+ */
+public class ServiceInstanceInflight {
+
+    private static final Map<String, CounterReference> COUNTERS = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<AtomicInteger> RELEASED = new ReferenceQueue<>();
+
+    /**
+     * Get the in flight counter of the address of an instance, create it if absent.
+     *
+     * @param instance the instance
+     * @return the counter
+     */
+    public static AtomicInteger counter(ServiceInstance instance) {
+        expungeReleased();
+        String address = instance.getHost() + ":" + instance.getPort();
+        while (true) {
+            CounterReference reference = COUNTERS.get(address);
+            AtomicInteger counter = reference == null ? null : reference.get();
+            if (counter != null) {
+                return counter;
+            }
+            counter = new AtomicInteger();
+            CounterReference created = new CounterReference(address, counter);
+            if (reference == null ? COUNTERS.putIfAbsent(address, created) == null
+                    : COUNTERS.replace(address, reference, created)) {
+                return counter;
+            }
+        }
+    }
+
+    /**
+     * Get the number of addresses with a counter.
+     *
+     * @return the number of addresses
+     */
+    public static int size() {
+        expungeReleased();
+        return COUNTERS.size();
+    }
+
+    /**
+     * For Test purpose
+     */
+    public static void reset() {
+        COUNTERS.clear();
+    }
+
+    private static void expungeReleased() {
+        CounterReference reference;
+        while ((reference = (CounterReference) RELEASED.poll()) != null) {
+            COUNTERS.remove(reference.address, reference);
+        }
+    }
+
+    private static class CounterReference extends WeakReference<AtomicInteger> {
+
+        private final String address;
+
+        CounterReference(String address, AtomicInteger counter) {
+            super(counter, RELEASED);
+            this.address = address;
+        }
+    }
+
+}
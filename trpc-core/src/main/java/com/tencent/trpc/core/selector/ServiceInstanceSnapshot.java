@@ -0,0 +1,106 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.selector;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Immutable, versioned list of the instances of a service, published by a discovery each time the instances change
+ * and returned as is on every selection, so that listing the instances does not copy them.
+ * <p>The version is unique in the process and changes with every snapshot, routers and load balancers may cache the
+ * state derived from the instances keyed by it. The healthy subset and the index of each instance are computed once
+ * when the snapshot is built.</p>
+ */
+public final class ServiceInstanceSnapshot extends AbstractList<ServiceInstance> implements RandomAccess {
+
+    private static final AtomicLong VERSION_SEQ = new AtomicLong();
+
+    /**
+     * Snapshot without instances.
+     */
+    public static final ServiceInstanceSnapshot EMPTY = new ServiceInstanceSnapshot(new ServiceInstance[0]);
+
+    private final long version;
+    private final ServiceInstance[] instances;
+    private final ServiceInstanceSnapshot healthyInstances;
+    private final Map<ServiceInstance, Integer> indexes;
+
+    private ServiceInstanceSnapshot(ServiceInstance[] instances) {
+        this.version = VERSION_SEQ.incrementAndGet();
+        this.instances = instances;
+        this.indexes = new HashMap<>(instances.length * 4 / 3 + 1);
+        List<ServiceInstance> healthy = new ArrayList<>(instances.length);
+        for (int i = 0; i < instances.length; i++) {
+            indexes.putIfAbsent(instances[i], i);
+            if (instances[i].isHealthy()) {
+                healthy.add(instances[i]);
+            }
+        }
+        this.healthyInstances = healthy.size() == instances.length ? this
+                : new ServiceInstanceSnapshot(healthy.toArray(new ServiceInstance[0]));
+    }
+
+    /**
+     * Build a snapshot of the instances, in their iteration order.
+     *
+     * @param instances the instances
+     * @return the snapshot, {@link #EMPTY} if there is no instance
+     */
+    public static ServiceInstanceSnapshot of(Collection<ServiceInstance> instances) {
+        if (instances == null || instances.isEmpty()) {
+            return EMPTY;
+        }
+        return new ServiceInstanceSnapshot(instances.toArray(new ServiceInstance[0]));
+    }
+
+    @Override
+    public ServiceInstance get(int index) {
+        return instances[index];
+    }
+
+    @Override
+    public int size() {
+        return instances.length;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        Integer index = indexes.get(o);
+        return index == null ? -1 : index;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexes.containsKey(o);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the healthy instances, the snapshot itself if all the instances are healthy.
+     *
+     * @return the healthy instances
+     */
+    public ServiceInstanceSnapshot getHealthyInstances() {
+        return healthyInstances;
+    }
+
+}
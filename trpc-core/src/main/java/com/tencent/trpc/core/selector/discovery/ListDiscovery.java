@@ -19,6 +19,7 @@ import com.tencent.trpc.core.exception.TRpcExtensionException;
 import com.tencent.trpc.core.extension.InitializingExtension;
 import com.tencent.trpc.core.selector.ServiceId;
 import com.tencent.trpc.core.selector.ServiceInstance;
+import com.tencent.trpc.core.selector.ServiceInstanceSnapshot;
 import com.tencent.trpc.core.utils.FutureUtils;
 import java.util.List;
 import java.util.Objects;
@@ -36,7 +37,8 @@ public class ListDiscovery extends AbstractDiscovery implements InitializingExte
     private static final Integer LIST_IPS_CACHE_EXPIRE_AFTER_ACCESS_MINUTES = 10;
 
     /**
-     * Build ServiceInstanceList form serviceName,the serviceName like 'ip:port,ip:port'
+     * Build ServiceInstanceList form serviceName,the serviceName like 'ip:port,ip:port', as an immutable
+     * {@link ServiceInstanceSnapshot} cached and returned without copying
      * */
     private static List<ServiceInstance> parseServiceId2Instances(String serviceName) {
         List<ServiceInstance> instances = Lists.newArrayList();
@@ -47,7 +49,7 @@ public class ListDiscovery extends AbstractDiscovery implements InitializingExte
             int port = Integer.parseInt(each.substring(index + 1));
             instances.add(new ServiceInstance(ip, port));
         }
-        return instances;
+        return ServiceInstanceSnapshot.of(instances);
     }
 
     @Override
@@ -0,0 +1,137 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.selector.outlier;
+
+import com.tencent.trpc.core.utils.PreconditionUtils;
+import java.util.Map;
+import org.apache.commons.collections4.MapUtils;
+
+/**
+ * Config of the {@link OutlierDetector}, parsed from the {@code outlier_detection} properties of a selector.
+ */
+public class OutlierDetectionConfig {
+
+    public static final String CONSECUTIVE_ERRORS = "consecutive_errors";
+    public static final String LATENCY_FACTOR = "latency_factor";
+    public static final String LATENCY_MIN_REQUESTS = "latency_min_requests";
+    public static final String INTERVAL_MILLS = "interval_mills";
+    public static final String BASE_EJECTION_MILLS = "base_ejection_mills";
+    public static final String MAX_EJECTION_MILLS = "max_ejection_mills";
+    public static final String MAX_EJECTION_PERCENT = "max_ejection_percent";
+
+    public static final int DEFAULT_CONSECUTIVE_ERRORS = 5;
+    public static final double DEFAULT_LATENCY_FACTOR = 3;
+    public static final int DEFAULT_LATENCY_MIN_REQUESTS = 10;
+    public static final long DEFAULT_INTERVAL_MILLS = 10000;
+    public static final long DEFAULT_BASE_EJECTION_MILLS = 30000;
+    public static final long DEFAULT_MAX_EJECTION_MILLS = 300000;
+    public static final int DEFAULT_MAX_EJECTION_PERCENT = 10;
+
+    /**
+     * Eject an instance after this many consecutive errors, 0 to disable
+     */
+    private int consecutiveErrors;
+    /**
+     * Eject an instance whose average latency is above this multiple of the median of its service, 0 to disable
+     */
+    private double latencyFactor;
+    /**
+     * Min requests of an instance in an interval for its latency to be compared
+     */
+    private int latencyMinRequests;
+    /**
+     * Interval between two latency comparisons of a service
+     */
+    private long intervalMills;
+    /**
+     * Duration of the first ejection of an instance, doubled for each following one
+     */
+    private long baseEjectionMills;
+    /**
+     * Max duration of an ejection
+     */
+    private long maxEjectionMills;
+    /**
+     * Max percentage of the instances of a service ejected at the same time, at least one instance may be ejected
+     * when there are more than one
+     */
+    private int maxEjectionPercent;
+
+    /**
+     * Build OutlierDetectionConfig from the properties map
+     *
+     * @param map the properties
+     * @return the config
+     */
+    public static OutlierDetectionConfig parse(Map<String, Object> map) {
+        OutlierDetectionConfig config = new OutlierDetectionConfig();
+        config.consecutiveErrors = MapUtils.getIntValue(map, CONSECUTIVE_ERRORS, DEFAULT_CONSECUTIVE_ERRORS);
+        config.latencyFactor = MapUtils.getDoubleValue(map, LATENCY_FACTOR, DEFAULT_LATENCY_FACTOR);
+        config.latencyMinRequests = MapUtils.getIntValue(map, LATENCY_MIN_REQUESTS, DEFAULT_LATENCY_MIN_REQUESTS);
+        config.intervalMills = MapUtils.getLongValue(map, INTERVAL_MILLS, DEFAULT_INTERVAL_MILLS);
+        config.baseEjectionMills = MapUtils.getLongValue(map, BASE_EJECTION_MILLS, DEFAULT_BASE_EJECTION_MILLS);
+        config.maxEjectionMills = MapUtils.getLongValue(map, MAX_EJECTION_MILLS, DEFAULT_MAX_EJECTION_MILLS);
+        config.maxEjectionPercent = MapUtils.getIntValue(map, MAX_EJECTION_PERCENT, DEFAULT_MAX_EJECTION_PERCENT);
+        config.validate();
+        return config;
+    }
+
+    public void validate() {
+        PreconditionUtils.checkArgument(consecutiveErrors >= 0,
+                "OutlierDetection, consecutive_errors[%s] should not be negative", consecutiveErrors);
+        PreconditionUtils.checkArgument(latencyFactor == 0 || latencyFactor > 1,
+                "OutlierDetection, latency_factor[%s] should be 0 or greater than 1", latencyFactor);
+        PreconditionUtils.checkArgument(intervalMills > 0,
+                "OutlierDetection, interval_mills[%s] should be positive", intervalMills);
+        PreconditionUtils.checkArgument(baseEjectionMills > 0 && maxEjectionMills >= baseEjectionMills,
+                "OutlierDetection, base_ejection_mills[%s] should be positive and not greater than "
+                        + "max_ejection_mills[%s]", baseEjectionMills, maxEjectionMills);
+        PreconditionUtils.checkArgument(maxEjectionPercent >= 0 && maxEjectionPercent <= 100,
+                "OutlierDetection, max_ejection_percent[%s] should be in [0, 100]", maxEjectionPercent);
+    }
+
+    public int getConsecutiveErrors() {
+        return consecutiveErrors;
+    }
+
+    public double getLatencyFactor() {
+        return latencyFactor;
+    }
+
+    public int getLatencyMinRequests() {
+        return latencyMinRequests;
+    }
+
+    public long getIntervalMills() {
+        return intervalMills;
+    }
+
+    public long getBaseEjectionMills() {
+        return baseEjectionMills;
+    }
+
+    public long getMaxEjectionMills() {
+        return maxEjectionMills;
+    }
+
+    public int getMaxEjectionPercent() {
+        return maxEjectionPercent;
+    }
+
+    @Override
+    public String toString() {
+        return "OutlierDetectionConfig{" + "consecutiveErrors=" + consecutiveErrors + ", latencyFactor="
+                + latencyFactor + ", latencyMinRequests=" + latencyMinRequests + ", intervalMills=" + intervalMills
+                + ", baseEjectionMills=" + baseEjectionMills + ", maxEjectionMills=" + maxEjectionMills
+                + ", maxEjectionPercent=" + maxEjectionPercent + '}';
+    }
+}
@@ -0,0 +1,357 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.selector.outlier;
+
+import com.tencent.trpc.core.exception.ErrorCode;
+import com.tencent.trpc.core.logger.Logger;
+import com.tencent.trpc.core.logger.LoggerFactory;
+import com.tencent.trpc.core.selector.ServiceInstance;
+import com.tencent.trpc.core.selector.ServiceInstanceSnapshot;
+import com.tencent.trpc.core.selector.outlier.OutlierEvent.Reason;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outlier detection of a selector, temporarily ejects the instances which keep failing or are much slower than the
+ * other instances of their service.
+ * <p>Each call reported to the selector is recorded for its instance. An instance is ejected after
+ * {@code consecutive_errors} consecutive errors, or when its average latency in an interval is above
+ * {@code latency_factor} times the median of the instances of its service. The first ejection of an instance lasts
+ * {@code base_ejection_mills}, each following one twice as long as the previous up to {@code max_ejection_mills}, and
+ * the count restarts once the instance stays in service for {@code max_ejection_mills}. No more than
+ * {@code max_ejection_percent} of the instances of a service are ejected at the same time.</p>
+ * <p>The instances of a service are the ones the selector selects from, registered by {@link #observe}. The state of
+ * an instance is kept per service, so an address serving several services is ejected for each of them on its own.
+ * The latency comparison runs on the reporting thread once per interval, no thread is started. The recent ejections
+ * are kept for the admin.</p>
+ */
+public class OutlierDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutlierDetector.class);
+
+    /**
+     * Min instances with enough requests to compare the latency
+     */
+    private static final int MIN_LATENCY_INSTANCES = 3;
+
+    /**
+     * Number of recent ejections kept
+     */
+    private static final int MAX_EVENTS = 100;
+
+    private static final Map<String, OutlierDetector> DETECTORS = new ConcurrentHashMap<>();
+
+    private static final Deque<OutlierEvent> EVENTS = new ArrayDeque<>();
+
+    private final String name;
+    private final OutlierDetectionConfig config;
+    private final long intervalNanos;
+    private final long baseEjectionNanos;
+    private final long maxEjectionNanos;
+
+    /**
+     * Service name -> instances
+     */
+    private final Map<String, Cluster> clusters = new ConcurrentHashMap<>();
+
+    public OutlierDetector(String name, OutlierDetectionConfig config) {
+        this.name = name;
+        this.config = config;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(config.getIntervalMills());
+        this.baseEjectionNanos = TimeUnit.MILLISECONDS.toNanos(config.getBaseEjectionMills());
+        this.maxEjectionNanos = TimeUnit.MILLISECONDS.toNanos(config.getMaxEjectionMills());
+    }
+
+    /**
+     * Register a detector so that its state is visible to the admin.
+     *
+     * @param detector the detector
+     */
+    public static void register(OutlierDetector detector) {
+        DETECTORS.put(detector.getName(), detector);
+    }
+
+    public static Map<String, OutlierDetector> getDetectors() {
+        return Collections.unmodifiableMap(DETECTORS);
+    }
+
+    /**
+     * Get the recent ejections of all the detectors.
+     *
+     * @return the events, the latest first
+     */
+    public static List<OutlierEvent> getRecentEvents() {
+        synchronized (EVENTS) {
+            return new ArrayList<>(EVENTS);
+        }
+    }
+
+    /**
+     * For Test purpose
+     */
+    public static void reset() {
+        DETECTORS.clear();
+        synchronized (EVENTS) {
+            EVENTS.clear();
+        }
+    }
+
+    /**
+     * Register the instances of a service, cheap when they are the same {@link ServiceInstanceSnapshot} as the last
+     * time. Other lists are registered again when their size changes or after an interval.
+     *
+     * @param service the service name
+     * @param instances the instances the selector selects from
+     */
+    public void observe(String service, List<ServiceInstance> instances) {
+        Cluster cluster = clusters.computeIfAbsent(service, Cluster::new);
+        long now = System.nanoTime();
+        if (instances instanceof ServiceInstanceSnapshot) {
+            if (((ServiceInstanceSnapshot) instances).getVersion() == cluster.version) {
+                return;
+            }
+        } else if (instances.size() == cluster.hosts.length && now - cluster.observedNanos < intervalNanos) {
+            return;
+        }
+        synchronized (cluster) {
+            HostState[] newHosts = new HostState[instances.size()];
+            Set<HostState> retained = new HashSet<>();
+            for (int i = 0; i < newHosts.length; i++) {
+                HostState host = cluster.states.computeIfAbsent(address(instances.get(i)),
+                        address -> new HostState(address, cluster));
+                newHosts[i] = host;
+                retained.add(host);
+            }
+            for (HostState old : cluster.hosts) {
+                if (!retained.contains(old)) {
+                    cluster.states.remove(old.address, old);
+                }
+            }
+            cluster.hosts = newHosts;
+            cluster.version = instances instanceof ServiceInstanceSnapshot
+                    ? ((ServiceInstanceSnapshot) instances).getVersion() : -1;
+            cluster.observedNanos = now;
+        }
+    }
+
+    /**
+     * Whether the instance is ejected for the service.
+     *
+     * @param service the service name
+     * @param instance the instance
+     * @return true if ejected
+     */
+    public boolean isEjected(String service, ServiceInstance instance) {
+        HostState host = getHost(service, instance);
+        return host != null && host.isEjected(System.nanoTime());
+    }
+
+    /**
+     * Record the result of a call.
+     *
+     * @param service the service name the instance was selected for
+     * @param instance the called instance
+     * @param code {@link ErrorCode#TRPC_INVOKE_SUCCESS}, or the code of a network or timeout error
+     * @param costMs the cost of the call
+     */
+    public void report(String service, ServiceInstance instance, int code, long costMs) {
+        HostState host = getHost(service, instance);
+        if (host == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (code == ErrorCode.TRPC_INVOKE_SUCCESS) {
+            host.consecutiveErrors.set(0);
+            host.requests.incrementAndGet();
+            host.latencySum.addAndGet(costMs);
+        } else if (config.getConsecutiveErrors() > 0
+                && host.consecutiveErrors.incrementAndGet() >= config.getConsecutiveErrors()) {
+            eject(host, now, Reason.CONSECUTIVE_ERRORS, "consecutive errors " + host.consecutiveErrors.get());
+        }
+        Cluster cluster = host.cluster;
+        if (config.getLatencyFactor() > 0) {
+            long next = cluster.nextSweepNanos.get();
+            if (next == 0) {
+                cluster.nextSweepNanos.compareAndSet(0, now + intervalNanos);
+            } else if (now - next >= 0 && cluster.nextSweepNanos.compareAndSet(next, now + intervalNanos)) {
+                compareLatency(cluster, now);
+            }
+        }
+    }
+
+    /**
+     * Get the ejected instances.
+     *
+     * @return service name/instance address -> remaining ejection time in milliseconds
+     */
+    public Map<String, Long> getEjectedInstances() {
+        long now = System.nanoTime();
+        Map<String, Long> ejected = new TreeMap<>();
+        clusters.forEach((service, cluster) -> cluster.states.forEach((address, host) -> {
+            if (host.isEjected(now)) {
+                ejected.put(service + "/" + address, TimeUnit.NANOSECONDS.toMillis(host.ejectedUntilNanos - now));
+            }
+        }));
+        return ejected;
+    }
+
+    private HostState getHost(String service, ServiceInstance instance) {
+        Cluster cluster = service == null ? null : clusters.get(service);
+        return cluster == null ? null : cluster.states.get(address(instance));
+    }
+
+    private void compareLatency(Cluster cluster, long now) {
+        HostState[] clusterHosts = cluster.hosts;
+        List<HostState> measured = new ArrayList<>(clusterHosts.length);
+        List<Double> averages = new ArrayList<>(clusterHosts.length);
+        for (HostState host : clusterHosts) {
+            int requests = host.requests.getAndSet(0);
+            long latencySum = host.latencySum.getAndSet(0);
+            if (requests >= config.getLatencyMinRequests() && requests > 0 && !host.isEjected(now)) {
+                host.averageLatency = (double) latencySum / requests;
+                measured.add(host);
+                averages.add(host.averageLatency);
+            }
+        }
+        if (measured.size() < MIN_LATENCY_INSTANCES) {
+            return;
+        }
+        double[] sorted = averages.stream().mapToDouble(Double::doubleValue).toArray();
+        Arrays.sort(sorted);
+        double median = sorted[sorted.length / 2];
+        if (median <= 0) {
+            return;
+        }
+        for (HostState host : measured) {
+            if (host.averageLatency > median * config.getLatencyFactor()) {
+                eject(host, now, Reason.LATENCY, String.format("average latency %.1fms, median %.1fms",
+                        host.averageLatency, median));
+            }
+        }
+    }
+
+    private void eject(HostState host, long now, Reason reason, String detail) {
+        Cluster cluster = host.cluster;
+        OutlierEvent event;
+        synchronized (cluster) {
+            if (host.isEjected(now)) {
+                return;
+            }
+            HostState[] clusterHosts = cluster.hosts;
+            int maxEjected = clusterHosts.length * config.getMaxEjectionPercent() / 100;
+            if (clusterHosts.length > 1 && config.getMaxEjectionPercent() > 0) {
+                maxEjected = Math.max(maxEjected, 1);
+            }
+            int ejected = 0;
+            for (HostState clusterHost : clusterHosts) {
+                if (clusterHost.isEjected(now)) {
+                    ejected++;
+                }
+            }
+            if (ejected >= maxEjected) {
+                logger.debug("Outlier detection[{}], skip ejecting {} of {} for {}, {} of {} instances ejected",
+                        name, host.address, cluster.service, detail, ejected, clusterHosts.length);
+                return;
+            }
+            if (host.ejections > 0 && now - host.ejectedUntilNanos > maxEjectionNanos) {
+                host.ejections = 0;
+            }
+            long ejectionNanos = Math.min(baseEjectionNanos << Math.min(host.ejections, 30), maxEjectionNanos);
+            host.ejections++;
+            host.consecutiveErrors.set(0);
+            host.ejectedUntilNanos = now + ejectionNanos;
+            host.ejected = true;
+            event = new OutlierEvent(System.currentTimeMillis(), name, cluster.service, host.address, reason,
+                    detail, host.ejections, TimeUnit.NANOSECONDS.toMillis(ejectionNanos));
+        }
+        logger.warn("Outlier detection[{}], ejected {}", name, event);
+        synchronized (EVENTS) {
+            EVENTS.addFirst(event);
+            if (EVENTS.size() > MAX_EVENTS) {
+                EVENTS.removeLast();
+            }
+        }
+    }
+
+    private static String address(ServiceInstance instance) {
+        return instance.getHost() + ":" + instance.getPort();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public OutlierDetectionConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Instances of a service.
+     */
+    private static class Cluster {
+
+        private final String service;
+        /**
+         * Instance address -> state
+         */
+        private final Map<String, HostState> states = new ConcurrentHashMap<>();
+        private final AtomicLong nextSweepNanos = new AtomicLong();
+        private volatile HostState[] hosts = new HostState[0];
+        private volatile long version = -1;
+        private volatile long observedNanos;
+
+        Cluster(String service) {
+            this.service = service;
+        }
+    }
+
+    /**
+     * State of an instance address in a service.
+     */
+    private static class HostState {
+
+        private final String address;
+        private final AtomicInteger consecutiveErrors = new AtomicInteger();
+        private final AtomicInteger requests = new AtomicInteger();
+        private final AtomicLong latencySum = new AtomicLong();
+        private final Cluster cluster;
+        private volatile boolean ejected;
+        private volatile long ejectedUntilNanos;
+        /**
+         * Number of consecutive ejections, guarded by the cluster
+         */
+        private int ejections;
+        private double averageLatency;
+
+        HostState(String address, Cluster cluster) {
+            this.address = address;
+            this.cluster = cluster;
+        }
+
+        boolean isEjected(long now) {
+            return ejected && now - ejectedUntilNanos < 0;
+        }
+    }
+
+}
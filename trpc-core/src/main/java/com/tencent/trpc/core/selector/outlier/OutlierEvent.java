@@ -0,0 +1,95 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.selector.outlier;
+
+/**
+ * Ejection of an instance by an {@link OutlierDetector}.
+ */
+public class OutlierEvent {
+
+    /**
+     * Why an instance is ejected
+     */
+    public enum Reason {
+        /**
+         * Too many consecutive network or timeout errors
+         */
+        CONSECUTIVE_ERRORS,
+        /**
+         * Average latency far above the median of the service
+         */
+        LATENCY
+    }
+
+    private final long time;
+    private final String selector;
+    private final String service;
+    private final String address;
+    private final Reason reason;
+    private final String detail;
+    private final int ejections;
+    private final long ejectionMills;
+
+    public OutlierEvent(long time, String selector, String service, String address, Reason reason, String detail,
+            int ejections, long ejectionMills) {
+        this.time = time;
+        this.selector = selector;
+        this.service = service;
+        this.address = address;
+        this.reason = reason;
+        this.detail = detail;
+        this.ejections = ejections;
+        this.ejectionMills = ejectionMills;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public String getSelector() {
+        return selector;
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    /**
+     * Number of consecutive ejections of the instance, including this one.
+     */
+    public int getEjections() {
+        return ejections;
+    }
+
+    public long getEjectionMills() {
+        return ejectionMills;
+    }
+
+    @Override
+    public String toString() {
+        return "OutlierEvent{" + "time=" + time + ", selector='" + selector + '\'' + ", service='" + service + '\''
+                + ", address='" + address + '\'' + ", reason=" + reason + ", detail='" + detail + '\''
+                + ", ejections=" + ejections + ", ejectionMills=" + ejectionMills + '}';
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.selector.router.support;
+
+import com.tencent.trpc.core.common.Constants;
+import com.tencent.trpc.core.common.config.PluginConfig;
+import com.tencent.trpc.core.exception.TRpcException;
+import com.tencent.trpc.core.exception.TRpcExtensionException;
+import com.tencent.trpc.core.extension.Extension;
+import com.tencent.trpc.core.extension.InitializingExtension;
+import com.tencent.trpc.core.extension.PluginConfigAware;
+import com.tencent.trpc.core.logger.Logger;
+import com.tencent.trpc.core.logger.LoggerFactory;
+import com.tencent.trpc.core.rpc.Request;
+import com.tencent.trpc.core.rpc.RpcContext;
+import com.tencent.trpc.core.selector.ServiceInstance;
+import com.tencent.trpc.core.selector.ServiceInstanceInflight;
+import com.tencent.trpc.core.selector.ServiceInstanceSnapshot;
+import com.tencent.trpc.core.selector.router.AbstractRouter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Locality aware router, prefers the healthy instances in the same zone, then in the same region, then all of them.
+ * <p>The zone and region of an instance are read from its parameters, see {@link LocalityRouterConfig}. Requests
+ * spill to the next locality when the healthy share of the instances in a locality is below
+ * {@code min_healthy_percent}, or when {@code max_inflight_per_instance} is set and the average requests in flight of
+ * its healthy instances exceeds it. When set division is enabled, the instances of the same set are preferred over
+ * the others before applying the locality.</p>
+ * <p>The localities are computed once for each {@link ServiceInstanceSnapshot}, routing a request only checks them
+ * in order. Only the table of the latest snapshot of each service is kept, the service is read from
+ * {@link Constants#ROUTE_SERVICE} of the request value map.</p>
+ */
+@Extension(LocalityRouter.NAME)
+public class LocalityRouter extends AbstractRouter implements PluginConfigAware, InitializingExtension {
+
+    public static final String NAME = "locality";
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalityRouter.class);
+
+    private PluginConfig pluginConfig;
+
+    private LocalityRouterConfig config;
+
+    /**
+     * Service name -> route table of its latest snapshot
+     */
+    private final Map<String, RouteTable> tables = new ConcurrentHashMap<>();
+
+    @Override
+    public void setPluginConfig(PluginConfig pluginConfig) throws TRpcExtensionException {
+        this.pluginConfig = pluginConfig;
+    }
+
+    @Override
+    public void init() throws TRpcExtensionException {
+        this.config = LocalityRouterConfig.parse(pluginConfig == null ? null : pluginConfig.getProperties());
+        logger.info("Init locality router, config: {}", config);
+    }
+
+    /**
+     * The result only depends on the instances unless the requests in flight are checked.
+     */
+    @Override
+    public Object getRouteKey(Request request) {
+        return config.getMaxInflightPerInstance() > 0 ? null : NAME;
+    }
+
+    @Override
+    protected List<ServiceInstance> doRoute(List<ServiceInstance> instances, Request request)
+            throws TRpcException {
+        if (instances == null || instances.isEmpty()) {
+            return instances;
+        }
+        if (!(instances instanceof ServiceInstanceSnapshot)) {
+            return new RouteTable(0, instances).route();
+        }
+        long version = ((ServiceInstanceSnapshot) instances).getVersion();
+        RpcContext context = request == null ? null : request.getContext();
+        Object service = context == null ? null : context.getValueMap().get(Constants.ROUTE_SERVICE);
+        String key = service == null ? "" : service.toString();
+        RouteTable table = tables.get(key);
+        if (table == null || table.version != version) {
+            table = new RouteTable(version, instances);
+            // the versions grow with the snapshots, a table racing with a newer one is not kept
+            tables.merge(key, table, (old, latest) -> latest.version > old.version ? latest : old);
+        }
+        return table.route();
+    }
+
+    public LocalityRouterConfig getConfig() {
+        return config;
+    }
+
+    private static List<ServiceInstance> filter(List<ServiceInstance> instances, Predicate<ServiceInstance> filter) {
+        return instances.stream().filter(filter).collect(Collectors.toList());
+    }
+
+    /**
+     * The localities of an instance list, from the nearest to all the instances.
+     */
+    private class RouteTable {
+
+        private final long version;
+        private final List<Locality> localities = new ArrayList<>();
+        private final List<ServiceInstance> fallback;
+
+        RouteTable(long version, List<ServiceInstance> instances) {
+            this.version = version;
+            List<ServiceInstance> candidates = instances;
+            String localSet = config.getLocalSet();
+            if (StringUtils.isNotEmpty(localSet)) {
+                List<ServiceInstance> sameSet = filter(instances,
+                        i -> localSet.equals(i.getParameter(Constants.SET_DIVISION)));
+                candidates = sameSet.isEmpty() ? instances : sameSet;
+            }
+            int previousSize = 0;
+            if (StringUtils.isNotEmpty(config.getLocalZone())) {
+                List<ServiceInstance> sameZone = filter(candidates,
+                        i -> config.getLocalZone().equals(i.getParameter(config.getZoneKey())));
+                if (!sameZone.isEmpty()) {
+                    localities.add(new Locality(sameZone));
+                    previousSize = sameZone.size();
+                }
+            }
+            if (StringUtils.isNotEmpty(config.getLocalRegion())) {
+                List<ServiceInstance> sameRegion = filter(candidates,
+                        i -> config.getLocalRegion().equals(i.getParameter(config.getRegionKey())));
+                if (sameRegion.size() > previousSize) {
+                    localities.add(new Locality(sameRegion));
+                }
+            }
+            ServiceInstanceSnapshot all = ServiceInstanceSnapshot.of(candidates);
+            // If all isUnHealthy,return all!
+            this.fallback = all.getHealthyInstances().isEmpty() ? all : all.getHealthyInstances();
+        }
+
+        List<ServiceInstance> route() {
+            for (Locality locality : localities) {
+                if (locality.isAvailable()) {
+                    return locality.healthy;
+                }
+            }
+            return fallback;
+        }
+    }
+
+    /**
+     * The instances of a zone or region.
+     */
+    private class Locality {
+
+        private final ServiceInstanceSnapshot healthy;
+        private final boolean healthyEnough;
+        private final AtomicInteger[] inflight;
+
+        Locality(List<ServiceInstance> instances) {
+            this.healthy = ServiceInstanceSnapshot.of(instances).getHealthyInstances();
+            this.healthyEnough = !healthy.isEmpty()
+                    && healthy.size() * 100L >= (long) config.getMinHealthyPercent() * instances.size();
+            this.inflight = new AtomicInteger[config.getMaxInflightPerInstance() > 0 ? healthy.size() : 0];
+            for (int i = 0; i < inflight.length; i++) {
+                inflight[i] = ServiceInstanceInflight.counter(healthy.get(i));
+            }
+        }
+
+        boolean isAvailable() {
+            if (!healthyEnough) {
+                return false;
+            }
+            if (inflight.length == 0) {
+                return true;
+            }
+            long total = 0;
+            for (AtomicInteger counter : inflight) {
+                total += counter.get();
+            }
+            return total <= (long) config.getMaxInflightPerInstance() * inflight.length;
+        }
+    }
+
+}
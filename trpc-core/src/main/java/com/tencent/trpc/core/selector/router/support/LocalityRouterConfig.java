@@ -0,0 +1,135 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.selector.router.support;
+
+import com.tencent.trpc.core.common.ConfigManager;
+import com.tencent.trpc.core.common.config.GlobalConfig;
+import com.tencent.trpc.core.utils.PreconditionUtils;
+import java.util.Map;
+import org.apache.commons.collections4.MapUtils;
+
+/**
+ * Config of the {@link LocalityRouter}, parsed from the properties of its plugin config.
+ */
+public class LocalityRouterConfig {
+
+    public static final String ZONE_KEY = "zone_key";
+    public static final String REGION_KEY = "region_key";
+    public static final String LOCAL_ZONE = "local_zone";
+    public static final String LOCAL_REGION = "local_region";
+    public static final String MIN_HEALTHY_PERCENT = "min_healthy_percent";
+    public static final String MAX_INFLIGHT_PER_INSTANCE = "max_inflight_per_instance";
+
+    /**
+     * Default instance parameter and global ext key of the zone
+     */
+    public static final String DEFAULT_ZONE_KEY = "zone";
+    /**
+     * Default instance parameter and global ext key of the region
+     */
+    public static final String DEFAULT_REGION_KEY = "region";
+    public static final int DEFAULT_MIN_HEALTHY_PERCENT = 70;
+
+    /**
+     * Instance parameter of the zone
+     */
+    private String zoneKey;
+    /**
+     * Instance parameter of the region
+     */
+    private String regionKey;
+    /**
+     * Zone of this process, defaults to {@code global.ext.zone}
+     */
+    private String localZone;
+    /**
+     * Region of this process, defaults to {@code global.ext.region}
+     */
+    private String localRegion;
+    /**
+     * Spill to the next locality when the healthy share of the instances in a locality is below this percentage
+     */
+    private int minHealthyPercent;
+    /**
+     * Spill to the next locality when the average requests in flight of its healthy instances exceeds this, 0 to
+     * disable
+     */
+    private int maxInflightPerInstance;
+    /**
+     * Full set name of this process when set division is enabled, instances of the same set are preferred
+     */
+    private String localSet;
+
+    /**
+     * Build LocalityRouterConfig from PluginConfig properties map
+     *
+     * @param map the properties, may be null
+     * @return the config
+     */
+    public static LocalityRouterConfig parse(Map<String, Object> map) {
+        GlobalConfig globalConfig = ConfigManager.getInstance().getGlobalConfig();
+        Map<String, Object> ext = globalConfig.getExt();
+        LocalityRouterConfig config = new LocalityRouterConfig();
+        config.zoneKey = MapUtils.getString(map, ZONE_KEY, DEFAULT_ZONE_KEY);
+        config.regionKey = MapUtils.getString(map, REGION_KEY, DEFAULT_REGION_KEY);
+        config.localZone = MapUtils.getString(map, LOCAL_ZONE, MapUtils.getString(ext, DEFAULT_ZONE_KEY));
+        config.localRegion = MapUtils.getString(map, LOCAL_REGION, MapUtils.getString(ext, DEFAULT_REGION_KEY));
+        config.minHealthyPercent = MapUtils.getIntValue(map, MIN_HEALTHY_PERCENT, DEFAULT_MIN_HEALTHY_PERCENT);
+        config.maxInflightPerInstance = MapUtils.getIntValue(map, MAX_INFLIGHT_PER_INSTANCE, 0);
+        config.localSet = globalConfig.isEnableSet() ? globalConfig.getFullSetName() : null;
+        config.validate();
+        return config;
+    }
+
+    public void validate() {
+        PreconditionUtils.checkArgument(minHealthyPercent >= 0 && minHealthyPercent <= 100,
+                "LocalityRouter, min_healthy_percent[%s] should be in [0, 100]", minHealthyPercent);
+        PreconditionUtils.checkArgument(maxInflightPerInstance >= 0,
+                "LocalityRouter, max_inflight_per_instance[%s] should not be negative", maxInflightPerInstance);
+    }
+
+    public String getZoneKey() {
+        return zoneKey;
+    }
+
+    public String getRegionKey() {
+        return regionKey;
+    }
+
+    public String getLocalZone() {
+        return localZone;
+    }
+
+    public String getLocalRegion() {
+        return localRegion;
+    }
+
+    public int getMinHealthyPercent() {
+        return minHealthyPercent;
+    }
+
+    public int getMaxInflightPerInstance() {
+        return maxInflightPerInstance;
+    }
+
+    public String getLocalSet() {
+        return localSet;
+    }
+
+    @Override
+    public String toString() {
+        return "LocalityRouterConfig{" + "zoneKey='" + zoneKey + '\'' + ", regionKey='" + regionKey + '\''
+                + ", localZone='" + localZone + '\'' + ", localRegion='" + localRegion + '\''
+                + ", minHealthyPercent=" + minHealthyPercent + ", maxInflightPerInstance=" + maxInflightPerInstance
+                + ", localSet='" + localSet + '\'' + '}';
+    }
+}
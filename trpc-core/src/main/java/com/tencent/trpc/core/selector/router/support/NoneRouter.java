@@ -16,6 +16,7 @@ import com.tencent.trpc.core.exception.TRpcException;
 import com.tencent.trpc.core.extension.Extension;
 import com.tencent.trpc.core.rpc.Request;
 import com.tencent.trpc.core.selector.ServiceInstance;
+import com.tencent.trpc.core.selector.ServiceInstanceSnapshot;
 import com.tencent.trpc.core.selector.router.AbstractRouter;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -25,9 +26,21 @@ public class NoneRouter extends AbstractRouter {
 
     public static final String NAME = "none";
 
+    /**
+     * The result only depends on the instances.
+     */
+    @Override
+    public Object getRouteKey(Request request) {
+        return NAME;
+    }
+
     @Override
     protected List<ServiceInstance> doRoute(List<ServiceInstance> instances, Request request)
             throws TRpcException {
+        if (instances instanceof ServiceInstanceSnapshot) {
+            ServiceInstanceSnapshot healthy = ((ServiceInstanceSnapshot) instances).getHealthyInstances();
+            return healthy.isEmpty() ? instances : healthy;
+        }
         if (instances != null) {
             List<ServiceInstance> result = instances.stream()
                     .filter(ServiceInstance::isHealthy)
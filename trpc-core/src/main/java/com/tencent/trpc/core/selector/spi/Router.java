@@ -15,6 +15,7 @@ import com.tencent.trpc.core.exception.TRpcException;
 import com.tencent.trpc.core.extension.Extensible;
 import com.tencent.trpc.core.rpc.Request;
 import com.tencent.trpc.core.selector.ServiceInstance;
+import com.tencent.trpc.core.selector.ServiceInstanceSnapshot;
 import com.tencent.trpc.core.selector.router.support.NoneRouter;
 import java.util.List;
 
@@ -32,4 +33,15 @@ public interface Router {
     List<ServiceInstance> route(List<ServiceInstance> instances, Request request)
             throws TRpcException;
 
+    /**
+     * Get the key of the routing result of a request. Requests with the same key get the same result for the same
+     * instances, so the selector may cache the result for each {@link ServiceInstanceSnapshot} and key.
+     *
+     * @param request the request
+     * @return the route key, null if the result can not be cached
+     */
+    default Object getRouteKey(Request request) {
+        return null;
+    }
+
 }
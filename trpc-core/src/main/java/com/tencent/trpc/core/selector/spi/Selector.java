@@ -62,4 +62,19 @@ public interface Selector {
      * @throws TRpcException the t rpc exception
      */
     void report(ServiceInstance serviceInstance, int code, long costMs) throws TRpcException;
+
+    /**
+     * Report the rpc call result of the serviceInstance selected for the serviceId, the instance may serve several
+     * services and be judged for each of them on its own
+     *
+     * @param serviceId the identifier of service the serviceInstance was selected for
+     * @param serviceInstance serviceInstance
+     * @param code result code
+     * @param costMs the duration of rpc call, in millisecond
+     * @throws TRpcException the t rpc exception
+     */
+    default void report(ServiceId serviceId, ServiceInstance serviceInstance, int code, long costMs)
+            throws TRpcException {
+        report(serviceInstance, code, costMs);
+    }
 }
@@ -26,20 +26,27 @@ import com.tencent.trpc.core.logger.LoggerFactory;
 import com.tencent.trpc.core.rpc.Request;
 import com.tencent.trpc.core.selector.ServiceId;
 import com.tencent.trpc.core.selector.ServiceInstance;
+import com.tencent.trpc.core.selector.ServiceInstanceSnapshot;
 import com.tencent.trpc.core.selector.circuitbreaker.CircuitBreakerManager;
 import com.tencent.trpc.core.selector.discovery.DiscoveryManager;
 import com.tencent.trpc.core.selector.loadbalance.LoadBalanceManager;
+import com.tencent.trpc.core.selector.outlier.OutlierDetector;
 import com.tencent.trpc.core.selector.router.RouterManager;
 import com.tencent.trpc.core.selector.spi.CircuitBreaker;
 import com.tencent.trpc.core.selector.spi.Discovery;
 import com.tencent.trpc.core.selector.spi.LoadBalance;
 import com.tencent.trpc.core.selector.spi.Router;
 import com.tencent.trpc.core.selector.spi.Selector;
+import com.tencent.trpc.core.utils.FutureUtils;
 import com.tencent.trpc.core.worker.WorkerPoolManager;
 import com.tencent.trpc.core.worker.spi.WorkerPool;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Extension(AssembleSelector.NAME)
@@ -49,6 +56,16 @@ public class AssembleSelector implements Selector, PluginConfigAware, Initializi
 
     private static final Logger LOG = LoggerFactory.getLogger(AssembleSelector.class);
 
+    /**
+     * Max number of route keys cached for each service
+     */
+    private static final int MAX_ROUTE_KEYS = 256;
+
+    /**
+     * Interval to refresh the cached instances allowed by the circuit breaker
+     */
+    private static final long AVAILABLE_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
     /**
      * Service discovery
      * */
@@ -69,6 +86,11 @@ public class AssembleSelector implements Selector, PluginConfigAware, Initializi
      * */
     private CircuitBreaker circuitBreaker;
 
+    /**
+     * Outlier detection, null if not configured
+     * */
+    private OutlierDetector outlierDetector;
+
     /**
      * Worker thread pool
      * */
@@ -76,6 +98,11 @@ public class AssembleSelector implements Selector, PluginConfigAware, Initializi
 
     private PluginConfig config;
 
+    /**
+     * Cached routing results, service name -> route key -> entry
+     * */
+    private final Map<String, Map<Object, RouteEntry>> routeCache = new ConcurrentHashMap<>();
+
     public AssembleSelector() {
 
     }
@@ -96,6 +123,10 @@ public class AssembleSelector implements Selector, PluginConfigAware, Initializi
         this.circuitBreaker =
                 CircuitBreakerManager.getManager().get(selectorConfig.getCircuitBreaker());
         this.workerPool = WorkerPoolManager.get(selectorConfig.getWorkerPool());
+        if (selectorConfig.getOutlierDetection() != null) {
+            this.outlierDetector = new OutlierDetector(config.getName(), selectorConfig.getOutlierDetection());
+            OutlierDetector.register(outlierDetector);
+        }
     }
 
     @Override
@@ -104,42 +135,121 @@ public class AssembleSelector implements Selector, PluginConfigAware, Initializi
     }
 
     /**
-     * Async select one instance
+     * Async select one instance. When the discovery has the instances in memory, i.e. its future is already
+     * completed, the selection runs synchronously without chaining another stage.
      * */
     @Override
     public CompletionStage<ServiceInstance> asyncSelectOne(ServiceId serviceId, Request request) {
         // Step1 service discovery,contains unhealthy instance
-        serviceId.getParameters().put(INCLUDE_UNHEALTHY, true);
-        serviceId.getParameters().put(INCLUDE_CIRCUITBREAK, true);
+        includeAllInstances(serviceId);
 
         //Return contains unhealthy instance list
         CompletionStage<List<ServiceInstance>> serviceListFuture =
                 discovery.asyncList(serviceId, workerPool.toExecutor());
-        return serviceListFuture.thenApply((serviceList) -> {
-            //Put the meta info to valueMap,and by used when service router
-            if (serviceId.getParameters().containsKey(Constants.METADATA)) {
-                request.getContext().getValueMap()
-                        .putIfAbsent(Constants.METADATA, serviceId.getObject(Constants.METADATA, null));
+        CompletableFuture<List<ServiceInstance>> serviceList = serviceListFuture.toCompletableFuture();
+        if (serviceList.isDone() && !serviceList.isCompletedExceptionally()) {
+            try {
+                return CompletableFuture.completedFuture(select(serviceId, serviceList.join(), request));
+            } catch (Throwable ex) {
+                return FutureUtils.failed(ex);
             }
-            // Step2 service router
-            serviceList = router.route(serviceList, request);
-            // step3 service loadBalance
-            ServiceInstance select = loadBalance.select(serviceList, request);
-            if (select == null) {
-                LOG.debug("[assembleSelector] load balance return null, serviceList:{}", serviceList);
-                return null;
-            }
-            // Step4 service circuitBreaker
-            if (circuitBreaker.allowRequest(select)) {
-                return select;
-            }
-            // Step5 When the instance obtained from loadBalance is not available,
-            // Traverse the entire service instance list to determine the available instance,
-            // and then perform loadBalance judgment
-            List<ServiceInstance> availableServiceList = serviceList.stream()
-                    .filter(si -> circuitBreaker.allowRequest(si)).collect(Collectors.toList());
-            return loadBalance.select(availableServiceList, request);
-        });
+        }
+        return serviceListFuture.thenApply(instances -> select(serviceId, instances, request));
+    }
+
+    private void includeAllInstances(ServiceId serviceId) {
+        Map<String, Object> parameters = serviceId.getParameters();
+        if (!Boolean.TRUE.equals(parameters.get(INCLUDE_UNHEALTHY))) {
+            parameters.put(INCLUDE_UNHEALTHY, true);
+        }
+        if (!Boolean.TRUE.equals(parameters.get(INCLUDE_CIRCUITBREAK))) {
+            parameters.put(INCLUDE_CIRCUITBREAK, true);
+        }
+    }
+
+    private ServiceInstance select(ServiceId serviceId, List<ServiceInstance> serviceList, Request request) {
+        //Put the meta info to valueMap,and by used when service router
+        if (serviceId.getParameters().containsKey(Constants.METADATA)) {
+            request.getContext().getValueMap()
+                    .putIfAbsent(Constants.METADATA, serviceId.getObject(Constants.METADATA, null));
+        }
+        if (outlierDetector != null) {
+            outlierDetector.observe(serviceId.getServiceName(), serviceList);
+        }
+        // Step2 service router, the result is cached for each instance snapshot when the router allows
+        RouteEntry entry = getRouteEntry(serviceId, serviceList, request);
+        List<ServiceInstance> routed = entry != null ? entry.routed : route(serviceId, serviceList, request);
+        // step3 service loadBalance
+        ServiceInstance select = loadBalance.select(routed, request);
+        if (select == null) {
+            LOG.debug("[assembleSelector] load balance return null, serviceList:{}", routed);
+            return null;
+        }
+        // Step4 service circuitBreaker and outlier detection
+        String service = serviceId.getServiceName();
+        if (isAvailable(service, select)) {
+            return select;
+        }
+        // Step5 When the instance obtained from loadBalance is not available,
+        // Traverse the entire service instance list to determine the available instance,
+        // and then perform loadBalance judgment
+        if (entry == null) {
+            return loadBalance.select(filterAvailable(service, routed), request);
+        }
+        select = loadBalance.select(entry.getAvailable(false), request);
+        if (select != null && !isAvailable(service, select)) {
+            // the cached list is stale, the breaker of the instance opened or it was ejected since
+            select = loadBalance.select(entry.getAvailable(true), request);
+        }
+        return select;
+    }
+
+    /**
+     * Get the cached routing result of the request.
+     *
+     * @return the entry, null if the instances are not a {@link ServiceInstanceSnapshot} or the router result can
+     *         not be cached
+     */
+    private RouteEntry getRouteEntry(ServiceId serviceId, List<ServiceInstance> serviceList, Request request) {
+        if (!(serviceList instanceof ServiceInstanceSnapshot)) {
+            return null;
+        }
+        Object routeKey = router.getRouteKey(request);
+        if (routeKey == null) {
+            return null;
+        }
+        ServiceInstanceSnapshot snapshot = (ServiceInstanceSnapshot) serviceList;
+        Map<Object, RouteEntry> entries = routeCache.computeIfAbsent(serviceId.getServiceName(),
+                name -> new ConcurrentHashMap<>());
+        RouteEntry entry = entries.get(routeKey);
+        if (entry != null && entry.version == snapshot.getVersion()) {
+            return entry;
+        }
+        if (entry == null && entries.size() >= MAX_ROUTE_KEYS) {
+            return null;
+        }
+        List<ServiceInstance> routed = route(serviceId, snapshot, request);
+        entry = new RouteEntry(serviceId.getServiceName(), snapshot.getVersion(),
+                routed instanceof ServiceInstanceSnapshot ? routed : ServiceInstanceSnapshot.of(routed));
+        entries.put(routeKey, entry);
+        return entry;
+    }
+
+    private List<ServiceInstance> route(ServiceId serviceId, List<ServiceInstance> serviceList, Request request) {
+        // routers caching by snapshot keep the latest one of each service
+        if (request.getContext() != null) {
+            request.getContext().getValueMap().put(Constants.ROUTE_SERVICE, serviceId.getServiceName());
+        }
+        return router.route(serviceList, request);
+    }
+
+    private List<ServiceInstance> filterAvailable(String service, List<ServiceInstance> serviceList) {
+        return serviceList.stream().filter(instance -> isAvailable(service, instance)).collect(Collectors.toList());
+    }
+
+    private boolean isAvailable(String service, ServiceInstance serviceInstance) {
+        return circuitBreaker.allowRequest(serviceInstance)
+                && (outlierDetector == null || !outlierDetector.isEjected(service, serviceInstance));
     }
 
     /**
@@ -153,13 +263,54 @@ public class AssembleSelector implements Selector, PluginConfigAware, Initializi
             if (serviceList.isEmpty()) {
                 return serviceList;
             }
-            return serviceList.stream().filter(si -> circuitBreaker.allowRequest(si))
-                    .collect(Collectors.toList());
+            return filterAvailable(serviceId.getServiceName(), serviceList);
         });
     }
 
+    /**
+     * Report to the circuit breaker only, the outlier detection judges an instance per service and is fed by
+     * {@link #report(ServiceId, ServiceInstance, int, long)}.
+     */
     @Override
     public void report(ServiceInstance serviceInstance, int code, long costMs) {
         circuitBreaker.report(serviceInstance, code, costMs);
     }
+
+    @Override
+    public void report(ServiceId serviceId, ServiceInstance serviceInstance, int code, long costMs) {
+        circuitBreaker.report(serviceInstance, code, costMs);
+        if (outlierDetector != null) {
+            outlierDetector.report(serviceId.getServiceName(), serviceInstance, code, costMs);
+        }
+    }
+
+    /**
+     * Routing result of a route key for an instance snapshot, with the instances allowed by the circuit breaker and
+     * not ejected by the outlier detection refreshed at most every {@link #AVAILABLE_REFRESH_NANOS}.
+     */
+    private class RouteEntry {
+
+        private final String service;
+        private final long version;
+        private final List<ServiceInstance> routed;
+        private volatile List<ServiceInstance> available;
+        private volatile long availableNanos;
+
+        RouteEntry(String service, long version, List<ServiceInstance> routed) {
+            this.service = service;
+            this.version = version;
+            this.routed = routed;
+        }
+
+        List<ServiceInstance> getAvailable(boolean refresh) {
+            List<ServiceInstance> instances = available;
+            long now = System.nanoTime();
+            if (refresh || instances == null || now - availableNanos > AVAILABLE_REFRESH_NANOS) {
+                instances = filterAvailable(service, routed);
+                available = instances;
+                availableNanos = now;
+            }
+            return instances;
+        }
+    }
 }
@@ -15,6 +15,7 @@ import com.tencent.trpc.core.common.config.PluginConfig;
 import com.tencent.trpc.core.selector.circuitbreaker.support.NoneCircuitBreaker;
 import com.tencent.trpc.core.selector.discovery.DiscoveryManager;
 import com.tencent.trpc.core.selector.loadbalance.support.RandomLoadBalance;
+import com.tencent.trpc.core.selector.outlier.OutlierDetectionConfig;
 import com.tencent.trpc.core.selector.router.support.NoneRouter;
 import com.tencent.trpc.core.utils.PreconditionUtils;
 import com.tencent.trpc.core.worker.WorkerPoolManager;
@@ -29,6 +30,7 @@ public class AssembleSelectorConfig {
     public static final String LOAD_BALANCE = "loadbalance";
     public static final String CIRCUIT_BREAKER = "circuitbreaker";
     public static final String WORK_POOL = "workpool";
+    public static final String OUTLIER_DETECTION = "outlier_detection";
 
     private String name;
     private String discovery;
@@ -36,10 +38,15 @@ public class AssembleSelectorConfig {
     private String loadbalance;
     private String circuitBreaker;
     private String workerPool;
+    /**
+     * Outlier detection, null if not configured
+     */
+    private OutlierDetectionConfig outlierDetection;
 
     /**
      * Build AssembleSelectorConfig from PluginConfig properties map
      * */
+    @SuppressWarnings("unchecked")
     public static final AssembleSelectorConfig parse(String name, Map<String, Object> map) {
         AssembleSelectorConfig config = new AssembleSelectorConfig();
         config.name = Objects.requireNonNull(name, "name");
@@ -50,6 +57,8 @@ public class AssembleSelectorConfig {
         config.loadbalance = MapUtils.getString(map, LOAD_BALANCE, RandomLoadBalance.NAME);
         config.workerPool =
                 MapUtils.getString(map, WORK_POOL, WorkerPoolManager.DEF_NAMING_WORKER_POOL_NAME);
+        Map<String, Object> outlierDetection = (Map<String, Object>) MapUtils.getMap(map, OUTLIER_DETECTION);
+        config.outlierDetection = outlierDetection == null ? null : OutlierDetectionConfig.parse(outlierDetection);
         config.validate();
         return config;
     }
@@ -110,6 +119,14 @@ public class AssembleSelectorConfig {
         this.workerPool = workerPool;
     }
 
+    public OutlierDetectionConfig getOutlierDetection() {
+        return outlierDetection;
+    }
+
+    public void setOutlierDetection(OutlierDetectionConfig outlierDetection) {
+        this.outlierDetection = outlierDetection;
+    }
+
     public String getMethodLoadBalance(String rpcMethodName) {
         return loadbalance;
     }
@@ -11,9 +11,15 @@
 
 package com.tencent.trpc.core.serialization.spi;
 
+import com.google.common.io.ByteStreams;
 import com.tencent.trpc.core.extension.Extensible;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
 
 /**
  * Serialization SPI.
@@ -30,6 +36,34 @@ public interface Serialization {
      */
     byte[] serialize(Object obj) throws IOException;
 
+    /**
+     * Serialize an object into an output stream. The stream is neither flushed nor closed.
+     *
+     * <p>The default implementation serializes into an array first, the implementations able to write a stream
+     * should override this method.</p>
+     *
+     * @param obj the object to be serialized
+     * @param out the output stream to write to
+     * @throws IOException IO exception
+     */
+    default void serializeTo(Object obj, OutputStream out) throws IOException {
+        out.write(serialize(obj));
+    }
+
+    /**
+     * Serialize an object into a netty buffer, the bytes are written from its writer index.
+     *
+     * <p>The default implementation serializes into an array first, the implementations knowing the serialized
+     * size should override this method and write the buffer in place.</p>
+     *
+     * @param obj the object to be serialized
+     * @param buf the buffer to write to
+     * @throws IOException IO exception
+     */
+    default void serializeTo(Object obj, ByteBuf buf) throws IOException {
+        buf.writeBytes(serialize(obj));
+    }
+
     /**
      * Deserialize byte array into an object, does not support generics.
      *
@@ -57,6 +91,62 @@ public interface Serialization {
         return deserialize(bytes, (Class<T>) type);
     }
 
+    /**
+     * Deserialize the remaining bytes of a buffer into an object, does not support generics.
+     *
+     * <p>The default implementation copies the bytes into an array, the implementations able to parse a buffer
+     * in place should override this method. The position of the buffer is undefined after the call.</p>
+     *
+     * @param buffer the buffer to be deserialized
+     * @param clz the object type after deserialization
+     * @param <T> the instance type after deserialization
+     * @return the instance after deserialization
+     * @throws IOException IO exception
+     */
+    default <T> T deserialize(ByteBuffer buffer, Class<T> clz) throws IOException {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return deserialize(bytes, clz);
+    }
+
+    /**
+     * Deserialize the content of an input stream into an object, does not support generics. The stream is not
+     * closed.
+     *
+     * <p>The default implementation reads the whole stream into an array, the implementations able to parse a
+     * stream should override this method.</p>
+     *
+     * @param in the input stream to be deserialized
+     * @param clz the object type after deserialization
+     * @param <T> the instance type after deserialization
+     * @return the instance after deserialization
+     * @throws IOException IO exception
+     */
+    default <T> T deserialize(InputStream in, Class<T> clz) throws IOException {
+        return deserialize(ByteStreams.toByteArray(in), clz);
+    }
+
+    /**
+     * Deserialize the readable bytes of a netty buffer into an object, does not support generics.
+     *
+     * <p>A buffer made of a single memory region is parsed in place through {@link #deserialize(ByteBuffer, Class)},
+     * a composite one as an input stream. The reader index and the reference count of the buffer are not changed,
+     * the caller still owns the buffer and can release it right after the call, the deserialized object does not
+     * refer to it.</p>
+     *
+     * @param buf the buffer to be deserialized
+     * @param clz the object type after deserialization
+     * @param <T> the instance type after deserialization
+     * @return the instance after deserialization
+     * @throws IOException IO exception
+     */
+    default <T> T deserialize(ByteBuf buf, Class<T> clz) throws IOException {
+        if (buf.nioBufferCount() == 1) {
+            return deserialize(buf.nioBuffer(), clz);
+        }
+        return deserialize(new ByteBufInputStream(buf.duplicate()), clz);
+    }
+
     /**
      * Framework usage: 0-127.
      */
@@ -12,38 +12,34 @@
 package com.tencent.trpc.core.serialization.support;
 
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.google.common.io.ByteStreams;
 import com.google.protobuf.Message;
 import com.tencent.trpc.core.extension.Extension;
 import com.tencent.trpc.core.serialization.SerializationType;
 import com.tencent.trpc.core.serialization.spi.Serialization;
-import com.tencent.trpc.core.utils.ClassUtils;
+import com.tencent.trpc.core.serialization.support.helper.ProtoParserManager;
 import com.tencent.trpc.core.utils.JsonUtils;
 import com.tencent.trpc.core.utils.ProtoJsonConverter;
+import com.tencent.trpc.core.utils.ProtoJsonStreamConverter;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.GenericArrayType;
-import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.lang.reflect.WildcardType;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.util.Map;
-import java.util.Objects;
 
 @Extension(JSONSerialization.NAME)
 @SuppressWarnings("unchecked")
 public class JSONSerialization implements Serialization {
 
     public static final String NAME = "json";
-    /**
-     * PB class method information cache. One class per method, initial cache size 20, maximum 500.
-     */
-    private static final Cache<Class, Method> CLASS_METHOD_CACHE = Caffeine.newBuilder()
-            .initialCapacity(20)
-            .maximumSize(500)
-            .build();
 
     /**
      * Default UTF-8 serialize.
@@ -57,7 +53,11 @@ public class JSONSerialization implements Serialization {
         try {
             // pb to bytes
             if (obj instanceof Message) {
-                return JsonUtils.toBytes(ProtoJsonConverter.messageToMap((Message) obj));
+                Message message = (Message) obj;
+                if (ProtoJsonStreamConverter.isSupported(message.getDescriptorForType())) {
+                    return ProtoJsonStreamConverter.toBytes(message);
+                }
+                return JsonUtils.toBytes(ProtoJsonConverter.messageToMap(message));
             } else {
                 return JsonUtils.toBytes(obj);
             }
@@ -66,6 +66,36 @@ public class JSONSerialization implements Serialization {
         }
     }
 
+    /**
+     * Default UTF-8 serialize into the output stream.
+     *
+     * @param obj the object to be serialized
+     * @param out the output stream to write to
+     * @throws IOException IO exception
+     */
+    @Override
+    public void serializeTo(Object obj, OutputStream out) throws IOException {
+        try {
+            if (obj instanceof Message) {
+                Message message = (Message) obj;
+                if (ProtoJsonStreamConverter.isSupported(message.getDescriptorForType())) {
+                    ProtoJsonStreamConverter.writeTo(message, out);
+                } else {
+                    JsonUtils.toOutputStream(ProtoJsonConverter.messageToMap(message), out);
+                }
+            } else {
+                JsonUtils.toOutputStream(obj, out);
+            }
+        } catch (Exception ex) {
+            throw new IOException("json serialize ex:", ex);
+        }
+    }
+
+    @Override
+    public void serializeTo(Object obj, ByteBuf buf) throws IOException {
+        serializeTo(obj, new ByteBufOutputStream(buf));
+    }
+
     /**
      * Json deserialization, does not support generics.
      *
@@ -79,11 +109,7 @@ public class JSONSerialization implements Serialization {
     public <T> T deserialize(byte[] bytes, Class<T> clazz) throws IOException {
         try {
             if (Message.class.isAssignableFrom(clazz)) {
-                Method method = CLASS_METHOD_CACHE
-                        .get(clazz, clz -> ClassUtils.getDeclaredMethod(clz, "getDefaultInstance"));
-                Objects.requireNonNull(method, "the method can't be null");
-                Message pbMsg = (Message) method.invoke(null);
-                return (T) ProtoJsonConverter.jsonToMessage(new String(bytes, StandardCharsets.UTF_8), pbMsg);
+                return (T) deserializeMessage(bytes, 0, bytes.length, ProtoParserManager.getDefaultInstance(clazz));
             }
             // bytes 转 java 对象
             return JsonUtils.fromBytes(bytes, clazz);
@@ -119,6 +145,58 @@ public class JSONSerialization implements Serialization {
         }
     }
 
+    /**
+     * Json deserialization reading the buffer in place, does not support generics.
+     *
+     * @param buffer the buffer to be deserialized
+     * @param clazz the object type after deserialization
+     * @param <T> the instance type after deserialization
+     * @return the instance after deserialization
+     * @throws IOException IO exception
+     */
+    @Override
+    public <T> T deserialize(ByteBuffer buffer, Class<T> clazz) throws IOException {
+        try {
+            if (Message.class.isAssignableFrom(clazz)) {
+                Message message = ProtoParserManager.getDefaultInstance(clazz);
+                if (buffer.hasArray()) {
+                    int offset = buffer.arrayOffset() + buffer.position();
+                    int length = buffer.remaining();
+                    buffer.position(buffer.limit());
+                    return (T) deserializeMessage(buffer.array(), offset, length, message);
+                }
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                return (T) deserializeMessage(bytes, 0, bytes.length, message);
+            }
+            return JsonUtils.fromInputStream(new ByteBufferBackedInputStream(buffer), clazz);
+        } catch (Exception ex) {
+            throw new IOException("json deserialize exception:", ex);
+        }
+    }
+
+    /**
+     * Json deserialization reading the stream, does not support generics.
+     *
+     * @param in the input stream to be deserialized
+     * @param clazz the object type after deserialization
+     * @param <T> the instance type after deserialization
+     * @return the instance after deserialization
+     * @throws IOException IO exception
+     */
+    @Override
+    public <T> T deserialize(InputStream in, Class<T> clazz) throws IOException {
+        if (Message.class.isAssignableFrom(clazz)) {
+            // read whole, the bytes are parsed again by the pb json parser if not read by the streaming one
+            return deserialize(ByteStreams.toByteArray(in), clazz);
+        }
+        try {
+            return JsonUtils.fromInputStream(in, clazz);
+        } catch (Exception ex) {
+            throw new IOException("json deserialize exception:", ex);
+        }
+    }
+
     @Override
     public int type() {
         return SerializationType.JSON;
@@ -129,6 +207,23 @@ public class JSONSerialization implements Serialization {
         return NAME;
     }
 
+    /**
+     * Read a pb message from the json bytes with {@link ProtoJsonStreamConverter}, falls back to the lenient
+     * {@link ProtoJsonConverter} for the types it does not support and the json it does not read as is.
+     */
+    private Message deserializeMessage(byte[] bytes, int offset, int length, Message defaultInstance)
+            throws IOException {
+        if (ProtoJsonStreamConverter.isSupported(defaultInstance.getDescriptorForType())) {
+            try {
+                return ProtoJsonStreamConverter.fromBytes(bytes, offset, length, defaultInstance);
+            } catch (IOException | RuntimeException ignore) {
+                // parsed again below, which reports the error if the json is invalid
+            }
+        }
+        return ProtoJsonConverter.jsonToMessage(new String(bytes, offset, length, StandardCharsets.UTF_8),
+                defaultInstance);
+    }
+
     /**
      * Check if it's a generic type.
      *
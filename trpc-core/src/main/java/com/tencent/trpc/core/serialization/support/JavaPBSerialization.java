@@ -12,12 +12,18 @@
 package com.tencent.trpc.core.serialization.support;
 
 import com.baidu.bjf.remoting.protobuf.Codec;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
 import com.tencent.trpc.core.exception.ErrorCode;
 import com.tencent.trpc.core.exception.TRpcException;
 import com.tencent.trpc.core.extension.Extension;
 import com.tencent.trpc.core.serialization.SerializationType;
 import com.tencent.trpc.core.serialization.spi.Serialization;
 import com.tencent.trpc.core.serialization.support.helper.ProtoCodecManager;
+import io.netty.buffer.ByteBuf;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 @Extension(JavaPBSerialization.NAME)
 public class JavaPBSerialization implements Serialization {
@@ -35,6 +41,39 @@ public class JavaPBSerialization implements Serialization {
         }
     }
 
+    @Override
+    public void serializeTo(Object obj, OutputStream out) {
+        try {
+            Codec codec = ProtoCodecManager.getCodec(obj.getClass());
+            CodedOutputStream output = CodedOutputStream.newInstance(out);
+            codec.writeTo(obj, output);
+            output.flush();
+        } catch (Exception e) {
+            throw TRpcException
+                    .newFrameException(ErrorCode.TRPC_INVOKE_UNKNOWN_ERR, e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void serializeTo(Object obj, ByteBuf buf) {
+        try {
+            Codec codec = ProtoCodecManager.getCodec(obj.getClass());
+            int size = codec.size(obj);
+            CodedOutputStream output = PBSerialization.newCodedOutput(buf, size);
+            if (output == null) {
+                buf.writeBytes(codec.encode(obj));
+                return;
+            }
+            codec.writeTo(obj, output);
+            output.flush();
+            output.checkNoSpaceLeft();
+            buf.writerIndex(buf.writerIndex() + size);
+        } catch (Exception e) {
+            throw TRpcException
+                    .newFrameException(ErrorCode.TRPC_INVOKE_UNKNOWN_ERR, e.getMessage(), e);
+        }
+    }
+
     @Override
     public <T> T deserialize(byte[] data, Class<T> clz) {
         T obj;
@@ -48,6 +87,26 @@ public class JavaPBSerialization implements Serialization {
         return obj;
     }
 
+    @Override
+    public <T> T deserialize(ByteBuffer buffer, Class<T> clz) {
+        return readFrom(CodedInputStream.newInstance(buffer), clz);
+    }
+
+    @Override
+    public <T> T deserialize(InputStream in, Class<T> clz) {
+        return readFrom(CodedInputStream.newInstance(in), clz);
+    }
+
+    private static <T> T readFrom(CodedInputStream input, Class<T> clz) {
+        try {
+            Codec<T> codec = ProtoCodecManager.getCodec(clz);
+            return codec.readFrom(input);
+        } catch (Exception e) {
+            throw TRpcException
+                    .newFrameException(ErrorCode.TRPC_INVOKE_UNKNOWN_ERR, e.getMessage(), e);
+        }
+    }
+
     @Override
     public int type() {
         // Since the content of Java PB and PB serialization is consistent, when using Java PB serialization,
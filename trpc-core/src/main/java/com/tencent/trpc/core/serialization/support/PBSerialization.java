@@ -11,31 +11,28 @@
 
 package com.tencent.trpc.core.serialization.support;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.ExtensionRegistryLite;
 import com.google.protobuf.Message;
+import com.google.protobuf.UnsafeByteOperations;
 import com.tencent.trpc.core.exception.ErrorCode;
 import com.tencent.trpc.core.exception.TRpcException;
 import com.tencent.trpc.core.extension.Extension;
 import com.tencent.trpc.core.serialization.SerializationSupport;
 import com.tencent.trpc.core.serialization.SerializationType;
 import com.tencent.trpc.core.serialization.spi.Serialization;
-import com.tencent.trpc.core.utils.ClassUtils;
+import com.tencent.trpc.core.serialization.support.helper.ProtoParserManager;
+import io.netty.buffer.ByteBuf;
 import java.io.IOException;
-import java.lang.reflect.Method;
-import java.util.Objects;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 @Extension(PBSerialization.NAME)
 public class PBSerialization implements Serialization {
 
     public static final String NAME = "pb";
-    /**
-     * PB class method information cache. One class per method, initial cache size 20, maximum 500.
-     */
-    private static final Cache<Class, Method> CLASS_METHOD_CACHE = Caffeine.newBuilder()
-            .initialCapacity(20)
-            .maximumSize(500)
-            .build();
 
     @Override
     public byte[] serialize(Object obj) throws IOException {
@@ -48,22 +45,105 @@ public class PBSerialization implements Serialization {
     }
 
     @Override
-    @SuppressWarnings({"unchecked"})
-    public <T> T deserialize(byte[] bytes, Class<T> clazz) throws IOException {
-        if (Message.class.isAssignableFrom(clazz)) {
-            try {
-                Method method = CLASS_METHOD_CACHE.get(clazz, clz -> ClassUtils
-                        .getDeclaredMethod(clz, "parseFrom", byte[].class));
-                Objects.requireNonNull(method, "the method can't be null");
-                return (T) method.invoke(null, bytes);
-            } catch (Exception e) {
-                throw TRpcException
-                        .newFrameException(ErrorCode.TRPC_INVOKE_UNKNOWN_ERR, e.getMessage(), e);
-            }
-        } else {
+    public void serializeTo(Object obj, OutputStream out) throws IOException {
+        if (obj instanceof Message) {
+            ((Message) obj).writeTo(out);
+            return;
+        }
+        // when the parameter type is not a pb message, use jpb serialization
+        Serialization jpb = SerializationSupport.ofName(JavaPBSerialization.NAME);
+        jpb.serializeTo(obj, out);
+    }
+
+    /**
+     * Write a pb message in place into the buffer, which is grown once to the serialized size of the message.
+     */
+    @Override
+    public void serializeTo(Object obj, ByteBuf buf) throws IOException {
+        if (!(obj instanceof Message)) {
             // when the parameter type is not a pb message, use jpb serialization
             Serialization jpb = SerializationSupport.ofName(JavaPBSerialization.NAME);
-            return jpb.deserialize(bytes, clazz);
+            jpb.serializeTo(obj, buf);
+            return;
+        }
+        Message message = (Message) obj;
+        int size = message.getSerializedSize();
+        CodedOutputStream output = newCodedOutput(buf, size);
+        if (output == null) {
+            buf.writeBytes(message.toByteArray());
+            return;
+        }
+        message.writeTo(output);
+        output.flush();
+        output.checkNoSpaceLeft();
+        buf.writerIndex(buf.writerIndex() + size);
+    }
+
+    /**
+     * Parse a pb message from the array, the bytes fields of the message share the array instead of copying it, the
+     * array must not be modified afterwards.
+     */
+    @Override
+    public <T> T deserialize(byte[] bytes, Class<T> clazz) throws IOException {
+        if (Message.class.isAssignableFrom(clazz)) {
+            CodedInputStream input = UnsafeByteOperations.unsafeWrap(bytes).newCodedInput();
+            input.enableAliasing(true);
+            return parseFrom(input, clazz);
+        }
+        // when the parameter type is not a pb message, use jpb serialization
+        Serialization jpb = SerializationSupport.ofName(JavaPBSerialization.NAME);
+        return jpb.deserialize(bytes, clazz);
+    }
+
+    /**
+     * Parse a pb message in place from the buffer, the bytes fields of the message are copied so that the buffer
+     * can be released right after the call.
+     */
+    @Override
+    public <T> T deserialize(ByteBuffer buffer, Class<T> clazz) throws IOException {
+        if (Message.class.isAssignableFrom(clazz)) {
+            return parseFrom(CodedInputStream.newInstance(buffer), clazz);
+        }
+        // when the parameter type is not a pb message, use jpb serialization
+        Serialization jpb = SerializationSupport.ofName(JavaPBSerialization.NAME);
+        return jpb.deserialize(buffer, clazz);
+    }
+
+    @Override
+    public <T> T deserialize(InputStream in, Class<T> clazz) throws IOException {
+        if (Message.class.isAssignableFrom(clazz)) {
+            return parseFrom(CodedInputStream.newInstance(in), clazz);
+        }
+        // when the parameter type is not a pb message, use jpb serialization
+        Serialization jpb = SerializationSupport.ofName(JavaPBSerialization.NAME);
+        return jpb.deserialize(in, clazz);
+    }
+
+    /**
+     * Create a coded output writing the given size in place from the writer index of the buffer, the writer index
+     * is not moved.
+     *
+     * @param buf the buffer to write to
+     * @param size the bytes to be written
+     * @return the coded output, null if the buffer is not made of a single memory region
+     */
+    static CodedOutputStream newCodedOutput(ByteBuf buf, int size) {
+        buf.ensureWritable(size);
+        if (buf.hasArray()) {
+            return CodedOutputStream.newInstance(buf.array(), buf.arrayOffset() + buf.writerIndex(), size);
+        }
+        if (buf.nioBufferCount() == 1) {
+            return CodedOutputStream.newInstance(buf.nioBuffer(buf.writerIndex(), size));
+        }
+        return null;
+    }
+
+    private static <T> T parseFrom(CodedInputStream input, Class<T> clazz) {
+        try {
+            return ProtoParserManager.getParser(clazz).parseFrom(input, ExtensionRegistryLite.getEmptyRegistry());
+        } catch (Exception e) {
+            throw TRpcException
+                    .newFrameException(ErrorCode.TRPC_INVOKE_UNKNOWN_ERR, e.getMessage(), e);
         }
     }
 
@@ -0,0 +1,100 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.serialization.support.helper;
+
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import com.tencent.trpc.core.utils.ClassUtils;
+import java.lang.reflect.Method;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves the default instance and the parser of the pb message classes.
+ *
+ * <p>They are resolved by reflection once per class and kept in a {@link ClassValue}, which is looked up without
+ * hashing the class and does not keep the class from being unloaded. Generated service stubs hand the default
+ * instances over up front through {@link #preload(Class, Message)}, so their classes skip the reflection.</p>
+ */
+public class ProtoParserManager {
+
+    /**
+     * Default instances handed over before first use, removed once taken into {@link #DEFAULT_INSTANCES}.
+     */
+    private static final ConcurrentMap<Class<?>, Message> PRELOADED_INSTANCES = new ConcurrentHashMap<>();
+
+    /**
+     * Stores the default instance of each pb message class.
+     */
+    private static final ClassValue<Message> DEFAULT_INSTANCES = new ClassValue<Message>() {
+        @Override
+        protected Message computeValue(Class<?> type) {
+            Message preloaded = PRELOADED_INSTANCES.remove(type);
+            if (preloaded != null) {
+                return preloaded;
+            }
+            Method method = ClassUtils.getDeclaredMethod(type, "getDefaultInstance");
+            Objects.requireNonNull(method, "the method can't be null");
+            try {
+                return (Message) method.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("get default instance of " + type.getName() + " failed", e);
+            }
+        }
+    };
+
+    /**
+     * Stores the parser of each pb message class.
+     */
+    private static final ClassValue<Parser<?>> PARSERS = new ClassValue<Parser<?>>() {
+        @Override
+        protected Parser<?> computeValue(Class<?> type) {
+            return DEFAULT_INSTANCES.get(type).getParserForType();
+        }
+    };
+
+    /**
+     * Hand over the default instance of a pb message class, so it is not looked up by reflection on first use.
+     *
+     * @param messageClass the pb message class
+     * @param defaultInstance the default instance
+     */
+    public static void preload(Class<?> messageClass, Message defaultInstance) {
+        Objects.requireNonNull(messageClass, "messageClass is null");
+        Objects.requireNonNull(defaultInstance, "defaultInstance is null");
+        PRELOADED_INSTANCES.putIfAbsent(messageClass, defaultInstance);
+    }
+
+    /**
+     * Get the default instance of a pb message class.
+     *
+     * @param messageClass the pb message class
+     * @return the default instance
+     */
+    public static Message getDefaultInstance(Class<?> messageClass) {
+        return DEFAULT_INSTANCES.get(messageClass);
+    }
+
+    /**
+     * Get the parser of a pb message class.
+     *
+     * @param messageClass the pb message class
+     * @param <T> the type of the pb message
+     * @return the parser
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Parser<T> getParser(Class<T> messageClass) {
+        return (Parser<T>) PARSERS.get(messageClass);
+    }
+
+}
@@ -42,4 +42,13 @@ public interface RpcConnection extends Closeable {
      */
     ByteBufAllocator alloc();
 
+    /**
+     * Suspend or resume reading from the remote, used to apply backpressure to the remote when the received data is
+     * not consumed fast enough. The connections not supporting it keep reading.
+     *
+     * @param autoRead false to suspend reading, true to resume it
+     */
+    default void setAutoRead(boolean autoRead) {
+    }
+
 }
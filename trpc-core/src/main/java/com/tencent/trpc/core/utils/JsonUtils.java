@@ -12,6 +12,7 @@
 package com.tencent.trpc.core.utils;
 
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JavaType;
@@ -23,6 +24,7 @@ import com.tencent.trpc.core.logger.Logger;
 import com.tencent.trpc.core.logger.LoggerFactory;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
  * JSON utility.
@@ -227,6 +229,22 @@ public class JsonUtils {
         }
     }
 
+    /**
+     * Object to output stream, the stream is not closed.
+     *
+     * @param obj the object to serialize
+     * @param out the output stream to write to
+     */
+    public static void toOutputStream(Object obj, OutputStream out) {
+        try {
+            objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET).writeValue(out, obj);
+        } catch (IOException e) {
+            logger.error("object mapper writeValue error:", e);
+            throw TRpcException.newException(ErrorCode.JSON_DESERIALIZATION_ERR, 0,
+                    "object mapper writeValue error, obj:%s", obj);
+        }
+    }
+
     /**
      * Object conversion.
      *
@@ -0,0 +1,549 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonParser.NumberType;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.EnumDescriptor;
+import com.google.protobuf.Descriptors.EnumValueDescriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor.JavaType;
+import com.google.protobuf.Descriptors.OneofDescriptor;
+import com.google.protobuf.Message;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streaming conversion between Protocol Buffers messages and JSON bytes through the Jackson generator and parser,
+ * without the intermediate JSON string and map of {@link ProtoJsonConverter}.
+ *
+ * <p>The output is the same as {@link ProtoJsonConverter#messageToMap} written by {@link JsonUtils#toBytes}: fields
+ * in field number order with their json names, the fields without presence printed even when default, enums as
+ * ints, 64-bit integers as strings. The fields of each message type are resolved once into a plan holding their
+ * names, so that neither is looked up again per message.</p>
+ *
+ * <p>Only the message types using the plain JSON mapping are supported, see {@link #isSupported}. The well-known
+ * types of google.protobuf with their own JSON mapping and the extendable messages are not. Reading is strict:
+ * a JSON value that the plain mapping does not read as is, such as a null, a number given as a float or an unknown
+ * enum name, fails with an {@link IllegalArgumentException}, the caller can then fall back to
+ * {@link ProtoJsonConverter} for the lenient parsing.</p>
+ */
+public class ProtoJsonStreamConverter {
+
+    private static final String WELL_KNOWN_TYPES_PACKAGE = "google.protobuf";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+
+    private static final Map<Descriptor, MessagePlan> PLANS = new ConcurrentHashMap<>();
+
+    private static final Map<Descriptor, Boolean> SUPPORTED = new ConcurrentHashMap<>();
+
+    /**
+     * Whether the message type and all the message types it refers to use the plain JSON mapping.
+     *
+     * @param descriptor the message type
+     * @return true if supported
+     */
+    public static boolean isSupported(Descriptor descriptor) {
+        Boolean supported = SUPPORTED.get(descriptor);
+        if (supported == null) {
+            supported = isSupported(descriptor, new HashSet<>());
+            SUPPORTED.put(descriptor, supported);
+        }
+        return supported;
+    }
+
+    /**
+     * Convert a Protocol Buffers message to JSON bytes.
+     *
+     * @param message the source Protocol Buffers message of a supported type
+     * @return the resulting JSON bytes in UTF-8
+     * @throws IOException if the JSON cannot be written
+     */
+    public static byte[] toBytes(Message message) throws IOException {
+        ByteArrayBuilder out = new ByteArrayBuilder(JSON_FACTORY._getBufferRecycler());
+        try {
+            writeTo(message, out);
+            return out.toByteArray();
+        } finally {
+            out.release();
+        }
+    }
+
+    /**
+     * Write a Protocol Buffers message as JSON to an output stream, the stream is not closed.
+     *
+     * @param message the source Protocol Buffers message of a supported type
+     * @param out the output stream to write to
+     * @throws IOException if the JSON cannot be written
+     */
+    public static void writeTo(Message message, OutputStream out) throws IOException {
+        Objects.requireNonNull(message, "message");
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            writeMessage(getPlan(message.getDescriptorForType()), message, generator);
+        }
+    }
+
+    /**
+     * Read a Protocol Buffers message from JSON bytes.
+     *
+     * @param bytes the JSON bytes in UTF-8
+     * @param offset the offset of the JSON in the bytes
+     * @param length the length of the JSON
+     * @param message the Protocol Buffers message object instance of a supported type
+     * @param <T> the pb message type
+     * @return the resulting Protocol Buffers message
+     * @throws IOException if the bytes are not a valid JSON
+     * @throws IllegalArgumentException if the JSON does not match the message type
+     */
+    public static <T extends Message> T fromBytes(byte[] bytes, int offset, int length, T message)
+            throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(bytes, offset, length)) {
+            return read(parser, message);
+        }
+    }
+
+    /**
+     * Read a Protocol Buffers message from a JSON input stream, the stream is not closed.
+     *
+     * @param in the JSON input stream
+     * @param message the Protocol Buffers message object instance of a supported type
+     * @param <T> the pb message type
+     * @return the resulting Protocol Buffers message
+     * @throws IOException if the stream is not a valid JSON
+     * @throws IllegalArgumentException if the JSON does not match the message type
+     */
+    public static <T extends Message> T fromInputStream(InputStream in, T message) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            return read(parser, message);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Message> T read(JsonParser parser, T message) throws IOException {
+        Objects.requireNonNull(message, "message");
+        MessagePlan plan = getPlan(message.getDescriptorForType());
+        Message.Builder builder = message.newBuilderForType();
+        readMessage(plan, builder, parser, parser.nextToken());
+        if (parser.nextToken() != null) {
+            throw new IllegalArgumentException("unexpected content after the message " + plan.descriptor
+                    .getFullName());
+        }
+        return (T) builder.build();
+    }
+
+    private static boolean isSupported(Descriptor descriptor, Set<Descriptor> visiting) {
+        if (WELL_KNOWN_TYPES_PACKAGE.equals(descriptor.getFile().getPackage()) || descriptor.isExtendable()) {
+            return false;
+        }
+        if (!visiting.add(descriptor)) {
+            // supported unless another type of the cycle is not, which is checked from the first type
+            return true;
+        }
+        for (FieldDescriptor field : descriptor.getFields()) {
+            if (field.getJavaType() == JavaType.MESSAGE && !isSupported(field.getMessageType(), visiting)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static MessagePlan getPlan(Descriptor descriptor) {
+        MessagePlan plan = PLANS.get(descriptor);
+        if (plan == null) {
+            if (!isSupported(descriptor)) {
+                throw new IllegalArgumentException("the json mapping of " + descriptor.getFullName()
+                        + " is not supported");
+            }
+            plan = PLANS.computeIfAbsent(descriptor, MessagePlan::new);
+        }
+        return plan;
+    }
+
+    private static void writeMessage(MessagePlan plan, Message message, JsonGenerator generator)
+            throws IOException {
+        generator.writeStartObject();
+        for (FieldPlan field : plan.fields) {
+            FieldDescriptor descriptor = field.descriptor;
+            if (descriptor.isRepeated()) {
+                writeRepeated(field, message, generator);
+            } else if (field.alwaysPrinted || message.hasField(descriptor)) {
+                generator.writeFieldName(field.jsonName);
+                writeValue(field, descriptor, message.getField(descriptor), generator);
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeRepeated(FieldPlan field, Message message, JsonGenerator generator)
+            throws IOException {
+        generator.writeFieldName(field.jsonName);
+        if (field.mapKey != null) {
+            generator.writeStartObject();
+            for (Object entry : (List<?>) message.getField(field.descriptor)) {
+                Message mapEntry = (Message) entry;
+                generator.writeFieldName(mapKeyToString(field.mapKey, mapEntry.getField(field.mapKey)));
+                writeValue(field, field.mapValue, mapEntry.getField(field.mapValue), generator);
+            }
+            generator.writeEndObject();
+            return;
+        }
+        generator.writeStartArray();
+        int count = message.getRepeatedFieldCount(field.descriptor);
+        for (int i = 0; i < count; i++) {
+            writeValue(field, field.descriptor, message.getRepeatedField(field.descriptor, i), generator);
+        }
+        generator.writeEndArray();
+    }
+
+    private static void writeValue(FieldPlan field, FieldDescriptor descriptor, Object value,
+            JsonGenerator generator) throws IOException {
+        switch (descriptor.getType()) {
+            case INT32:
+            case SINT32:
+            case SFIXED32:
+                generator.writeNumber((Integer) value);
+                break;
+            case UINT32:
+            case FIXED32:
+                generator.writeNumber(Integer.toUnsignedLong((Integer) value));
+                break;
+            case INT64:
+            case SINT64:
+            case SFIXED64:
+                generator.writeString(Long.toString((Long) value));
+                break;
+            case UINT64:
+            case FIXED64:
+                generator.writeString(Long.toUnsignedString((Long) value));
+                break;
+            case BOOL:
+                generator.writeBoolean((Boolean) value);
+                break;
+            case FLOAT:
+                // the float printed by JsonFormat was read back as a double
+                writeDouble(Double.parseDouble(Float.toString((Float) value)), generator);
+                break;
+            case DOUBLE:
+                writeDouble((Double) value, generator);
+                break;
+            case STRING:
+                generator.writeString((String) value);
+                break;
+            case BYTES:
+                generator.writeString(Base64.getEncoder().encodeToString(((ByteString) value).toByteArray()));
+                break;
+            case ENUM:
+                generator.writeNumber(((EnumValueDescriptor) value).getNumber());
+                break;
+            default:
+                writeMessage(field.getValuePlan(), (Message) value, generator);
+        }
+    }
+
+    private static void writeDouble(double value, JsonGenerator generator) throws IOException {
+        if (Double.isNaN(value)) {
+            generator.writeString("NaN");
+        } else if (value == Double.POSITIVE_INFINITY) {
+            generator.writeString("Infinity");
+        } else if (value == Double.NEGATIVE_INFINITY) {
+            generator.writeString("-Infinity");
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    private static String mapKeyToString(FieldDescriptor key, Object value) {
+        switch (key.getType()) {
+            case UINT32:
+            case FIXED32:
+                return Integer.toUnsignedString((Integer) value);
+            case UINT64:
+            case FIXED64:
+                return Long.toUnsignedString((Long) value);
+            default:
+                return String.valueOf(value);
+        }
+    }
+
+    private static void readMessage(MessagePlan plan, Message.Builder builder, JsonParser parser, JsonToken token)
+            throws IOException {
+        expect(token == JsonToken.START_OBJECT, plan.descriptor, parser);
+        boolean[] present = new boolean[plan.fields.length];
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            FieldPlan field = plan.fieldsByName.get(parser.getCurrentName());
+            token = parser.nextToken();
+            if (field == null) {
+                parser.skipChildren();
+                continue;
+            }
+            FieldDescriptor descriptor = field.descriptor;
+            OneofDescriptor oneof = descriptor.getContainingOneof();
+            if (present[descriptor.getIndex()] || (oneof != null && builder.hasOneof(oneof))) {
+                throw new IllegalArgumentException("field " + descriptor.getFullName() + " is set twice");
+            }
+            present[descriptor.getIndex()] = true;
+            if (field.mapKey != null) {
+                readMap(field, builder, parser, token);
+            } else if (descriptor.isRepeated()) {
+                expect(token == JsonToken.START_ARRAY, descriptor, parser);
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    builder.addRepeatedField(descriptor, readValue(field, descriptor, builder, parser, token));
+                }
+            } else {
+                builder.setField(descriptor, readValue(field, descriptor, builder, parser, token));
+            }
+        }
+        expect(token == JsonToken.END_OBJECT, plan.descriptor, parser);
+    }
+
+    private static void readMap(FieldPlan field, Message.Builder builder, JsonParser parser, JsonToken token)
+            throws IOException {
+        expect(token == JsonToken.START_OBJECT, field.descriptor, parser);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            Message.Builder entry = builder.newBuilderForField(field.descriptor);
+            entry.setField(field.mapKey, readMapKey(field.mapKey, parser.getCurrentName()));
+            entry.setField(field.mapValue, readValue(field, field.mapValue, entry, parser, parser.nextToken()));
+            builder.addRepeatedField(field.descriptor, entry.build());
+        }
+    }
+
+    private static Object readMapKey(FieldDescriptor key, String value) {
+        try {
+            switch (key.getType()) {
+                case INT32:
+                case SINT32:
+                case SFIXED32:
+                    return Integer.parseInt(value);
+                case UINT32:
+                case FIXED32:
+                    return Integer.parseUnsignedInt(value);
+                case INT64:
+                case SINT64:
+                case SFIXED64:
+                    return Long.parseLong(value);
+                case UINT64:
+                case FIXED64:
+                    return Long.parseUnsignedLong(value);
+                case BOOL:
+                    if ("true".equals(value) || "false".equals(value)) {
+                        return Boolean.valueOf(value);
+                    }
+                    throw new IllegalArgumentException("invalid bool map key " + value);
+                default:
+                    return value;
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid map key " + value + " of " + key.getFullName(), e);
+        }
+    }
+
+    private static Object readValue(FieldPlan field, FieldDescriptor descriptor, Message.Builder builder,
+            JsonParser parser, JsonToken token) throws IOException {
+        switch (descriptor.getType()) {
+            case INT32:
+            case SINT32:
+            case SFIXED32:
+                return (int) readInteger(descriptor, parser, token, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            case UINT32:
+            case FIXED32:
+                return (int) readInteger(descriptor, parser, token, 0, 0xFFFFFFFFL);
+            case INT64:
+            case SINT64:
+            case SFIXED64:
+                return readInteger(descriptor, parser, token, Long.MIN_VALUE, Long.MAX_VALUE);
+            case UINT64:
+            case FIXED64:
+                return readUnsignedLong(descriptor, parser, token);
+            case BOOL:
+                expect(token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE, descriptor, parser);
+                return token == JsonToken.VALUE_TRUE;
+            case FLOAT:
+                double value = readDouble(descriptor, parser, token);
+                if (Math.abs(value) > Float.MAX_VALUE * (1.0 + 1e-6) && !Double.isInfinite(value)) {
+                    throw new IllegalArgumentException("float out of range for " + descriptor.getFullName());
+                }
+                return (float) value;
+            case DOUBLE:
+                return readDouble(descriptor, parser, token);
+            case STRING:
+                expect(token == JsonToken.VALUE_STRING, descriptor, parser);
+                return parser.getText();
+            case BYTES:
+                expect(token == JsonToken.VALUE_STRING, descriptor, parser);
+                return ByteString.copyFrom(Base64.getDecoder().decode(parser.getText()));
+            case ENUM:
+                return readEnum(descriptor, parser, token);
+            default:
+                Message.Builder message = builder.newBuilderForField(descriptor);
+                readMessage(field.getValuePlan(), message, parser, token);
+                return message.build();
+        }
+    }
+
+    private static long readInteger(FieldDescriptor descriptor, JsonParser parser, JsonToken token, long min,
+            long max) throws IOException {
+        long value;
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            NumberType type = parser.getNumberType();
+            expect(type == NumberType.INT || type == NumberType.LONG, descriptor, parser);
+            value = parser.getLongValue();
+        } else {
+            expect(token == JsonToken.VALUE_STRING, descriptor, parser);
+            try {
+                value = Long.parseLong(parser.getText());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("invalid integer for " + descriptor.getFullName(), e);
+            }
+        }
+        if (value < min || value > max) {
+            throw new IllegalArgumentException("integer out of range for " + descriptor.getFullName());
+        }
+        return value;
+    }
+
+    private static long readUnsignedLong(FieldDescriptor descriptor, JsonParser parser, JsonToken token)
+            throws IOException {
+        expect(token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_STRING, descriptor, parser);
+        String text = parser.getText();
+        try {
+            return Long.parseUnsignedLong(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid unsigned integer for " + descriptor.getFullName(), e);
+        }
+    }
+
+    private static double readDouble(FieldDescriptor descriptor, JsonParser parser, JsonToken token)
+            throws IOException {
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            return parser.getDoubleValue();
+        }
+        expect(token == JsonToken.VALUE_STRING, descriptor, parser);
+        switch (parser.getText()) {
+            case "NaN":
+                return Double.NaN;
+            case "Infinity":
+                return Double.POSITIVE_INFINITY;
+            case "-Infinity":
+                return Double.NEGATIVE_INFINITY;
+            default:
+                throw new IllegalArgumentException("invalid number for " + descriptor.getFullName());
+        }
+    }
+
+    private static EnumValueDescriptor readEnum(FieldDescriptor descriptor, JsonParser parser, JsonToken token)
+            throws IOException {
+        EnumDescriptor type = descriptor.getEnumType();
+        EnumValueDescriptor value;
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            int number = (int) readInteger(descriptor, parser, token, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            value = type.isClosed() ? type.findValueByNumber(number) : type.findValueByNumberCreatingIfUnknown(number);
+        } else {
+            expect(token == JsonToken.VALUE_STRING, descriptor, parser);
+            value = type.findValueByName(parser.getText());
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("unknown enum value for " + descriptor.getFullName());
+        }
+        return value;
+    }
+
+    private static void expect(boolean expected, Object target, JsonParser parser) {
+        if (!expected) {
+            throw new IllegalArgumentException("unexpected json " + parser.currentToken() + " for " + target);
+        }
+    }
+
+    /**
+     * Fields of a message type in field number order and by name.
+     */
+    private static class MessagePlan {
+
+        private final Descriptor descriptor;
+        private final FieldPlan[] fields;
+        private final Map<String, FieldPlan> fieldsByName = new HashMap<>();
+
+        MessagePlan(Descriptor descriptor) {
+            this.descriptor = descriptor;
+            this.fields = descriptor.getFields().stream()
+                    .sorted(Comparator.comparingInt(FieldDescriptor::getNumber))
+                    .map(FieldPlan::new)
+                    .toArray(FieldPlan[]::new);
+            for (FieldPlan field : fields) {
+                // both the json name and the original name are accepted
+                fieldsByName.put(field.descriptor.getName(), field);
+                fieldsByName.put(field.descriptor.getJsonName(), field);
+            }
+        }
+    }
+
+    /**
+     * A field with its json name, the plan of its message values is resolved on first use.
+     */
+    private static class FieldPlan {
+
+        private final FieldDescriptor descriptor;
+        private final SerializableString jsonName;
+        /**
+         * Printed even when not set, as done by JsonFormat for the fields not in a oneof and not of a message type.
+         */
+        private final boolean alwaysPrinted;
+        private final FieldDescriptor mapKey;
+        private final FieldDescriptor mapValue;
+        private volatile MessagePlan valuePlan;
+
+        FieldPlan(FieldDescriptor descriptor) {
+            this.descriptor = descriptor;
+            this.jsonName = new SerializedString(descriptor.getJsonName());
+            this.alwaysPrinted = descriptor.getContainingOneof() == null
+                    && descriptor.getJavaType() != JavaType.MESSAGE;
+            if (descriptor.isMapField()) {
+                this.mapKey = descriptor.getMessageType().findFieldByNumber(1);
+                this.mapValue = descriptor.getMessageType().findFieldByNumber(2);
+            } else {
+                this.mapKey = null;
+                this.mapValue = null;
+            }
+        }
+
+        MessagePlan getValuePlan() {
+            MessagePlan plan = valuePlan;
+            if (plan == null) {
+                FieldDescriptor value = mapValue != null ? mapValue : descriptor;
+                plan = getPlan(value.getMessageType());
+                valuePlan = plan;
+            }
+            return plan;
+        }
+    }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+
+package com.tencent.trpc.core.worker.bulkhead;
+
+import com.tencent.trpc.core.rpc.common.MethodRouterKey;
+import com.tencent.trpc.core.utils.PreconditionUtils;
+import java.util.Map;
+import java.util.Objects;
+import org.apache.commons.collections4.MapUtils;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Per-method bulkhead configuration, configured under {@code server->service->bulkheads}, e.g.
+ * <pre>
+ * bulkheads:
+ *   - method: queryReport          # rpc method name or full func, e.g. /trpc.app.server.Greeter/queryReport
+ *     worker_pool: report_pool     # optional, dedicated worker pool, default is the provider worker pool
+ *     max_concurrency: 16          # optional, semaphore based max concurrency, 0 means no limit
+ *     max_queue: 32                # optional, requests allowed to wait for a permit, exceeded ones are rejected,
+ *                                  # requires max_concurrency since nothing waits without a limit
+ * </pre>
+ */
+public class BulkheadConfig {
+
+    /**
+     * Rpc method name or full func.
+     */
+    public static final String METHOD = "method";
+    /**
+     * Dedicated worker pool name.
+     */
+    public static final String WORKER_POOL = "worker_pool";
+    /**
+     * Max concurrently executing requests, 0 means no limit.
+     */
+    public static final String MAX_CONCURRENCY = "max_concurrency";
+    /**
+     * Max requests waiting for a permit, 0 means fail fast once the concurrency is exhausted, only valid with
+     * {@link #MAX_CONCURRENCY}.
+     */
+    public static final String MAX_QUEUE = "max_queue";
+
+    private String method;
+    private String workerPool;
+    private int maxConcurrency;
+    private int maxQueue;
+
+    /**
+     * Parse bulkhead configuration.
+     *
+     * @param configMap configuration
+     * @return bulkhead config
+     */
+    public static BulkheadConfig parse(Map<String, Object> configMap) {
+        Objects.requireNonNull(configMap, "configMap");
+        BulkheadConfig config = new BulkheadConfig();
+        config.method = MapUtils.getString(configMap, METHOD);
+        config.workerPool = MapUtils.getString(configMap, WORKER_POOL);
+        config.maxConcurrency = MapUtils.getIntValue(configMap, MAX_CONCURRENCY, 0);
+        config.maxQueue = MapUtils.getIntValue(configMap, MAX_QUEUE, 0);
+        return config;
+    }
+
+    public void validate() {
+        PreconditionUtils.checkArgument(StringUtils.isNotBlank(method), "bulkhead method should not be blank");
+        PreconditionUtils.checkArgument(maxConcurrency >= 0, "bulkhead[%s], maxConcurrency[%s] should >= 0",
+                method, maxConcurrency);
+        PreconditionUtils.checkArgument(maxQueue >= 0, "bulkhead[%s], maxQueue[%s] should >= 0", method,
+                maxQueue);
+        PreconditionUtils.checkArgument(maxConcurrency > 0 || StringUtils.isNotBlank(workerPool),
+                "bulkhead[%s] should config either worker_pool or max_concurrency", method);
+        PreconditionUtils.checkArgument(maxConcurrency > 0 || maxQueue == 0,
+                "bulkhead[%s], maxQueue[%s] requires max_concurrency, no request waits without it", method,
+                maxQueue);
+    }
+
+    /**
+     * Whether this bulkhead applies to the method.
+     *
+     * @param methodRouterKey method route key
+     * @return true if {@link #method} equals the rpc method name or func
+     */
+    public boolean matches(MethodRouterKey methodRouterKey) {
+        return Objects.equals(method, methodRouterKey.getRpcMethodName())
+                || Objects.equals(method, methodRouterKey.getNativeFunc())
+                || Objects.equals(method, methodRouterKey.getSlashFunc());
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public BulkheadConfig setMethod(String method) {
+        this.method = method;
+        return this;
+    }
+
+    public String getWorkerPool() {
+        return workerPool;
+    }
+
+    public BulkheadConfig setWorkerPool(String workerPool) {
+        this.workerPool = workerPool;
+        return this;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public BulkheadConfig setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    public int getMaxQueue() {
+        return maxQueue;
+    }
+
+    public BulkheadConfig setMaxQueue(int maxQueue) {
+        this.maxQueue = maxQueue;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkheadConfig{method=" + method + ", workerPool=" + workerPool + ", maxConcurrency="
+                + maxConcurrency + ", maxQueue=" + maxQueue + "}";
+    }
+
+}
@@ -0,0 +1,230 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+
+package com.tencent.trpc.core.worker.bulkhead;
+
+import com.tencent.trpc.core.logger.Logger;
+import com.tencent.trpc.core.logger.LoggerFactory;
+import com.tencent.trpc.core.rpc.Request;
+import com.tencent.trpc.core.worker.queue.AdmissionTask;
+import com.tencent.trpc.core.worker.spi.WorkerPool;
+import com.tencent.trpc.core.worker.spi.WorkerPool.Task;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Isolates the requests of one method from the other methods of the same service.
+ * <p>Requests are executed on the bulkhead's worker pool, at most {@code maxConcurrency} at a time when a
+ * concurrency limit is configured. Requests that can not get a permit wait in a bounded queue of
+ * {@code maxQueue}, and are rejected immediately once the queue is full, so that a slow method can not fill the
+ * shared worker pool queue.</p>
+ */
+public class MethodBulkhead {
+
+    private static final Logger logger = LoggerFactory.getLogger(MethodBulkhead.class);
+
+    /**
+     * Bulkhead name, the func of the method.
+     */
+    private final String name;
+    private final WorkerPool workerPool;
+    private final int maxConcurrency;
+    private final int maxQueue;
+    /**
+     * Requests holding a permit, including the ones submitted to the worker pool but not started yet.
+     */
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicInteger queueSize = new AtomicInteger();
+    private final Queue<PendingTask> pendingTasks = new ConcurrentLinkedQueue<>();
+    private final LongAdder completedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    public MethodBulkhead(String name, WorkerPool workerPool, BulkheadConfig config) {
+        this.name = Objects.requireNonNull(name, "name");
+        this.workerPool = Objects.requireNonNull(workerPool, "workerPool");
+        this.maxConcurrency = config.getMaxConcurrency();
+        this.maxQueue = config.getMaxQueue();
+    }
+
+    /**
+     * Execute the task inside the bulkhead.
+     *
+     * @param task the task
+     * @param rejectHandler called when a queued task is rejected by the worker pool later on
+     * @throws RejectedExecutionException if neither a permit nor a queue slot is available
+     */
+    public void execute(Task task, Consumer<Throwable> rejectHandler) throws RejectedExecutionException {
+        if (tryAcquire()) {
+            submit(task);
+            return;
+        }
+        if (queueSize.incrementAndGet() > maxQueue) {
+            queueSize.decrementAndGet();
+            rejectedCount.increment();
+            throw new RejectedExecutionException("bulkhead(" + name + ") is full, maxConcurrency="
+                    + maxConcurrency + ", maxQueue=" + maxQueue);
+        }
+        pendingTasks.offer(new PendingTask(task, rejectHandler));
+        // a permit may have been released before the task was queued
+        drain();
+    }
+
+    private boolean tryAcquire() {
+        if (maxConcurrency <= 0) {
+            activeCount.incrementAndGet();
+            return true;
+        }
+        for (;;) {
+            int current = activeCount.get();
+            if (current >= maxConcurrency) {
+                return false;
+            }
+            if (activeCount.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void release() {
+        activeCount.decrementAndGet();
+        if (maxConcurrency > 0) {
+            drain();
+        }
+    }
+
+    private void drain() {
+        while (!pendingTasks.isEmpty() && tryAcquire()) {
+            PendingTask pendingTask = pendingTasks.poll();
+            if (pendingTask == null) {
+                activeCount.decrementAndGet();
+                continue;
+            }
+            queueSize.decrementAndGet();
+            try {
+                submit(pendingTask.task);
+            } catch (Throwable ex) {
+                try {
+                    pendingTask.rejectHandler.accept(ex);
+                } catch (Throwable e) {
+                    logger.error("bulkhead(" + name + ") handle rejected task error", e);
+                }
+            }
+        }
+    }
+
+    private void submit(Task task) {
+        try {
+            workerPool.execute(task instanceof AdmissionTask ? new BulkheadAdmissionTask((AdmissionTask) task)
+                    : () -> runAndRelease(task));
+        } catch (Throwable ex) {
+            rejectedCount.increment();
+            release();
+            throw ex;
+        }
+    }
+
+    private void runAndRelease(Task task) {
+        try {
+            task.run();
+        } finally {
+            completedCount.increment();
+            release();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getWorkerPoolName() {
+        return workerPool.getName();
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getMaxQueue() {
+        return maxQueue;
+    }
+
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    public int getQueueSize() {
+        return queueSize.get();
+    }
+
+    public long getCompletedCount() {
+        return completedCount.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "MethodBulkhead{name=" + name + ", workerPool=" + workerPool.getName() + ", maxConcurrency="
+                + maxConcurrency + ", maxQueue=" + maxQueue + ", activeCount=" + activeCount + ", queueSize="
+                + queueSize + "}";
+    }
+
+    private static class PendingTask {
+
+        private final Task task;
+        private final Consumer<Throwable> rejectHandler;
+
+        PendingTask(Task task, Consumer<Throwable> rejectHandler) {
+            this.task = task;
+            this.rejectHandler = rejectHandler;
+        }
+
+    }
+
+    /**
+     * Keeps the admission information of the task, and releases the permit when the worker pool drops the task.
+     */
+    private class BulkheadAdmissionTask implements AdmissionTask {
+
+        private final AdmissionTask task;
+
+        BulkheadAdmissionTask(AdmissionTask task) {
+            this.task = task;
+        }
+
+        @Override
+        public Request getRequest() {
+            return task.getRequest();
+        }
+
+        @Override
+        public void reject(Throwable cause) {
+            rejectedCount.increment();
+            release();
+            task.reject(cause);
+        }
+
+        @Override
+        public void run() {
+            runAndRelease(task);
+        }
+
+    }
+
+}
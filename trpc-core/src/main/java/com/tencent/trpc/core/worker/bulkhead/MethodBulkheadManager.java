@@ -0,0 +1,79 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+
+package com.tencent.trpc.core.worker.bulkhead;
+
+import com.google.common.collect.Lists;
+import com.tencent.trpc.core.logger.Logger;
+import com.tencent.trpc.core.logger.LoggerFactory;
+import com.tencent.trpc.core.worker.WorkerPoolManager;
+import com.tencent.trpc.core.worker.spi.WorkerPool;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Method bulkhead manager, keeps all the exported method bulkheads.
+ */
+public class MethodBulkheadManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(MethodBulkheadManager.class);
+    /**
+     * key: func, value: bulkhead
+     */
+    private static final ConcurrentMap<String, MethodBulkhead> BULKHEADS = new ConcurrentHashMap<>();
+
+    /**
+     * Create and register the bulkhead of a method.
+     *
+     * @param func method func
+     * @param config bulkhead config
+     * @param defaultWorkerPool worker pool used when no dedicated worker pool is configured
+     * @return the bulkhead
+     */
+    public static MethodBulkhead register(String func, BulkheadConfig config, WorkerPool defaultWorkerPool) {
+        Objects.requireNonNull(func, "func");
+        Objects.requireNonNull(config, "config");
+        WorkerPool workerPool = defaultWorkerPool;
+        if (StringUtils.isNotBlank(config.getWorkerPool())) {
+            WorkerPoolManager.validate(config.getWorkerPool());
+            workerPool = WorkerPoolManager.get(config.getWorkerPool());
+        }
+        Objects.requireNonNull(workerPool, "Not found worker pool of bulkhead <" + func + ">");
+        MethodBulkhead bulkhead = new MethodBulkhead(func, workerPool, config);
+        BULKHEADS.put(func, bulkhead);
+        logger.info("Register method bulkhead {}", bulkhead);
+        return bulkhead;
+    }
+
+    public static void unregister(String func) {
+        BULKHEADS.remove(func);
+    }
+
+    public static MethodBulkhead get(String func) {
+        return BULKHEADS.get(func);
+    }
+
+    public static List<MethodBulkhead> getAll() {
+        return Lists.newArrayList(BULKHEADS.values());
+    }
+
+    /**
+     * For Test purpose
+     */
+    public static void reset() {
+        BULKHEADS.clear();
+    }
+
+}
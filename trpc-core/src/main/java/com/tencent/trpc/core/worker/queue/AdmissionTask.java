@@ -0,0 +1,35 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+
+package com.tencent.trpc.core.worker.queue;
+
+import com.tencent.trpc.core.rpc.Request;
+import com.tencent.trpc.core.worker.spi.WorkerPool.Task;
+
+/**
+ * Task carrying the request it serves, so that a queueing policy can classify it and drop it without running it.
+ */
+public interface AdmissionTask extends Task {
+
+    /**
+     * The request served by this task, used to derive the priority class.
+     */
+    Request getRequest();
+
+    /**
+     * Called when the task is dropped from the queue and will never run.
+     *
+     * @param cause drop reason
+     */
+    void reject(Throwable cause);
+
+}
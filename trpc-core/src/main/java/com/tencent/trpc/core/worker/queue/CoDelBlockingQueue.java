@@ -0,0 +1,472 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+
+package com.tencent.trpc.core.worker.queue;
+
+import com.tencent.trpc.core.exception.ErrorCode;
+import com.tencent.trpc.core.exception.TRpcException;
+import com.tencent.trpc.core.logger.Logger;
+import com.tencent.trpc.core.logger.LoggerFactory;
+import com.tencent.trpc.core.worker.spi.WorkerPool.Task;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Worker pool queue with controlled delay, adaptive LIFO and priority classes.
+ * <p>On every dequeue the queue measures how long its oldest task has been waiting, and keeps the minimum of every
+ * {@code interval}. When the minimum stays above {@code target}, there is a standing queue and the queue enters the
+ * dropping state: requests queued longer than {@code target} are dropped from the oldest end, and with adaptive
+ * LIFO the newest tasks are served first, so that the tasks still having a chance to meet their deadline are
+ * served. The queue leaves the dropping state after an interval in which it was drained. Nothing is dropped
+ * outside the dropping state.</p>
+ * <p>Only {@link AdmissionTask}s are dropped, they reply the request themselves. Any other task, e.g. a stream
+ * message or a reactor drain submitted through {@code toExecutor()}, is never dropped since nobody would be told
+ * about it.</p>
+ * <p>Tasks of a lower priority class are served only when all the higher classes are empty.</p>
+ */
+public class CoDelBlockingQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoDelBlockingQueue.class);
+
+    private final int capacity;
+    private final QueuePolicyConfig config;
+    private final long targetNanos;
+    private final long intervalNanos;
+    private final ArrayDeque<Entry>[] queues;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private int count;
+    /**
+     * End of the current measuring interval.
+     */
+    private long intervalEnd = System.nanoTime();
+    /**
+     * Minimum sojourn time of the oldest entry in the current interval.
+     */
+    private long intervalMinSojourn = Long.MAX_VALUE;
+    /**
+     * Minimum sojourn time of the oldest entry in the last finished interval.
+     */
+    private volatile long lastMinSojourn;
+    private volatile boolean overloaded;
+    private final LongAdder dequeuedCount = new LongAdder();
+    private final LongAdder totalSojournNanos = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+
+    /**
+     * Create the queue.
+     *
+     * @param capacity max queued tasks, 0 means no limit
+     * @param config queueing policy configuration
+     */
+    @SuppressWarnings("unchecked")
+    public CoDelBlockingQueue(int capacity, QueuePolicyConfig config) {
+        this.capacity = capacity <= 0 ? Integer.MAX_VALUE : capacity;
+        this.config = Objects.requireNonNull(config, "config");
+        this.targetNanos = TimeUnit.MILLISECONDS.toNanos(config.getCodelTargetMills());
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(config.getCodelIntervalMills());
+        this.queues = new ArrayDeque[config.getPriorityLevels()];
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Wrap the command of a task so that the queue knows its priority class and how to reject it.
+     *
+     * @param task the task submitted to the worker pool
+     * @param command the command to be run by the worker pool
+     * @return the command to be queued
+     */
+    public Runnable newQueuedCommand(Task task, Runnable command) {
+        return new QueuedCommand(command, config.classify(task),
+                task instanceof AdmissionTask ? (AdmissionTask) task : null);
+    }
+
+    @Override
+    public boolean offer(Runnable runnable) {
+        Objects.requireNonNull(runnable, "runnable");
+        lock.lock();
+        try {
+            if (count >= capacity) {
+                return false;
+            }
+            enqueue(runnable);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(Runnable runnable) throws InterruptedException {
+        Objects.requireNonNull(runnable, "runnable");
+        lock.lockInterruptibly();
+        try {
+            while (count >= capacity) {
+                notFull.await();
+            }
+            enqueue(runnable);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(Runnable runnable, long timeout, TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(runnable, "runnable");
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count >= capacity) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            enqueue(runnable);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Must hold the lock.
+     */
+    private void enqueue(Runnable runnable) {
+        int priority = runnable instanceof QueuedCommand ? ((QueuedCommand) runnable).priority
+                : config.getDefaultPriority();
+        queues[priority].addLast(new Entry(runnable, System.nanoTime()));
+        count++;
+        notEmpty.signal();
+    }
+
+    @Override
+    public Runnable poll() {
+        List<Entry> dropped = new ArrayList<>(0);
+        Runnable runnable;
+        lock.lock();
+        try {
+            runnable = dequeue(dropped);
+        } finally {
+            lock.unlock();
+        }
+        reject(dropped);
+        return runnable;
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        List<Entry> dropped = new ArrayList<>(0);
+        Runnable runnable = null;
+        lock.lockInterruptibly();
+        try {
+            while (runnable == null) {
+                while (count == 0) {
+                    notEmpty.await();
+                }
+                runnable = dequeue(dropped);
+            }
+        } finally {
+            lock.unlock();
+            reject(dropped);
+        }
+        return runnable;
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        List<Entry> dropped = new ArrayList<>(0);
+        Runnable runnable = null;
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (runnable == null) {
+                while (count == 0) {
+                    if (nanos <= 0) {
+                        return null;
+                    }
+                    nanos = notEmpty.awaitNanos(nanos);
+                }
+                runnable = dequeue(dropped);
+            }
+        } finally {
+            lock.unlock();
+            reject(dropped);
+        }
+        return runnable;
+    }
+
+    /**
+     * Dequeue the next task to run, tasks to be dropped are added to {@code dropped}. Must hold the lock.
+     */
+    private Runnable dequeue(List<Entry> dropped) {
+        while (count > 0) {
+            long now = System.nanoTime();
+            rollInterval(now);
+            ArrayDeque<Entry> queue = firstNonEmpty();
+            // the standing queue is measured from the oldest entry, whichever end is served
+            long standing = now - queue.peekFirst().enqueueNanos;
+            if (overloaded) {
+                shed(queue, now, dropped);
+            }
+            Entry entry = null;
+            if (!queue.isEmpty()) {
+                entry = overloaded && config.isAdaptiveLifo() ? queue.pollLast() : queue.pollFirst();
+                count--;
+                notFull.signal();
+            }
+            intervalMinSojourn = Math.min(intervalMinSojourn, standing);
+            if (count == 0) {
+                // the queue is drained, there is no standing queue any more
+                intervalMinSojourn = 0;
+            }
+            if (entry != null) {
+                long sojourn = now - entry.enqueueNanos;
+                dequeuedCount.increment();
+                totalSojournNanos.add(sojourn);
+                return entry.runnable;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finish the measuring interval if it is over. Outside the dropping state, the queue enters it when the minimum
+     * standing time of the interval is above the target. In the dropping state the stale entries are shed, which
+     * keeps the oldest entry near the target, so the queue only leaves it once an interval saw the queue drained.
+     */
+    private void rollInterval(long now) {
+        if (now - intervalEnd >= 0) {
+            if (intervalMinSojourn != Long.MAX_VALUE) {
+                lastMinSojourn = intervalMinSojourn;
+                overloaded = overloaded ? intervalMinSojourn > 0 : intervalMinSojourn > targetNanos;
+            }
+            intervalMinSojourn = Long.MAX_VALUE;
+            intervalEnd = now + intervalNanos;
+        }
+    }
+
+    /**
+     * Drop the droppable entries queued longer than the target, oldest first. The entries are in enqueue order, so
+     * the scan stops at the first one within the target.
+     */
+    private void shed(ArrayDeque<Entry> queue, long now, List<Entry> dropped) {
+        Iterator<Entry> it = queue.iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            long sojourn = now - entry.enqueueNanos;
+            if (sojourn <= targetNanos) {
+                return;
+            }
+            if (entry.isDroppable()) {
+                it.remove();
+                count--;
+                notFull.signal();
+                entry.sojournNanos = sojourn;
+                dropped.add(entry);
+            }
+        }
+    }
+
+    private ArrayDeque<Entry> firstNonEmpty() {
+        for (ArrayDeque<Entry> queue : queues) {
+            if (!queue.isEmpty()) {
+                return queue;
+            }
+        }
+        throw new IllegalStateException("count=" + count + ", but all queues are empty");
+    }
+
+    private void reject(List<Entry> dropped) {
+        for (Entry entry : dropped) {
+            droppedCount.increment();
+            try {
+                ((QueuedCommand) entry.runnable).task.reject(TRpcException.newFrameException(
+                        ErrorCode.TRPC_SERVER_OVERLOAD_ERR, "request dropped, queued %sms",
+                        TimeUnit.NANOSECONDS.toMillis(entry.sojournNanos)));
+            } catch (Throwable ex) {
+                logger.error("reject dropped task error", ex);
+            }
+        }
+    }
+
+    @Override
+    public Runnable peek() {
+        lock.lock();
+        try {
+            return count == 0 ? null : firstNonEmpty().peekFirst().runnable;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            return capacity - count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        lock.lock();
+        try {
+            for (ArrayDeque<Entry> queue : queues) {
+                Iterator<Entry> it = queue.iterator();
+                while (it.hasNext()) {
+                    if (it.next().runnable.equals(o)) {
+                        it.remove();
+                        count--;
+                        notFull.signal();
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> c, int maxElements) {
+        lock.lock();
+        try {
+            int n = 0;
+            for (ArrayDeque<Entry> queue : queues) {
+                while (n < maxElements && !queue.isEmpty()) {
+                    c.add(queue.pollFirst().runnable);
+                    count--;
+                    n++;
+                }
+            }
+            if (n > 0) {
+                notFull.signalAll();
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Iterator<Runnable> iterator() {
+        List<Runnable> snapshot = new ArrayList<>();
+        lock.lock();
+        try {
+            for (ArrayDeque<Entry> queue : queues) {
+                queue.forEach(entry -> snapshot.add(entry.runnable));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return snapshot.iterator();
+    }
+
+    public boolean isOverloaded() {
+        return overloaded;
+    }
+
+    /**
+     * Minimum sojourn time of the oldest entry in the last measuring interval, in microseconds.
+     */
+    public long getMinSojournTimeMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(lastMinSojourn);
+    }
+
+    /**
+     * Average sojourn time of the tasks which are not dropped, in microseconds.
+     */
+    public long getAvgSojournTimeMicros() {
+        long dequeued = dequeuedCount.sum();
+        return dequeued == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalSojournNanos.sum() / dequeued);
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    public QueuePolicyConfig getConfig() {
+        return config;
+    }
+
+    private static class Entry {
+
+        private final Runnable runnable;
+        private final long enqueueNanos;
+        private long sojournNanos;
+
+        Entry(Runnable runnable, long enqueueNanos) {
+            this.runnable = runnable;
+            this.enqueueNanos = enqueueNanos;
+        }
+
+        /**
+         * Only a task able to reply its request can be dropped.
+         */
+        boolean isDroppable() {
+            return runnable instanceof QueuedCommand && ((QueuedCommand) runnable).task != null;
+        }
+
+    }
+
+    private static class QueuedCommand implements Runnable {
+
+        private final Runnable command;
+        private final int priority;
+        private final AdmissionTask task;
+
+        QueuedCommand(Runnable command, int priority, AdmissionTask task) {
+            this.command = command;
+            this.priority = priority;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            command.run();
+        }
+
+    }
+
+}
@@ -0,0 +1,276 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+
+package com.tencent.trpc.core.worker.queue;
+
+import com.tencent.trpc.core.rpc.CallInfo;
+import com.tencent.trpc.core.rpc.Request;
+import com.tencent.trpc.core.utils.PreconditionUtils;
+import com.tencent.trpc.core.worker.spi.WorkerPool.Task;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import org.apache.commons.collections4.MapUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+/**
+ * Queueing policy configuration of a worker pool, configured together with the worker pool, e.g.
+ * <pre>
+ * worker_pool:
+ *   biz_pool:
+ *     _type: thread
+ *     queue_policy: codel
+ *     codel_target_mills: 5
+ *     codel_interval_mills: 100
+ *     adaptive_lifo: true
+ *     priority_levels: 3
+ *     priority_attachment_key: trpc-priority
+ *     caller_priorities:
+ *       trpc.app.server.Admin: 0
+ * </pre>
+ */
+public class QueuePolicyConfig {
+
+    /**
+     * Queueing policy, see {@link QueuePolicy}.
+     */
+    public static final String QUEUE_POLICY = "queue_policy";
+    /**
+     * Sojourn time the queue is allowed to keep as a standing queue.
+     */
+    public static final String CODEL_TARGET_MILLS = "codel_target_mills";
+    /**
+     * Window in which the minimum sojourn time is measured.
+     */
+    public static final String CODEL_INTERVAL_MILLS = "codel_interval_mills";
+    /**
+     * Whether to serve the newest tasks first when overloaded.
+     */
+    public static final String ADAPTIVE_LIFO = "adaptive_lifo";
+    /**
+     * Number of priority classes, class 0 is served first.
+     */
+    public static final String PRIORITY_LEVELS = "priority_levels";
+    /**
+     * Request attachment carrying the priority class. The attachment is set by the caller, so it is only read when
+     * the key is configured, i.e. when the service trusts its callers.
+     */
+    public static final String PRIORITY_ATTACHMENT_KEY = "priority_attachment_key";
+    /**
+     * Priority class of callers, key: caller service, value: priority class.
+     */
+    public static final String CALLER_PRIORITIES = "caller_priorities";
+    /**
+     * Priority class of tasks without any priority, default is the lowest class.
+     */
+    public static final String DEFAULT_PRIORITY = "default_priority";
+    private static final int DEFAULT_CODEL_TARGET_MILLS = 5;
+    private static final int DEFAULT_CODEL_INTERVAL_MILLS = 100;
+
+    private String id;
+    private QueuePolicy queuePolicy = QueuePolicy.FIFO;
+    private int codelTargetMills = DEFAULT_CODEL_TARGET_MILLS;
+    private int codelIntervalMills = DEFAULT_CODEL_INTERVAL_MILLS;
+    private boolean adaptiveLifo;
+    private int priorityLevels = 1;
+    private int defaultPriority;
+    private String priorityAttachmentKey;
+    private Map<String, Integer> callerPriorities = Collections.emptyMap();
+
+    /**
+     * Parse queueing policy configuration.
+     *
+     * @param id plugin name
+     * @param extMap configuration
+     * @return queue policy config
+     */
+    public static QueuePolicyConfig parse(String id, Map<String, Object> extMap) {
+        Objects.requireNonNull(id, "id");
+        Objects.requireNonNull(extMap, "extMap");
+        QueuePolicyConfig config = new QueuePolicyConfig();
+        config.id = id;
+        config.queuePolicy = QueuePolicy.ofName(MapUtils.getString(extMap, QUEUE_POLICY,
+                QueuePolicy.FIFO.getName()));
+        config.codelTargetMills = MapUtils.getIntValue(extMap, CODEL_TARGET_MILLS, DEFAULT_CODEL_TARGET_MILLS);
+        config.codelIntervalMills = MapUtils.getIntValue(extMap, CODEL_INTERVAL_MILLS, DEFAULT_CODEL_INTERVAL_MILLS);
+        config.adaptiveLifo = MapUtils.getBooleanValue(extMap, ADAPTIVE_LIFO, Boolean.FALSE);
+        config.priorityLevels = MapUtils.getIntValue(extMap, PRIORITY_LEVELS, 1);
+        config.defaultPriority = MapUtils.getIntValue(extMap, DEFAULT_PRIORITY, config.priorityLevels - 1);
+        config.priorityAttachmentKey = MapUtils.getString(extMap, PRIORITY_ATTACHMENT_KEY);
+        Map<?, ?> callerPriorities = MapUtils.getMap(extMap, CALLER_PRIORITIES);
+        if (MapUtils.isNotEmpty(callerPriorities)) {
+            config.callerPriorities = new HashMap<>();
+            callerPriorities.forEach((k, v) -> config.callerPriorities.put(String.valueOf(k),
+                    NumberUtils.toInt(String.valueOf(v))));
+        }
+        return config;
+    }
+
+    public void validate() {
+        PreconditionUtils.checkArgument(queuePolicy != null, "id[%s], unknown queue policy", id);
+        PreconditionUtils.checkArgument(codelTargetMills > 0, "id[%s],codelTargetMills[%s] should > 0", id,
+                codelTargetMills);
+        PreconditionUtils.checkArgument(codelIntervalMills >= codelTargetMills,
+                "id[%s],codelIntervalMills[%s] should >= codelTargetMills", id, codelIntervalMills);
+        PreconditionUtils.checkArgument(priorityLevels > 0, "id[%s],priorityLevels[%s] should > 0", id,
+                priorityLevels);
+        PreconditionUtils.checkArgument(defaultPriority >= 0 && defaultPriority < priorityLevels,
+                "id[%s],defaultPriority[%s] should in [0, priorityLevels)", id, defaultPriority);
+    }
+
+    /**
+     * Priority class of the task, derived from the request attachment first if its key is configured, then the
+     * caller service.
+     *
+     * @param task the task
+     * @return priority class in [0, priorityLevels)
+     */
+    public int classify(Task task) {
+        if (priorityLevels <= 1 || !(task instanceof AdmissionTask)) {
+            return defaultPriority;
+        }
+        Request request = ((AdmissionTask) task).getRequest();
+        if (request == null) {
+            return defaultPriority;
+        }
+        Object value = StringUtils.isEmpty(priorityAttachmentKey) ? null : request.getAttachment(priorityAttachmentKey);
+        if (value != null) {
+            String priority = value instanceof byte[] ? new String((byte[]) value, StandardCharsets.UTF_8)
+                    : String.valueOf(value);
+            if (NumberUtils.isDigits(priority)) {
+                return Math.min(NumberUtils.toInt(priority, defaultPriority), priorityLevels - 1);
+            }
+        }
+        CallInfo callInfo = request.getMeta() == null ? null : request.getMeta().getCallInfo();
+        if (callInfo != null && StringUtils.isNotEmpty(callInfo.getCaller())) {
+            Integer priority = callerPriorities.get(callInfo.getCaller());
+            if (priority != null) {
+                return Math.max(0, Math.min(priority, priorityLevels - 1));
+            }
+        }
+        return defaultPriority;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public QueuePolicy getQueuePolicy() {
+        return queuePolicy;
+    }
+
+    public QueuePolicyConfig setQueuePolicy(QueuePolicy queuePolicy) {
+        this.queuePolicy = queuePolicy;
+        return this;
+    }
+
+    public int getCodelTargetMills() {
+        return codelTargetMills;
+    }
+
+    public QueuePolicyConfig setCodelTargetMills(int codelTargetMills) {
+        this.codelTargetMills = codelTargetMills;
+        return this;
+    }
+
+    public int getCodelIntervalMills() {
+        return codelIntervalMills;
+    }
+
+    public QueuePolicyConfig setCodelIntervalMills(int codelIntervalMills) {
+        this.codelIntervalMills = codelIntervalMills;
+        return this;
+    }
+
+    public boolean isAdaptiveLifo() {
+        return adaptiveLifo;
+    }
+
+    public QueuePolicyConfig setAdaptiveLifo(boolean adaptiveLifo) {
+        this.adaptiveLifo = adaptiveLifo;
+        return this;
+    }
+
+    public int getPriorityLevels() {
+        return priorityLevels;
+    }
+
+    public QueuePolicyConfig setPriorityLevels(int priorityLevels) {
+        this.priorityLevels = priorityLevels;
+        return this;
+    }
+
+    public int getDefaultPriority() {
+        return defaultPriority;
+    }
+
+    public QueuePolicyConfig setDefaultPriority(int defaultPriority) {
+        this.defaultPriority = defaultPriority;
+        return this;
+    }
+
+    public String getPriorityAttachmentKey() {
+        return priorityAttachmentKey;
+    }
+
+    public QueuePolicyConfig setPriorityAttachmentKey(String priorityAttachmentKey) {
+        this.priorityAttachmentKey = priorityAttachmentKey;
+        return this;
+    }
+
+    public Map<String, Integer> getCallerPriorities() {
+        return callerPriorities;
+    }
+
+    public QueuePolicyConfig setCallerPriorities(Map<String, Integer> callerPriorities) {
+        this.callerPriorities = callerPriorities;
+        return this;
+    }
+
+    /**
+     * Queueing policy.
+     */
+    public enum QueuePolicy {
+
+        /**
+         * First in first out, the default queue of the worker pool.
+         */
+        FIFO("fifo"),
+        /**
+         * Controlled delay, drops tasks once the minimum sojourn time stays above the target for an interval.
+         */
+        CODEL("codel");
+
+        private final String name;
+
+        QueuePolicy(String name) {
+            this.name = name;
+        }
+
+        public static QueuePolicy ofName(String name) {
+            for (QueuePolicy policy : values()) {
+                if (policy.name.equalsIgnoreCase(name)) {
+                    return policy;
+                }
+            }
+            return null;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+}
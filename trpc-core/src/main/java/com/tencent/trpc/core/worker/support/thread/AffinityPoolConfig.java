@@ -0,0 +1,176 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+
+package com.tencent.trpc.core.worker.support.thread;
+
+import com.tencent.trpc.core.common.Constants;
+import com.tencent.trpc.core.utils.PreconditionUtils;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.collections4.MapUtils;
+
+/**
+ * Affinity worker pool configuration class.
+ */
+public class AffinityPoolConfig {
+
+    /**
+     * Partition count, should be the same as the io thread count so that each event loop has its own partition.
+     */
+    public static final String PARTITIONS = "partitions";
+    /**
+     * Worker threads of each partition.
+     */
+    public static final String THREADS_PER_PARTITION = "threads_per_partition";
+    /**
+     * Queue size of each partition.
+     */
+    public static final String QUEUE_SIZE = "queue_size";
+    /**
+     * Whether idle workers steal tasks from the other partitions.
+     */
+    public static final String WORK_STEALING = "work_stealing";
+    /**
+     * Thread name prefix in thread pool.
+     */
+    public static final String NAME_PREFIX = "name_prefix";
+    /**
+     * Whether the thread is a background thread.
+     */
+    public static final String DAEMON = "deamon";
+    /**
+     * Close timeout.
+     */
+    public static final String CLOSE_TIMEOUT = "close_timeout";
+    /**
+     * Default partition count, same as the default io threads.
+     */
+    private static final int DEFAULT_PARTITIONS = Constants.DEFAULT_IO_THREADS;
+    /**
+     * Default partition queue size.
+     */
+    private static final int DEFAULT_QUEUE_SIZE = 1000;
+    /**
+     * Default close timeout.
+     */
+    private static final int DEFAULT_CLOSE_TIMEOUT = (int) TimeUnit.SECONDS.toMillis(10);
+
+    private String id;
+    private int partitions;
+    private int threadsPerPartition;
+    private int queueSize = DEFAULT_QUEUE_SIZE;
+    private boolean workStealing = Boolean.TRUE;
+    private String namePrefix;
+    private boolean daemon = Boolean.TRUE;
+    private int closeTimeout = DEFAULT_CLOSE_TIMEOUT;
+
+    /**
+     * Parse affinity worker pool configuration.
+     *
+     * @param id plugin name
+     * @param extMap configuration
+     * @return affinity pool config
+     */
+    public static AffinityPoolConfig parse(String id, Map<String, Object> extMap) {
+        Objects.requireNonNull(id, "id");
+        Objects.requireNonNull(extMap, "extMap");
+        AffinityPoolConfig config = new AffinityPoolConfig();
+        config.id = id;
+        config.partitions = MapUtils.getIntValue(extMap, PARTITIONS, DEFAULT_PARTITIONS);
+        config.threadsPerPartition = MapUtils.getIntValue(extMap, THREADS_PER_PARTITION,
+                Math.max(1, Constants.DEFAULT_CORE_THREADS / Math.max(1, config.partitions)));
+        config.queueSize = MapUtils.getIntValue(extMap, QUEUE_SIZE, DEFAULT_QUEUE_SIZE);
+        config.workStealing = MapUtils.getBooleanValue(extMap, WORK_STEALING, Boolean.TRUE);
+        config.namePrefix = MapUtils.getString(extMap, NAME_PREFIX, id);
+        config.daemon = MapUtils.getBooleanValue(extMap, DAEMON, Boolean.TRUE);
+        config.closeTimeout = MapUtils.getIntValue(extMap, CLOSE_TIMEOUT, DEFAULT_CLOSE_TIMEOUT);
+        return config;
+    }
+
+    public void validate() {
+        PreconditionUtils.checkArgument(partitions > 0, "id[%s],partitions[%s] should > 0", id, partitions);
+        PreconditionUtils.checkArgument(threadsPerPartition > 0, "id[%s],threadsPerPartition[%s] should > 0", id,
+                threadsPerPartition);
+        PreconditionUtils.checkArgument(queueSize > 0, "id[%s],queueSize[%s] should > 0", id, queueSize);
+        PreconditionUtils.checkArgument(closeTimeout >= 0, "id[%s],closeTimeout[%s] should >= 0", id,
+                closeTimeout);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public AffinityPoolConfig setPartitions(int partitions) {
+        this.partitions = partitions;
+        return this;
+    }
+
+    public int getThreadsPerPartition() {
+        return threadsPerPartition;
+    }
+
+    public AffinityPoolConfig setThreadsPerPartition(int threadsPerPartition) {
+        this.threadsPerPartition = threadsPerPartition;
+        return this;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public AffinityPoolConfig setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+        return this;
+    }
+
+    public boolean isWorkStealing() {
+        return workStealing;
+    }
+
+    public AffinityPoolConfig setWorkStealing(boolean workStealing) {
+        this.workStealing = workStealing;
+        return this;
+    }
+
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+
+    public AffinityPoolConfig setNamePrefix(String namePrefix) {
+        this.namePrefix = namePrefix;
+        return this;
+    }
+
+    public boolean isDaemon() {
+        return daemon;
+    }
+
+    public AffinityPoolConfig setDaemon(boolean daemon) {
+        this.daemon = daemon;
+        return this;
+    }
+
+    public int getCloseTimeout() {
+        return closeTimeout;
+    }
+
+    public AffinityPoolConfig setCloseTimeout(int closeTimeout) {
+        this.closeTimeout = closeTimeout;
+        return this;
+    }
+
+}
@@ -0,0 +1,387 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+
+package com.tencent.trpc.core.worker.support.thread;
+
+import com.tencent.trpc.core.common.NamedThreadFactory;
+import com.tencent.trpc.core.common.config.PluginConfig;
+import com.tencent.trpc.core.exception.TRpcExtensionException;
+import com.tencent.trpc.core.extension.DisposableExtension;
+import com.tencent.trpc.core.extension.Extension;
+import com.tencent.trpc.core.extension.InitializingExtension;
+import com.tencent.trpc.core.extension.PluginConfigAware;
+import com.tencent.trpc.core.logger.Logger;
+import com.tencent.trpc.core.logger.LoggerFactory;
+import com.tencent.trpc.core.management.AbstractThreadPoolMXBean;
+import com.tencent.trpc.core.management.AffinityThreadPoolMXBean;
+import com.tencent.trpc.core.management.PoolMXBean;
+import com.tencent.trpc.core.management.support.MBeanRegistryHelper;
+import com.tencent.trpc.core.worker.AbstractWorkerPool;
+import com.tencent.trpc.core.worker.handler.TrpcThreadExceptionHandler;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.internal.ThreadExecutorMap;
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Worker pool partitioned by the submitting netty event loop.
+ * <p>A task submitted from a netty event loop goes to the partition of that loop, the i-th loop of its event loop
+ * group is mapped to partition {@code i % partitions}, and is executed by the partition's own workers. Requests
+ * decoded on the same event loop therefore stay on the same small group of threads, and the event loops do not
+ * contend on a single queue head like {@link ThreadWorkerPool}. Tasks submitted from other threads are spread by
+ * thread id.</p>
+ * <p>Idle workers block on their own queue. When work stealing is enabled and a partition has more queued tasks
+ * than idle workers, one idle worker of another partition is woken up to steal from it.</p>
+ */
+@Extension(AffinityWorkerPool.TYPE)
+public class AffinityWorkerPool extends AbstractWorkerPool
+        implements PluginConfigAware, InitializingExtension, DisposableExtension {
+
+    public static final String TYPE = "affinity";
+
+    protected static final Logger logger = LoggerFactory.getLogger(AffinityWorkerPool.class);
+
+    /**
+     * Queued to an idle partition to wake one of its workers up to steal from the other partitions.
+     */
+    private static final Task STEAL_SIGNAL = () -> {
+    };
+    /**
+     * How long an idle worker blocks on its own queue before looking at the other partitions again when work
+     * stealing is enabled, only a safety net for a missed steal signal.
+     */
+    private static final long STEAL_RECHECK_MILLS = 100;
+
+    /**
+     * Partition of the submitting thread, resolved from its event loop on the first submission.
+     */
+    private final ThreadLocal<Partition> localPartition = new ThreadLocal<>();
+    private final LongAdder submittedCount = new LongAdder();
+    private final LongAdder completedCount = new LongAdder();
+    private final LongAdder stolenCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private PluginConfig config;
+    private AffinityPoolConfig poolConfig;
+    private Partition[] partitions;
+    private volatile boolean running;
+    private AffinityThreadPoolMXBean threadPoolMXBean;
+    private UncaughtExceptionHandler uncaughtExceptionHandler;
+
+    @Override
+    public void setPluginConfig(PluginConfig pluginConfig) throws TRpcExtensionException {
+        this.config = pluginConfig;
+    }
+
+    @Override
+    public void init() throws TRpcExtensionException {
+        Objects.requireNonNull(config, "config");
+        Map<String, Object> configMap = config.getProperties();
+        poolConfig = AffinityPoolConfig.parse(config.getName(), configMap);
+        poolConfig.validate();
+        uncaughtExceptionHandler = new TrpcThreadExceptionHandler(new AtomicLong(0), new AtomicLong(0),
+                new AtomicLong(0));
+        ThreadFactory threadFactory = new NamedThreadFactory(poolConfig.getNamePrefix(), poolConfig.isDaemon(),
+                uncaughtExceptionHandler);
+        running = true;
+        partitions = new Partition[poolConfig.getPartitions()];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new Partition(i, poolConfig.getQueueSize());
+        }
+        for (Partition partition : partitions) {
+            partition.start(threadFactory, poolConfig.getThreadsPerPartition());
+        }
+        threadPoolMXBean = new AffinityThreadPoolMXBeanImpl();
+        MBeanRegistryHelper.registerMBean(threadPoolMXBean, threadPoolMXBean.getObjectName());
+    }
+
+    @Override
+    public void destroy() throws TRpcExtensionException {
+        close(poolConfig.getCloseTimeout());
+    }
+
+    @Override
+    public void close(long timeoutMills) {
+        running = false;
+        if (partitions != null) {
+            // wake up all the workers first, they drain their queues and exit, then wait for them together
+            for (Partition partition : partitions) {
+                partition.interrupt();
+            }
+            long deadline = System.currentTimeMillis() + Math.max(0, timeoutMills);
+            for (Partition partition : partitions) {
+                partition.join(timeoutMills <= 0 ? 0 : deadline);
+            }
+        }
+        if (threadPoolMXBean != null) {
+            MBeanRegistryHelper.unregisterMBean(threadPoolMXBean.getObjectName());
+        }
+    }
+
+    @Override
+    public String getName() {
+        return config.getName();
+    }
+
+    @Override
+    public void execute(Task task) throws RejectedExecutionException {
+        if (!running) {
+            throw new RejectedExecutionException("worker pool(" + getName() + ") is closed");
+        }
+        Partition partition = currentPartition();
+        if (!partition.queue.offer(task)) {
+            rejectedCount.increment();
+            throw new RejectedExecutionException("worker pool(" + getName() + ") partition(" + partition.index
+                    + ") queue size full");
+        }
+        submittedCount.increment();
+        // more queued tasks than idle local workers, let another partition help
+        if (poolConfig.isWorkStealing() && partition.queue.size() > partition.idleWorkers.get()) {
+            signalThief(partition);
+        }
+    }
+
+    /**
+     * Get the partition of the current thread.
+     */
+    private Partition currentPartition() {
+        Partition partition = localPartition.get();
+        if (partition == null) {
+            EventExecutor executor = ThreadExecutorMap.currentExecutor();
+            int index = executor != null ? indexOf(executor) : (int) Thread.currentThread().getId();
+            partition = partitions[(index & Integer.MAX_VALUE) % partitions.length];
+            localPartition.set(partition);
+        }
+        return partition;
+    }
+
+    /**
+     * Index of the event loop in its event loop group, so that the loops of a group are spread over the partitions
+     * evenly and always land on the same partition.
+     */
+    private static int indexOf(EventExecutor executor) {
+        EventExecutorGroup group = executor.parent();
+        if (group != null) {
+            int index = 0;
+            for (Iterator<EventExecutor> it = group.iterator(); it.hasNext(); index++) {
+                if (it.next() == executor) {
+                    return index;
+                }
+            }
+        }
+        return System.identityHashCode(executor);
+    }
+
+    /**
+     * Wake up one idle worker of another partition to steal from the busy partition.
+     */
+    private void signalThief(Partition busy) {
+        for (int i = 1; i < partitions.length; i++) {
+            Partition partition = partitions[(busy.index + i) % partitions.length];
+            if (partition.idleWorkers.get() > 0 && partition.queue.isEmpty()) {
+                partition.queue.offer(STEAL_SIGNAL);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public PoolMXBean report() {
+        return threadPoolMXBean;
+    }
+
+    @Override
+    public UncaughtExceptionHandler getUncaughtExceptionHandler() {
+        return uncaughtExceptionHandler;
+    }
+
+    public AffinityPoolConfig getPoolConfig() {
+        return poolConfig;
+    }
+
+    private Task steal(Partition self) {
+        for (int i = 1; i < partitions.length; i++) {
+            Partition victim = partitions[(self.index + i) % partitions.length];
+            if (!victim.queue.isEmpty()) {
+                Task task = victim.queue.poll();
+                if (task != null && task != STEAL_SIGNAL) {
+                    stolenCount.increment();
+                    return task;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void runTask(Task task) {
+        activeCount.incrementAndGet();
+        try {
+            task.run();
+        } catch (Throwable ex) {
+            logger.error("", ex);
+        } finally {
+            activeCount.decrementAndGet();
+            completedCount.increment();
+        }
+    }
+
+    private class Partition {
+
+        private final int index;
+        private final BlockingQueue<Task> queue;
+        /**
+         * Workers blocked on the queue.
+         */
+        private final AtomicInteger idleWorkers = new AtomicInteger();
+        private Thread[] workers;
+
+        Partition(int index, int queueSize) {
+            this.index = index;
+            this.queue = new LinkedBlockingQueue<>(queueSize);
+        }
+
+        void start(ThreadFactory threadFactory, int threads) {
+            workers = new Thread[threads];
+            for (int i = 0; i < threads; i++) {
+                workers[i] = threadFactory.newThread(this::work);
+                workers[i].start();
+            }
+        }
+
+        void interrupt() {
+            for (Thread worker : workers) {
+                worker.interrupt();
+            }
+        }
+
+        void join(long deadline) {
+            for (Thread worker : workers) {
+                long waitMills = deadline - System.currentTimeMillis();
+                if (waitMills <= 0) {
+                    return;
+                }
+                try {
+                    worker.join(waitMills);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private void work() {
+            boolean workStealing = poolConfig.isWorkStealing() && partitions.length > 1;
+            while (true) {
+                Task task = queue.poll();
+                if ((task == null || task == STEAL_SIGNAL) && workStealing) {
+                    task = steal(this);
+                }
+                if (task == null || task == STEAL_SIGNAL) {
+                    if (!running) {
+                        return;
+                    }
+                    task = take(workStealing);
+                    if (task == STEAL_SIGNAL) {
+                        task = workStealing ? steal(this) : null;
+                    }
+                }
+                if (task != null) {
+                    // the interrupt only wakes up idle workers on close, the queued tasks are still drained
+                    Thread.interrupted();
+                    runTask(task);
+                }
+            }
+        }
+
+        private Task take(boolean workStealing) {
+            idleWorkers.incrementAndGet();
+            try {
+                return workStealing ? queue.poll(STEAL_RECHECK_MILLS, TimeUnit.MILLISECONDS) : queue.take();
+            } catch (InterruptedException e) {
+                return null;
+            } finally {
+                idleWorkers.decrementAndGet();
+            }
+        }
+
+    }
+
+    private class AffinityThreadPoolMXBeanImpl extends AbstractThreadPoolMXBean implements AffinityThreadPoolMXBean {
+
+        @Override
+        public long getTaskCount() {
+            return submittedCount.sum();
+        }
+
+        @Override
+        public long getCompletedTaskCount() {
+            return completedCount.sum();
+        }
+
+        @Override
+        public int getCorePoolSize() {
+            return partitions.length * poolConfig.getThreadsPerPartition();
+        }
+
+        @Override
+        public int getMaximumPoolSize() {
+            return getCorePoolSize();
+        }
+
+        @Override
+        public int getPoolSize() {
+            return getCorePoolSize();
+        }
+
+        @Override
+        public int getActiveThreadCount() {
+            return activeCount.get();
+        }
+
+        @Override
+        public int getPartitionCount() {
+            return partitions.length;
+        }
+
+        @Override
+        public int getQueueSize() {
+            int size = 0;
+            for (Partition partition : partitions) {
+                size += partition.queue.size();
+            }
+            return size;
+        }
+
+        @Override
+        public long getStolenTaskCount() {
+            return stolenCount.sum();
+        }
+
+        @Override
+        public long getRejectedTaskCount() {
+            return rejectedCount.sum();
+        }
+
+    }
+
+}
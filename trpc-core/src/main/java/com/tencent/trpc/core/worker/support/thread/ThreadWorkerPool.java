@@ -22,6 +22,7 @@ import com.tencent.trpc.core.extension.PluginConfigAware;
 import com.tencent.trpc.core.extension.RefreshableExtension;
 import com.tencent.trpc.core.logger.Logger;
 import com.tencent.trpc.core.logger.LoggerFactory;
+import com.tencent.trpc.core.management.CoDelThreadPoolMXBeanImpl;
 import com.tencent.trpc.core.management.PoolMXBean;
 import com.tencent.trpc.core.management.ThreadPerTaskExecutorMXBeanImpl;
 import com.tencent.trpc.core.management.ThreadPerTaskExecutorWrapper;
@@ -30,12 +31,16 @@ import com.tencent.trpc.core.management.ThreadPoolMXBeanImpl;
 import com.tencent.trpc.core.management.support.MBeanRegistryHelper;
 import com.tencent.trpc.core.worker.AbstractWorkerPool;
 import com.tencent.trpc.core.worker.handler.TrpcThreadExceptionHandler;
+import com.tencent.trpc.core.worker.queue.CoDelBlockingQueue;
+import com.tencent.trpc.core.worker.queue.QueuePolicyConfig;
+import com.tencent.trpc.core.worker.queue.QueuePolicyConfig.QueuePolicy;
 import com.tencent.trpc.core.worker.spi.WorkerPool;
 import java.lang.Thread.UncaughtExceptionHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -66,6 +71,10 @@ public class ThreadWorkerPool extends AbstractWorkerPool
 
     private ExecutorService threadPool;
     private ThreadPoolConfig poolConfig;
+    /**
+     * Only set when the queue policy is codel.
+     */
+    private CoDelBlockingQueue codelQueue;
     private PluginConfig config;
     private ThreadPoolMXBean threadPoolMXBean;
     private AtomicLong errorCount;
@@ -120,12 +129,23 @@ public class ThreadWorkerPool extends AbstractWorkerPool
                         + "or remove use_virtual_thread_per_task_executor config, error: ", exception);
             }
         }
+        QueuePolicyConfig queuePolicyConfig = QueuePolicyConfig.parse(config.getName(), configMap);
+        queuePolicyConfig.validate();
+        BlockingQueue<Runnable> workQueue;
+        if (queuePolicyConfig.getQueuePolicy() == QueuePolicy.CODEL) {
+            codelQueue = new CoDelBlockingQueue(poolConfig.getQueueSize(), queuePolicyConfig);
+            workQueue = codelQueue;
+        } else {
+            workQueue = poolConfig.getQueueSize() <= 0 ? new LinkedTransferQueue<>()
+                    : new LinkedBlockingQueue<>(poolConfig.getQueueSize());
+        }
         threadPool = new ThreadPoolExecutor(poolConfig.getCorePoolSize(),
                 poolConfig.getMaximumPoolSize(), poolConfig.getKeepAliveTimeSeconds(),
-                TimeUnit.SECONDS, poolConfig.getQueueSize() <= 0 ? new LinkedTransferQueue<>()
-                : new LinkedBlockingQueue<>(poolConfig.getQueueSize()), threadFactory);
+                TimeUnit.SECONDS, workQueue, threadFactory);
         ((ThreadPoolExecutor) threadPool).allowCoreThreadTimeOut(poolConfig.isAllowCoreThreadTimeOut());
-        threadPoolMXBean = new ThreadPoolMXBeanImpl((ThreadPoolExecutor) threadPool);
+        threadPoolMXBean = codelQueue != null
+                ? new CoDelThreadPoolMXBeanImpl((ThreadPoolExecutor) threadPool, codelQueue)
+                : new ThreadPoolMXBeanImpl((ThreadPoolExecutor) threadPool);
         MBeanRegistryHelper.registerMBean(threadPoolMXBean, threadPoolMXBean.getObjectName());
     }
 
@@ -195,13 +215,14 @@ public class ThreadWorkerPool extends AbstractWorkerPool
 
     @Override
     public void execute(Task task) {
-        threadPool.execute(() -> {
+        Runnable command = () -> {
             try {
                 task.run();
             } catch (Throwable ex) {
                 logger.error("", ex);
             }
-        });
+        };
+        threadPool.execute(codelQueue == null ? command : codelQueue.newQueuedCommand(task, command));
     }
 
     @Override
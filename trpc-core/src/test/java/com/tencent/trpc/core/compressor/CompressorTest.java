@@ -11,12 +11,32 @@
 
 package com.tencent.trpc.core.compressor;
 
+import com.google.common.io.ByteStreams;
 import com.tencent.trpc.core.compressor.spi.Compressor;
 import com.tencent.trpc.core.compressor.support.GZipCompressor;
+import com.tencent.trpc.core.compressor.support.ZlibCompressor;
 import com.tencent.trpc.core.extension.ExtensionClass;
 import com.tencent.trpc.core.extension.ExtensionLoader;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+import org.apache.commons.lang3.StringUtils;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
 
 public class CompressorTest {
@@ -55,4 +75,144 @@ public class CompressorTest {
             Assert.fail(e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCompressBuffer() throws IOException {
+        CompressorSupport.preLoadCompressors();
+        byte[] src = StringUtils.repeat("中英文压测数据ABC123", 100).getBytes(StandardCharsets.UTF_8);
+        for (ExtensionClass<Compressor> each : ExtensionLoader.getExtensionLoader(Compressor.class)
+                .getAllExtensionClass()) {
+            Compressor c = CompressorSupport.ofName(each.getName());
+            for (boolean direct : new boolean[]{true, false}) {
+                ByteBuf in = direct ? Unpooled.directBuffer() : Unpooled.buffer();
+                ByteBuf out = direct ? Unpooled.directBuffer() : Unpooled.buffer();
+                in.writeBytes(src);
+                out.writeByte(1);
+                c.compress(in, out);
+                Assert.assertFalse(in.isReadable());
+                Assert.assertEquals(1, out.readByte());
+                Assert.assertArrayEquals(src, c.decompress(ByteBufUtil.getBytes(out)));
+                in.release();
+                out.release();
+            }
+        }
+    }
+
+    @Test
+    public void testGzipCompatible() throws IOException {
+        GZipCompressor c = new GZipCompressor();
+        byte[] src = StringUtils.repeat("A long time ago in a galaxy far, far away...", 1000)
+                .getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(src);
+        }
+        byte[] expected = out.toByteArray();
+        byte[] compressed = c.compress(src);
+        // the OS byte of the header is 0 before JDK 16 and 255 since, the rest is the same
+        expected[9] = compressed[9];
+        Assert.assertArrayEquals(expected, compressed);
+        Assert.assertArrayEquals(src, c.decompress(out.toByteArray()));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(c.compress(src)))) {
+            Assert.assertArrayEquals(src, ByteStreams.toByteArray(in));
+        }
+        // a header with all the optional fields, then a second member and trailing bytes
+        byte[] member = c.compress(src);
+        byte[] header = {0x1f, (byte) 0x8b, 8, 2 | 4 | 8 | 16, 0, 0, 0, 0, 0, 0, 2, 0, 'x', 'y', 'a', 0, 'b', 0};
+        CRC32 crc = new CRC32();
+        crc.update(header, 0, header.length);
+        ByteArrayOutputStream concatenated = new ByteArrayOutputStream();
+        concatenated.write(header);
+        concatenated.write((int) crc.getValue());
+        concatenated.write((int) crc.getValue() >> 8);
+        concatenated.write(member, 10, member.length - 10);
+        concatenated.write(c.compress("tail".getBytes(StandardCharsets.UTF_8)));
+        concatenated.write(new byte[]{1, 2});
+        Assert.assertEquals(new String(src, StandardCharsets.UTF_8) + "tail",
+                new String(c.decompress(concatenated.toByteArray()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testGzipCorrupted() throws IOException {
+        GZipCompressor c = new GZipCompressor();
+        byte[] data = c.compress(StringUtils.repeat("abc", 100).getBytes(StandardCharsets.UTF_8));
+        byte[] crc = data.clone();
+        crc[crc.length - 8]++;
+        byte[] size = data.clone();
+        size[size.length - 4]++;
+        byte[] magic = data.clone();
+        magic[0]++;
+        for (byte[] corrupted : new byte[][]{crc, size, magic, Arrays.copyOf(data, data.length - 1),
+                Arrays.copyOf(data, 5)}) {
+            try {
+                c.decompress(corrupted);
+                Assert.fail();
+            } catch (IOException expected) {
+                // the same errors as GZIPInputStream
+            }
+        }
+        // the compressor is still usable after the errors
+        Assert.assertArrayEquals("abc".getBytes(StandardCharsets.UTF_8),
+                c.decompress(c.compress("abc".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    public void testGzipForgedSize() throws IOException {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) threadBean;
+        Assume.assumeTrue(allocation.isThreadAllocatedMemorySupported()
+                && allocation.isThreadAllocatedMemoryEnabled());
+        GZipCompressor c = new GZipCompressor();
+        byte[] src = new byte[1 << 20];
+        new Random(3).nextBytes(src);
+        byte[] data = c.compress(src);
+        // the uncompressed size in the trailer claims 4GB
+        Arrays.fill(data, data.length - 4, data.length, (byte) 0xFF);
+        long threadId = Thread.currentThread().getId();
+        long before = allocation.getThreadAllocatedBytes(threadId);
+        try {
+            c.decompress(data);
+            Assert.fail();
+        } catch (ZipException expected) {
+            // the size does not match the inflated data
+        }
+        // only the inflated data is allocated, not the claimed size
+        Assert.assertTrue(allocation.getThreadAllocatedBytes(threadId) - before < 32 << 20);
+    }
+
+    @Test
+    public void testZlibCompatible() throws IOException {
+        ZlibCompressor c = new ZlibCompressor();
+        Assert.assertEquals(CompressType.ZLIB, CompressorSupport.ofName(ZlibCompressor.NAME).type());
+        Random random = new Random(1);
+        byte[] src = new byte[300000];
+        random.nextBytes(src);
+        Arrays.fill(src, 1000, 200000, (byte) 'z');
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(out)) {
+            deflater.write(src);
+        }
+        Assert.assertArrayEquals(out.toByteArray(), c.compress(src));
+        Assert.assertArrayEquals(src, c.decompress(out.toByteArray()));
+        try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(c.compress(src)))) {
+            Assert.assertArrayEquals(src, ByteStreams.toByteArray(in));
+        }
+    }
+
+    @Test
+    public void testDeflateLarge() throws IOException {
+        // larger than the pooled buffers, and not compressible
+        byte[] src = new byte[3 << 20];
+        new Random(2).nextBytes(src);
+        for (Compressor c : new Compressor[]{new GZipCompressor(), new ZlibCompressor()}) {
+            Assert.assertArrayEquals(src, c.decompress(c.compress(src)));
+            ByteBuf in = Unpooled.directBuffer().writeBytes(src);
+            ByteBuf out = Unpooled.directBuffer(16);
+            c.compress(in, out);
+            Assert.assertArrayEquals(src, c.decompress(ByteBufUtil.getBytes(out)));
+            in.release();
+            out.release();
+        }
+    }
+}
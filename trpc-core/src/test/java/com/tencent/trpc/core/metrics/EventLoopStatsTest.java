@@ -0,0 +1,70 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.metrics;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EventLoopStatsTest {
+
+    @After
+    public void tearDown() {
+        EventLoopStats.reset();
+    }
+
+    @Test
+    public void testConfigure() {
+        Assert.assertFalse(EventLoopStats.isEnabled());
+        EventLoopStats.configure(true, 200, 500);
+        Assert.assertTrue(EventLoopStats.isEnabled());
+        Assert.assertEquals(200, EventLoopStats.getProbeIntervalMills());
+        Assert.assertEquals(500, EventLoopStats.getStallThresholdMills());
+        EventLoopStats.configure(true, 0, -1);
+        Assert.assertEquals(1000, EventLoopStats.getProbeIntervalMills());
+        Assert.assertEquals(1000, EventLoopStats.getStallThresholdMills());
+        Assert.assertFalse(EventLoopStats.isClientEnabled());
+        EventLoopStats.configureClient(true);
+        Assert.assertTrue(EventLoopStats.isClientEnabled());
+        EventLoopStats.reset();
+        Assert.assertFalse(EventLoopStats.isEnabled());
+        Assert.assertFalse(EventLoopStats.isClientEnabled());
+    }
+
+    @Test
+    public void testRecord() {
+        EventLoopStats stats = EventLoopStats.register("group", "0", 50);
+        Assert.assertSame(stats, EventLoopStats.getLoopStats().get("group/0"));
+        stats.recordProbe(Thread.currentThread(), TimeUnit.MILLISECONDS.toNanos(3), 5);
+        stats.recordProbe(Thread.currentThread(), TimeUnit.MICROSECONDS.toNanos(20), 1);
+        Assert.assertEquals(Thread.currentThread().getName(), stats.getThreadName());
+        Assert.assertEquals(20, stats.getLagMicros());
+        Assert.assertEquals(3000, stats.getMaxLagMicros());
+        Assert.assertEquals(1, stats.getPendingTasks());
+        Assert.assertEquals(50, stats.getIoRatio());
+        Assert.assertEquals(0, stats.getStallCount());
+
+        stats.recordStall(TimeUnit.SECONDS.toNanos(2), Thread.currentThread().getStackTrace());
+        Assert.assertEquals(1, stats.getStallCount());
+        Assert.assertEquals(2_000_000, stats.getLastStallMicros());
+        Assert.assertTrue(stats.getLastStallTime() > 0);
+        Assert.assertTrue(stats.getLastStallStack().contains("EventLoopStatsTest.testRecord"));
+        stats.recordStall(TimeUnit.SECONDS.toNanos(1), null);
+        Assert.assertEquals(2, stats.getStallCount());
+        Assert.assertNull(stats.getLastStallStack());
+
+        EventLoopStats.unregister(stats);
+        Assert.assertTrue(EventLoopStats.getLoopStats().isEmpty());
+    }
+
+}
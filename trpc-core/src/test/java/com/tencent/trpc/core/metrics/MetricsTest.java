@@ -75,6 +75,41 @@ public class MetricsTest {
         Assert.assertEquals(1, COUNTER.get());
     }
 
+    @Test
+    public void testBind() {
+        BoundCounter counter = Metrics.counter("bound_counter", "a").bind("1");
+        Map<String, PluginConfig> pluginConfigMap = ConfigManager.getInstance().getPluginConfigMap()
+                .computeIfAbsent(MetricsFactory.class, clz -> Maps.newConcurrentMap());
+        pluginConfigMap.put("testCoreMetrics", new PluginConfig("testCoreMetrics", TestMetricsFactory.class));
+        Metrics.init();
+
+        // handles bound before the factories are loaded are refreshed
+        COUNTER.set(0);
+        counter.incr(3);
+        Assert.assertEquals(3, COUNTER.get());
+
+        COUNTER.set(0);
+        BoundCounter unlabeled = Metrics.counter("bound_counter").bind();
+        unlabeled.incr();
+        unlabeled.incr();
+        Assert.assertEquals(2, COUNTER.get());
+
+        Metrics.gauge("bound_gauge", "a").bind("1").set(5);
+        Assert.assertEquals(5, GAUGE.get());
+        // released by the monitoring systems supporting it
+        Metrics.gauge("bound_gauge", "a").unbind("1");
+        Metrics.counter("bound_counter", "a").unbind("1");
+
+        COUNTER.set(0);
+        Metrics.histogram("bound_histogram", new double[]{10}, "a").bind("1").record(8);
+        Assert.assertEquals(1, COUNTER.get());
+
+        Counter plain = (value, labelValues) -> COUNTER.addAndGet((int) value);
+        COUNTER.set(0);
+        plain.bind().incr(4);
+        Assert.assertEquals(4, COUNTER.get());
+    }
+
     @Test
     public void testMetrics() {
         final AtomicInteger count = new AtomicInteger();
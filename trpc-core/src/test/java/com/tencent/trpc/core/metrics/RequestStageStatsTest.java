@@ -0,0 +1,148 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.metrics;
+
+import com.tencent.trpc.core.metrics.RequestStageTimer.Stage;
+import com.tencent.trpc.core.rpc.RpcInvocation;
+import com.tencent.trpc.core.rpc.common.FuncRouteTable;
+import com.tencent.trpc.core.rpc.def.DefRequest;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RequestStageStatsTest {
+
+    @After
+    public void tearDown() {
+        RequestStageStats.reset();
+        FuncRouteTable.reset();
+    }
+
+    @Test
+    public void testStageMicros() {
+        RequestStageTimer timer = new RequestStageTimer();
+        long start = TimeUnit.MILLISECONDS.toNanos(1);
+        timer.mark(Stage.DECODE, start);
+        timer.mark(Stage.ROUTE, start + TimeUnit.MICROSECONDS.toNanos(10));
+        // no worker pool queueing, routing lasts until the filter chain
+        timer.mark(Stage.FILTER, start + TimeUnit.MICROSECONDS.toNanos(30));
+        timer.mark(Stage.INVOKE, start + TimeUnit.MICROSECONDS.toNanos(35));
+        timer.mark(Stage.ENCODE, start + TimeUnit.MICROSECONDS.toNanos(135));
+        timer.mark(Stage.WRITE_COMPLETE, start + TimeUnit.MICROSECONDS.toNanos(150));
+        long[] micros = timer.getStageMicros();
+        Assert.assertEquals(10, micros[Stage.DECODE.ordinal()]);
+        Assert.assertEquals(20, micros[Stage.ROUTE.ordinal()]);
+        Assert.assertEquals(-1, micros[Stage.ENQUEUE.ordinal()]);
+        Assert.assertEquals(-1, micros[Stage.DEQUEUE.ordinal()]);
+        Assert.assertEquals(5, micros[Stage.FILTER.ordinal()]);
+        Assert.assertEquals(100, micros[Stage.INVOKE.ordinal()]);
+        Assert.assertEquals(15, micros[Stage.ENCODE.ordinal()]);
+        Assert.assertEquals(-1, micros[Stage.WRITE_COMPLETE.ordinal()]);
+        Assert.assertEquals(150, timer.getTotalMicros());
+        Assert.assertEquals(start, timer.getMark(Stage.DECODE));
+    }
+
+    @Test
+    public void testDisabled() {
+        DefRequest request = request("/trpc.app.server.Greeter/sayHello");
+        RequestStageStats.start(request, System.nanoTime());
+        Assert.assertNull(request.getMeta().getStageTimer());
+        RequestStageTimer.mark(request, Stage.ROUTE);
+        RequestStageTimer.mark(null, Stage.ROUTE);
+        RequestStageStats.complete(request);
+        RequestStageStats.complete(null);
+        Assert.assertFalse(RequestStageStats.isEnabled());
+        Assert.assertTrue(RequestStageStats.getFuncStats().isEmpty());
+    }
+
+    @Test
+    public void testComplete() {
+        RequestStageStats.configure(true, 0, 10);
+        FuncRouteTable.register("/trpc.app.server.Greeter/sayHello");
+        DefRequest request = request("/trpc.app.server.Greeter/sayHello");
+        RequestStageStats.start(request, System.nanoTime());
+        RequestStageTimer timer = request.getMeta().getStageTimer();
+        Assert.assertNotNull(timer);
+        Assert.assertNull(request.getMeta().clone().getStageTimer());
+        RequestStageTimer.mark(request, Stage.ROUTE);
+        RequestStageTimer.mark(request, Stage.INVOKE);
+        RequestStageStats.complete(request);
+        Assert.assertNull(request.getMeta().getStageTimer());
+        Assert.assertNotEquals(0, timer.getMark(Stage.WRITE_COMPLETE));
+        // completed only once
+        RequestStageStats.complete(request);
+        RequestStageStats stats = RequestStageStats.getFuncStats().get("/trpc.app.server.Greeter/sayHello");
+        Assert.assertEquals("/trpc.app.server.Greeter/sayHello", stats.getFunc());
+        Assert.assertEquals(1, stats.getTotal().snapshot().getCount());
+        Assert.assertEquals(1, stats.getStage(Stage.DECODE).snapshot().getCount());
+        Assert.assertEquals(1, stats.getStage(Stage.INVOKE).snapshot().getCount());
+        Assert.assertEquals(0, stats.getStage(Stage.FILTER).snapshot().getCount());
+    }
+
+    @Test
+    public void testSlowRequest() {
+        RequestStageStats.configure(true, 1, 1);
+        FuncRouteTable.register("/trpc.app.server.Greeter/sayHello");
+        for (int i = 0; i < 3; i++) {
+            DefRequest request = request("/trpc.app.server.Greeter/sayHello");
+            RequestStageStats.start(request, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(5));
+            RequestStageStats.complete(request);
+        }
+        RequestStageStats stats = RequestStageStats.getFuncStats().get("/trpc.app.server.Greeter/sayHello");
+        Assert.assertEquals(3, stats.getTotal().snapshot().getCount());
+    }
+
+    @Test
+    public void testMaxFuncCount() {
+        RequestStageStats.configure(true, 0, 0);
+        for (int i = 0; i <= RequestStageStats.MAX_FUNC_COUNT; i++) {
+            FuncRouteTable.register("/service/method" + i);
+            DefRequest request = request("/service/method" + i);
+            RequestStageStats.start(request, System.nanoTime());
+            RequestStageStats.complete(request);
+        }
+        DefRequest request = new DefRequest();
+        RequestStageStats.start(request, System.nanoTime());
+        RequestStageStats.complete(request);
+        Assert.assertEquals(RequestStageStats.MAX_FUNC_COUNT, RequestStageStats.getFuncStats().size());
+    }
+
+    @Test
+    public void testUnknownFunc() {
+        RequestStageStats.configure(true, 0, 0);
+        FuncRouteTable.register("/trpc.app.server.Greeter/sayHello");
+        // funcs which are not exported do not take the slots of the exported ones
+        for (int i = 0; i <= RequestStageStats.MAX_FUNC_COUNT; i++) {
+            DefRequest request = request("/random/func" + i);
+            RequestStageStats.start(request, System.nanoTime());
+            RequestStageStats.complete(request);
+        }
+        DefRequest request = request("/trpc.app.server.Greeter/sayHello");
+        RequestStageStats.start(request, System.nanoTime());
+        RequestStageStats.complete(request);
+        Assert.assertEquals(2, RequestStageStats.getFuncStats().size());
+        Assert.assertEquals(RequestStageStats.MAX_FUNC_COUNT + 1, RequestStageStats.getFuncStats()
+                .get(RequestStageStats.UNKNOWN_FUNC).getTotal().snapshot().getCount());
+        Assert.assertEquals(1, RequestStageStats.getFuncStats().get("/trpc.app.server.Greeter/sayHello")
+                .getTotal().snapshot().getCount());
+    }
+
+    private static DefRequest request(String func) {
+        RpcInvocation invocation = new RpcInvocation();
+        invocation.setFunc(func);
+        DefRequest request = new DefRequest();
+        request.setInvocation(invocation);
+        return request;
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+
+package com.tencent.trpc.core.metrics;
+
+import com.google.common.collect.Maps;
+import com.tencent.trpc.core.common.ConfigManager;
+import com.tencent.trpc.core.common.config.PluginConfig;
+import com.tencent.trpc.core.metrics.histogram.BucketHistogram;
+import com.tencent.trpc.core.metrics.spi.MetricsFactory;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RpcLatencyStatsTest {
+
+    @After
+    public void tearDown() {
+        RpcLatencyStats.reset();
+    }
+
+    @Test
+    public void testRecord() {
+        RpcLatencyStats stats = RpcLatencyStats.callee("trpc.app.server.Greeter");
+        Assert.assertSame(stats, RpcLatencyStats.callee("trpc.app.server.Greeter"));
+        Assert.assertNotSame(stats, RpcLatencyStats.caller("trpc.app.server.Greeter"));
+        stats.record("/trpc.app.server.Greeter/sayHello", 100);
+        stats.record("/trpc.app.server.Greeter/sayHi", 200);
+        stats.record(null, 300);
+        Assert.assertEquals("trpc.app.server.Greeter", stats.getName());
+        Assert.assertEquals(3, stats.getTotal().snapshot().getCount());
+        Assert.assertEquals(2, stats.getFuncs().size());
+        Assert.assertEquals(1, stats.getFuncs().get("/trpc.app.server.Greeter/sayHello").snapshot().getCount());
+        Assert.assertSame(stats, RpcLatencyStats.getCalleeStats().get("trpc.app.server.Greeter"));
+        Assert.assertEquals(1, RpcLatencyStats.getCallerStats().size());
+    }
+
+    @Test
+    public void testBind() {
+        RpcLatencyStats stats = RpcLatencyStats.caller("backend");
+        RpcLatencyStats.Recorder recorder = stats.bind("/service/method");
+        Assert.assertSame(recorder, stats.bind("/service/method"));
+        Assert.assertSame(stats.bind(null), stats.bind(null));
+        recorder.record(100);
+        recorder.record(200);
+        stats.bind(null).record(300);
+        Assert.assertEquals(3, stats.getTotal().snapshot().getCount());
+        Assert.assertEquals(1, stats.getFuncs().size());
+        Assert.assertEquals(2, stats.getFuncs().get("/service/method").snapshot().getCount());
+    }
+
+    @Test
+    public void testMaxFuncCount() {
+        RpcLatencyStats stats = RpcLatencyStats.caller("backend");
+        for (int i = 0; i <= RpcLatencyStats.MAX_FUNC_COUNT; i++) {
+            stats.record("/service/method" + i, i);
+        }
+        Assert.assertEquals(RpcLatencyStats.MAX_FUNC_COUNT, stats.getFuncs().size());
+        Assert.assertEquals(RpcLatencyStats.MAX_FUNC_COUNT + 1, stats.getTotal().snapshot().getCount());
+    }
+
+    @Test
+    public void testConfigure() {
+        Assert.assertFalse(RpcLatencyStats.isCalleeEnabled());
+        Assert.assertFalse(RpcLatencyStats.isCallerEnabled());
+        RpcLatencyStats.configureCallee(true, false);
+        Assert.assertTrue(RpcLatencyStats.isCalleeEnabled());
+        Assert.assertFalse(RpcLatencyStats.isCallerEnabled());
+        RpcLatencyStats.configureCaller(true, true);
+        Assert.assertTrue(RpcLatencyStats.isCallerEnabled());
+        RpcLatencyStats.reset();
+        Assert.assertFalse(RpcLatencyStats.isCalleeEnabled());
+        Assert.assertFalse(RpcLatencyStats.isCallerEnabled());
+    }
+
+    @Test
+    public void testReportMetrics() {
+        Map<String, PluginConfig> pluginConfigMap = ConfigManager.getInstance().getPluginConfigMap()
+                .computeIfAbsent(MetricsFactory.class, clz -> Maps.newConcurrentMap());
+        pluginConfigMap.put("testCoreMetrics", new PluginConfig("testCoreMetrics",
+                MetricsTest.TestMetricsFactory.class));
+        Metrics.init();
+
+        RpcLatencyStats.configureCaller(true, false);
+        MetricsTest.COUNTER.set(0);
+        RpcLatencyStats.caller("backend").record("/service/method", 1000);
+        Assert.assertEquals(0, MetricsTest.COUNTER.get());
+
+        RpcLatencyStats.configureCaller(false, true);
+        Assert.assertFalse(RpcLatencyStats.isCallerEnabled());
+        RpcLatencyStats.caller("backend_disabled").record("/service/method", 1000);
+        Assert.assertEquals(0, MetricsTest.COUNTER.get());
+
+        RpcLatencyStats.configureCaller(true, true);
+        RpcLatencyStats.caller("backend_metrics").record("/service/method", 1000);
+        Assert.assertEquals(1, MetricsTest.COUNTER.get());
+    }
+
+    @Test
+    public void testHistogramFactory() {
+        RpcLatencyStats.setHistogramFactory(BucketHistogram::new);
+        Assert.assertTrue(RpcLatencyStats.caller("backend").getTotal() instanceof BucketHistogram);
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.metrics;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StreamStatsTest {
+
+    @After
+    public void tearDown() {
+        StreamStats.reset();
+    }
+
+    @Test
+    public void testRecord() {
+        StreamStats stats = StreamStats.connectionOpened(StreamStats.SERVER, "127.0.0.1:12345");
+        Assert.assertSame(stats, StreamStats.of(StreamStats.SERVER, "127.0.0.1:12345"));
+        Assert.assertSame(stats, StreamStats.getAll().get("server/127.0.0.1:12345"));
+        Assert.assertEquals("127.0.0.1:12345", stats.getAddress());
+        Assert.assertEquals(StreamStats.SERVER, stats.getSide());
+
+        stats.streamOpened();
+        stats.streamOpened();
+        stats.streamClosed();
+        stats.streamRejected();
+        Assert.assertEquals(1, stats.getConnections());
+        Assert.assertEquals(1, stats.getOpenStreams());
+        Assert.assertEquals(2, stats.getTotalStreams());
+        Assert.assertEquals(1, stats.getRejectedStreams());
+
+        stats.addBufferedBytes(100);
+        stats.addBufferedBytes(-40);
+        stats.readSuspended();
+        Assert.assertEquals(60, stats.getBufferedBytes());
+        Assert.assertEquals(1, stats.getSuspendedReads());
+        stats.readResumed();
+        Assert.assertEquals(0, stats.getSuspendedReads());
+        Assert.assertEquals(1, stats.getReadSuspensions());
+
+        stats.recordWindowStall(TimeUnit.MILLISECONDS.toNanos(30));
+        stats.recordWindowStall(TimeUnit.MILLISECONDS.toNanos(20));
+        Assert.assertEquals(2, stats.getWindowStalls());
+        Assert.assertEquals(50, stats.getWindowStallMills());
+
+        stats.connectionClosed();
+        Assert.assertEquals(0, stats.getConnections());
+        Assert.assertTrue(stats.toString().contains("server/127.0.0.1:12345"));
+    }
+
+    @Test
+    public void testClientRemoved() {
+        StreamStats stats = StreamStats.connectionOpened(StreamStats.CLIENT, "127.0.0.1:12345");
+        Assert.assertSame(stats, StreamStats.connectionOpened(StreamStats.CLIENT, "127.0.0.1:12345"));
+        stats.streamOpened();
+        stats.connectionClosed();
+        Assert.assertSame(stats, StreamStats.getAll().get("client/127.0.0.1:12345"));
+
+        // removed with the last connection, the late records are dropped
+        stats.connectionClosed();
+        Assert.assertFalse(StreamStats.getAll().containsKey("client/127.0.0.1:12345"));
+        stats.streamClosed();
+        stats.recordWindowStall(1);
+        Assert.assertEquals(0, stats.getOpenStreams());
+
+        StreamStats reopened = StreamStats.connectionOpened(StreamStats.CLIENT, "127.0.0.1:12345");
+        Assert.assertNotSame(stats, reopened);
+        Assert.assertEquals(1, reopened.getConnections());
+        Assert.assertEquals(0, reopened.getTotalStreams());
+
+        // the stats of a server are kept
+        StreamStats server = StreamStats.connectionOpened(StreamStats.SERVER, "127.0.0.1:12345");
+        server.connectionClosed();
+        Assert.assertSame(server, StreamStats.getAll().get("server/127.0.0.1:12345"));
+    }
+
+    @Test
+    public void testFrameRate() throws InterruptedException {
+        StreamStats stats = StreamStats.of(StreamStats.CLIENT, "127.0.0.1:12345");
+        // start counting at the beginning of a second
+        long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        while (TimeUnit.NANOSECONDS.toSeconds(System.nanoTime()) == second) {
+            Thread.sleep(10);
+        }
+        for (int i = 0; i < 5; i++) {
+            stats.frameReceived();
+        }
+        stats.frameSent();
+        Assert.assertEquals(5, stats.getReceivedFrames());
+        Assert.assertEquals(1, stats.getSentFrames());
+        Assert.assertEquals(0, stats.getReceivedFramesPerSecond());
+
+        Thread.sleep(1000);
+        Assert.assertEquals(5, stats.getReceivedFramesPerSecond());
+        Assert.assertEquals(1, stats.getSentFramesPerSecond());
+        Thread.sleep(1000);
+        Assert.assertEquals(0, stats.getReceivedFramesPerSecond());
+    }
+
+}
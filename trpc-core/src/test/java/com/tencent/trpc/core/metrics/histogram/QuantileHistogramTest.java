@@ -0,0 +1,127 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+
+package com.tencent.trpc.core.metrics.histogram;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QuantileHistogramTest {
+
+    @Test
+    public void testLogLinearPrecision() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        for (long value = 1; value <= 100000; value++) {
+            histogram.record(value);
+        }
+        HistogramSnapshot snapshot = histogram.snapshot();
+        Assert.assertEquals(100000, snapshot.getCount());
+        Assert.assertEquals(100000L * 100001 / 2, snapshot.getSum());
+        assertWithin(50000, snapshot.valueAtQuantile(0.5), 0.016);
+        assertWithin(90000, snapshot.valueAtQuantile(0.9), 0.016);
+        assertWithin(99000, snapshot.valueAtQuantile(0.99), 0.016);
+        assertWithin(99900, snapshot.valueAtQuantile(0.999), 0.016);
+        Assert.assertEquals(100000, snapshot.getMax());
+        Assert.assertEquals(1, snapshot.getMin());
+        Assert.assertEquals(50000.5, snapshot.getMean(), 0.001);
+    }
+
+    @Test
+    public void testLogLinearBoundaries() {
+        LogLinearHistogram histogram = new LogLinearHistogram(2, 10);
+        histogram.record(-1);
+        histogram.record(Long.MAX_VALUE);
+        HistogramSnapshot snapshot = histogram.snapshot();
+        Assert.assertEquals(2, snapshot.getCount());
+        Assert.assertEquals(0, snapshot.valueAtQuantile(0));
+        Assert.assertEquals(1023, snapshot.valueAtQuantile(1));
+        LogLinearHistogram exact = new LogLinearHistogram();
+        for (long value = 0; value < 128; value++) {
+            exact.record(value);
+        }
+        Assert.assertEquals(63, exact.snapshot().valueAtQuantile(0.5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLogLinearIllegalPrecision() {
+        new LogLinearHistogram(1, 10);
+    }
+
+    @Test
+    public void testBucket() {
+        BucketHistogram histogram = new BucketHistogram(new long[]{10, 20, 50});
+        histogram.record(5);
+        histogram.record(10);
+        histogram.record(15);
+        histogram.record(100);
+        HistogramSnapshot snapshot = histogram.snapshot();
+        Assert.assertEquals(4, snapshot.getCount());
+        Assert.assertEquals(10, snapshot.valueAtQuantile(0.5));
+        Assert.assertEquals(20, snapshot.valueAtQuantile(0.75));
+        // values in the overflow bucket are reported as the max
+        Assert.assertEquals(100, snapshot.valueAtQuantile(0.99));
+        Assert.assertEquals(0, new BucketHistogram().snapshot().valueAtQuantile(0.99));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBucketIllegalBounds() {
+        new BucketHistogram(new long[]{10, 10});
+    }
+
+    @Test
+    public void testIntervalSnapshot() {
+        QuantileHistogram histogram = new LogLinearHistogram();
+        histogram.record(10);
+        histogram.record(20d);
+        HistogramSnapshot first = histogram.intervalSnapshot();
+        Assert.assertEquals(2, first.getCount());
+        Assert.assertEquals(30, first.getSum());
+        histogram.record(1000);
+        HistogramSnapshot second = histogram.intervalSnapshot();
+        Assert.assertEquals(1, second.getCount());
+        assertWithin(1000, second.valueAtQuantile(0.5), 0.016);
+        Assert.assertEquals(0, histogram.intervalSnapshot().getCount());
+        Assert.assertEquals(3, histogram.snapshot().getCount());
+    }
+
+    @Test
+    public void testConcurrentRecord() throws InterruptedException {
+        QuantileHistogram[] histograms = {new LogLinearHistogram(), new BucketHistogram()};
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch latch = new CountDownLatch(4);
+        for (int i = 0; i < 4; i++) {
+            executor.execute(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    for (QuantileHistogram histogram : histograms) {
+                        histogram.record(j);
+                    }
+                }
+                latch.countDown();
+            });
+        }
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        for (QuantileHistogram histogram : histograms) {
+            Assert.assertEquals(40000, histogram.snapshot().getCount());
+        }
+    }
+
+    private static void assertWithin(long expected, long actual, double relativeError) {
+        Assert.assertTrue("expected " + expected + ", actual " + actual,
+                Math.abs(actual - expected) <= expected * relativeError);
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+
+package com.tencent.trpc.core.rpc.common;
+
+import com.google.protobuf.ByteString;
+import com.tencent.trpc.core.rpc.common.FuncRouteTable.FuncRoute;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FuncRouteTableTest {
+
+    @After
+    public void tearDown() {
+        FuncRouteTable.reset();
+    }
+
+    @Test
+    public void testLookup() {
+        String func = "/trpc.app.server.Greeter/sayHello";
+        FuncRouteTable.register(func);
+        FuncRoute route = FuncRouteTable.lookup(ByteString.copyFromUtf8(func));
+        Assert.assertNotNull(route);
+        Assert.assertSame(func, route.getFunc());
+        Assert.assertEquals("trpc.app.server.Greeter", route.getRpcServiceName());
+        Assert.assertEquals("sayHello", route.getRpcMethodName());
+        Assert.assertNull(FuncRouteTable.lookup(ByteString.copyFromUtf8("/trpc.app.server.Greeter/unknown")));
+        Assert.assertNull(FuncRouteTable.lookup(null));
+        Assert.assertEquals(1, FuncRouteTable.size());
+    }
+
+    @Test
+    public void testRefCount() {
+        String func = "/trpc/app/server/Greeter/sayHello";
+        FuncRouteTable.register(func);
+        FuncRouteTable.register(func);
+        FuncRouteTable.unregister(func);
+        Assert.assertNotNull(FuncRouteTable.lookup(ByteString.copyFromUtf8(func)));
+        FuncRouteTable.unregister(func);
+        Assert.assertNull(FuncRouteTable.lookup(ByteString.copyFromUtf8(func)));
+        FuncRouteTable.unregister(func);
+        FuncRouteTable.unregister(null);
+        Assert.assertEquals(0, FuncRouteTable.size());
+    }
+
+    @Test
+    public void testParse() {
+        FuncRoute route = FuncRoute.parse("/trpc/app/server/Greeter/sayHello");
+        Assert.assertEquals("trpc/app/server/Greeter", route.getRpcServiceName());
+        Assert.assertEquals("sayHello", route.getRpcMethodName());
+        route = FuncRoute.parse("sayHello");
+        Assert.assertEquals("sayHello", route.getFunc());
+        Assert.assertEquals("", route.getRpcServiceName());
+        Assert.assertEquals("", route.getRpcMethodName());
+        route = FuncRoute.parse(null);
+        Assert.assertEquals("", route.getFunc());
+    }
+
+}
@@ -11,15 +11,24 @@
 
 package com.tencent.trpc.core.rpc.def;
 
+import com.google.protobuf.ByteString;
 import com.tencent.trpc.core.common.config.ProtocolConfig;
 import com.tencent.trpc.core.common.config.ProviderConfig;
 import com.tencent.trpc.core.common.config.ServiceConfig;
 import com.tencent.trpc.core.rpc.ProviderInvoker;
 import com.tencent.trpc.core.rpc.anno.TRpcMethod;
 import com.tencent.trpc.core.rpc.anno.TRpcService;
+import com.tencent.trpc.core.rpc.common.FuncRouteTable;
+import com.tencent.trpc.core.rpc.common.MethodRouterKey;
 import com.tencent.trpc.core.rpc.common.RpcMethodInfoAndInvoker;
+import com.tencent.trpc.core.rpc.stub.GreeterAPI;
+import com.tencent.trpc.core.worker.bulkhead.BulkheadConfig;
+import com.tencent.trpc.core.worker.bulkhead.MethodBulkhead;
+import com.tencent.trpc.core.worker.bulkhead.MethodBulkheadManager;
+import com.tencent.trpc.core.worker.spi.WorkerPool;
 import org.junit.Assert;
 import org.junit.Test;
+import org.powermock.api.mockito.PowerMockito;
 
 /**
  * Created by youngwwang on 2020/5/20.
@@ -70,6 +79,82 @@ public class DefMethodInfoRegisterTest {
         DEF_METHOD_INFO_REGISTER.unregister(INVOKER_WITH_BASEPATH.getConfig());
     }
 
+    @Test
+    public void testDuplicateRegisterKeepsBulkhead() {
+        WorkerPool workerPool = PowerMockito.mock(WorkerPool.class);
+        ProviderInvoker<Hello> invoker = buildBulkheadProviderInvoker(workerPool);
+        DEF_METHOD_INFO_REGISTER.register(invoker);
+        MethodBulkhead bulkhead = MethodBulkheadManager.get("/trpc.test.rpc.Hello/sayHello");
+        Assert.assertNotNull(bulkhead);
+        Assert.assertSame(bulkhead, DEF_METHOD_INFO_REGISTER.route("trpc.test.rpc.Hello", "sayHello").getBulkhead());
+        try {
+            DEF_METHOD_INFO_REGISTER.register(buildBulkheadProviderInvoker(workerPool));
+            Assert.fail("duplicate register should fail");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+        Assert.assertSame(bulkhead, MethodBulkheadManager.get("/trpc.test.rpc.Hello/sayHello"));
+        DEF_METHOD_INFO_REGISTER.unregister(invoker.getConfig());
+        Assert.assertNull(MethodBulkheadManager.get("/trpc.test.rpc.Hello/sayHello"));
+    }
+
+    private static ProviderInvoker<Hello> buildBulkheadProviderInvoker(WorkerPool pool) {
+        ProviderConfig<Hello> providerConfig = new ProviderConfig<Hello>() {
+            @Override
+            public WorkerPool getWorkerPoolObj() {
+                return pool;
+            }
+        };
+        providerConfig.setServiceInterface(Hello.class);
+        providerConfig.setRef(new HelloImpl());
+        providerConfig.setServiceConfig(new ServiceConfig() {
+            @Override
+            public BulkheadConfig getBulkheadConfig(MethodRouterKey methodRouterKey) {
+                return "sayHello".equals(methodRouterKey.getRpcMethodName())
+                        ? new BulkheadConfig().setMethod("sayHello").setMaxConcurrency(1) : null;
+            }
+        });
+        return new DefProviderInvoker<>(new ProtocolConfig(), providerConfig);
+    }
+
+    @Test
+    public void testUnregisterStub() {
+        WorkerPool pool = PowerMockito.mock(WorkerPool.class);
+        ProviderConfig<GreeterAPI> providerConfig = new ProviderConfig<GreeterAPI>() {
+            @Override
+            public WorkerPool getWorkerPoolObj() {
+                return pool;
+            }
+        };
+        providerConfig.setServiceInterface(GreeterAPI.class);
+        providerConfig.setRef(PowerMockito.mock(GreeterAPI.class));
+        providerConfig.setServiceConfig(new ServiceConfig() {
+            @Override
+            public BulkheadConfig getBulkheadConfig(MethodRouterKey methodRouterKey) {
+                return "SayHello".equals(methodRouterKey.getRpcMethodName())
+                        ? new BulkheadConfig().setMethod("SayHello").setMaxConcurrency(1) : null;
+            }
+        });
+        ProviderInvoker<GreeterAPI> invoker = new DefProviderInvoker<>(new ProtocolConfig(), providerConfig);
+        DefMethodInfoRegister register = new DefMethodInfoRegister();
+        register.register(invoker);
+        Assert.assertNotNull(MethodBulkheadManager.get("/trpc.test.stub.Greeter/SayHello"));
+        Assert.assertNotNull(FuncRouteTable.lookup(ByteString.copyFromUtf8("/v1/hello")));
+        Assert.assertTrue(register.validateNativeHttpPath("/trpc/v1/hello"));
+
+        // the routes, aliases and bulkhead registered from the stub are all removed
+        register.unregister(providerConfig);
+        Assert.assertNull(register.route("/trpc.test.stub.Greeter/SayHello"));
+        Assert.assertNull(register.route("/trpc/test/stub/Greeter/SayHello"));
+        Assert.assertNull(register.route("/v1/hello"));
+        Assert.assertNull(register.route("trpc.test.stub.Greeter", "SayHi"));
+        Assert.assertNull(register.getDefaultRouter("trpc.test.stub.Greeter"));
+        Assert.assertNull(MethodBulkheadManager.get("/trpc.test.stub.Greeter/SayHello"));
+        Assert.assertNull(FuncRouteTable.lookup(ByteString.copyFromUtf8("/v1/hello")));
+        Assert.assertNull(FuncRouteTable.lookup(ByteString.copyFromUtf8("/trpc.test.stub.Greeter/SayHi")));
+        Assert.assertFalse(register.validateNativeHttpPath("/trpc/v1/hello"));
+    }
+
     @Test
     public void testDefaultRegister() {
         DEF_METHOD_INFO_REGISTER.register(INVOKER);
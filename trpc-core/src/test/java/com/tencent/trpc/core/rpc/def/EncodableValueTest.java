@@ -15,11 +15,18 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
 import com.tencent.trpc.core.compressor.spi.Compressor;
+import com.tencent.trpc.core.compressor.support.GZipCompressor;
 import com.tencent.trpc.core.compressor.support.NoneCompressor;
 import com.tencent.trpc.core.compressor.support.SnappyCompressor;
 import com.tencent.trpc.core.serialization.User;
 import com.tencent.trpc.core.serialization.support.JSONSerialization;
+import com.tencent.trpc.core.serialization.support.PBSerialization;
 import com.tencent.trpc.core.utils.JsonUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import java.io.IOException;
+import org.apache.commons.lang3.StringUtils;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -48,6 +55,38 @@ public class EncodableValueTest {
         assertNotNull(encodableValue.encode());
     }
 
+    @Test
+    public void testEncodeBuffer() throws IOException {
+        User user = new User();
+        user.setName(StringUtils.repeat("name", 10));
+        ByteBuf buf = Unpooled.directBuffer();
+        Assert.assertEquals(0, encodableValue.encode(buf));
+        Assert.assertFalse(buf.isReadable());
+
+        // not compressed below the min bytes
+        byte[] bytes = new PBSerialization().serialize(user);
+        encodableValue = new EncodableValue(new GZipCompressor(), bytes.length + 1, new PBSerialization(),
+                false, user);
+        Assert.assertEquals(bytes.length, encodableValue.encode(buf));
+        Assert.assertFalse(encodableValue.getCompressed());
+        Assert.assertArrayEquals(bytes, ByteBufUtil.getBytes(buf));
+
+        buf.clear();
+        encodableValue = new EncodableValue(new GZipCompressor(), bytes.length, new PBSerialization(),
+                false, user);
+        int size = encodableValue.encode(buf);
+        Assert.assertTrue(encodableValue.getCompressed());
+        Assert.assertEquals(size, buf.readableBytes());
+        Assert.assertArrayEquals(bytes, new GZipCompressor().decompress(ByteBufUtil.getBytes(buf)));
+
+        buf.clear();
+        encodableValue = new EncodableValue(new NoneCompressor(), 0, new JSONSerialization(), true, bytes);
+        Assert.assertEquals(bytes.length, encodableValue.encode(buf));
+        Assert.assertTrue(encodableValue.getCompressed());
+        Assert.assertArrayEquals(bytes, ByteBufUtil.getBytes(buf));
+        buf.release();
+    }
+
     @Test
     public void testGetRawValue() {
         Assert.assertNull(encodableValue.getRawValue());
@@ -0,0 +1,29 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.rpc.stub;
+
+import com.tencent.trpc.core.logger.HelloRequestProtocol.HelloRequest;
+import com.tencent.trpc.core.logger.HelloRequestProtocol.HelloResponse;
+import com.tencent.trpc.core.rpc.RpcContext;
+import com.tencent.trpc.core.rpc.anno.TRpcMethod;
+import com.tencent.trpc.core.rpc.anno.TRpcService;
+
+@TRpcService(name = "trpc.test.stub.Greeter")
+public interface GreeterAPI {
+
+    @TRpcMethod(name = "SayHello", alias = {"/v1/hello"})
+    HelloResponse sayHello(RpcContext context, HelloRequest request);
+
+    @TRpcMethod(name = "SayHi", isDefault = true)
+    HelloResponse sayHi(RpcContext context, HelloRequest request);
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.rpc.stub;
+
+import com.tencent.trpc.core.logger.HelloRequestProtocol.HelloRequest;
+import com.tencent.trpc.core.logger.HelloRequestProtocol.HelloResponse;
+import com.tencent.trpc.core.rpc.InvokeMode;
+import com.tencent.trpc.core.rpc.RpcContext;
+
+/**
+ * Written the way trpc-code-generator writes APIStub.java.
+ */
+public final class GreeterAPIStub implements ServiceStub<GreeterAPI> {
+
+    public static final MethodDescriptor METHOD_SAY_HELLO = MethodDescriptor.builder()
+            .index(0)
+            .rpcMethodName("SayHello")
+            .aliases("/v1/hello")
+            .javaMethodName("sayHello")
+            .invokeMode(InvokeMode.SYNC)
+            .requestType(HelloRequest.class, HelloRequest.getDefaultInstance())
+            .responseType(HelloResponse.class, HelloResponse.getDefaultInstance())
+            .build();
+
+    public static final MethodDescriptor METHOD_SAY_HI = MethodDescriptor.builder()
+            .index(1)
+            .rpcMethodName("SayHi")
+            .javaMethodName("sayHi")
+            .invokeMode(InvokeMode.SYNC)
+            .requestType(HelloRequest.class, HelloRequest.getDefaultInstance())
+            .responseType(HelloResponse.class, HelloResponse.getDefaultInstance())
+            .build();
+
+    public static final ServiceDescriptor DESCRIPTOR = new ServiceDescriptor(GreeterAPI.class,
+            "trpc.test.stub.Greeter",
+            METHOD_SAY_HELLO,
+            METHOD_SAY_HI);
+
+    private static final ServiceDispatcher<GreeterAPI> DISPATCHER = GreeterAPIStub::dispatch;
+
+    @Override
+    public ServiceDescriptor getDescriptor() {
+        return DESCRIPTOR;
+    }
+
+    @Override
+    public ServiceDispatcher<GreeterAPI> getDispatcher() {
+        return DISPATCHER;
+    }
+
+    @Override
+    public GreeterAPI newClient(StubInvoker invoker) {
+        return new Client(invoker);
+    }
+
+    private static Object dispatch(GreeterAPI service, MethodDescriptor method, RpcContext context,
+            Object[] arguments) {
+        switch (method.getIndex()) {
+            case 0:
+                return service.sayHello(context, (HelloRequest) arguments[0]);
+            case 1:
+                return service.sayHi(context, (HelloRequest) arguments[0]);
+            default:
+                throw new IllegalArgumentException("unknown method " + method);
+        }
+    }
+
+    private static final class Client implements GreeterAPI {
+
+        private final StubInvoker invoker;
+
+        private Client(StubInvoker invoker) {
+            this.invoker = invoker;
+        }
+
+        @Override
+        public HelloResponse sayHello(RpcContext context, HelloRequest request) {
+            return (HelloResponse) invoker.invoke(METHOD_SAY_HELLO, context, request);
+        }
+
+        @Override
+        public HelloResponse sayHi(RpcContext context, HelloRequest request) {
+            return (HelloResponse) invoker.invoke(METHOD_SAY_HI, context, request);
+        }
+    }
+}
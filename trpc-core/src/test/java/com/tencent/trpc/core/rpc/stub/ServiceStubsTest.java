@@ -0,0 +1,172 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.rpc.stub;
+
+import com.tencent.trpc.core.common.config.ProtocolConfig;
+import com.tencent.trpc.core.common.config.ProviderConfig;
+import com.tencent.trpc.core.common.config.ServiceConfig;
+import com.tencent.trpc.core.logger.HelloRequestProtocol.HelloRequest;
+import com.tencent.trpc.core.logger.HelloRequestProtocol.HelloResponse;
+import com.tencent.trpc.core.rpc.InvokeMode;
+import com.tencent.trpc.core.rpc.Response;
+import com.tencent.trpc.core.rpc.RpcClientContext;
+import com.tencent.trpc.core.rpc.RpcContext;
+import com.tencent.trpc.core.rpc.RpcInvocation;
+import com.tencent.trpc.core.rpc.common.RpcMethodInfo;
+import com.tencent.trpc.core.rpc.common.RpcMethodInfoAndInvoker;
+import com.tencent.trpc.core.rpc.def.DefMethodInfoRegister;
+import com.tencent.trpc.core.rpc.def.DefProviderInvoker;
+import com.tencent.trpc.core.rpc.def.DefRequest;
+import com.tencent.trpc.core.serialization.support.helper.ProtoParserManager;
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ServiceStubsTest {
+
+    @Test
+    public void testLookup() {
+        ServiceStub<GreeterAPI> stub = ServiceStubs.lookup(GreeterAPI.class);
+        Assert.assertTrue(stub instanceof GreeterAPIStub);
+        Assert.assertSame(stub, ServiceStubs.lookup(GreeterAPI.class));
+        Assert.assertSame(GreeterAPIStub.DESCRIPTOR, stub.getDescriptor());
+        Assert.assertNull(ServiceStubs.lookup(Runnable.class));
+        Assert.assertNull(ServiceStubs.lookup(GreeterAPIStub.class));
+        Assert.assertNull(ServiceStubs.lookup(null));
+    }
+
+    @Test
+    public void testDescriptor() throws NoSuchMethodException {
+        ServiceDescriptor descriptor = GreeterAPIStub.DESCRIPTOR;
+        Assert.assertEquals(GreeterAPI.class, descriptor.getServiceInterface());
+        Assert.assertEquals("trpc.test.stub.Greeter", descriptor.getRpcServiceName());
+        Assert.assertEquals(2, descriptor.getMethods().size());
+
+        MethodDescriptor sayHello = descriptor.getMethod("SayHello");
+        Assert.assertSame(GreeterAPIStub.METHOD_SAY_HELLO, sayHello);
+        Assert.assertEquals("/trpc.test.stub.Greeter/SayHello", sayHello.getFunc());
+        Assert.assertArrayEquals(new String[]{"/v1/hello"}, sayHello.getAliases());
+        Assert.assertEquals(0, GreeterAPIStub.METHOD_SAY_HI.getAliases().length);
+        Assert.assertTrue(GreeterAPIStub.METHOD_SAY_HI.isDefault());
+        Assert.assertFalse(sayHello.isDefault());
+
+        Method method = GreeterAPI.class.getMethod("sayHello", RpcContext.class, HelloRequest.class);
+        Assert.assertEquals(method, sayHello.getMethod());
+        Assert.assertSame(sayHello, descriptor.getMethod(method));
+        Assert.assertNull(descriptor.getMethod("Unknown"));
+        Assert.assertNull(descriptor.getMethod((String) null));
+    }
+
+    @Test
+    public void testMethodInfoMatchesReflection() throws NoSuchMethodException {
+        Method method = GreeterAPI.class.getMethod("sayHello", RpcContext.class, HelloRequest.class);
+        RpcMethodInfo reflected = new RpcMethodInfo(GreeterAPI.class, method);
+        RpcMethodInfo generated = GreeterAPIStub.METHOD_SAY_HELLO.getMethodInfo();
+        Assert.assertEquals(reflected.getServiceInterface(), generated.getServiceInterface());
+        Assert.assertEquals(reflected.getMethod(), generated.getMethod());
+        Assert.assertEquals(InvokeMode.SYNC, generated.getInvokeMode());
+        Assert.assertEquals(reflected.getInvokeMode(), generated.getInvokeMode());
+        Assert.assertArrayEquals(reflected.getParamsTypes(), generated.getParamsTypes());
+        Assert.assertArrayEquals(reflected.getActualParamsTypes(), generated.getActualParamsTypes());
+        Assert.assertEquals(reflected.getReturnType(), generated.getReturnType());
+        Assert.assertEquals(reflected.getActualReturnType(), generated.getActualReturnType());
+        Assert.assertEquals(reflected.isGeneric(), generated.isGeneric());
+    }
+
+    @Test
+    public void testPreloadedParser() {
+        Assert.assertSame(HelloRequest.getDefaultInstance(), ProtoParserManager.getDefaultInstance(HelloRequest.class));
+        Assert.assertSame(HelloResponse.parser(), ProtoParserManager.getParser(HelloResponse.class));
+    }
+
+    @Test
+    public void testDispatch() {
+        HelloRequest request = HelloRequest.newBuilder().setMessage("stub").build();
+        Object result = new GreeterAPIStub().getDispatcher().dispatch(new GreeterImpl(),
+                GreeterAPIStub.METHOD_SAY_HI, new RpcClientContext(), new Object[]{request});
+        Assert.assertEquals("hi stub", ((HelloResponse) result).getMessage());
+    }
+
+    @Test
+    public void testProviderInvoker() {
+        DefProviderInvoker<GreeterAPI> invoker = newProviderInvoker();
+        DefRequest request = new DefRequest();
+        request.setContext(new RpcClientContext());
+        RpcInvocation invocation = new RpcInvocation();
+        invocation.setRpcMethodName("SayHello");
+        invocation.setArguments(new Object[]{HelloRequest.newBuilder().setMessage("stub").build()});
+        request.setInvocation(invocation);
+        Response response = invoker.invoke(request).toCompletableFuture().join();
+        Assert.assertNull(response.getException());
+        Assert.assertEquals("hello stub", ((HelloResponse) response.getValue()).getMessage());
+
+        invocation.setRpcMethodName("Unknown");
+        response = invoker.invoke(request).toCompletableFuture().join();
+        Assert.assertNotNull(response.getException());
+    }
+
+    @Test
+    public void testRegister() {
+        DefMethodInfoRegister register = new DefMethodInfoRegister();
+        DefProviderInvoker<GreeterAPI> invoker = newProviderInvoker();
+        register.register(invoker);
+        RpcMethodInfoAndInvoker sayHello = register.route("/trpc.test.stub.Greeter/SayHello");
+        Assert.assertNotNull(sayHello);
+        Assert.assertSame(GreeterAPIStub.METHOD_SAY_HELLO.getMethodInfo(), sayHello.getMethodInfo());
+        Assert.assertSame(sayHello, register.route("/v1/hello"));
+        Assert.assertSame(sayHello, register.route("/trpc/test/stub/Greeter/SayHello"));
+        Assert.assertNotNull(register.route("trpc.test.stub.Greeter", "SayHi"));
+        Assert.assertSame(register.route("trpc.test.stub.Greeter", "SayHi"),
+                register.getDefaultRouter("trpc.test.stub.Greeter"));
+        register.unregister(invoker.getConfig());
+        Assert.assertNull(register.route("/trpc.test.stub.Greeter/SayHello"));
+        Assert.assertNull(register.route("/v1/hello"));
+    }
+
+    @Test
+    public void testClient() {
+        AtomicReference<MethodDescriptor> called = new AtomicReference<>();
+        GreeterAPI client = new GreeterAPIStub().newClient((method, context, request) -> {
+            called.set(method);
+            return HelloResponse.newBuilder().setMessage(((HelloRequest) request).getMessage()).build();
+        });
+        HelloResponse response = client.sayHi(new RpcClientContext(),
+                HelloRequest.newBuilder().setMessage("client").build());
+        Assert.assertEquals("client", response.getMessage());
+        Assert.assertSame(GreeterAPIStub.METHOD_SAY_HI, called.get());
+    }
+
+    private static DefProviderInvoker<GreeterAPI> newProviderInvoker() {
+        ProviderConfig<GreeterAPI> providerConfig = new ProviderConfig<>();
+        providerConfig.setServiceInterface(GreeterAPI.class);
+        providerConfig.setRef(new GreeterImpl());
+        ServiceConfig serviceConfig = new ServiceConfig();
+        serviceConfig.setEnableLinkTimeout(false);
+        providerConfig.setServiceConfig(serviceConfig);
+        return new DefProviderInvoker<>(new ProtocolConfig(), providerConfig);
+    }
+
+    private static class GreeterImpl implements GreeterAPI {
+
+        @Override
+        public HelloResponse sayHello(RpcContext context, HelloRequest request) {
+            return HelloResponse.newBuilder().setMessage("hello " + request.getMessage()).build();
+        }
+
+        @Override
+        public HelloResponse sayHi(RpcContext context, HelloRequest request) {
+            return HelloResponse.newBuilder().setMessage("hi " + request.getMessage()).build();
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.selector;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ServiceInstanceInflightTest {
+
+    @After
+    public void tearDown() {
+        ServiceInstanceInflight.reset();
+    }
+
+    @Test
+    public void testCounter() {
+        AtomicInteger counter = ServiceInstanceInflight.counter(new ServiceInstance("127.0.0.1", 12345));
+        counter.incrementAndGet();
+        Assert.assertSame(counter, ServiceInstanceInflight.counter(new ServiceInstance("127.0.0.1", 12345)));
+        Assert.assertNotSame(counter, ServiceInstanceInflight.counter(new ServiceInstance("127.0.0.1", 12346)));
+        Assert.assertEquals(1, ServiceInstanceInflight.counter(new ServiceInstance("127.0.0.1", 12345)).get());
+    }
+
+    @Test
+    public void testReleased() throws InterruptedException {
+        AtomicInteger counter = ServiceInstanceInflight.counter(new ServiceInstance("127.0.0.1", 12345));
+        counter.incrementAndGet();
+        Assert.assertEquals(1, ServiceInstanceInflight.size());
+        counter = null;
+        for (int i = 0; i < 50 && ServiceInstanceInflight.size() > 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        Assert.assertEquals(0, ServiceInstanceInflight.size());
+        Assert.assertEquals(0, ServiceInstanceInflight.counter(new ServiceInstance("127.0.0.1", 12345)).get());
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.selector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ServiceInstanceSnapshotTest {
+
+    @Test
+    public void testOf() {
+        Assert.assertSame(ServiceInstanceSnapshot.EMPTY, ServiceInstanceSnapshot.of(null));
+        Assert.assertSame(ServiceInstanceSnapshot.EMPTY, ServiceInstanceSnapshot.of(Collections.emptyList()));
+        List<ServiceInstance> instances = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            instances.add(new ServiceInstance("127.0.0.1", 10000 + i));
+        }
+        ServiceInstanceSnapshot snapshot = ServiceInstanceSnapshot.of(instances);
+        instances.clear();
+        Assert.assertEquals(2000, snapshot.size());
+        Assert.assertEquals(10001, snapshot.get(1).getPort());
+        Assert.assertEquals(1999, snapshot.indexOf(new ServiceInstance("127.0.0.1", 11999)));
+        Assert.assertEquals(-1, snapshot.indexOf(new ServiceInstance("127.0.0.2", 11999)));
+        Assert.assertTrue(snapshot.contains(new ServiceInstance("127.0.0.1", 10000)));
+        Assert.assertSame(snapshot, snapshot.getHealthyInstances());
+        Assert.assertTrue(ServiceInstanceSnapshot.of(snapshot).getVersion() > snapshot.getVersion());
+        try {
+            snapshot.add(new ServiceInstance("127.0.0.1", 1));
+            Assert.fail();
+        } catch (UnsupportedOperationException expected) {
+            // immutable
+        }
+    }
+
+    @Test
+    public void testHealthyInstances() {
+        ServiceInstance healthy = new ServiceInstance("127.0.0.1", 1, true);
+        ServiceInstance unhealthy = new ServiceInstance("127.0.0.1", 2, false);
+        ServiceInstanceSnapshot snapshot = ServiceInstanceSnapshot.of(Arrays.asList(unhealthy, healthy, healthy));
+        Assert.assertEquals(3, snapshot.size());
+        Assert.assertEquals(1, snapshot.indexOf(healthy));
+        Assert.assertEquals(Arrays.asList(healthy, healthy), snapshot.getHealthyInstances());
+    }
+
+}
@@ -0,0 +1,188 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.selector.outlier;
+
+import com.tencent.trpc.core.exception.ErrorCode;
+import com.tencent.trpc.core.selector.ServiceInstance;
+import com.tencent.trpc.core.selector.ServiceInstanceSnapshot;
+import com.tencent.trpc.core.selector.outlier.OutlierEvent.Reason;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OutlierDetectorTest {
+
+    private final List<ServiceInstance> instances = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        OutlierDetector.reset();
+        for (int i = 0; i < 10; i++) {
+            instances.add(new ServiceInstance("127.0.0.1", 8000 + i, true));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        OutlierDetector.reset();
+    }
+
+    @Test
+    public void testConfig() {
+        OutlierDetectionConfig config = OutlierDetectionConfig.parse(null);
+        Assert.assertEquals(OutlierDetectionConfig.DEFAULT_CONSECUTIVE_ERRORS, config.getConsecutiveErrors());
+        Assert.assertEquals(OutlierDetectionConfig.DEFAULT_LATENCY_FACTOR, config.getLatencyFactor(), 0);
+        Assert.assertEquals(OutlierDetectionConfig.DEFAULT_MAX_EJECTION_PERCENT, config.getMaxEjectionPercent());
+        Assert.assertTrue(config.toString().contains("consecutiveErrors=5"));
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(OutlierDetectionConfig.BASE_EJECTION_MILLS, 1000);
+        properties.put(OutlierDetectionConfig.MAX_EJECTION_MILLS, 100);
+        try {
+            OutlierDetectionConfig.parse(properties);
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+            Assert.assertTrue(ex.getMessage().contains("base_ejection_mills"));
+        }
+    }
+
+    @Test
+    public void testConsecutiveErrors() throws InterruptedException {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(OutlierDetectionConfig.CONSECUTIVE_ERRORS, 3);
+        properties.put(OutlierDetectionConfig.BASE_EJECTION_MILLS, 50);
+        properties.put(OutlierDetectionConfig.MAX_EJECTION_MILLS, 1000);
+        OutlierDetector detector = new OutlierDetector("assemble", OutlierDetectionConfig.parse(properties));
+        OutlierDetector.register(detector);
+        detector.observe("service", ServiceInstanceSnapshot.of(instances));
+        ServiceInstance instance = instances.get(0);
+
+        detector.report("service", instance, ErrorCode.TRPC_CLIENT_NETWORK_ERR, 1);
+        detector.report("service", instance, ErrorCode.TRPC_CLIENT_NETWORK_ERR, 1);
+        // a success resets the consecutive errors
+        detector.report("service", instance, ErrorCode.TRPC_INVOKE_SUCCESS, 1);
+        detector.report("service", instance, ErrorCode.TRPC_CLIENT_NETWORK_ERR, 1);
+        detector.report("service", instance, ErrorCode.TRPC_CLIENT_NETWORK_ERR, 1);
+        Assert.assertFalse(detector.isEjected("service", instance));
+        detector.report("service", instance, ErrorCode.TRPC_CLIENT_NETWORK_ERR, 1);
+        Assert.assertTrue(detector.isEjected("service", instance));
+        Assert.assertFalse(detector.isEjected("service", instances.get(1)));
+        Assert.assertTrue(detector.getEjectedInstances().containsKey("service/127.0.0.1:8000"));
+
+        List<OutlierEvent> events = OutlierDetector.getRecentEvents();
+        Assert.assertEquals(1, events.size());
+        Assert.assertEquals("assemble", events.get(0).getSelector());
+        Assert.assertEquals("service", events.get(0).getService());
+        Assert.assertEquals(Reason.CONSECUTIVE_ERRORS, events.get(0).getReason());
+        Assert.assertEquals(1, events.get(0).getEjections());
+        Assert.assertEquals(50, events.get(0).getEjectionMills());
+        Assert.assertSame(detector, OutlierDetector.getDetectors().get("assemble"));
+
+        // ejected twice as long the next time
+        Thread.sleep(80);
+        Assert.assertFalse(detector.isEjected("service", instance));
+        for (int i = 0; i < 3; i++) {
+            detector.report("service", instance, ErrorCode.TRPC_CLIENT_NETWORK_ERR, 1);
+        }
+        events = OutlierDetector.getRecentEvents();
+        Assert.assertEquals(2, events.get(0).getEjections());
+        Assert.assertEquals(100, events.get(0).getEjectionMills());
+    }
+
+    @Test
+    public void testMaxEjectionPercent() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(OutlierDetectionConfig.CONSECUTIVE_ERRORS, 1);
+        properties.put(OutlierDetectionConfig.MAX_EJECTION_PERCENT, 20);
+        OutlierDetector detector = new OutlierDetector("assemble", OutlierDetectionConfig.parse(properties));
+        detector.observe("service", ServiceInstanceSnapshot.of(instances));
+        instances.forEach(instance -> detector.report("service", instance, ErrorCode.TRPC_CLIENT_NETWORK_ERR, 1));
+        Assert.assertEquals(2, instances.stream().filter(instance -> detector.isEjected("service", instance)).count());
+
+        // at least one of two instances may be ejected
+        List<ServiceInstance> two = instances.subList(8, 10);
+        detector.observe("other", ServiceInstanceSnapshot.of(two));
+        two.forEach(instance -> detector.report("other", instance, ErrorCode.TRPC_CLIENT_NETWORK_ERR, 1));
+        Assert.assertEquals(1, two.stream().filter(instance -> detector.isEjected("other", instance)).count());
+    }
+
+    @Test
+    public void testLatency() throws InterruptedException {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(OutlierDetectionConfig.LATENCY_MIN_REQUESTS, 2);
+        properties.put(OutlierDetectionConfig.INTERVAL_MILLS, 10);
+        properties.put(OutlierDetectionConfig.MAX_EJECTION_PERCENT, 50);
+        OutlierDetector detector = new OutlierDetector("assemble", OutlierDetectionConfig.parse(properties));
+        List<ServiceInstance> four = instances.subList(0, 4);
+        detector.observe("service", new ArrayList<>(four));
+        // starts the interval
+        detector.report("service", four.get(0), ErrorCode.TRPC_INVOKE_SUCCESS, 10);
+        for (int i = 0; i < 2; i++) {
+            detector.report("service", four.get(0), ErrorCode.TRPC_INVOKE_SUCCESS, 10);
+            detector.report("service", four.get(1), ErrorCode.TRPC_INVOKE_SUCCESS, 12);
+            detector.report("service", four.get(2), ErrorCode.TRPC_INVOKE_SUCCESS, 11);
+            detector.report("service", four.get(3), ErrorCode.TRPC_INVOKE_SUCCESS, 100);
+        }
+        Thread.sleep(20);
+        detector.report("service", four.get(1), ErrorCode.TRPC_INVOKE_SUCCESS, 12);
+        Assert.assertTrue(detector.isEjected("service", four.get(3)));
+        Assert.assertEquals(3, four.stream().filter(instance -> !detector.isEjected("service", instance)).count());
+        OutlierEvent event = OutlierDetector.getRecentEvents().get(0);
+        Assert.assertEquals(Reason.LATENCY, event.getReason());
+        Assert.assertTrue(event.getDetail(), event.getDetail().contains("average latency 100.0ms"));
+    }
+
+    @Test
+    public void testSharedAddress() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(OutlierDetectionConfig.CONSECUTIVE_ERRORS, 1);
+        properties.put(OutlierDetectionConfig.MAX_EJECTION_PERCENT, 50);
+        OutlierDetector detector = new OutlierDetector("assemble", OutlierDetectionConfig.parse(properties));
+        List<ServiceInstance> two = instances.subList(0, 2);
+        detector.observe("service", ServiceInstanceSnapshot.of(two));
+        detector.observe("other", ServiceInstanceSnapshot.of(two));
+
+        // an ejection for one service leaves the address in service for the other
+        detector.report("service", two.get(0), ErrorCode.TRPC_CLIENT_NETWORK_ERR, 1);
+        Assert.assertTrue(detector.isEjected("service", two.get(0)));
+        Assert.assertFalse(detector.isEjected("other", two.get(0)));
+        Assert.assertEquals("service", OutlierDetector.getRecentEvents().get(0).getService());
+
+        // and does not count against the max ejection percent of the other
+        detector.report("other", two.get(1), ErrorCode.TRPC_CLIENT_NETWORK_ERR, 1);
+        Assert.assertTrue(detector.isEjected("other", two.get(1)));
+        Assert.assertFalse(detector.isEjected("service", two.get(1)));
+        Assert.assertEquals(2, detector.getEjectedInstances().size());
+        Assert.assertTrue(detector.getEjectedInstances().containsKey("other/127.0.0.1:8001"));
+
+        // removing the address from one service keeps its state in the other
+        detector.observe("service", ServiceInstanceSnapshot.of(Arrays.asList(two.get(0), instances.get(2))));
+        Assert.assertFalse(detector.isEjected("service", two.get(1)));
+        Assert.assertTrue(detector.isEjected("other", two.get(1)));
+        Assert.assertTrue(detector.isEjected("service", two.get(0)));
+    }
+
+    @Test
+    public void testUnknownInstance() {
+        OutlierDetector detector = new OutlierDetector("assemble", OutlierDetectionConfig.parse(null));
+        detector.report("service", instances.get(0), ErrorCode.TRPC_CLIENT_NETWORK_ERR, 1);
+        Assert.assertFalse(detector.isEjected("service", instances.get(0)));
+        Assert.assertTrue(detector.getEjectedInstances().isEmpty());
+    }
+
+}
@@ -0,0 +1,213 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.selector.router.support;
+
+import com.tencent.trpc.core.common.ConfigManager;
+import com.tencent.trpc.core.common.Constants;
+import com.tencent.trpc.core.common.config.GlobalConfig;
+import com.tencent.trpc.core.common.config.PluginConfig;
+import com.tencent.trpc.core.rpc.RpcClientContext;
+import com.tencent.trpc.core.rpc.def.DefRequest;
+import com.tencent.trpc.core.selector.ServiceInstance;
+import com.tencent.trpc.core.selector.ServiceInstanceInflight;
+import com.tencent.trpc.core.selector.ServiceInstanceSnapshot;
+import com.tencent.trpc.core.selector.spi.Router;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+
+public class LocalityRouterTest {
+
+    private Map<String, Object> oldExt;
+
+    @Before
+    public void setUp() {
+        GlobalConfig globalConfig = ConfigManager.getInstance().getGlobalConfig();
+        oldExt = globalConfig.getExt();
+        Map<String, Object> ext = new HashMap<>();
+        ext.put("zone", "z1");
+        ext.put("region", "r1");
+        globalConfig.setExt(ext);
+        ServiceInstanceInflight.reset();
+    }
+
+    @After
+    public void tearDown() {
+        GlobalConfig globalConfig = ConfigManager.getInstance().getGlobalConfig();
+        globalConfig.setExt(oldExt);
+        globalConfig.setEnableSet(false);
+        globalConfig.setFullSetName(null);
+        ServiceInstanceInflight.reset();
+    }
+
+    @Test
+    public void testConfig() {
+        LocalityRouterConfig config = router(null).getConfig();
+        Assert.assertEquals("zone", config.getZoneKey());
+        Assert.assertEquals("region", config.getRegionKey());
+        Assert.assertEquals("z1", config.getLocalZone());
+        Assert.assertEquals("r1", config.getLocalRegion());
+        Assert.assertEquals(LocalityRouterConfig.DEFAULT_MIN_HEALTHY_PERCENT, config.getMinHealthyPercent());
+        Assert.assertEquals(0, config.getMaxInflightPerInstance());
+        Assert.assertNull(config.getLocalSet());
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(LocalityRouterConfig.ZONE_KEY, "idc");
+        properties.put(LocalityRouterConfig.LOCAL_ZONE, "z2");
+        properties.put(LocalityRouterConfig.MIN_HEALTHY_PERCENT, 50);
+        config = router(properties).getConfig();
+        Assert.assertEquals("idc", config.getZoneKey());
+        Assert.assertEquals("z2", config.getLocalZone());
+        Assert.assertEquals(50, config.getMinHealthyPercent());
+
+        properties.put(LocalityRouterConfig.MIN_HEALTHY_PERCENT, 101);
+        try {
+            router(properties);
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+            Assert.assertTrue(ex.getMessage().contains("min_healthy_percent"));
+        }
+    }
+
+    @Test
+    public void testPreferZone() throws Exception {
+        LocalityRouter router = router(null);
+        ServiceInstance zone1 = instance(1, "z1", "r1", true);
+        ServiceInstance zone2 = instance(2, "z2", "r1", true);
+        ServiceInstance region2 = instance(3, "z3", "r2", true);
+        ServiceInstanceSnapshot snapshot = ServiceInstanceSnapshot.of(Arrays.asList(zone1, zone2, region2));
+        Assert.assertEquals(LocalityRouter.NAME, router.getRouteKey(new DefRequest()));
+        Assert.assertEquals(Arrays.asList(zone1), router.route(snapshot, new DefRequest()));
+        // the localities are computed once for a snapshot
+        Assert.assertSame(router.route(snapshot, new DefRequest()), router.route(snapshot, new DefRequest()));
+        // a plain list is routed as well
+        Assert.assertEquals(Arrays.asList(zone1), router.route(new ArrayList<>(snapshot), new DefRequest()));
+    }
+
+    @Test
+    public void testLatestTablePerService() throws Exception {
+        LocalityRouter router = router(null);
+        ServiceInstance zone1 = instance(1, "z1", "r1", true);
+        ServiceInstance zone2 = instance(2, "z2", "r1", true);
+        ServiceInstanceSnapshot first = ServiceInstanceSnapshot.of(Arrays.asList(zone1, zone2));
+        ServiceInstanceSnapshot other = ServiceInstanceSnapshot.of(Arrays.asList(zone1, zone2));
+        List<ServiceInstance> routed = router.route(first, request("service"));
+        // the services are cached apart
+        List<ServiceInstance> otherRouted = router.route(other, request("other"));
+        Assert.assertSame(routed, router.route(first, request("service")));
+        Assert.assertSame(otherRouted, router.route(other, request("other")));
+
+        // a new snapshot replaces the table of the service
+        ServiceInstanceSnapshot second = ServiceInstanceSnapshot.of(Arrays.asList(zone1, zone2));
+        List<ServiceInstance> secondRouted = router.route(second, request("service"));
+        Assert.assertNotSame(routed, secondRouted);
+        Map<String, ?> tables = Whitebox.getInternalState(router, "tables");
+        Assert.assertEquals(2, tables.size());
+        // a superseded snapshot is routed without replacing it
+        Assert.assertEquals(Arrays.asList(zone1), router.route(first, request("service")));
+        Assert.assertSame(secondRouted, router.route(second, request("service")));
+    }
+
+    @Test
+    public void testSpillOnUnhealthy() throws Exception {
+        LocalityRouter router = router(null);
+        ServiceInstance zone1 = instance(1, "z1", "r1", true);
+        ServiceInstance zone1Down = instance(2, "z1", "r1", false);
+        ServiceInstance zone2 = instance(3, "z2", "r1", true);
+        ServiceInstance zone3 = instance(4, "z3", "r1", true);
+        ServiceInstance region2 = instance(5, "z4", "r2", true);
+        // half of the zone is healthy, spill to the region
+        List<ServiceInstance> routed = router.route(
+                ServiceInstanceSnapshot.of(Arrays.asList(zone1, zone1Down, zone2, zone3, region2)), new DefRequest());
+        Assert.assertEquals(Arrays.asList(zone1, zone2, zone3), routed);
+
+        // all unhealthy, return all as the none router does
+        ServiceInstance down1 = instance(6, "z1", "r1", false);
+        ServiceInstance down2 = instance(7, "z2", "r2", false);
+        routed = router.route(ServiceInstanceSnapshot.of(Arrays.asList(down1, down2)), new DefRequest());
+        Assert.assertEquals(Arrays.asList(down1, down2), routed);
+    }
+
+    @Test
+    public void testSpillOnInflight() throws Exception {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(LocalityRouterConfig.MAX_INFLIGHT_PER_INSTANCE, 2);
+        LocalityRouter router = router(properties);
+        Assert.assertNull(router.getRouteKey(new DefRequest()));
+        ServiceInstance zone1 = instance(1, "z1", "r1", true);
+        ServiceInstance zone2 = instance(2, "z2", "r2", true);
+        ServiceInstanceSnapshot snapshot = ServiceInstanceSnapshot.of(Arrays.asList(zone1, zone2));
+        Assert.assertEquals(Arrays.asList(zone1), router.route(snapshot, new DefRequest()));
+        ServiceInstanceInflight.counter(zone1).addAndGet(3);
+        Assert.assertEquals(Arrays.asList(zone1, zone2), router.route(snapshot, new DefRequest()));
+        ServiceInstanceInflight.counter(zone1).decrementAndGet();
+        Assert.assertEquals(Arrays.asList(zone1), router.route(snapshot, new DefRequest()));
+    }
+
+    @Test
+    public void testPreferSet() throws Exception {
+        ConfigManager.getInstance().getGlobalConfig().setEnableSet(true).setFullSetName("a.b.c");
+        LocalityRouter router = router(null);
+        ServiceInstance zone1 = instance(1, "z1", "r1", true);
+        ServiceInstance sameSet = instance(2, "z2", "r2", true);
+        sameSet.getParameters().put(Constants.SET_DIVISION, "a.b.c");
+        List<ServiceInstance> routed = router.route(ServiceInstanceSnapshot.of(Arrays.asList(zone1, sameSet)),
+                new DefRequest());
+        Assert.assertEquals(Arrays.asList(sameSet), routed);
+        // no instance of the set, ignore it
+        ServiceInstance zone2 = instance(3, "z2", "r2", true);
+        routed = router.route(ServiceInstanceSnapshot.of(Arrays.asList(zone1, zone2)), new DefRequest());
+        Assert.assertEquals(Arrays.asList(zone1), routed);
+    }
+
+    @Test
+    public void testUnknownLocality() throws Exception {
+        ConfigManager.getInstance().getGlobalConfig().setExt(new HashMap<>());
+        LocalityRouter router = router(null);
+        ServiceInstance instance1 = instance(1, "z1", "r1", true);
+        ServiceInstance instance2 = instance(2, "z2", "r2", false);
+        List<ServiceInstance> routed = router.route(
+                ServiceInstanceSnapshot.of(Arrays.asList(instance1, instance2)), new DefRequest());
+        Assert.assertEquals(Arrays.asList(instance1), routed);
+        Assert.assertTrue(router.route(new ArrayList<>(), new DefRequest()).isEmpty());
+    }
+
+    private static LocalityRouter router(Map<String, Object> properties) {
+        LocalityRouter router = new LocalityRouter();
+        router.setPluginConfig(new PluginConfig(LocalityRouter.NAME, Router.class, LocalityRouter.class,
+                properties));
+        router.init();
+        return router;
+    }
+
+    private static DefRequest request(String service) {
+        DefRequest request = new DefRequest();
+        request.setContext(new RpcClientContext());
+        request.getContext().getValueMap().put(Constants.ROUTE_SERVICE, service);
+        return request;
+    }
+
+    private static ServiceInstance instance(int port, String zone, String region, boolean healthy) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("zone", zone);
+        parameters.put("region", region);
+        return new ServiceInstance("127.0.0.1", port, healthy, parameters);
+    }
+
+}
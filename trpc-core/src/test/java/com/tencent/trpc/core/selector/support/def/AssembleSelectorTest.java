@@ -0,0 +1,153 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.selector.support.def;
+
+import com.tencent.trpc.core.common.Constants;
+import com.tencent.trpc.core.exception.ErrorCode;
+import com.tencent.trpc.core.rpc.Request;
+import com.tencent.trpc.core.rpc.def.DefRequest;
+import com.tencent.trpc.core.selector.ServiceId;
+import com.tencent.trpc.core.selector.ServiceInstance;
+import com.tencent.trpc.core.selector.ServiceInstanceSnapshot;
+import com.tencent.trpc.core.selector.loadbalance.support.RandomLoadBalance;
+import com.tencent.trpc.core.selector.mock.MockDiscovery;
+import com.tencent.trpc.core.selector.outlier.OutlierDetectionConfig;
+import com.tencent.trpc.core.selector.outlier.OutlierDetector;
+import com.tencent.trpc.core.selector.router.support.NoneRouter;
+import com.tencent.trpc.core.selector.spi.CircuitBreaker;
+import com.tencent.trpc.core.worker.spi.WorkerPool;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.powermock.reflect.Whitebox;
+
+public class AssembleSelectorTest {
+
+    private final ServiceInstance healthy1 = new ServiceInstance("127.0.0.1", 1001, true);
+    private final ServiceInstance healthy2 = new ServiceInstance("127.0.0.1", 1002, true);
+    private final ServiceInstance unhealthy = new ServiceInstance("127.0.0.1", 1003, false);
+    private final Set<ServiceInstance> openInstances = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger routeCount = new AtomicInteger();
+    private AssembleSelector selector;
+    private MockDiscovery discovery;
+    private ServiceId serviceId;
+    private Request request;
+
+    @Before
+    public void setUp() {
+        selector = new AssembleSelector();
+        discovery = new MockDiscovery();
+        discovery.setServiceInstances(ServiceInstanceSnapshot.of(Arrays.asList(healthy1, healthy2, unhealthy)));
+        WorkerPool workerPool = Mockito.mock(WorkerPool.class);
+        Mockito.when(workerPool.toExecutor()).thenReturn(Runnable::run);
+        Whitebox.setInternalState(selector, "discovery", discovery);
+        Whitebox.setInternalState(selector, "router", new NoneRouter() {
+            @Override
+            protected List<ServiceInstance> doRoute(List<ServiceInstance> instances, Request request) {
+                routeCount.incrementAndGet();
+                return super.doRoute(instances, request);
+            }
+        });
+        Whitebox.setInternalState(selector, "loadBalance", new RandomLoadBalance());
+        Whitebox.setInternalState(selector, "circuitBreaker", new CircuitBreaker() {
+            @Override
+            public boolean allowRequest(ServiceInstance serviceInstance) {
+                return !openInstances.contains(serviceInstance);
+            }
+
+            @Override
+            public boolean isOpen(ServiceInstance serviceInstance) {
+                return openInstances.contains(serviceInstance);
+            }
+
+            @Override
+            public void report(ServiceInstance serviceInstance, int code, long delay) {
+            }
+        });
+        Whitebox.setInternalState(selector, "workerPool", workerPool);
+        serviceId = new ServiceId();
+        serviceId.setServiceName("trpc.app.server.Greeter");
+        request = new DefRequest();
+    }
+
+    @Test
+    public void testRouteCachedPerSnapshot() {
+        for (int i = 0; i < 100; i++) {
+            CompletableFuture<ServiceInstance> future = selector.asyncSelectOne(serviceId, request)
+                    .toCompletableFuture();
+            Assert.assertTrue(future.isDone());
+            Assert.assertNotEquals(unhealthy, future.join());
+        }
+        Assert.assertEquals(1, routeCount.get());
+        Assert.assertEquals(Boolean.TRUE, serviceId.getParameters().get(Constants.INCLUDE_UNHEALTHY));
+        Assert.assertEquals(Boolean.TRUE, serviceId.getParameters().get(Constants.INCLUDE_CIRCUITBREAK));
+
+        discovery.setServiceInstances(ServiceInstanceSnapshot.of(Arrays.asList(healthy1, unhealthy)));
+        Assert.assertEquals(healthy1, selector.asyncSelectOne(serviceId, request).toCompletableFuture().join());
+        Assert.assertEquals(healthy1, selector.asyncSelectOne(serviceId, request).toCompletableFuture().join());
+        Assert.assertEquals(2, routeCount.get());
+    }
+
+    @Test
+    public void testCircuitBreakerFallback() {
+        openInstances.add(healthy1);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(healthy2, selector.asyncSelectOne(serviceId, request).toCompletableFuture().join());
+        }
+        // the cached fallback list is refreshed when its pick is rejected
+        openInstances.remove(healthy1);
+        selector.asyncSelectOne(serviceId, request).toCompletableFuture().join();
+        openInstances.add(healthy2);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(healthy1, selector.asyncSelectOne(serviceId, request).toCompletableFuture().join());
+        }
+        openInstances.add(healthy1);
+        Assert.assertNull(selector.asyncSelectOne(serviceId, request).toCompletableFuture().join());
+    }
+
+    @Test
+    public void testNotSnapshot() {
+        discovery.setServiceInstances(new ArrayList<>(Arrays.asList(healthy1, unhealthy)));
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(healthy1, selector.asyncSelectOne(serviceId, request).toCompletableFuture().join());
+        }
+        Assert.assertEquals(10, routeCount.get());
+    }
+
+    @Test
+    public void testOutlierDetection() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(OutlierDetectionConfig.CONSECUTIVE_ERRORS, 2);
+        properties.put(OutlierDetectionConfig.MAX_EJECTION_PERCENT, 50);
+        Whitebox.setInternalState(selector, "outlierDetector",
+                new OutlierDetector("assemble", OutlierDetectionConfig.parse(properties)));
+        selector.asyncSelectOne(serviceId, request).toCompletableFuture().join();
+        selector.report(serviceId, healthy1, ErrorCode.TRPC_CLIENT_NETWORK_ERR, 1);
+        selector.report(serviceId, healthy1, ErrorCode.TRPC_CLIENT_NETWORK_ERR, 1);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(healthy2, selector.asyncSelectOne(serviceId, request).toCompletableFuture().join());
+        }
+        Assert.assertEquals(Arrays.asList(healthy2, unhealthy),
+                selector.asyncSelectAll(serviceId, request).toCompletableFuture().join());
+    }
+
+}
@@ -18,7 +18,13 @@ import com.tencent.trpc.core.serialization.support.JSONSerialization;
 import com.tencent.trpc.core.utils.HelloRequestProtocol.HelloRequest;
 import com.tencent.trpc.core.utils.JsonUtils;
 import com.tencent.trpc.core.utils.JsonUtilsTest;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.List;
 import org.assertj.core.util.Lists;
 import org.junit.Assert;
@@ -97,6 +103,52 @@ public class JsonSerializationTest {
         assertEquals(serial.name(), JSONSerialization.NAME);
     }
 
+    /**
+     * Test deserializing JSON from buffers and streams.
+     *
+     * @throws IOException IOException
+     */
+    @Test
+    public void testJsonDeserializeBuffer() throws IOException {
+        byte[] pojoBytes = serial.serialize(obj);
+        assertEquals("a", serial.deserialize(ByteBuffer.wrap(pojoBytes), Obj.class).getName());
+        assertEquals("a", serial.deserialize(new ByteArrayInputStream(pojoBytes), Obj.class).getName());
+        ByteBuf buf = Unpooled.directBuffer().writeBytes(pojoBytes);
+        assertEquals("a", serial.deserialize(buf, Obj.class).getName());
+        assertEquals(pojoBytes.length, buf.readableBytes());
+        buf.release();
+
+        HelloRequest request = HelloRequest.newBuilder().setIntField(10).setStringField("中文").build();
+        byte[] pbBytes = serial.serialize(request);
+        assertEquals(request, serial.deserialize(ByteBuffer.wrap(pbBytes), HelloRequest.class));
+        assertEquals(request, serial.deserialize(new ByteArrayInputStream(pbBytes), HelloRequest.class));
+
+        try {
+            serial.deserialize(ByteBuffer.wrap(new byte[]{'{'}), Obj.class);
+            Assert.fail();
+        } catch (IOException ioe) {
+            Assert.assertTrue(ioe.getMessage().contains("json deserialize exception:"));
+        }
+    }
+
+    /**
+     * Test serializing JSON into buffers and streams.
+     *
+     * @throws IOException IOException
+     */
+    @Test
+    public void testJsonSerializeTo() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serial.serializeTo(obj, out);
+        Assert.assertArrayEquals(serial.serialize(obj), out.toByteArray());
+
+        HelloRequest request = HelloRequest.newBuilder().setIntField(10).build();
+        ByteBuf buf = Unpooled.directBuffer();
+        serial.serializeTo(request, buf);
+        Assert.assertArrayEquals(serial.serialize(request), ByteBufUtil.getBytes(buf));
+        buf.release();
+    }
+
     /**
      * Test deserializing JSON to generic types.
      *
@@ -17,9 +17,17 @@ import com.tencent.trpc.core.logger.Logger;
 import com.tencent.trpc.core.logger.LoggerFactory;
 import com.tencent.trpc.core.serialization.support.JavaPBSerialization;
 import com.tencent.trpc.core.serialization.support.PBSerialization;
+import com.tencent.trpc.core.serialization.support.helper.ProtoParserManager;
 import com.tencent.trpc.core.utils.HelloRequestProtocol;
 import com.tencent.trpc.core.utils.HelloRequestProtocol.HelloRequest;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -78,6 +86,99 @@ public class PBSerializationTest {
         Assert.assertEquals(1, helloRequest.getOther().getIntField());
     }
 
+    @Test
+    public void testPBDeserializeBuffer() throws IOException {
+        PBSerialization serial = new PBSerialization();
+        HelloRequest request = HelloRequest.newBuilder()
+                .setIntField(1)
+                .setStringField("string")
+                .setByteStringField(ByteString.copyFromUtf8("bytes"))
+                .setOther(HelloRequestProtocol.Other.newBuilder().setIntField(20).build())
+                .build();
+        byte[] serialBytes = serial.serialize(request);
+
+        Assert.assertEquals(request, serial.deserialize(ByteBuffer.wrap(serialBytes), HelloRequest.class));
+        ByteBuffer direct = ByteBuffer.allocateDirect(serialBytes.length);
+        direct.put(serialBytes).flip();
+        Assert.assertEquals(request, serial.deserialize(direct, HelloRequest.class));
+        Assert.assertEquals(request, serial.deserialize(new ByteArrayInputStream(serialBytes), HelloRequest.class));
+
+        // the buffer is neither consumed nor released, and the message does not refer to it
+        ByteBuf buf = Unpooled.directBuffer().writeBytes(serialBytes);
+        HelloRequest deserialize = serial.deserialize(buf, HelloRequest.class);
+        Assert.assertEquals(serialBytes.length, buf.readableBytes());
+        Assert.assertEquals(1, buf.refCnt());
+        buf.setZero(0, buf.readableBytes());
+        buf.release();
+        Assert.assertEquals(request, deserialize);
+
+        int half = serialBytes.length / 2;
+        CompositeByteBuf composite = Unpooled.compositeBuffer()
+                .addComponent(true, Unpooled.wrappedBuffer(serialBytes, 0, half))
+                .addComponent(true, Unpooled.wrappedBuffer(serialBytes, half, serialBytes.length - half));
+        Assert.assertEquals(request, serial.deserialize(composite, HelloRequest.class));
+        composite.release();
+
+        // the types other than pb messages are parsed by jpb
+        TestObj testObj = serial.deserialize(ByteBuffer.wrap(serialBytes), TestObj.class);
+        Assert.assertEquals(1, testObj.getIntField());
+        Assert.assertEquals(20, testObj.getOther().getIntField().intValue());
+        testObj = serial.deserialize(new ByteArrayInputStream(serialBytes), TestObj.class);
+        Assert.assertEquals("string", testObj.getStringField());
+    }
+
+    @Test
+    public void testPBSerializeTo() throws IOException {
+        PBSerialization serial = new PBSerialization();
+        HelloRequest request = HelloRequest.newBuilder()
+                .setIntField(1)
+                .setStringField("string")
+                .setOther(HelloRequestProtocol.Other.newBuilder().setIntField(20).build())
+                .build();
+        byte[] serialBytes = serial.serialize(request);
+        ByteBuf[] bufs = new ByteBuf[]{Unpooled.buffer(1), Unpooled.directBuffer(1), Unpooled.compositeBuffer()};
+        for (ByteBuf buf : bufs) {
+            buf.writeByte(1);
+            serial.serializeTo(request, buf);
+            Assert.assertEquals(1, buf.readByte());
+            Assert.assertArrayEquals(serialBytes, ByteBufUtil.getBytes(buf));
+            buf.release();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serial.serializeTo(request, out);
+        Assert.assertArrayEquals(serialBytes, out.toByteArray());
+
+        // the types other than pb messages are written by jpb
+        TestObj testObj = new TestObj();
+        testObj.setIntField(10);
+        testObj.setStringField("string");
+        byte[] jpbBytes = serial.serialize(testObj);
+        ByteBuf buf = Unpooled.directBuffer();
+        serial.serializeTo(testObj, buf);
+        Assert.assertArrayEquals(jpbBytes, ByteBufUtil.getBytes(buf));
+        buf.release();
+        out.reset();
+        serial.serializeTo(testObj, out);
+        Assert.assertArrayEquals(jpbBytes, out.toByteArray());
+    }
+
+    @Test
+    public void testPBParser() throws IOException {
+        Assert.assertSame(HelloRequest.parser(), ProtoParserManager.getParser(HelloRequest.class));
+        Assert.assertSame(HelloRequest.getDefaultInstance(), ProtoParserManager.getDefaultInstance(HelloRequest.class));
+
+        PBSerialization serial = new PBSerialization();
+        HelloRequest request = HelloRequest.newBuilder()
+                .setByteStringField(ByteString.copyFromUtf8("bytes"))
+                .build();
+        byte[] serialBytes = serial.serialize(request);
+        HelloRequest deserialize = serial.deserialize(serialBytes, HelloRequest.class);
+        Assert.assertEquals(request, deserialize);
+        // the bytes fields share the array
+        serialBytes[serialBytes.length - 1] = 'S';
+        Assert.assertEquals("byteS", deserialize.getByteStringField().toStringUtf8());
+    }
+
     public static class TestObj {
 
         @Protobuf(order = 1)
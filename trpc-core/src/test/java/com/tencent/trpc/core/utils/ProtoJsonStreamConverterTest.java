@@ -0,0 +1,307 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.core.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.EnumDescriptorProto;
+import com.google.protobuf.DescriptorProtos.EnumValueDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto.Label;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto.Type;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.MessageOptions;
+import com.google.protobuf.DescriptorProtos.OneofDescriptorProto;
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.DescriptorValidationException;
+import com.google.protobuf.Descriptors.EnumDescriptor;
+import com.google.protobuf.Descriptors.FileDescriptor;
+import com.google.protobuf.DynamicMessage;
+import com.google.protobuf.Message;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import com.tencent.trpc.core.utils.HelloRequestProtocol.HelloRequest;
+import com.tencent.trpc.core.utils.HelloRequestProtocol.Other;
+import com.tencent.trpc.core.utils.HelloRequestProtocol.Week;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+/**
+ * The streaming pb json converter is checked against the output and the parsing of {@link ProtoJsonConverter}.
+ */
+public class ProtoJsonStreamConverterTest {
+
+    private static final Descriptor ALL_TYPES = buildAllTypes("proto3");
+
+    private static final Descriptor ALL_TYPES_PROTO2 = buildAllTypes("proto2");
+
+    @Test
+    public void testHelloRequest() throws Exception {
+        HelloRequest request = HelloRequest.newBuilder()
+                .setIntField(-1).setStringField("string$中文\"\\\n").setBooleanField(true)
+                .setDoubleField(1.5E300).setFloatField(1.1f).setLongField(Long.MIN_VALUE)
+                .setByteStringField(ByteString.copyFrom(new byte[]{0, -1, 2}))
+                .setOther(Other.newBuilder().setIntField(2))
+                .addIntFields(1).addIntFields(2).addStringFields("a").addBooleanFields(false)
+                .addDoubleFields(Double.NaN).addFloatFields(Float.NEGATIVE_INFINITY).addLongFields(100)
+                .addByteStringFields(ByteString.copyFromUtf8("abcd")).addOthers(Other.getDefaultInstance())
+                .addWeeks(Week.FIRST)
+                .build();
+        assertCompatible(request);
+        assertCompatible(HelloRequest.getDefaultInstance());
+    }
+
+    @Test
+    public void testAllTypes() throws Exception {
+        for (Descriptor descriptor : new Descriptor[]{ALL_TYPES, ALL_TYPES_PROTO2}) {
+            assertCompatible(DynamicMessage.getDefaultInstance(descriptor));
+            assertCompatible(newAllTypes(descriptor));
+        }
+    }
+
+    @Test
+    public void testWriteTo() throws Exception {
+        Message message = newAllTypes(ALL_TYPES);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ProtoJsonStreamConverter.writeTo(message, out);
+        assertArrayEquals(ProtoJsonStreamConverter.toBytes(message), out.toByteArray());
+        assertEquals(message, ProtoJsonStreamConverter.fromInputStream(
+                new ByteArrayInputStream(out.toByteArray()), DynamicMessage.getDefaultInstance(ALL_TYPES)));
+    }
+
+    @Test
+    public void testFromBytes() throws Exception {
+        Message defaultInstance = DynamicMessage.getDefaultInstance(ALL_TYPES);
+        Message message = fromJson("{\"unknown\": {\"a\": [1, 2]}, \"i32\": \"-3\", \"u64\": 18446744073709551615,"
+                + " \"s_fixed64\": \"5\", \"dbl\": 1, \"flt\": \"Infinity\", \"color\": \"BLUE\","
+                + " \"int_map\": {\"7\": {\"i32\": 1}}}", defaultInstance);
+        DynamicMessage expected = DynamicMessage.newBuilder(ALL_TYPES)
+                .setField(ALL_TYPES.findFieldByName("i32"), -3)
+                .setField(ALL_TYPES.findFieldByName("u64"), -1L)
+                .setField(ALL_TYPES.findFieldByName("s_fixed64"), 5L)
+                .setField(ALL_TYPES.findFieldByName("dbl"), 1.0)
+                .setField(ALL_TYPES.findFieldByName("flt"), Float.POSITIVE_INFINITY)
+                .setField(ALL_TYPES.findFieldByName("color"), ALL_TYPES.getFile().findEnumTypeByName("Color")
+                        .findValueByName("BLUE"))
+                .addRepeatedField(ALL_TYPES.findFieldByName("int_map"), newMapEntry("int_map", 7,
+                        DynamicMessage.newBuilder(ALL_TYPES).setField(ALL_TYPES.findFieldByName("i32"), 1).build()))
+                .build();
+        assertEquals(expected, message);
+        assertEquals(expected, ProtoJsonConverter.jsonToMessage(new String(toBytes(message), StandardCharsets.UTF_8),
+                defaultInstance));
+        byte[] bytes = " {\"i32\": 1} ".getBytes(StandardCharsets.UTF_8);
+        assertEquals(1, ProtoJsonStreamConverter.fromBytes(bytes, 1, bytes.length - 1, defaultInstance)
+                .getField(ALL_TYPES.findFieldByName("i32")));
+    }
+
+    @Test
+    public void testFromBytesStrict() throws Exception {
+        Message defaultInstance = DynamicMessage.getDefaultInstance(ALL_TYPES);
+        String[] lenient = {"{\"i32\": null}", "{\"i32\": 1.0}", "{\"i32\": 2147483648}", "{\"u32\": -1}",
+                "{\"color\": \"PURPLE\"}", "{\"i32\": 1, \"i32\": 2}", "{\"sFixed32\": 1, \"s_fixed32\": 2}",
+                "{\"name\": \"a\", \"id\": 1}", "{\"bin\": \"_-8\"}", "{\"sub\": []}", "{} {}", "[]"};
+        for (String json : lenient) {
+            try {
+                fromJson(json, defaultInstance);
+                fail(json);
+            } catch (IllegalArgumentException expected) {
+                // left to the lenient parser
+            }
+        }
+    }
+
+    @Test
+    public void testIsSupported() {
+        assertTrue(ProtoJsonStreamConverter.isSupported(HelloRequest.getDescriptor()));
+        assertTrue(ProtoJsonStreamConverter.isSupported(ALL_TYPES));
+        assertFalse(ProtoJsonStreamConverter.isSupported(Struct.getDescriptor()));
+        assertFalse(ProtoJsonStreamConverter.isSupported(Value.getDescriptor()));
+        assertFalse(ProtoJsonStreamConverter.isSupported(ALL_TYPES.getFile().findMessageTypeByName("Wrapper")));
+        assertFalse(ProtoJsonStreamConverter.isSupported(ALL_TYPES_PROTO2.getFile().findMessageTypeByName(
+                "Extendable")));
+        try {
+            ProtoJsonStreamConverter.toBytes(Struct.getDefaultInstance());
+            fail();
+        } catch (Exception expected) {
+            assertTrue(expected instanceof IllegalArgumentException);
+        }
+    }
+
+    private static void assertCompatible(Message message) throws Exception {
+        byte[] expected = JsonUtils.toBytes(ProtoJsonConverter.messageToMap(message));
+        byte[] bytes = toBytes(message);
+        assertEquals(new String(expected, StandardCharsets.UTF_8), new String(bytes, StandardCharsets.UTF_8));
+        Message defaultInstance = message.getDefaultInstanceForType();
+        Message parsed = fromJson(new String(bytes, StandardCharsets.UTF_8), defaultInstance);
+        assertEquals(ProtoJsonConverter.jsonToMessage(new String(bytes, StandardCharsets.UTF_8), defaultInstance),
+                parsed);
+        // the floats are written through doubles and read back as the same floats
+        assertArrayEquals(bytes, toBytes(parsed));
+    }
+
+    private static byte[] toBytes(Message message) throws Exception {
+        return ProtoJsonStreamConverter.toBytes(message);
+    }
+
+    private static Message fromJson(String json, Message defaultInstance) throws Exception {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return ProtoJsonStreamConverter.fromBytes(bytes, 0, bytes.length, defaultInstance);
+    }
+
+    private static Message newAllTypes(Descriptor descriptor) {
+        EnumDescriptor color = descriptor.getFile().findEnumTypeByName("Color");
+        DynamicMessage sub = DynamicMessage.newBuilder(descriptor)
+                .setField(descriptor.findFieldByName("str"), "sub")
+                .build();
+        DynamicMessage.Builder builder = DynamicMessage.newBuilder(descriptor)
+                .setField(descriptor.findFieldByName("i32"), Integer.MIN_VALUE)
+                .setField(descriptor.findFieldByName("i64"), Long.MAX_VALUE)
+                .setField(descriptor.findFieldByName("u32"), -1)
+                .setField(descriptor.findFieldByName("u64"), Long.MIN_VALUE)
+                .setField(descriptor.findFieldByName("s32"), -5)
+                .setField(descriptor.findFieldByName("s64"), -6L)
+                .setField(descriptor.findFieldByName("fixed32"), Integer.MIN_VALUE)
+                .setField(descriptor.findFieldByName("fixed64"), -1L)
+                .setField(descriptor.findFieldByName("s_fixed32"), 9)
+                .setField(descriptor.findFieldByName("s_fixed64"), -10L)
+                .setField(descriptor.findFieldByName("flt"), 0.1f)
+                .setField(descriptor.findFieldByName("dbl"), -2.5E-300)
+                .setField(descriptor.findFieldByName("bool_value"), true)
+                .setField(descriptor.findFieldByName("str"), "\u0001é😀")
+                .setField(descriptor.findFieldByName("bin"), ByteString.copyFrom(new byte[]{-5, -1}))
+                .setField(descriptor.findFieldByName("color"), color.findValueByName("BLUE"))
+                .setField(descriptor.findFieldByName("sub"), sub)
+                .addRepeatedField(descriptor.findFieldByName("floats"), Float.NaN)
+                .addRepeatedField(descriptor.findFieldByName("floats"), Float.MAX_VALUE)
+                .addRepeatedField(descriptor.findFieldByName("floats"), 3.4e-40f)
+                .addRepeatedField(descriptor.findFieldByName("u64s"), -2L)
+                .addRepeatedField(descriptor.findFieldByName("colors"), color.findValueByName("RED"))
+                .addRepeatedField(descriptor.findFieldByName("colors"), color.findValueByName("BLUE"))
+                .addRepeatedField(descriptor.findFieldByName("subs"), sub)
+                .addRepeatedField(descriptor.findFieldByName("subs"), DynamicMessage.getDefaultInstance(descriptor))
+                .setField(descriptor.findFieldByName("id"), 0);
+        if ("proto3".equals(descriptor.getFile().toProto().getSyntax())) {
+            builder.setField(descriptor.findFieldByName("opt"), 0L)
+                    .addRepeatedField(descriptor.findFieldByName("colors"), color.findValueByNumberCreatingIfUnknown(7));
+        }
+        return builder
+                .addRepeatedField(descriptor.findFieldByName("str_map"), newMapEntry(descriptor, "str_map", "b", "1"))
+                .addRepeatedField(descriptor.findFieldByName("str_map"), newMapEntry(descriptor, "str_map", "a", "2"))
+                .addRepeatedField(descriptor.findFieldByName("int_map"), newMapEntry(descriptor, "int_map", -1, sub))
+                .addRepeatedField(descriptor.findFieldByName("bool_map"), newMapEntry(descriptor, "bool_map", true,
+                        color.findValueByName("BLUE")))
+                .addRepeatedField(descriptor.findFieldByName("u64_map"), newMapEntry(descriptor, "u64_map", -1L, 3L))
+                .build();
+    }
+
+    private static Message newMapEntry(String field, Object key, Object value) {
+        return newMapEntry(ALL_TYPES, field, key, value);
+    }
+
+    private static Message newMapEntry(Descriptor descriptor, String field, Object key, Object value) {
+        Descriptor entry = descriptor.findFieldByName(field).getMessageType();
+        return DynamicMessage.newBuilder(entry)
+                .setField(entry.findFieldByNumber(1), key)
+                .setField(entry.findFieldByNumber(2), value)
+                .build();
+    }
+
+    private static Descriptor buildAllTypes(String syntax) {
+        boolean proto3 = "proto3".equals(syntax);
+        DescriptorProto.Builder allTypes = DescriptorProto.newBuilder().setName("AllTypes")
+                .addField(field("i32", 20, Type.TYPE_INT32))
+                .addField(field("i64", 2, Type.TYPE_INT64))
+                .addField(field("u32", 3, Type.TYPE_UINT32))
+                .addField(field("u64", 4, Type.TYPE_UINT64))
+                .addField(field("s32", 5, Type.TYPE_SINT32))
+                .addField(field("s64", 6, Type.TYPE_SINT64))
+                .addField(field("fixed32", 7, Type.TYPE_FIXED32))
+                .addField(field("fixed64", 8, Type.TYPE_FIXED64))
+                .addField(field("s_fixed32", 9, Type.TYPE_SFIXED32))
+                .addField(field("s_fixed64", 10, Type.TYPE_SFIXED64))
+                .addField(field("flt", 11, Type.TYPE_FLOAT))
+                .addField(field("dbl", 12, Type.TYPE_DOUBLE))
+                .addField(field("bool_value", 13, Type.TYPE_BOOL))
+                .addField(field("str", 14, Type.TYPE_STRING))
+                .addField(field("bin", 15, Type.TYPE_BYTES))
+                .addField(field("color", 16, Type.TYPE_ENUM).setTypeName(".test.Color"))
+                .addField(field("sub", 17, Type.TYPE_MESSAGE).setTypeName(".test.AllTypes"))
+                .addField(field("floats", 18, Type.TYPE_FLOAT).setLabel(Label.LABEL_REPEATED))
+                .addField(field("u64s", 19, Type.TYPE_UINT64).setLabel(Label.LABEL_REPEATED))
+                .addField(field("colors", 1, Type.TYPE_ENUM).setTypeName(".test.Color")
+                        .setLabel(Label.LABEL_REPEATED))
+                .addField(field("subs", 21, Type.TYPE_MESSAGE).setTypeName(".test.AllTypes")
+                        .setLabel(Label.LABEL_REPEATED))
+                .addField(field("name", 22, Type.TYPE_STRING).setOneofIndex(0))
+                .addField(field("id", 23, Type.TYPE_INT32).setOneofIndex(0))
+                .addField(field("str_map", 25, Type.TYPE_MESSAGE).setTypeName(".test.AllTypes.StrMapEntry")
+                        .setLabel(Label.LABEL_REPEATED))
+                .addField(field("int_map", 26, Type.TYPE_MESSAGE).setTypeName(".test.AllTypes.IntMapEntry")
+                        .setLabel(Label.LABEL_REPEATED))
+                .addField(field("bool_map", 27, Type.TYPE_MESSAGE).setTypeName(".test.AllTypes.BoolMapEntry")
+                        .setLabel(Label.LABEL_REPEATED))
+                .addField(field("u64_map", 28, Type.TYPE_MESSAGE).setTypeName(".test.AllTypes.U64MapEntry")
+                        .setLabel(Label.LABEL_REPEATED))
+                .addOneofDecl(OneofDescriptorProto.newBuilder().setName("choice"))
+                .addNestedType(mapEntry("StrMapEntry", Type.TYPE_STRING, field("value", 2, Type.TYPE_STRING)))
+                .addNestedType(mapEntry("IntMapEntry", Type.TYPE_INT32,
+                        field("value", 2, Type.TYPE_MESSAGE).setTypeName(".test.AllTypes")))
+                .addNestedType(mapEntry("BoolMapEntry", Type.TYPE_BOOL,
+                        field("value", 2, Type.TYPE_ENUM).setTypeName(".test.Color")))
+                .addNestedType(mapEntry("U64MapEntry", Type.TYPE_UINT64, field("value", 2, Type.TYPE_SFIXED64)));
+        if (proto3) {
+            allTypes.addField(field("opt", 24, Type.TYPE_INT64).setOneofIndex(1).setProto3Optional(true))
+                    .addOneofDecl(OneofDescriptorProto.newBuilder().setName("_opt"));
+        }
+        FileDescriptorProto.Builder file = FileDescriptorProto.newBuilder()
+                .setName("all_types_" + syntax + ".proto")
+                .setPackage("test")
+                .setSyntax(syntax)
+                .addEnumType(EnumDescriptorProto.newBuilder().setName("Color")
+                        .addValue(EnumValueDescriptorProto.newBuilder().setName("RED").setNumber(0))
+                        .addValue(EnumValueDescriptorProto.newBuilder().setName("BLUE").setNumber(3)))
+                .addMessageType(allTypes)
+                .addMessageType(DescriptorProto.newBuilder().setName("Wrapper")
+                        .addField(field("value", 1, Type.TYPE_MESSAGE).setTypeName(".google.protobuf.Value")));
+        if (!proto3) {
+            file.addMessageType(DescriptorProto.newBuilder().setName("Extendable")
+                    .addExtensionRange(DescriptorProto.ExtensionRange.newBuilder().setStart(100).setEnd(200)));
+        }
+        try {
+            return FileDescriptor.buildFrom(file.build(), new FileDescriptor[]{Value.getDescriptor().getFile()})
+                    .findMessageTypeByName("AllTypes");
+        } catch (DescriptorValidationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static DescriptorProto.Builder mapEntry(String name, Type keyType, FieldDescriptorProto.Builder value) {
+        return DescriptorProto.newBuilder().setName(name)
+                .setOptions(MessageOptions.newBuilder().setMapEntry(true))
+                .addField(field("key", 1, keyType))
+                .addField(value);
+    }
+
+    private static FieldDescriptorProto.Builder field(String name, int number, Type type) {
+        return FieldDescriptorProto.newBuilder().setName(name).setNumber(number).setType(type)
+                .setLabel(Label.LABEL_OPTIONAL);
+    }
+
+}
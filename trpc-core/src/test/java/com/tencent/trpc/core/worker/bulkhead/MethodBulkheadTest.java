@@ -0,0 +1,185 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+
+package com.tencent.trpc.core.worker.bulkhead;
+
+import com.google.common.collect.ImmutableMap;
+import com.tencent.trpc.core.management.PoolMXBean;
+import com.tencent.trpc.core.rpc.common.MethodRouterKey;
+import com.tencent.trpc.core.worker.AbstractWorkerPool;
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MethodBulkheadTest {
+
+    private ManualWorkerPool workerPool;
+
+    @Before
+    public void setUp() {
+        workerPool = new ManualWorkerPool();
+        MethodBulkheadManager.reset();
+    }
+
+    @Test
+    public void testConfig() {
+        BulkheadConfig config = BulkheadConfig.parse(ImmutableMap.of(BulkheadConfig.METHOD, "query",
+                BulkheadConfig.MAX_CONCURRENCY, 2, BulkheadConfig.MAX_QUEUE, 3));
+        config.validate();
+        Assert.assertEquals("query", config.getMethod());
+        Assert.assertEquals(2, config.getMaxConcurrency());
+        Assert.assertEquals(3, config.getMaxQueue());
+        Assert.assertNull(config.getWorkerPool());
+        Assert.assertTrue(config.matches(new MethodRouterKey("trpc.app.server.Greeter", "query")));
+        Assert.assertFalse(config.matches(new MethodRouterKey("trpc.app.server.Greeter", "hello")));
+        config.setMethod("/trpc.app.server.Greeter/hello");
+        Assert.assertTrue(config.matches(new MethodRouterKey("trpc.app.server.Greeter", "hello")));
+        config.setMethod("/trpc/app/server/Greeter/hello");
+        Assert.assertTrue(config.matches(new MethodRouterKey("trpc.app.server.Greeter", "hello")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConfigWithoutLimit() {
+        new BulkheadConfig().setMethod("query").validate();
+    }
+
+    @Test
+    public void testConfigQueueWithoutConcurrency() {
+        new BulkheadConfig().setMethod("query").setWorkerPool("report_pool").validate();
+        try {
+            new BulkheadConfig().setMethod("query").setWorkerPool("report_pool").setMaxQueue(3).validate();
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+            Assert.assertTrue(ex.getMessage(), ex.getMessage().contains("requires max_concurrency"));
+        }
+    }
+
+    @Test
+    public void testMaxConcurrencyAndQueue() {
+        MethodBulkhead bulkhead = new MethodBulkhead("query", workerPool,
+                new BulkheadConfig().setMethod("query").setMaxConcurrency(2).setMaxQueue(1));
+        AtomicInteger executed = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            bulkhead.execute(executed::incrementAndGet, ex -> Assert.fail());
+        }
+        Assert.assertEquals(2, workerPool.tasks.size());
+        Assert.assertEquals(2, bulkhead.getActiveCount());
+        Assert.assertEquals(1, bulkhead.getQueueSize());
+        try {
+            bulkhead.execute(executed::incrementAndGet, ex -> Assert.fail());
+            Assert.fail();
+        } catch (RejectedExecutionException ex) {
+            Assert.assertTrue(ex.getMessage().contains("query"));
+        }
+        Assert.assertEquals(1, bulkhead.getRejectedCount());
+
+        // finish one request, the queued one takes the permit
+        workerPool.runNext();
+        Assert.assertEquals(2, bulkhead.getActiveCount());
+        Assert.assertEquals(0, bulkhead.getQueueSize());
+        workerPool.runAll();
+        Assert.assertEquals(3, executed.get());
+        Assert.assertEquals(0, bulkhead.getActiveCount());
+        Assert.assertEquals(3, bulkhead.getCompletedCount());
+    }
+
+    @Test
+    public void testUnlimitedConcurrency() {
+        MethodBulkhead bulkhead = new MethodBulkhead("query", workerPool,
+                new BulkheadConfig().setMethod("query").setWorkerPool("report_pool"));
+        for (int i = 0; i < 10; i++) {
+            bulkhead.execute(() -> {
+            }, ex -> Assert.fail());
+        }
+        Assert.assertEquals(10, bulkhead.getActiveCount());
+        workerPool.runAll();
+        Assert.assertEquals(0, bulkhead.getActiveCount());
+        Assert.assertEquals("manual", bulkhead.getWorkerPoolName());
+    }
+
+    @Test
+    public void testWorkerPoolReject() {
+        MethodBulkhead bulkhead = new MethodBulkhead("query", workerPool,
+                new BulkheadConfig().setMethod("query").setMaxConcurrency(1).setMaxQueue(1));
+        bulkhead.execute(() -> {
+        }, ex -> Assert.fail());
+        AtomicReference<Throwable> rejected = new AtomicReference<>();
+        bulkhead.execute(() -> {
+        }, rejected::set);
+        workerPool.reject = true;
+        workerPool.runNext();
+        Assert.assertTrue(rejected.get() instanceof RejectedExecutionException);
+        Assert.assertEquals(0, bulkhead.getActiveCount());
+        Assert.assertEquals(0, bulkhead.getQueueSize());
+        Assert.assertEquals(1, bulkhead.getRejectedCount());
+    }
+
+    @Test
+    public void testManager() {
+        MethodBulkhead bulkhead = MethodBulkheadManager.register("/trpc.app.server.Greeter/query",
+                new BulkheadConfig().setMethod("query").setMaxConcurrency(1), workerPool);
+        Assert.assertSame(bulkhead, MethodBulkheadManager.get("/trpc.app.server.Greeter/query"));
+        Assert.assertEquals(1, MethodBulkheadManager.getAll().size());
+        MethodBulkheadManager.unregister("/trpc.app.server.Greeter/query");
+        Assert.assertTrue(MethodBulkheadManager.getAll().isEmpty());
+    }
+
+    private static class ManualWorkerPool extends AbstractWorkerPool {
+
+        private final List<Task> tasks = new ArrayList<>();
+        private boolean reject;
+
+        void runNext() {
+            tasks.remove(0).run();
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                runNext();
+            }
+        }
+
+        @Override
+        public String getName() {
+            return "manual";
+        }
+
+        @Override
+        public void execute(Task task) throws RejectedExecutionException {
+            if (reject) {
+                throw new RejectedExecutionException("reject");
+            }
+            tasks.add(task);
+        }
+
+        @Override
+        public PoolMXBean report() {
+            return null;
+        }
+
+        @Override
+        public void close(long timeoutMills) {
+        }
+
+        @Override
+        public UncaughtExceptionHandler getUncaughtExceptionHandler() {
+            return null;
+        }
+    }
+
+}
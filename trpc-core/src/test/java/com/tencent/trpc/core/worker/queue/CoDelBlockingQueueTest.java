@@ -0,0 +1,276 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+
+package com.tencent.trpc.core.worker.queue;
+
+import com.google.common.collect.ImmutableMap;
+import com.tencent.trpc.core.exception.ErrorCode;
+import com.tencent.trpc.core.exception.TRpcException;
+import com.tencent.trpc.core.rpc.Request;
+import com.tencent.trpc.core.rpc.def.DefRequest;
+import com.tencent.trpc.core.worker.queue.QueuePolicyConfig.QueuePolicy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CoDelBlockingQueueTest {
+
+    private static final String PRIORITY_KEY = "trpc-priority";
+
+    @Test
+    public void testParseConfig() {
+        Map<String, Object> map = new HashMap<>();
+        map.put(QueuePolicyConfig.QUEUE_POLICY, "codel");
+        map.put(QueuePolicyConfig.CODEL_TARGET_MILLS, 10);
+        map.put(QueuePolicyConfig.CODEL_INTERVAL_MILLS, 50);
+        map.put(QueuePolicyConfig.ADAPTIVE_LIFO, true);
+        map.put(QueuePolicyConfig.PRIORITY_LEVELS, 3);
+        map.put(QueuePolicyConfig.PRIORITY_ATTACHMENT_KEY, PRIORITY_KEY);
+        map.put(QueuePolicyConfig.CALLER_PRIORITIES, ImmutableMap.of("trpc.app.server.admin", 0));
+        QueuePolicyConfig config = QueuePolicyConfig.parse("pool", map);
+        config.validate();
+        Assert.assertEquals(QueuePolicy.CODEL, config.getQueuePolicy());
+        Assert.assertEquals(10, config.getCodelTargetMills());
+        Assert.assertEquals(50, config.getCodelIntervalMills());
+        Assert.assertTrue(config.isAdaptiveLifo());
+        Assert.assertEquals(3, config.getPriorityLevels());
+        Assert.assertEquals(2, config.getDefaultPriority());
+        Assert.assertEquals(PRIORITY_KEY, config.getPriorityAttachmentKey());
+        Assert.assertEquals(Integer.valueOf(0), config.getCallerPriorities().get("trpc.app.server.admin"));
+
+        QueuePolicyConfig defaultConfig = QueuePolicyConfig.parse("pool", new HashMap<>());
+        defaultConfig.validate();
+        Assert.assertEquals(QueuePolicy.FIFO, defaultConfig.getQueuePolicy());
+        Assert.assertEquals(0, defaultConfig.getDefaultPriority());
+        Assert.assertNull(defaultConfig.getPriorityAttachmentKey());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testValidateInterval() {
+        new QueuePolicyConfig().setCodelTargetMills(10).setCodelIntervalMills(5).validate();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testValidateUnknownPolicy() {
+        QueuePolicyConfig.parse("pool", ImmutableMap.of(QueuePolicyConfig.QUEUE_POLICY, "red")).validate();
+    }
+
+    @Test
+    public void testClassify() {
+        QueuePolicyConfig config = new QueuePolicyConfig().setPriorityLevels(3).setDefaultPriority(2)
+                .setCallerPriorities(ImmutableMap.of("caller", 1));
+        DefRequest request = new DefRequest();
+        Assert.assertEquals(2, config.classify(() -> {
+        }));
+        Assert.assertEquals(2, config.classify(new TestTask(request, null)));
+        request.getMeta().getCallInfo().setCaller("caller");
+        Assert.assertEquals(1, config.classify(new TestTask(request, null)));
+        request.putAttachment(PRIORITY_KEY, "0".getBytes(StandardCharsets.UTF_8));
+        // the attachment is set by the caller, ignored unless its key is configured
+        Assert.assertEquals(1, config.classify(new TestTask(request, null)));
+        config.setPriorityAttachmentKey(PRIORITY_KEY);
+        Assert.assertEquals(0, config.classify(new TestTask(request, null)));
+        request.putAttachment(PRIORITY_KEY, "9");
+        Assert.assertEquals(2, config.classify(new TestTask(request, null)));
+        request.putAttachment(PRIORITY_KEY, "high");
+        Assert.assertEquals(1, config.classify(new TestTask(request, null)));
+    }
+
+    @Test
+    public void testPriority() throws InterruptedException {
+        QueuePolicyConfig config = new QueuePolicyConfig().setPriorityLevels(2).setDefaultPriority(1)
+                .setPriorityAttachmentKey(PRIORITY_KEY).setCodelTargetMills(1000).setCodelIntervalMills(1000);
+        CoDelBlockingQueue queue = new CoDelBlockingQueue(3, config);
+        List<String> order = new ArrayList<>();
+        DefRequest high = new DefRequest();
+        high.putAttachment(PRIORITY_KEY, "0");
+        Assert.assertTrue(queue.offer(queue.newQueuedCommand(new TestTask(new DefRequest(), null),
+                () -> order.add("low1"))));
+        Assert.assertTrue(queue.offer(queue.newQueuedCommand(new TestTask(new DefRequest(), null),
+                () -> order.add("low2"))));
+        Assert.assertTrue(queue.offer(queue.newQueuedCommand(new TestTask(high, null), () -> order.add("high"))));
+        Assert.assertFalse(queue.offer(() -> order.add("full")));
+        Assert.assertEquals(3, queue.size());
+        Assert.assertEquals(0, queue.remainingCapacity());
+        queue.take().run();
+        queue.poll(10, TimeUnit.MILLISECONDS).run();
+        queue.poll().run();
+        Assert.assertNull(queue.poll(1, TimeUnit.MILLISECONDS));
+        Assert.assertEquals("high", order.get(0));
+        Assert.assertEquals("low1", order.get(1));
+        Assert.assertEquals("low2", order.get(2));
+        Assert.assertEquals(0, queue.getDroppedCount());
+    }
+
+    @Test
+    public void testDropAndLifo() throws InterruptedException {
+        QueuePolicyConfig config = new QueuePolicyConfig().setCodelTargetMills(1).setCodelIntervalMills(5)
+                .setAdaptiveLifo(true);
+        CoDelBlockingQueue queue = new CoDelBlockingQueue(0, config);
+        AtomicReference<Throwable> rejected = new AtomicReference<>();
+        queue.offer(queue.newQueuedCommand(new TestTask(new DefRequest(), rejected), () -> {
+        }));
+        TimeUnit.MILLISECONDS.sleep(20);
+        // queued longer than the interval, but no standing queue has been measured, not in the dropping state
+        Assert.assertNotNull(queue.poll());
+        Assert.assertEquals(0, queue.getDroppedCount());
+        Assert.assertNull(rejected.get());
+
+        // build a standing queue so that the queue becomes overloaded
+        queue = new CoDelBlockingQueue(0, new QueuePolicyConfig().setCodelTargetMills(1)
+                .setCodelIntervalMills(50).setAdaptiveLifo(true));
+        List<String> order = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String name = "task" + i;
+            queue.offer(queue.newQueuedCommand(new TestTask(new DefRequest(), rejected), () -> order.add(name)));
+        }
+        TimeUnit.MILLISECONDS.sleep(10);
+        queue.poll().run();
+        Assert.assertFalse(queue.isOverloaded());
+        TimeUnit.MILLISECONDS.sleep(55);
+        // the minimum sojourn time of the last interval is above the target
+        Assert.assertNull(queue.poll());
+        Assert.assertTrue(queue.isOverloaded());
+        Assert.assertTrue(queue.getMinSojournTimeMicros() >= TimeUnit.MILLISECONDS.toMicros(10));
+        Assert.assertEquals(2, queue.getDroppedCount());
+        Assert.assertTrue(rejected.get() instanceof TRpcException);
+        Assert.assertEquals(ErrorCode.TRPC_SERVER_OVERLOAD_ERR, ((TRpcException) rejected.get()).getCode());
+        Assert.assertEquals("task0", order.get(0));
+
+        // a task which can not reply its request is never dropped
+        queue.offer(() -> order.add("stale"));
+        TimeUnit.MILLISECONDS.sleep(5);
+        queue.poll().run();
+        Assert.assertTrue(queue.isOverloaded());
+        Assert.assertEquals(2, queue.getDroppedCount());
+        Assert.assertEquals("stale", order.get(1));
+
+        // fresh tasks are served newest first while overloaded
+        queue.offer(() -> order.add("first"));
+        queue.offer(() -> order.add("second"));
+        queue.take().run();
+        queue.take().run();
+        Assert.assertEquals("second", order.get(2));
+        Assert.assertEquals("first", order.get(3));
+        Assert.assertTrue(queue.getAvgSojournTimeMicros() > 0);
+    }
+
+    @Test
+    public void testSustainedOverload() throws InterruptedException {
+        CoDelBlockingQueue queue = new CoDelBlockingQueue(0, new QueuePolicyConfig().setCodelTargetMills(5)
+                .setCodelIntervalMills(20).setAdaptiveLifo(true));
+        AtomicReference<Throwable> rejected = new AtomicReference<>();
+        List<String> order = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            queue.offer(queue.newQueuedCommand(new TestTask(new DefRequest(), rejected), () -> order.add("old")));
+        }
+        TimeUnit.MILLISECONDS.sleep(10);
+        queue.poll().run();
+        // two tasks arrive for every one served, for several intervals
+        int rounds = 10;
+        for (int i = 0; i < rounds; i++) {
+            String name = "round" + i;
+            queue.offer(queue.newQueuedCommand(new TestTask(new DefRequest(), rejected), () -> order.add(name + "a")));
+            queue.offer(queue.newQueuedCommand(new TestTask(new DefRequest(), rejected), () -> order.add(name + "b")));
+            queue.poll().run();
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        // serving the newest task does not hide the standing queue, the queue stays in the dropping state
+        Assert.assertTrue(queue.isOverloaded());
+        for (int i = rounds / 2; i < rounds; i++) {
+            Assert.assertEquals("round" + i + "b", order.get(i + 1));
+        }
+        // the stale tasks are shed from the oldest end, only the last unserved one is left
+        Assert.assertEquals(1, queue.size());
+        Assert.assertTrue(queue.getDroppedCount() >= rounds / 2);
+        Assert.assertEquals(ErrorCode.TRPC_SERVER_OVERLOAD_ERR, ((TRpcException) rejected.get()).getCode());
+    }
+
+    @Test
+    public void testPutWaitsForSpace() throws InterruptedException {
+        CoDelBlockingQueue queue = new CoDelBlockingQueue(1, new QueuePolicyConfig());
+        queue.put(() -> {
+        });
+        Assert.assertFalse(queue.offer(() -> {
+        }, 10, TimeUnit.MILLISECONDS));
+        Thread consumer = new Thread(() -> {
+            try {
+                TimeUnit.MILLISECONDS.sleep(20);
+                queue.take();
+                TimeUnit.MILLISECONDS.sleep(20);
+                queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        consumer.start();
+        Assert.assertTrue(queue.offer(() -> {
+        }, 5, TimeUnit.SECONDS));
+        queue.put(() -> {
+        });
+        consumer.join(5000);
+        Assert.assertEquals(1, queue.size());
+    }
+
+    @Test
+    public void testCollectionMethods() {
+        CoDelBlockingQueue queue = new CoDelBlockingQueue(10, new QueuePolicyConfig());
+        Runnable first = () -> {
+        };
+        Runnable second = () -> {
+        };
+        queue.offer(first);
+        queue.offer(second);
+        Assert.assertSame(first, queue.peek());
+        Assert.assertEquals(2, queue.stream().count());
+        Assert.assertTrue(queue.remove(first));
+        Assert.assertFalse(queue.remove(first));
+        List<Runnable> drained = new ArrayList<>();
+        Assert.assertEquals(1, queue.drainTo(drained));
+        Assert.assertSame(second, drained.get(0));
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertEquals(0, queue.getAvgSojournTimeMicros());
+    }
+
+    private static class TestTask implements AdmissionTask {
+
+        private final Request request;
+        private final AtomicReference<Throwable> rejected;
+
+        TestTask(Request request, AtomicReference<Throwable> rejected) {
+            this.request = request;
+            this.rejected = rejected;
+        }
+
+        @Override
+        public Request getRequest() {
+            return request;
+        }
+
+        @Override
+        public void reject(Throwable cause) {
+            rejected.set(cause);
+        }
+
+        @Override
+        public void run() {
+        }
+
+    }
+
+}
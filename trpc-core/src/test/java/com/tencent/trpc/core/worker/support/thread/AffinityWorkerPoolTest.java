@@ -0,0 +1,197 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+
+package com.tencent.trpc.core.worker.support.thread;
+
+import com.tencent.trpc.core.common.config.PluginConfig;
+import com.tencent.trpc.core.management.AffinityThreadPoolMXBean;
+import com.tencent.trpc.core.worker.spi.WorkerPool;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutor;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AffinityWorkerPoolTest {
+
+    private AffinityWorkerPool workerPool;
+
+    @After
+    public void tearDown() {
+        if (workerPool != null) {
+            workerPool.close(1000);
+        }
+    }
+
+    private AffinityWorkerPool newWorkerPool(int partitions, int queueSize, boolean workStealing) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(AffinityPoolConfig.PARTITIONS, partitions);
+        properties.put(AffinityPoolConfig.THREADS_PER_PARTITION, 1);
+        properties.put(AffinityPoolConfig.QUEUE_SIZE, queueSize);
+        properties.put(AffinityPoolConfig.WORK_STEALING, workStealing);
+        PluginConfig pluginConfig = new PluginConfig("affinity_test", WorkerPool.class, AffinityWorkerPool.class,
+                properties);
+        AffinityWorkerPool pool = new AffinityWorkerPool();
+        pool.setPluginConfig(pluginConfig);
+        pool.init();
+        return pool;
+    }
+
+    @Test
+    public void testConfig() {
+        AffinityPoolConfig config = AffinityPoolConfig.parse("affinity_test", new HashMap<>());
+        config.validate();
+        Assert.assertTrue(config.getPartitions() > 0);
+        Assert.assertTrue(config.getThreadsPerPartition() > 0);
+        Assert.assertTrue(config.isWorkStealing());
+        Assert.assertEquals("affinity_test", config.getNamePrefix());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConfigValidate() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(AffinityPoolConfig.PARTITIONS, 0);
+        AffinityPoolConfig.parse("affinity_test", properties).validate();
+    }
+
+    @Test
+    public void testSameSubmitterSamePartition() throws InterruptedException {
+        workerPool = newWorkerPool(4, 100, false);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        CountDownLatch latch = new CountDownLatch(20);
+        for (int i = 0; i < 20; i++) {
+            workerPool.execute(() -> {
+                threads.add(Thread.currentThread().getName());
+                latch.countDown();
+            });
+        }
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        // one worker per partition, all tasks of this thread run on the bound partition
+        Assert.assertEquals(1, threads.size());
+        AffinityThreadPoolMXBean mxBean = (AffinityThreadPoolMXBean) workerPool.report();
+        Assert.assertEquals(4, mxBean.getPartitionCount());
+        Assert.assertEquals(4, mxBean.getMaximumPoolSize());
+        Assert.assertEquals(20, mxBean.getTaskCount());
+        Assert.assertEquals(0, mxBean.getStolenTaskCount());
+    }
+
+    @Test
+    public void testEventLoopPartition() throws InterruptedException, ExecutionException {
+        workerPool = newWorkerPool(2, 100, false);
+        DefaultEventExecutorGroup group = new DefaultEventExecutorGroup(2);
+        try {
+            List<Set<String>> loopThreads = new ArrayList<>();
+            for (EventExecutor loop : group) {
+                Set<String> threads = ConcurrentHashMap.newKeySet();
+                CountDownLatch latch = new CountDownLatch(10);
+                loop.submit(() -> {
+                    for (int i = 0; i < 10; i++) {
+                        workerPool.execute(() -> {
+                            threads.add(Thread.currentThread().getName());
+                            latch.countDown();
+                        });
+                    }
+                }).get();
+                Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+                loopThreads.add(threads);
+            }
+            // each loop of the group has its own partition, one worker per partition
+            Assert.assertEquals(1, loopThreads.get(0).size());
+            Assert.assertEquals(1, loopThreads.get(1).size());
+            Assert.assertNotEquals(loopThreads.get(0), loopThreads.get(1));
+        } finally {
+            group.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testWorkStealing() throws InterruptedException {
+        workerPool = newWorkerPool(2, 100, true);
+        CountDownLatch block = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(10);
+        workerPool.execute(() -> {
+            try {
+                block.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        for (int i = 0; i < 10; i++) {
+            workerPool.execute(done::countDown);
+        }
+        // the worker of this thread's partition is blocked, the other partition steals the tasks
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+        block.countDown();
+        AffinityThreadPoolMXBean mxBean = (AffinityThreadPoolMXBean) workerPool.report();
+        Assert.assertTrue(mxBean.getStolenTaskCount() > 0);
+    }
+
+    @Test
+    public void testReject() throws InterruptedException {
+        workerPool = newWorkerPool(1, 1, false);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch block = new CountDownLatch(1);
+        workerPool.execute(() -> {
+            started.countDown();
+            try {
+                block.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        workerPool.execute(() -> {
+        });
+        try {
+            workerPool.execute(() -> {
+            });
+            Assert.fail();
+        } catch (RejectedExecutionException ex) {
+            Assert.assertTrue(ex.getMessage().contains("queue size full"));
+        }
+        Assert.assertEquals(1, ((AffinityThreadPoolMXBean) workerPool.report()).getRejectedTaskCount());
+        block.countDown();
+    }
+
+    @Test
+    public void testCloseDrainsQueues() throws InterruptedException {
+        workerPool = newWorkerPool(4, 100, true);
+        CountDownLatch done = new CountDownLatch(10);
+        for (int i = 0; i < 10; i++) {
+            workerPool.execute(done::countDown);
+        }
+        long start = System.currentTimeMillis();
+        workerPool.close(5000);
+        // idle workers are woken up at once instead of waiting the timeout of every worker in turn
+        Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+        Assert.assertEquals(0, done.getCount());
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testExecuteAfterClose() {
+        workerPool = newWorkerPool(1, 1, false);
+        workerPool.close(0);
+        workerPool.execute(() -> {
+        });
+    }
+
+}
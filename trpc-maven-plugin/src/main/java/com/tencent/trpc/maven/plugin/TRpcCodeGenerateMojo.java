@@ -174,6 +174,13 @@ public class TRpcCodeGenerateMojo extends AbstractMojo {
     @Parameter
     private boolean noPom;
 
+    /**
+     * Will not generate the service stubs (*APIStub.java) if set to true. The stubs let the tRPC runtime call the
+     * generated interfaces without reflection or dynamic proxies; without them it falls back to reflection.
+     */
+    @Parameter
+    private boolean noStub;
+
     /**
      * Additional custom code templates, for customizing plugin behavior.
      */
@@ -207,6 +214,7 @@ public class TRpcCodeGenerateMojo extends AbstractMojo {
                         .templateContextProvider(new FreeMarkerContextProvider())
                         .codeTemplates(prepareCodeTemplates())
                         .noPom(noPom)
+                        .noStub(noStub)
                         .build())
                 .protoc(prepareProtocBinaries())
                 .protoPath(Paths.get(protoSourceRoot))
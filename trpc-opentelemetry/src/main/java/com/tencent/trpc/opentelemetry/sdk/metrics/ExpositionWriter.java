@@ -0,0 +1,183 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.opentelemetry.sdk.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the exposition text as UTF-8 bytes into a per thread reused buffer, which is flushed to the underlying
+ * stream when full, so that a scrape does not build a String for each data point. Numbers are written digit by digit
+ * without creating strings, except the non-integral doubles.
+ */
+class ExpositionWriter {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Integral doubles below this are written as longs, larger ones fall back to {@link Double#toString(double)}
+     */
+    private static final double MAX_LONG_DOUBLE = 1e15;
+
+    private static final byte[] POSITIVE_INF = {'+', 'I', 'n', 'f'};
+    private static final byte[] NEGATIVE_INF = {'-', 'I', 'n', 'f'};
+    private static final byte[] NAN = {'N', 'a', 'N'};
+    private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes();
+
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int position;
+
+    ExpositionWriter(OutputStream out) {
+        this.out = out;
+        this.buffer = BUFFERS.get();
+    }
+
+    void write(char c) throws IOException {
+        if (c < 0x80) {
+            writeByte(c);
+        } else {
+            writeUtf8(c);
+        }
+    }
+
+    void write(byte[] bytes) throws IOException {
+        write(bytes, 0, bytes.length);
+    }
+
+    void write(byte[] bytes, int offset, int length) throws IOException {
+        if (length > buffer.length - position) {
+            flushBuffer();
+            if (length > buffer.length) {
+                out.write(bytes, offset, length);
+                return;
+            }
+        }
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+
+    /**
+     * Write a string as UTF-8.
+     *
+     * @param s the string
+     */
+    void write(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                writeByte(c);
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                writeCodePoint(Character.toCodePoint(c, s.charAt(++i)));
+            } else {
+                writeUtf8(c);
+            }
+        }
+    }
+
+    void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            write(MIN_LONG);
+            return;
+        }
+        if (value < 0) {
+            writeByte('-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value / 10; v > 0; v /= 10) {
+            digits++;
+        }
+        ensure(digits);
+        int end = position + digits;
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position = end;
+    }
+
+    /**
+     * Write a double in the form accepted by both Prometheus text format and OpenMetrics: integral values as
+     * {@code 12.0}, infinities as {@code +Inf}/{@code -Inf}.
+     *
+     * @param d the value
+     */
+    void writeDouble(double d) throws IOException {
+        if (d == Double.POSITIVE_INFINITY) {
+            write(POSITIVE_INF);
+        } else if (d == Double.NEGATIVE_INFINITY) {
+            write(NEGATIVE_INF);
+        } else if (Double.isNaN(d)) {
+            write(NAN);
+        } else if (d == (long) d && Math.abs(d) < MAX_LONG_DOUBLE) {
+            if (d == 0 && 1 / d < 0) {
+                writeByte('-');
+            }
+            writeLong((long) d);
+            writeByte('.');
+            writeByte('0');
+        } else {
+            write(Double.toString(d));
+        }
+    }
+
+    void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (position == buffer.length) {
+            flushBuffer();
+        }
+        buffer[position++] = (byte) b;
+    }
+
+    private void writeUtf8(char c) throws IOException {
+        if (c < 0x800) {
+            writeByte(0xC0 | (c >> 6));
+            writeByte(0x80 | (c & 0x3F));
+        } else if (Character.isSurrogate(c)) {
+            // unpaired surrogate, same replacement as String#getBytes
+            writeByte('?');
+        } else {
+            writeByte(0xE0 | (c >> 12));
+            writeByte(0x80 | ((c >> 6) & 0x3F));
+            writeByte(0x80 | (c & 0x3F));
+        }
+    }
+
+    private void writeCodePoint(int codePoint) throws IOException {
+        writeByte(0xF0 | (codePoint >> 18));
+        writeByte(0x80 | ((codePoint >> 12) & 0x3F));
+        writeByte(0x80 | ((codePoint >> 6) & 0x3F));
+        writeByte(0x80 | (codePoint & 0x3F));
+    }
+
+    private void ensure(int length) throws IOException {
+        if (length > buffer.length - position) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+}
@@ -12,13 +12,18 @@
 package com.tencent.trpc.opentelemetry.sdk.metrics;
 
 import com.tencent.trpc.core.admin.spi.Admin;
+import java.util.zip.GZIPOutputStream;
 import javax.ws.rs.GET;
 import javax.ws.rs.HeaderParam;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 /**
  * Implementation of {@link Admin} interface. Export prometheus format metrics.
+ * <p>The metrics are streamed to the response, and gzipped if the scraper accepts it.</p>
  */
 @Path("")
 public class MetricsAdmin implements Admin {
@@ -27,19 +32,44 @@ public class MetricsAdmin implements Admin {
      * Prometheus healthy
      */
     private static final String HEALTHY_RESPONSE = "Exporter is Healthy.";
+    /**
+     * Gzip content encoding
+     */
+    private static final String GZIP = "gzip";
 
     @Path("/metrics")
     @GET
     @Produces({"text/plain; version=0.0.4; charset=utf-8"})
-    public String metrics004(@HeaderParam("accept") String accept) {
-        return OpenTelemetryMetricsReader.getReader().getMetrics(accept);
+    public Response metrics004(@HeaderParam("accept") String accept,
+            @HeaderParam("accept-encoding") String acceptEncoding) {
+        return metrics(accept, acceptEncoding);
     }
 
     @Path("/metrics")
     @GET
     @Produces({"application/openmetrics-text; version=1.0.0; charset=utf-8"})
-    public String metrics100(@HeaderParam("accept") String accept) {
-        return OpenTelemetryMetricsReader.getReader().getMetrics(accept);
+    public Response metrics100(@HeaderParam("accept") String accept,
+            @HeaderParam("accept-encoding") String acceptEncoding) {
+        return metrics(accept, acceptEncoding);
+    }
+
+    private Response metrics(String accept, String acceptEncoding) {
+        OpenTelemetryMetricsReader reader = OpenTelemetryMetricsReader.getReader();
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains(GZIP);
+        StreamingOutput output = out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, ExpositionWriter.BUFFER_SIZE);
+                reader.writeMetrics(accept, gzipOut);
+                gzipOut.finish();
+            } else {
+                reader.writeMetrics(accept, out);
+            }
+        };
+        Response.ResponseBuilder builder = Response.ok(output, reader.getContentType(accept));
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+        return builder.build();
     }
 
     @Path("/-/healthy")
@@ -20,6 +20,8 @@ import io.opentelemetry.sdk.metrics.export.MetricReader;
 import io.opentelemetry.sdk.metrics.internal.export.MetricProducer;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 
 /**
@@ -47,16 +49,36 @@ public class OpenTelemetryMetricsReader implements MetricReader {
      */
     public String getMetrics(String accept) {
         try {
-            Collection<MetricData> metrics = metricProducer.collectAllMetrics();
-            Serializer serializer = Serializer.create(accept, unused -> true);
             ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            serializer.write(metrics, bos);
-            return bos.toString();
+            writeMetrics(accept, bos);
+            return new String(bos.toByteArray(), StandardCharsets.UTF_8);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Write prometheus metrics to the output directly, which is flushed but not closed.
+     *
+     * @param accept accept
+     * @param output the output
+     * @throws IOException if failed to write the output
+     */
+    public void writeMetrics(String accept, OutputStream output) throws IOException {
+        Collection<MetricData> metrics = metricProducer.collectAllMetrics();
+        Serializer.create(accept, unused -> true).write(metrics, output);
+    }
+
+    /**
+     * Get the content type of the metrics written for the accept header.
+     *
+     * @param accept accept
+     * @return content type, prometheus text format 0.0.4 or OpenMetrics 1.0.0
+     */
+    public String getContentType(String accept) {
+        return Serializer.create(accept, unused -> true).contentType();
+    }
+
     @Override
     public void register(CollectionRegistration collectionRegistration) {
         this.metricProducer = MetricProducer.asMetricProducer(collectionRegistration);
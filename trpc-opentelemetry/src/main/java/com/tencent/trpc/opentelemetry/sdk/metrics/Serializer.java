@@ -25,20 +25,16 @@ import io.opentelemetry.sdk.metrics.data.MetricDataType;
 import io.opentelemetry.sdk.metrics.data.PointData;
 import io.opentelemetry.sdk.metrics.data.SummaryPointData;
 import io.opentelemetry.sdk.metrics.data.ValueAtQuantile;
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.UncheckedIOException;
-import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
-import java.util.function.BiConsumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
@@ -46,9 +42,23 @@ import javax.annotation.Nullable;
 /**
  * Serializes metrics into Prometheus exposition formats.
  * Adapted from https://github.com/prometheus/client_java/blob/master/simpleclient_common/src/main/java/io/prometheus/client/exporter/common/TextFormat.java
+ * <p>The output is streamed as bytes by {@link ExpositionWriter}, and the escaped labels of each {@link Attributes}
+ * are cached across scrapes, as the same series are written again on every scrape.</p>
  */
 abstract class Serializer {
 
+    /**
+     * Max number of cached label sets, the cache is cleared once exceeded so that removed series are not retained
+     */
+    static final int MAX_CACHED_ATTRIBUTES = 1 << 17;
+
+    private static final Map<Attributes, byte[]> ATTRIBUTES_CACHE = new ConcurrentHashMap<>();
+
+    private static final byte[] COUNT_SUFFIX = "_count".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SUM_SUFFIX = "_sum".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BUCKET_SUFFIX = "_bucket".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NO_SUFFIX = new byte[0];
+
     private final Predicate<String> metricNameFilter;
 
     Serializer(Predicate<String> metricNameFilter) {
@@ -88,67 +98,78 @@ abstract class Serializer {
         return (bucketIndex < boundaries.size()) ? boundaries.get(bucketIndex) : Double.POSITIVE_INFINITY;
     }
 
-    private static void writeAttributes(Writer writer, Attributes attributes) throws IOException {
+    private static void writeAttributes(ExpositionWriter writer, Attributes attributes) throws IOException {
         if (attributes.isEmpty()) {
             return;
         }
         writer.write('{');
-        writeAttributePairs(writer, attributes);
+        writer.write(attributePairs(attributes));
         writer.write('}');
     }
 
-    private static void writeAttributes(Writer writer, Attributes attributes, String additionalAttrKey,
+    private static void writeAttributes(ExpositionWriter writer, Attributes attributes, String additionalAttrKey,
             double additionalAttrValue) throws IOException {
         writer.write('{');
         if (!attributes.isEmpty()) {
-            writeAttributePairs(writer, attributes);
+            writer.write(attributePairs(attributes));
             writer.write(',');
         }
         writer.write(additionalAttrKey);
         writer.write("=\"");
-        writeDouble(writer, additionalAttrValue);
+        writer.writeDouble(additionalAttrValue);
         writer.write('"');
         writer.write('}');
     }
 
-    private static void writeAttributePairs(Writer writer, Attributes attributes) throws IOException {
-        try {
-            attributes.forEach(new BiConsumer<AttributeKey<?>, Object>() {
-                private boolean wroteOne;
-
-                @Override
-                public void accept(AttributeKey<?> key, Object value) {
-                    try {
-                        if (wroteOne) {
-                            writer.write(',');
-                        } else {
-                            wroteOne = true;
-                        }
-                        writer.write(NameSanitizer.INSTANCE.apply(key.getKey()));
-                        writer.write("=\"");
-                        writeEscapedLabelValue(writer, value.toString());
-                        writer.write('"');
-                    } catch (IOException e) {
-                        throw new UncheckedIOException(e);
-                    }
-                }
-            });
-        } catch (UncheckedIOException e) {
-            throw e.getCause();
+    /**
+     * Get the escaped label pairs of the attributes as UTF-8, e.g. {@code a="1",b="2"}, from the cache if present.
+     */
+    static byte[] attributePairs(Attributes attributes) {
+        byte[] pairs = ATTRIBUTES_CACHE.get(attributes);
+        if (pairs == null) {
+            if (ATTRIBUTES_CACHE.size() >= MAX_CACHED_ATTRIBUTES) {
+                ATTRIBUTES_CACHE.clear();
+            }
+            pairs = encodeAttributePairs(attributes);
+            ATTRIBUTES_CACHE.put(attributes, pairs);
         }
+        return pairs;
     }
 
-    private static void writeDouble(Writer writer, double d) throws IOException {
-        if (d == Double.POSITIVE_INFINITY) {
-            writer.write("+Inf");
-        } else if (d == Double.NEGATIVE_INFINITY) {
-            writer.write("-Inf");
-        } else {
-            writer.write(Double.toString(d));
-        }
+    static int cachedAttributesSize() {
+        return ATTRIBUTES_CACHE.size();
     }
 
-    static void writeEscapedLabelValue(Writer writer, String s) throws IOException {
+    private static byte[] encodeAttributePairs(Attributes attributes) {
+        StringBuilder builder = new StringBuilder();
+        attributes.forEach((AttributeKey<?> key, Object value) -> {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(NameSanitizer.INSTANCE.apply(key.getKey())).append("=\"");
+            String s = value.toString();
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                switch (c) {
+                    case '\\':
+                        builder.append("\\\\");
+                        break;
+                    case '\"':
+                        builder.append("\\\"");
+                        break;
+                    case '\n':
+                        builder.append("\\n");
+                        break;
+                    default:
+                        builder.append(c);
+                }
+            }
+            builder.append('"');
+        });
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static void writeEscapedLabelValue(ExpositionWriter writer, String s) throws IOException {
         for (int i = 0; i < s.length(); i++) {
             char c = s.charAt(i);
             switch (c) {
@@ -206,15 +227,21 @@ abstract class Serializer {
 
     abstract String headerName(String name, PrometheusType type);
 
-    abstract void writeHelp(Writer writer, String description) throws IOException;
+    abstract void writeHelp(ExpositionWriter writer, String description) throws IOException;
 
-    abstract void writeTimestamp(Writer writer, long timestampNanos) throws IOException;
+    abstract void writeTimestamp(ExpositionWriter writer, long timestampNanos) throws IOException;
 
-    abstract void writeExemplar(Writer writer, Collection<? extends ExemplarData> exemplars, double minExemplar,
-            double maxExemplar) throws IOException;
+    abstract void writeExemplar(ExpositionWriter writer, Collection<? extends ExemplarData> exemplars,
+            double minExemplar, double maxExemplar) throws IOException;
 
-    abstract void writeEof(Writer writer) throws IOException;
+    abstract void writeEof(ExpositionWriter writer) throws IOException;
 
+    /**
+     * Write the metrics to the output, which is flushed but not closed.
+     *
+     * @param metrics the metrics
+     * @param output the output
+     */
     final void write(Collection<MetricData> metrics, OutputStream output) throws IOException {
         // Prometheus requires all metrics with the same name to be serialized together, so we need to
         // group them.
@@ -227,15 +254,15 @@ abstract class Serializer {
                 .filter(metric -> metricNameFilter.test(metricName(metric))).collect(Collectors.groupingBy(
                         metric -> headerName(NameSanitizer.INSTANCE.apply(metric.getName()),
                                 PrometheusType.forMetric(metric)), LinkedHashMap::new, Collectors.toList()));
-        try (Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
-            for (Map.Entry<String, List<MetricData>> entry : metricsByName.entrySet()) {
-                write(entry.getValue(), entry.getKey(), writer);
-            }
-            writeEof(writer);
+        ExpositionWriter writer = new ExpositionWriter(output);
+        for (Map.Entry<String, List<MetricData>> entry : metricsByName.entrySet()) {
+            write(entry.getValue(), entry.getKey(), writer);
         }
+        writeEof(writer);
+        writer.flush();
     }
 
-    private void write(List<MetricData> metrics, String headerName, Writer writer) throws IOException {
+    private void write(List<MetricData> metrics, String headerName, ExpositionWriter writer) throws IOException {
         // Write header based on first metric
         PrometheusType type = PrometheusType.forMetric(metrics.get(0));
         final String description = metrics.get(0).getDescription();
@@ -258,20 +285,20 @@ abstract class Serializer {
         }
     }
 
-    private void write(MetricData metric, Writer writer) throws IOException {
-        String name = metricName(metric);
+    private void write(MetricData metric, ExpositionWriter writer) throws IOException {
+        byte[] name = metricName(metric).getBytes(StandardCharsets.UTF_8);
 
         for (PointData point : getPoints(metric)) {
             switch (metric.getType()) {
                 case DOUBLE_SUM:
                 case DOUBLE_GAUGE:
-                    writePoint(writer, name, ((DoublePointData) point).getValue(), point.getAttributes(),
+                    writePoint(writer, name, NO_SUFFIX, ((DoublePointData) point).getValue(), point.getAttributes(),
                             point.getEpochNanos());
                     break;
                 case LONG_SUM:
                 case LONG_GAUGE:
-                    writePoint(writer, name, (double) ((LongPointData) point).getValue(), point.getAttributes(),
-                            point.getEpochNanos());
+                    writePoint(writer, name, NO_SUFFIX, (double) ((LongPointData) point).getValue(),
+                            point.getAttributes(), point.getEpochNanos());
                     break;
                 case HISTOGRAM:
                     writeHistogram(writer, name, (HistogramPointData) point);
@@ -286,9 +313,10 @@ abstract class Serializer {
         }
     }
 
-    private void writeHistogram(Writer writer, String name, HistogramPointData point) throws IOException {
-        writePoint(writer, name + "_count", (double) point.getCount(), point.getAttributes(), point.getEpochNanos());
-        writePoint(writer, name + "_sum", point.getSum(), point.getAttributes(), point.getEpochNanos());
+    private void writeHistogram(ExpositionWriter writer, byte[] name, HistogramPointData point) throws IOException {
+        writePoint(writer, name, COUNT_SUFFIX, (double) point.getCount(), point.getAttributes(),
+                point.getEpochNanos());
+        writePoint(writer, name, SUM_SUFFIX, point.getSum(), point.getAttributes(), point.getEpochNanos());
 
         long cumulativeCount = 0;
         List<Long> counts = point.getCounts();
@@ -298,40 +326,44 @@ abstract class Serializer {
             double boundary = getBucketUpperBound(point, i);
 
             cumulativeCount += counts.get(i);
-            writePoint(writer, name + "_bucket", (double) cumulativeCount, point.getAttributes(), point.getEpochNanos(),
-                    "le", boundary, point.getExemplars(), getBucketLowerBound(point, i), boundary);
+            writePoint(writer, name, BUCKET_SUFFIX, (double) cumulativeCount, point.getAttributes(),
+                    point.getEpochNanos(), "le", boundary, point.getExemplars(), getBucketLowerBound(point, i),
+                    boundary);
         }
     }
 
-    private void writeSummary(Writer writer, String name, SummaryPointData point) throws IOException {
-        writePoint(writer, name + "_count", (double) point.getCount(), point.getAttributes(), point.getEpochNanos());
-        writePoint(writer, name + "_sum", point.getSum(), point.getAttributes(), point.getEpochNanos());
+    private void writeSummary(ExpositionWriter writer, byte[] name, SummaryPointData point) throws IOException {
+        writePoint(writer, name, COUNT_SUFFIX, (double) point.getCount(), point.getAttributes(),
+                point.getEpochNanos());
+        writePoint(writer, name, SUM_SUFFIX, point.getSum(), point.getAttributes(), point.getEpochNanos());
 
         List<ValueAtQuantile> valueAtQuantiles = point.getValues();
         for (ValueAtQuantile valueAtQuantile : valueAtQuantiles) {
-            writePoint(writer, name, valueAtQuantile.getValue(), point.getAttributes(), point.getEpochNanos(),
-                    "quantile", valueAtQuantile.getQuantile(), Collections.emptyList(), 0, 0);
+            writePoint(writer, name, NO_SUFFIX, valueAtQuantile.getValue(), point.getAttributes(),
+                    point.getEpochNanos(), "quantile", valueAtQuantile.getQuantile(), Collections.emptyList(), 0, 0);
         }
     }
 
-    private void writePoint(Writer writer, String name, double value, Attributes attributes, long epochNanos)
-            throws IOException {
+    private void writePoint(ExpositionWriter writer, byte[] name, byte[] suffix, double value, Attributes attributes,
+            long epochNanos) throws IOException {
         writer.write(name);
+        writer.write(suffix);
         writeAttributes(writer, attributes);
         writer.write(' ');
-        writeDouble(writer, value);
+        writer.writeDouble(value);
         writer.write(' ');
         writeTimestamp(writer, epochNanos);
         writer.write('\n');
     }
 
-    private void writePoint(Writer writer, String name, double value, Attributes attributes, long epochNanos,
-            String additionalAttrKey, double additionalAttrValue, Collection<? extends ExemplarData> exemplars,
-            double minExemplar, double maxExemplar) throws IOException {
+    private void writePoint(ExpositionWriter writer, byte[] name, byte[] suffix, double value, Attributes attributes,
+            long epochNanos, String additionalAttrKey, double additionalAttrValue,
+            Collection<? extends ExemplarData> exemplars, double minExemplar, double maxExemplar) throws IOException {
         writer.write(name);
+        writer.write(suffix);
         writeAttributes(writer, attributes, additionalAttrKey, additionalAttrValue);
         writer.write(' ');
-        writeDouble(writer, value);
+        writer.writeDouble(value);
         writer.write(' ');
         writeTimestamp(writer, epochNanos);
         writeExemplar(writer, exemplars, minExemplar, maxExemplar);
@@ -358,7 +390,7 @@ abstract class Serializer {
         }
 
         @Override
-        void writeHelp(Writer writer, String help) throws IOException {
+        void writeHelp(ExpositionWriter writer, String help) throws IOException {
             for (int i = 0; i < help.length(); i++) {
                 char c = help.charAt(i);
                 switch (c) {
@@ -375,18 +407,18 @@ abstract class Serializer {
         }
 
         @Override
-        void writeTimestamp(Writer writer, long timestampNanos) throws IOException {
-            writer.write(Long.toString(TimeUnit.NANOSECONDS.toMillis(timestampNanos)));
+        void writeTimestamp(ExpositionWriter writer, long timestampNanos) throws IOException {
+            writer.writeLong(TimeUnit.NANOSECONDS.toMillis(timestampNanos));
         }
 
         @Override
-        void writeExemplar(Writer writer, Collection<? extends ExemplarData> exemplars, double minExemplar,
+        void writeExemplar(ExpositionWriter writer, Collection<? extends ExemplarData> exemplars, double minExemplar,
                 double maxExemplar) {
             // Don't write exemplars
         }
 
         @Override
-        void writeEof(Writer writer) {
+        void writeEof(ExpositionWriter writer) {
             // Don't write EOF
         }
     }
@@ -408,15 +440,15 @@ abstract class Serializer {
         }
 
         @Override
-        void writeHelp(Writer writer, String description) throws IOException {
+        void writeHelp(ExpositionWriter writer, String description) throws IOException {
             writeEscapedLabelValue(writer, description);
         }
 
         @Override
-        void writeTimestamp(Writer writer, long timestampNanos) throws IOException {
+        void writeTimestamp(ExpositionWriter writer, long timestampNanos) throws IOException {
             long timestampMillis = TimeUnit.NANOSECONDS.toMillis(timestampNanos);
-            writer.write(Long.toString(timestampMillis / 1000));
-            writer.write(".");
+            writer.writeLong(timestampMillis / 1000);
+            writer.write('.');
             long millis = timestampMillis % 1000;
             if (millis < 100) {
                 writer.write('0');
@@ -424,11 +456,11 @@ abstract class Serializer {
             if (millis < 10) {
                 writer.write('0');
             }
-            writer.write(Long.toString(millis));
+            writer.writeLong(millis);
         }
 
         @Override
-        void writeExemplar(Writer writer, Collection<? extends ExemplarData> exemplars, double minExemplar,
+        void writeExemplar(ExpositionWriter writer, Collection<? extends ExemplarData> exemplars, double minExemplar,
                 double maxExemplar) throws IOException {
             for (ExemplarData exemplar : exemplars) {
                 double value = getExemplarValue(exemplar);
@@ -446,7 +478,7 @@ abstract class Serializer {
                         writer.write('"');
                     }
                     writer.write("} ");
-                    writeDouble(writer, value);
+                    writer.writeDouble(value);
                     writer.write(' ');
                     writeTimestamp(writer, exemplar.getEpochNanos());
                     // Only write one exemplar.
@@ -456,7 +488,7 @@ abstract class Serializer {
         }
 
         @Override
-        void writeEof(Writer writer) throws IOException {
+        void writeEof(ExpositionWriter writer) throws IOException {
             writer.write("# EOF\n");
         }
     }
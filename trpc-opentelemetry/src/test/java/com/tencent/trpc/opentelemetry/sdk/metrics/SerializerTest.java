@@ -0,0 +1,192 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.opentelemetry.sdk.metrics;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.HistogramPointData;
+import io.opentelemetry.sdk.metrics.data.LongPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableDoublePointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableGaugeData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableHistogramData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableHistogramPointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableLongPointData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableMetricData;
+import io.opentelemetry.sdk.metrics.internal.data.ImmutableSumData;
+import io.opentelemetry.sdk.resources.Resource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SerializerTest {
+
+    private static final long EPOCH_NANOS = 1633950672000000000L;
+    private static final AttributeKey<String> METHOD = AttributeKey.stringKey("method");
+    private static final AttributeKey<String> CALLER = AttributeKey.stringKey("caller.name");
+
+    @Test
+    public void testPrometheus004() throws IOException {
+        Serializer serializer = Serializer.create(null, unused -> true);
+        Assert.assertEquals("text/plain; version=0.0.4; charset=utf-8", serializer.contentType());
+        String expected = "# TYPE requests_total counter\n"
+                + "# HELP requests_total requests \\\\ of\\nservice\n"
+                + "requests_total{caller_name=\"c\\\"1\\\\\",method=\"say\\nHi\"} 12.0 1633950672000\n"
+                + "requests_total 3.0 1633950672000\n"
+                + "# TYPE queue gauge\n"
+                + "# HELP queue queue size\n"
+                + "queue{method=\"你好\"} 0.25 1633950672000\n"
+                + "# TYPE latency histogram\n"
+                + "# HELP latency latency\n"
+                + "latency_count{method=\"sayHi\"} 3.0 1633950672000\n"
+                + "latency_sum{method=\"sayHi\"} 12.5 1633950672000\n"
+                + "latency_bucket{method=\"sayHi\",le=\"1.0\"} 1.0 1633950672000\n"
+                + "latency_bucket{method=\"sayHi\",le=\"10.0\"} 2.0 1633950672000\n"
+                + "latency_bucket{method=\"sayHi\",le=\"+Inf\"} 3.0 1633950672000\n";
+        Assert.assertEquals(expected, serialize(serializer, metrics()));
+    }
+
+    @Test
+    public void testOpenMetrics() throws IOException {
+        Serializer serializer = Serializer.create("text/plain;q=0.5,application/openmetrics-text; version=1.0.0",
+                unused -> true);
+        Assert.assertEquals("application/openmetrics-text; version=1.0.0; charset=utf-8", serializer.contentType());
+        String output = serialize(serializer, metrics());
+        Assert.assertTrue(output.startsWith("# TYPE requests counter\n"));
+        Assert.assertTrue(output.contains("requests_total 3.0 1633950672.000\n"));
+        Assert.assertTrue(output.endsWith("# EOF\n"));
+    }
+
+    @Test
+    public void testWriteDouble() throws IOException {
+        Assert.assertEquals("0.0", writeDouble(0));
+        Assert.assertEquals("-0.0", writeDouble(-0.0));
+        Assert.assertEquals("-12.0", writeDouble(-12));
+        Assert.assertEquals("10000000.0", writeDouble(1e7));
+        Assert.assertEquals("1.0E20", writeDouble(1e20));
+        Assert.assertEquals("0.125", writeDouble(0.125));
+        Assert.assertEquals("NaN", writeDouble(Double.NaN));
+        Assert.assertEquals("-Inf", writeDouble(Double.NEGATIVE_INFINITY));
+        Assert.assertEquals(Long.toString(Long.MIN_VALUE), writeLong(Long.MIN_VALUE));
+        Assert.assertEquals("1234567890", writeLong(1234567890));
+    }
+
+    @Test
+    public void testLargeOutput() throws IOException {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < ExpositionWriter.BUFFER_SIZE; i++) {
+            value.append((char) ('a' + i % 26));
+        }
+        Attributes attributes = Attributes.of(METHOD, value.toString());
+        MetricData metric = ImmutableMetricData.createDoubleGauge(Resource.empty(),
+                InstrumentationScopeInfo.empty(), "large", "", "", ImmutableGaugeData.create(Collections
+                        .singletonList(ImmutableDoublePointData.create(0, EPOCH_NANOS, attributes, 1))));
+        String output = serialize(Serializer.create(null, unused -> true), Collections.singletonList(metric));
+        Assert.assertTrue(output.endsWith("large{method=\"" + value + "\"} 1.0 1633950672000\n"));
+    }
+
+    /**
+     * Scrape 100k series a few times, the label pairs are encoded only on the first scrape.
+     */
+    @Test
+    public void testScrapeManySeries() throws IOException {
+        int seriesCount = 100_000;
+        List<LongPointData> points = new ArrayList<>(seriesCount);
+        for (int i = 0; i < seriesCount; i++) {
+            points.add(ImmutableLongPointData.create(0, EPOCH_NANOS,
+                    Attributes.of(METHOD, "/trpc.app.server.Greeter/method" + i % 1000, CALLER, "caller" + i / 1000),
+                    i));
+        }
+        List<MetricData> metrics = Collections.singletonList(ImmutableMetricData.createLongSum(Resource.empty(),
+                InstrumentationScopeInfo.empty(), "trpc.requests", "requests", "1",
+                ImmutableSumData.create(true, AggregationTemporality.CUMULATIVE, points)));
+        Serializer serializer = Serializer.create(null, unused -> true);
+        CountingOutputStream output = new CountingOutputStream();
+        for (int i = 0; i < 3; i++) {
+            output.lines = 0;
+            serializer.write(metrics, output);
+            Assert.assertEquals(seriesCount + 2, output.lines);
+        }
+        Assert.assertTrue(Serializer.cachedAttributesSize() >= seriesCount);
+        Assert.assertTrue(Serializer.cachedAttributesSize() <= Serializer.MAX_CACHED_ATTRIBUTES);
+    }
+
+    private static Collection<MetricData> metrics() {
+        MetricData counter = ImmutableMetricData.createLongSum(Resource.empty(), InstrumentationScopeInfo.empty(),
+                "requests", "requests \\ of\nservice", "1",
+                ImmutableSumData.create(true, AggregationTemporality.CUMULATIVE, Arrays.asList(
+                        ImmutableLongPointData.create(0, EPOCH_NANOS,
+                                Attributes.of(METHOD, "say\nHi", CALLER, "c\"1\\"), 12),
+                        ImmutableLongPointData.create(0, EPOCH_NANOS, Attributes.empty(), 3))));
+        MetricData gauge = ImmutableMetricData.createDoubleGauge(Resource.empty(), InstrumentationScopeInfo.empty(),
+                "queue", "queue size", "1", ImmutableGaugeData.create(Collections.singletonList(
+                        ImmutableDoublePointData.create(0, EPOCH_NANOS, Attributes.of(METHOD, "你好"), 0.25))));
+        HistogramPointData point = ImmutableHistogramPointData.create(0, EPOCH_NANOS, Attributes.of(METHOD, "sayHi"),
+                12.5, false, 0, false, 0, Arrays.asList(1.0, 10.0), Arrays.asList(1L, 1L, 1L));
+        MetricData histogram = ImmutableMetricData.createDoubleHistogram(Resource.empty(),
+                InstrumentationScopeInfo.empty(), "latency", "latency", "ms",
+                ImmutableHistogramData.create(AggregationTemporality.CUMULATIVE, Collections.singletonList(point)));
+        return Arrays.asList(counter, gauge, histogram);
+    }
+
+    private static String serialize(Serializer serializer, Collection<MetricData> metrics) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        serializer.write(metrics, output);
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String writeDouble(double value) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ExpositionWriter writer = new ExpositionWriter(output);
+        writer.writeDouble(value);
+        writer.flush();
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String writeLong(long value) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ExpositionWriter writer = new ExpositionWriter(output);
+        writer.writeLong(value);
+        writer.flush();
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+
+        private int lines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+    }
+
+}
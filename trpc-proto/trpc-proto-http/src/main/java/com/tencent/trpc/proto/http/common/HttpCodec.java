@@ -192,15 +192,11 @@ public class HttpCodec {
         Object value = result.getValue();
 
         byte[] data = null;
-        if (value instanceof Message) {
-            Map<String, Object> jsonData = ProtoJsonConverter.messageToMap((Message) value);
-            Serialization jsonSerialization =
-                    ExtensionLoader.getExtensionLoader(Serialization.class).getExtension(JSONSerialization.NAME);
-            data = jsonSerialization.serialize(jsonData);
-        } else if (value != null) {
+        if (value != null) {
             if (value instanceof String) {
                 data = ((String) value).getBytes();
             } else {
+                // pb messages are written straight to json by the serialization, without the map conversion
                 Serialization jsonSerialization =
                         ExtensionLoader.getExtensionLoader(Serialization.class)
                                 .getExtension(JSONSerialization.NAME);
@@ -0,0 +1,110 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+
+package com.tencent.trpc.proto.standard.common;
+
+import com.google.protobuf.ByteString;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Cache of the request header fields which are the same for every call of a consumer method, such as the func
+ * and the caller and callee service names, so that they are not concatenated and encoded on every request.
+ */
+public class ClientHeaderCache {
+
+    /**
+     * Max number of entries of each cache, beyond which the fields are encoded on every request.
+     */
+    private static final int MAX_CACHE_SIZE = 10000;
+
+    private static final Map<String, ByteString> FUNC_CACHE = new ConcurrentHashMap<>();
+
+    private static final Map<ServiceNameKey, ByteString> SERVICE_NAME_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * Get the encoded func.
+     *
+     * @param func the func
+     * @return the encoded func
+     */
+    public static ByteString func(String func) {
+        return get(FUNC_CACHE, func == null ? "" : func, ByteString::copyFromUtf8);
+    }
+
+    /**
+     * Get the encoded service name in format trpc.app.server.service.
+     *
+     * @param app the app
+     * @param server the server
+     * @param service the service
+     * @return the encoded service name
+     */
+    public static ByteString serviceName(String app, String server, String service) {
+        return get(SERVICE_NAME_CACHE, new ServiceNameKey(app, server, service),
+                key -> ByteString.copyFromUtf8("trpc." + key.app + "." + key.server + "." + key.service));
+    }
+
+    private static <K> ByteString get(Map<K, ByteString> cache, K key, Function<K, ByteString> encoder) {
+        ByteString value = cache.get(key);
+        if (value != null) {
+            return value;
+        }
+        value = encoder.apply(key);
+        if (cache.size() < MAX_CACHE_SIZE) {
+            cache.putIfAbsent(key, value);
+        }
+        return value;
+    }
+
+    public static void clear() {
+        FUNC_CACHE.clear();
+        SERVICE_NAME_CACHE.clear();
+    }
+
+    private static class ServiceNameKey {
+
+        private final String app;
+        private final String server;
+        private final String service;
+
+        ServiceNameKey(String app, String server, String service) {
+            this.app = app;
+            this.server = server;
+            this.service = service;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ServiceNameKey)) {
+                return false;
+            }
+            ServiceNameKey that = (ServiceNameKey) o;
+            return Objects.equals(app, that.app) && Objects.equals(server, that.server)
+                    && Objects.equals(service, that.service);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Objects.hashCode(app);
+            result = 31 * result + Objects.hashCode(server);
+            return 31 * result + Objects.hashCode(service);
+        }
+
+    }
+
+}
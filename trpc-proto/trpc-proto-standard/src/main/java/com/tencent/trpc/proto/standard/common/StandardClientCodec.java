@@ -41,8 +41,11 @@ import com.tencent.trpc.proto.standard.common.TRPCProtocol.RequestProtocol.Build
 import com.tencent.trpc.proto.standard.common.TRPCProtocol.ResponseProtocol;
 import com.tencent.trpc.proto.standard.common.TRPCProtocol.TrpcMessageType;
 import com.tencent.trpc.proto.standard.common.TRPCProtocol.TrpcProtoVersion;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import java.util.Map;
 import java.util.Objects;
+import org.apache.commons.lang3.StringUtils;
 
 /**
  * TRPC protocol client codec
@@ -63,18 +66,33 @@ public class StandardClientCodec extends ClientCodec {
                 .setVersion(TrpcProtoVersion.TRPC_PROTO_V1_VALUE)
                 .setRequestId((int) request.getRequestId())
                 .setAttachmentSize(attachmentSize)
-                .setFunc(ByteString.copyFromUtf8(invocation.getFunc()));
+                .setFunc(ClientHeaderCache.func(invocation.getFunc()));
         fillRequestHeaderWithMeta(requestHeader, request.getMeta());
         fillRequestHeaderWithAttachments(requestHeader, request.getAttachments());
         Compressor compressor = checkAndGetCompressor(protocol.getCompressor());
         EncodableValue value = getEncodableValue(protocol.getCompressMinBytes(), serialization, compressor,
                 invocation.isGeneric(), invocation.getFirstArgument());
-        byte[] unaryBody = value.encode();
-        requestHeader.setContentEncoding(getContentEncoding(value));
-        doBodySignature(unaryBody, requestHeader, protocol.getSign());
-        byte[] requestHeaders = requestHeader.build().toByteArray();
-        int pkgLength = writePackageAndGetPkgLength(channelBuffer, unaryBody, attachment, requestHeaders);
-        request.getMeta().setSize(pkgLength);
+        byte[] unaryBody = null;
+        ByteBuf bodyBuffer = null;
+        try {
+            // the body is encoded into a pooled buffer without intermediate arrays, unless it has to be signed
+            if (StringUtils.isEmpty(protocol.getSign())) {
+                bodyBuffer = ByteBufAllocator.DEFAULT.buffer();
+                value.encode(bodyBuffer);
+            } else {
+                unaryBody = value.encode();
+            }
+            requestHeader.setContentEncoding(getContentEncoding(value));
+            doBodySignature(unaryBody, requestHeader, protocol.getSign());
+            byte[] requestHeaders = requestHeader.build().toByteArray();
+            int pkgLength = writePackageAndGetPkgLength(channelBuffer, unaryBody, bodyBuffer, attachment,
+                    requestHeaders);
+            request.getMeta().setSize(pkgLength);
+        } finally {
+            if (bodyBuffer != null) {
+                bodyBuffer.release();
+            }
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(">>>tRPC client encode {request=[{}], unaryBody=[{}], attachment size=[{}]}",
                     TextFormat.shortDebugString(requestHeader), ProtoJsonConverter.toString(invocation.getArguments()),
@@ -97,10 +115,10 @@ public class StandardClientCodec extends ClientCodec {
         }
         // set caller/callee
         CallInfo callInfo = meta.getCallInfo();
-        requestBuilder.setCaller(ByteString.copyFromUtf8("trpc." + callInfo.getCallerApp() + "."
-                + callInfo.getCallerServer() + "." + callInfo.getCallerService()));
-        requestBuilder.setCallee(ByteString.copyFromUtf8("trpc." + callInfo.getCalleeApp() + "."
-                + callInfo.getCalleeServer() + "." + callInfo.getCalleeService()));
+        requestBuilder.setCaller(ClientHeaderCache.serviceName(callInfo.getCallerApp(), callInfo.getCallerServer(),
+                callInfo.getCallerService()));
+        requestBuilder.setCallee(ClientHeaderCache.serviceName(callInfo.getCalleeApp(), callInfo.getCalleeServer(),
+                callInfo.getCalleeService()));
         // set messageType
         requestBuilder.setMessageType(requestBuilder.getMessageType() | meta.getMessageType());
         // set additional key
@@ -120,15 +138,16 @@ public class StandardClientCodec extends ClientCodec {
         });
     }
 
-    private int writePackageAndGetPkgLength(ChannelBuffer channelBuffer, byte[] body,
+    private int writePackageAndGetPkgLength(ChannelBuffer channelBuffer, byte[] body, ByteBuf bodyBuffer,
             byte[] attachment, byte[] requestHeaders) {
         StandardPackage pkg = new StandardPackage();
         pkg.setBodyBytes(body);
+        pkg.setBodyBuffer(bodyBuffer);
         pkg.setHeadBytes(requestHeaders);
         pkg.setAttachmentBytes(attachment);
         int headSize = requestHeaders.length;
         pkg.getFrame().setHeadSize(headSize);
-        int unaryBodySize = BytesUtils.bytesLength(body);
+        int unaryBodySize = bodyBuffer != null ? bodyBuffer.readableBytes() : BytesUtils.bytesLength(body);
         int attachmentSize = BytesUtils.bytesLength(attachment);
         int pkgLength = StandardFrame.FRAME_SIZE + headSize + unaryBodySize + attachmentSize;
         pkg.getFrame().setSize(pkgLength);
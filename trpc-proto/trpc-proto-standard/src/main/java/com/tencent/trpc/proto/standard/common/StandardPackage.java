@@ -19,6 +19,7 @@ import com.tencent.trpc.core.transport.codec.ChannelBuffer;
 import com.tencent.trpc.core.transport.codec.Codec.DecodeResult;
 import com.tencent.trpc.proto.standard.common.TRPCProtocol.RequestProtocol;
 import com.tencent.trpc.proto.standard.common.TRPCProtocol.ResponseProtocol;
+import io.netty.buffer.ByteBuf;
 
 /**
  * Intermediate encoding and decoding structure for all content of the trpc protocol.
@@ -41,6 +42,10 @@ public class StandardPackage {
      * Protocol body
      */
     private byte[] bodyBytes;
+    /**
+     * Protocol body encoded into a buffer, written instead of the body bytes, owned by the encoder
+     */
+    private ByteBuf bodyBuffer;
     /**
      * Protocol attachment
      */
@@ -197,7 +202,9 @@ public class StandardPackage {
         if (headBytes != null) {
             channelBuffer.writeBytes(this.headBytes);
         }
-        if (bodyBytes != null) {
+        if (bodyBuffer != null) {
+            channelBuffer.writeBytes(this.bodyBuffer.nioBuffer());
+        } else if (bodyBytes != null) {
             channelBuffer.writeBytes(this.bodyBytes);
         }
         if (attachmentBytes != null) {
@@ -229,6 +236,14 @@ public class StandardPackage {
         this.bodyBytes = bodyBytes;
     }
 
+    public ByteBuf getBodyBuffer() {
+        return bodyBuffer;
+    }
+
+    public void setBodyBuffer(ByteBuf bodyBuffer) {
+        this.bodyBuffer = bodyBuffer;
+    }
+
     public byte[] getAttachmentBytes() {
         return attachmentBytes;
     }
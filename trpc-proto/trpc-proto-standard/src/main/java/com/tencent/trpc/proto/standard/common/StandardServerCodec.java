@@ -24,6 +24,8 @@ import com.tencent.trpc.core.rpc.Response;
 import com.tencent.trpc.core.rpc.RpcInvocation;
 import com.tencent.trpc.core.rpc.RpcServerContext;
 import com.tencent.trpc.core.rpc.TrpcTransInfoKeys;
+import com.tencent.trpc.core.rpc.common.FuncRouteTable;
+import com.tencent.trpc.core.rpc.common.FuncRouteTable.FuncRoute;
 import com.tencent.trpc.core.rpc.def.DecodableValue;
 import com.tencent.trpc.core.rpc.def.DefRequest;
 import com.tencent.trpc.core.rpc.def.EncodableValue;
@@ -41,6 +43,8 @@ import com.tencent.trpc.proto.standard.common.TRPCProtocol.ResponseProtocol;
 import com.tencent.trpc.proto.standard.common.TRPCProtocol.ResponseProtocol.Builder;
 import com.tencent.trpc.proto.standard.common.TRPCProtocol.TrpcCallType;
 import com.tencent.trpc.proto.standard.common.TRPCProtocol.TrpcMessageType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
@@ -52,16 +56,16 @@ import org.apache.commons.lang3.StringUtils;
 public class StandardServerCodec extends ServerCodec {
 
     /**
-     * Remotely call the cache of services and methods to avoid string cutting operations during decoding
+     * Max number of the cached caller and callee information.
      */
-    private static final Map<String, String[]> FUNC_INFO_CACHE = new ConcurrentHashMap<>();
+    private static final int MAX_CALL_INFO_CACHE_SIZE = 10000;
 
     /**
      * The cache of the caller and callee information avoids the string cutting operation during decoding, which can
      * increase the throughput of the framework by about 4%. Considering that the mainstream of the current
      * architecture is microservices, and each service has limited external interfaces, the built-in ConcurrentHashMap
-     * is used as a cache here. If the number of caches is too large, you can consider migrating to caffeine,
-     * but this will greatly offset the performance optimization here.
+     * is used as a cache here. Only requests of the exported funcs are cached, and the cache stops growing when it
+     * reaches {@link #MAX_CALL_INFO_CACHE_SIZE}, since the caller is filled in by the clients.
      */
     private static final Map<String, CallInfo> CALL_INFO_CACHE = new ConcurrentHashMap<>();
 
@@ -90,15 +94,29 @@ public class StandardServerCodec extends ServerCodec {
                 request.getInvocation().isGeneric(), response.getValue());
         fillResponseWithAttachments(response, rawResponse);
         fillResponseIfError(response, rawResponse);
-        byte[] unaryBody = value.encode();
-        // setContentEncoding must be executed after value.encode(),
-        // because the compression type is confirmed in value.encode()
-        rawResponse.setContentEncoding(getContentEncoding(value));
-        doBodySignature(unaryBody, rawResponse, protocol.getSign());
-        byte[] rspBytes = rawResponse.build().toByteArray();
-        int pkgLength = writePackageAndGetPkgLength(channelBuffer, request.getAttachReqHead(),
-                unaryBody, attachment, rspBytes);
-        response.getMeta().setSize(pkgLength);
+        byte[] unaryBody = null;
+        ByteBuf bodyBuffer = null;
+        try {
+            // the body is encoded into a pooled buffer without intermediate arrays, unless it has to be signed
+            if (StringUtils.isEmpty(protocol.getSign())) {
+                bodyBuffer = ByteBufAllocator.DEFAULT.buffer();
+                value.encode(bodyBuffer);
+            } else {
+                unaryBody = value.encode();
+            }
+            // setContentEncoding must be executed after value.encode(),
+            // because the compression type is confirmed in value.encode()
+            rawResponse.setContentEncoding(getContentEncoding(value));
+            doBodySignature(unaryBody, rawResponse, protocol.getSign());
+            byte[] rspBytes = rawResponse.build().toByteArray();
+            int pkgLength = writePackageAndGetPkgLength(channelBuffer, request.getAttachReqHead(),
+                    unaryBody, bodyBuffer, attachment, rspBytes);
+            response.getMeta().setSize(pkgLength);
+        } finally {
+            if (bodyBuffer != null) {
+                bodyBuffer.release();
+            }
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(">>>Trpc server encode {response=[{}], body=[{}], attachment size=[{}], exception=[{}]}",
                     ProtoJsonConverter.toString(rawResponse), ProtoJsonConverter.toString(response.getValue()),
@@ -160,14 +178,15 @@ public class StandardServerCodec extends ServerCodec {
     }
 
     private int writePackageAndGetPkgLength(ChannelBuffer channelBuffer, TRpcReqHead reqHead,
-            byte[] body, byte[] attachment, byte[] resHeader) {
+            byte[] body, ByteBuf bodyBuffer, byte[] attachment, byte[] resHeader) {
         StandardPackage pkg = new StandardPackage();
         pkg.getFrame().setStreamId(reqHead.getFrame().getStreamId());
         pkg.setHeadBytes(resHeader);
         pkg.setBodyBytes(body);
+        pkg.setBodyBuffer(bodyBuffer);
         pkg.setAttachmentBytes(attachment);
         pkg.getFrame().setHeadSize(resHeader.length);
-        int bodySize = BytesUtils.bytesLength(body);
+        int bodySize = bodyBuffer != null ? bodyBuffer.readableBytes() : BytesUtils.bytesLength(body);
         int attachmentSize = BytesUtils.bytesLength(attachment);
         int pkgLength = StandardFrame.FRAME_SIZE + resHeader.length + bodySize + attachmentSize;
         pkg.getFrame().setSize(pkgLength);
@@ -235,16 +254,14 @@ public class StandardServerCodec extends ServerCodec {
 
     private RpcInvocation buildRpcInvocation(StandardPackage packet, RequestProtocol requestHeader) {
         RpcInvocation inv = new RpcInvocation();
-        String func = requestHeader.getFunc().toStringUtf8();
-        String[] funcInfo = FUNC_INFO_CACHE.computeIfAbsent(func, s -> {
-            int idx = func.lastIndexOf("/");
-            // func format: /serviceName/methodName
-            return (idx > 1 && func.length() > idx + 1) ? new String[]{func.substring(1, idx), func.substring(idx + 1)}
-                    : new String[]{"", ""};
-        });
-        inv.setFunc(func);
-        inv.setRpcServiceName(funcInfo[0]);
-        inv.setRpcMethodName(funcInfo[1]);
+        // exported funcs are looked up by the raw bytes, unknown funcs are parsed without being cached
+        FuncRoute route = FuncRouteTable.lookup(requestHeader.getFunc());
+        if (route == null) {
+            route = FuncRoute.parse(requestHeader.getFunc().toStringUtf8());
+        }
+        inv.setFunc(route.getFunc());
+        inv.setRpcServiceName(route.getRpcServiceName());
+        inv.setRpcMethodName(route.getRpcMethodName());
         Object[] obj = new Object[]{new DecodableValue(requestHeader.getContentEncoding(),
                 requestHeader.getContentType(), packet.getBodyBytes())};
         inv.setArguments(obj);
@@ -276,12 +293,19 @@ public class StandardServerCodec extends ServerCodec {
         if (StringUtils.isBlank(cacheKey)) {
             return null;
         }
-        return CALL_INFO_CACHE.computeIfAbsent(cacheKey, s -> {
-            CallInfo callInfo = new CallInfo();
-            fillCallerInfo(caller, callInfo);
-            fillCalleeInfo(callee, rpcMethodName, callInfo);
+        CallInfo callInfo = CALL_INFO_CACHE.get(cacheKey);
+        if (callInfo != null) {
             return callInfo;
-        });
+        }
+        callInfo = new CallInfo();
+        fillCallerInfo(caller, callInfo);
+        fillCalleeInfo(callee, rpcMethodName, callInfo);
+        if (CALL_INFO_CACHE.size() < MAX_CALL_INFO_CACHE_SIZE
+                && FuncRouteTable.lookup(rawReqBuilder.getFunc()) != null) {
+            CallInfo exists = CALL_INFO_CACHE.putIfAbsent(cacheKey, callInfo);
+            return exists == null ? callInfo : exists;
+        }
+        return callInfo;
     }
 
     private void fillCallerInfo(String caller, CallInfo callInfo) {
@@ -15,7 +15,10 @@ import com.tencent.trpc.core.common.config.ProtocolConfig;
 import com.tencent.trpc.core.exception.TRpcException;
 import com.tencent.trpc.core.logger.Logger;
 import com.tencent.trpc.core.logger.LoggerFactory;
+import com.tencent.trpc.core.metrics.StreamStats;
 import com.tencent.trpc.core.stream.transport.RpcConnection;
+import com.tencent.trpc.core.utils.PreconditionUtils;
+import com.tencent.trpc.core.worker.spi.WorkerPool;
 import com.tencent.trpc.proto.standard.common.TRPCProtocol.TrpcRetCode;
 import com.tencent.trpc.proto.standard.common.TRPCProtocol.TrpcStreamCloseMeta;
 import com.tencent.trpc.proto.standard.common.TRPCProtocol.TrpcStreamCloseType;
@@ -27,11 +30,14 @@ import com.tencent.trpc.proto.standard.stream.config.TRpcStreamConstants;
 import io.netty.buffer.ByteBuf;
 import io.netty.util.ReferenceCountUtil;
 import java.nio.channels.ClosedChannelException;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import org.apache.commons.collections4.MapUtils;
 import reactor.core.publisher.Sinks;
 import reactor.core.publisher.Sinks.EmitResult;
 import reactor.core.publisher.Sinks.Many;
@@ -57,6 +63,14 @@ public abstract class BaseTRpcStreamRequesterResponder {
      * Receivers for consuming peer data.
      */
     protected final ConcurrentMap<Integer, Sinks.Many<ByteBuf>> receivers = new ConcurrentHashMap<>();
+    /**
+     * Local consumers of the data received by the receivers.
+     */
+    protected final ConcurrentMap<Integer, StreamLocalConsumer> consumers = new ConcurrentHashMap<>();
+    /**
+     * Streams opened and not finished yet.
+     */
+    private final Set<Integer> openStreams = ConcurrentHashMap.newKeySet();
     /**
      * Protocol configuration.
      */
@@ -65,6 +79,22 @@ public abstract class BaseTRpcStreamRequesterResponder {
      * Connection information.
      */
     protected final RpcConnection connection;
+    /**
+     * Receiving window budget shared by the streams of the connection.
+     */
+    protected final StreamConnectionWindow connectionWindow;
+    /**
+     * Received bytes buffered by the streams of the connection.
+     */
+    protected final StreamConnectionBuffer connectionBuffer;
+    /**
+     * Stats of the streams, shared by the connections of the same client or server.
+     */
+    protected final StreamStats stats;
+    /**
+     * Max concurrent streams of the connection, zero means no limit.
+     */
+    private final int maxConcurrentStreams;
     /**
      * Stream close exception information. Through concurrency control, ensure that a stream has only
      * one close trigger condition.
@@ -77,9 +107,22 @@ public abstract class BaseTRpcStreamRequesterResponder {
             AtomicReferenceFieldUpdater.newUpdater(
                     BaseTRpcStreamRequesterResponder.class, Throwable.class, "terminationError");
 
-    BaseTRpcStreamRequesterResponder(ProtocolConfig protocolConfig, RpcConnection connection) {
+    BaseTRpcStreamRequesterResponder(ProtocolConfig protocolConfig, RpcConnection connection, String side) {
         this.protocolConfig = Objects.requireNonNull(protocolConfig, "protocolConfig is null");
         this.connection = Objects.requireNonNull(connection, "connection is null");
+        Map<String, Object> extMap = protocolConfig.getExtMap();
+        this.connectionWindow = new StreamConnectionWindow(MapUtils.getLongValue(extMap,
+                TRpcStreamConstants.STREAM_CONNECTION_WINDOW_SIZE_KEY,
+                TRpcStreamConstants.DEFAULT_STREAM_CONNECTION_WINDOW_SIZE));
+        this.maxConcurrentStreams = MapUtils.getIntValue(extMap,
+                TRpcStreamConstants.STREAM_MAX_CONCURRENT_STREAMS_KEY, 0);
+        PreconditionUtils.checkArgument(maxConcurrentStreams >= 0,
+                "invalid %s %d", TRpcStreamConstants.STREAM_MAX_CONCURRENT_STREAMS_KEY, maxConcurrentStreams);
+        // the connection is recorded closed on termination
+        this.stats = StreamStats.connectionOpened(side, protocolConfig.getIp() + ":" + protocolConfig.getPort());
+        this.connectionBuffer = new StreamConnectionBuffer(connection, MapUtils.getLongValue(extMap,
+                TRpcStreamConstants.STREAM_CONNECTION_BUFFER_SIZE_KEY,
+                TRpcStreamConstants.DEFAULT_STREAM_CONNECTION_BUFFER_SIZE), stats);
 
         // subscribe to connection close events, no need consume
         connection.onClose().subscribe(null, this::terminate, this::shutdown);
@@ -97,6 +140,7 @@ public abstract class BaseTRpcStreamRequesterResponder {
         int streamId = TRpcStreamFrameHeaderCodec.streamId(frame);
         TRpcFrameType frameType = TRpcStreamFrameHeaderCodec.frameType(frame);
         logger.debug("stream {} got frame: {}", streamId, frameType);
+        stats.frameReceived();
 
         // extract the data body from the TRPC protocol frame, and add a reference count to prevent it from being
         // released prematurely.
@@ -106,7 +150,7 @@ public abstract class BaseTRpcStreamRequesterResponder {
             // call different processing flows based on frame type
             switch (frameType) {
                 case INIT: // stream init frame
-                    handleStreamInit(streamId, data);
+                    handleStreamInit(streamId, TRpcStreamFrameHeaderCodec.flags(frame), data);
                     break;
                 case DATA: // stream data frame
                     handleStreamData(streamId, data);
@@ -135,9 +179,10 @@ public abstract class BaseTRpcStreamRequesterResponder {
      * Handle stream init frame.
      *
      * @param streamId stream ID
+     * @param flags header flags of the init frame
      * @param data data frame
      */
-    protected abstract void handleStreamInit(int streamId, ByteBuf data);
+    protected abstract void handleStreamInit(int streamId, int flags, ByteBuf data);
 
     /**
      * Handle stream data frame.
@@ -154,6 +199,11 @@ public abstract class BaseTRpcStreamRequesterResponder {
             return;
         }
 
+        // account the data until it is consumed, which may happen before the emission returns
+        StreamLocalConsumer consumer = consumers.get(streamId);
+        if (consumer != null) {
+            consumer.buffer(data.readableBytes());
+        }
         // data will be sent to the stream for asynchronous consumption, here need to add a reference count
         EmitResult result = receiver.tryEmitNext(data.retain().touch());
         // when emitting data fails, end the entire stream
@@ -176,7 +226,7 @@ public abstract class BaseTRpcStreamRequesterResponder {
         }
 
         TrpcStreamFeedBackMeta feedBack = TRpcStreamFrameCodec.decodeStreamFeedbackFrame(data);
-        logger.info("got feedback msg: {}", feedBack);
+        logger.debug("got feedback msg: {}", feedBack);
         subscriber.incrementWindow(feedBack.getWindowSizeIncrement());
     }
 
@@ -295,6 +345,88 @@ public abstract class BaseTRpcStreamRequesterResponder {
 
         subscribers.clear();
         receivers.clear();
+
+        // the consumers and the streams not finished by the cancellation are given back here
+        consumers.keySet().forEach(this::releaseLocalConsumer);
+        openStreams.forEach(this::closeStream);
+        stats.connectionClosed();
+    }
+
+    /**
+     * Open a stream on the connection unless it has the max concurrent streams.
+     *
+     * @param streamId stream ID
+     * @return whether the stream is opened, the stream must be closed by {@link #closeStream} once finished if so
+     */
+    protected boolean tryOpenStream(int streamId) {
+        if (terminationError != null
+                || maxConcurrentStreams > 0 && openStreams.size() >= maxConcurrentStreams) {
+            stats.streamRejected();
+            return false;
+        }
+        if (openStreams.add(streamId)) {
+            stats.streamOpened();
+        }
+        return true;
+    }
+
+    /**
+     * Close a stream opened by {@link #tryOpenStream}, it can be called more than once.
+     *
+     * @param streamId stream ID
+     */
+    protected void closeStream(int streamId) {
+        if (openStreams.remove(streamId)) {
+            stats.streamClosed();
+        }
+    }
+
+    /**
+     * Create the subscriber sending a local stream to the remote end, batched when {@code stream_prefetch} is set
+     * in the protocol ext.
+     *
+     * @param workerPool worker pool used to trigger flow control
+     * @param frameCodec frame codec
+     * @param streamId stream ID
+     * @param windowSize window size of the remote end, zero means no flow control
+     * @param <T> specific consumption object type
+     * @return the subscriber
+     */
+    protected <T> StreamRemoteSubscriber<T> newRemoteSubscriber(WorkerPool workerPool,
+            TRpcStreamFrameCodec frameCodec, int streamId, int windowSize) {
+        Map<String, Object> extMap = protocolConfig.getExtMap();
+        return new StreamRemoteSubscriber<>(workerPool, connection, frameCodec, streamId, windowSize,
+                MapUtils.getIntValue(extMap, TRpcStreamConstants.STREAM_PREFETCH_KEY, 0),
+                MapUtils.getIntValue(extMap, TRpcStreamConstants.STREAM_FLUSH_BYTES_KEY,
+                        TRpcStreamConstants.DEFAULT_STREAM_FLUSH_BYTES), stats);
+    }
+
+    /**
+     * Create the local consumer of a stream received from the remote end, tuning its window when
+     * {@code stream_max_window_size} is set in the protocol ext. It must be released by
+     * {@link #releaseLocalConsumer} once the stream is finished.
+     *
+     * @param streamId stream ID
+     * @param windowSize window size of this end, zero means no flow control
+     * @return the consumer
+     */
+    protected StreamLocalConsumer newLocalConsumer(int streamId, int windowSize) {
+        int maxWindowSize = MapUtils.getIntValue(protocolConfig.getExtMap(),
+                TRpcStreamConstants.STREAM_MAX_WINDOW_SIZE_KEY, 0);
+        StreamLocalConsumer consumer = new StreamLocalConsumer(connection, streamId, windowSize, maxWindowSize,
+                connectionWindow, connectionBuffer);
+        consumers.put(streamId, consumer);
+        return consumer;
+    }
+
+    /**
+     * Release the local consumer of a stream, giving its window and the bytes it did not consume back to the
+     * connection.
+     *
+     * @param streamId stream ID
+     */
+    protected void releaseLocalConsumer(int streamId) {
+        Optional.ofNullable(consumers.remove(streamId)).ifPresent(StreamLocalConsumer::release);
     }
 
     protected int getWindowSize(int window) {
@@ -0,0 +1,110 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.proto.standard.stream;
+
+import com.tencent.trpc.core.logger.Logger;
+import com.tencent.trpc.core.logger.LoggerFactory;
+import com.tencent.trpc.core.metrics.StreamStats;
+import com.tencent.trpc.core.stream.transport.RpcConnection;
+import com.tencent.trpc.core.utils.PreconditionUtils;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Received bytes of a connection buffered by its streams and not consumed yet.
+ *
+ * <p>The connection stops reading once the buffered bytes reach the max, which stops the remote from sending
+ * through the TCP window, and reads again once half of them are consumed. A remote ignoring the flow control or
+ * opening many streams cannot make the connection buffer more than the max.</p>
+ */
+@ThreadSafe
+public class StreamConnectionBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamConnectionBuffer.class);
+
+    private final RpcConnection connection;
+    /**
+     * Max bytes buffered before suspending the read, zero means never suspending it.
+     */
+    private final long maxBufferedBytes;
+    private final StreamStats stats;
+    private final AtomicLong bufferedBytes = new AtomicLong();
+    /**
+     * Whether the read is suspended, guarded by this.
+     */
+    private boolean suspended;
+
+    public StreamConnectionBuffer(RpcConnection connection, long maxBufferedBytes, StreamStats stats) {
+        this.connection = Objects.requireNonNull(connection, "connection is null");
+        PreconditionUtils.checkArgument(maxBufferedBytes >= 0,
+                "create stream connection buffer failed, maxBufferedBytes=%d", maxBufferedBytes);
+        this.maxBufferedBytes = maxBufferedBytes;
+        this.stats = Objects.requireNonNull(stats, "stats is null");
+    }
+
+    /**
+     * Add the bytes received by a stream.
+     *
+     * @param size received bytes
+     */
+    public void buffer(int size) {
+        long buffered = bufferedBytes.addAndGet(size);
+        stats.addBufferedBytes(size);
+        if (maxBufferedBytes > 0 && buffered >= maxBufferedBytes) {
+            suspend();
+        }
+    }
+
+    /**
+     * Remove the bytes consumed by a stream, or dropped with it.
+     *
+     * @param size consumed bytes
+     */
+    public void consume(long size) {
+        long buffered = bufferedBytes.addAndGet(-size);
+        stats.addBufferedBytes(-size);
+        if (maxBufferedBytes > 0 && buffered <= maxBufferedBytes / 2) {
+            resume();
+        }
+    }
+
+    public long getBufferedBytes() {
+        return bufferedBytes.get();
+    }
+
+    public synchronized boolean isSuspended() {
+        return suspended;
+    }
+
+    private synchronized void suspend() {
+        // checked again with the lock held, the bytes may have been consumed since
+        if (suspended || bufferedBytes.get() < maxBufferedBytes) {
+            return;
+        }
+        suspended = true;
+        stats.readSuspended();
+        logger.warn("stream connection has buffered {} bytes, suspend reading", bufferedBytes.get());
+        connection.setAutoRead(false);
+    }
+
+    private synchronized void resume() {
+        if (!suspended || bufferedBytes.get() > maxBufferedBytes / 2) {
+            return;
+        }
+        suspended = false;
+        stats.readResumed();
+        logger.info("stream connection has buffered {} bytes, resume reading", bufferedBytes.get());
+        connection.setAutoRead(true);
+    }
+
+}
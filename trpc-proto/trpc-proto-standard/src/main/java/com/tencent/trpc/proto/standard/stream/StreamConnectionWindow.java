@@ -0,0 +1,89 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.proto.standard.stream;
+
+import com.tencent.trpc.core.utils.PreconditionUtils;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Receive window budget of a connection, shared by its streams so that they cannot commit more memory than the
+ * budget together.
+ *
+ * <p>The initial window of a stream is always committed since the peer has already been told about it, the window
+ * of a stream only grows beyond it while the sum of the windows committed on the connection is under the
+ * budget.</p>
+ */
+@ThreadSafe
+public class StreamConnectionWindow {
+
+    /**
+     * Max bytes committed by the streams of the connection.
+     */
+    private final long budget;
+    /**
+     * Bytes currently committed by the streams of the connection.
+     */
+    private final AtomicLong committed = new AtomicLong();
+
+    public StreamConnectionWindow(long budget) {
+        PreconditionUtils.checkArgument(budget >= 0, "create stream connection window failed, budget=%d", budget);
+        this.budget = budget;
+    }
+
+    /**
+     * Commit the initial window of a stream.
+     *
+     * @param size window size
+     */
+    public void commit(int size) {
+        committed.addAndGet(size);
+    }
+
+    /**
+     * Try to commit the growth of the window of a stream.
+     *
+     * @param size wanted growth
+     * @return committed growth, between zero and the wanted growth
+     */
+    public int tryGrow(int size) {
+        while (true) {
+            long current = committed.get();
+            long available = budget - current;
+            if (available <= 0 || size <= 0) {
+                return 0;
+            }
+            int granted = (int) Math.min(size, available);
+            if (committed.compareAndSet(current, current + granted)) {
+                return granted;
+            }
+        }
+    }
+
+    /**
+     * Give back some window committed by a stream.
+     *
+     * @param size released window size
+     */
+    public void release(int size) {
+        committed.addAndGet(-size);
+    }
+
+    public long getBudget() {
+        return budget;
+    }
+
+    public long getCommitted() {
+        return committed.get();
+    }
+
+}
@@ -19,9 +19,19 @@ import com.tencent.trpc.proto.standard.stream.codec.TRpcStreamFrameCodec;
 import io.netty.buffer.ByteBuf;
 import java.util.Objects;
 import java.util.function.Consumer;
-import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
 
-@NotThreadSafe
+/**
+ * Local consumption of a stream, gives the consumed window back to the peer by feedback frames.
+ *
+ * <p>When a max window size above the initial one and a connection window are given, the window is tuned from the
+ * bandwidth-delay product of the stream. The round trip is sampled from the feedback timing: data starting beyond
+ * the window granted before a feedback can only be sent once the peer got that feedback. When the peer stayed idle
+ * until then, it was blocked by the window, which is doubled up to the max window size and the connection window.
+ * When the window is much larger than the consumption rate times the round trip, it shrinks back towards its
+ * initial size by feeding back less than consumed.</p>
+ */
+@ThreadSafe
 public class StreamLocalConsumer implements Consumer<ByteBuf> {
 
     private static final Logger logger = LoggerFactory.getLogger(StreamLocalConsumer.class);
@@ -31,35 +41,229 @@ public class StreamLocalConsumer implements Consumer<ByteBuf> {
     private final int streamId;
 
     // The initialized windowSize of the peer. Zero means no window size and no flow control.
-    private final int windowSize;
+    private final int initialWindowSize;
     private final boolean noFlowControl;
+    // The max windowSize when tuning
+    private final int maxWindowSize;
+    private final StreamConnectionWindow connectionWindow;
+    private final boolean autoTuning;
+    // Received bytes buffered by the connection, null if not accounted
+    private final StreamConnectionBuffer connectionBuffer;
+    // Bytes of the stream buffered and not consumed yet
+    private long bufferedBytes;
+
+    // Current windowSize, only differs from the initial one when tuning
+    private int windowSize;
 
     // Actually consumed window size
     private int consumedWindowSize;
 
+    // The following fields are only used when tuning
+    // Total consumed and granted bytes, the granted bytes include the initial window
+    private long consumedBytes;
+    private long grantedBytes;
+    // Window grown but not fed back yet
+    private int pendingGrowth;
+    // Window shrunk but not deducted from the feedback yet
+    private int pendingShrink;
+    // Time of the oldest feedback whose round trip is not sampled yet, zero if none, and the bytes granted before it
+    private long probeNanos;
+    private long probeGrantedBytes;
+    private long lastConsumeNanos;
+    // Start of the current consumption rate measurement, which lasts at least two round trips
+    private long rateStartNanos;
+    private long rateStartBytes;
+    // Smoothed round trip time, and the consumption rate of the last measurement
+    private long smoothedRttNanos;
+    private double bytesPerNano;
+    private boolean released;
+
     public StreamLocalConsumer(RpcConnection connection, int streamId, int windowSize) {
+        this(connection, streamId, windowSize, windowSize, null);
+    }
+
+    /**
+     * Create a local consumer tuning its window.
+     *
+     * @param connection stream connection
+     * @param streamId stream ID
+     * @param windowSize initialized window size, zero means no flow control
+     * @param maxWindowSize max window size when tuning, tuning is disabled if not above the initialized window size
+     * @param connectionWindow receive window budget of the connection, tuning is disabled if null
+     */
+    public StreamLocalConsumer(RpcConnection connection, int streamId, int windowSize, int maxWindowSize,
+            StreamConnectionWindow connectionWindow) {
+        this(connection, streamId, windowSize, maxWindowSize, connectionWindow, null);
+    }
+
+    /**
+     * Create a local consumer tuning its window and accounting the bytes buffered by the connection.
+     *
+     * @param connection stream connection
+     * @param streamId stream ID
+     * @param windowSize initialized window size, zero means no flow control
+     * @param maxWindowSize max window size when tuning, tuning is disabled if not above the initialized window size
+     * @param connectionWindow receive window budget of the connection, tuning is disabled if null
+     * @param connectionBuffer received bytes buffered by the connection, not accounted if null
+     */
+    public StreamLocalConsumer(RpcConnection connection, int streamId, int windowSize, int maxWindowSize,
+            StreamConnectionWindow connectionWindow, StreamConnectionBuffer connectionBuffer) {
         this.connection = Objects.requireNonNull(connection, "connection is null");
         PreconditionUtils.checkArgument(windowSize >= 0 && streamId >= 0,
                 "create remote flow subscriber failed, windowSize=%d, streamId=%d",
                 windowSize, streamId);
         this.streamId = streamId;
+        this.initialWindowSize = windowSize;
         this.windowSize = windowSize;
         this.noFlowControl = windowSize == 0;
+        this.maxWindowSize = maxWindowSize;
+        this.connectionWindow = connectionWindow;
+        this.autoTuning = !noFlowControl && connectionWindow != null && maxWindowSize > windowSize;
+        this.connectionBuffer = connectionBuffer;
+        if (autoTuning) {
+            connectionWindow.commit(windowSize);
+            this.grantedBytes = windowSize;
+            this.rateStartNanos = System.nanoTime();
+        }
     }
 
     @Override
-    public void accept(ByteBuf byteBuf) {
-        if (noFlowControl || byteBuf == null) {
+    public synchronized void accept(ByteBuf byteBuf) {
+        if (byteBuf == null) {
             return;
         }
-        consumedWindowSize += byteBuf.readableBytes();
+        int size = byteBuf.readableBytes();
+        if (connectionBuffer != null && !released) {
+            bufferedBytes -= size;
+            connectionBuffer.consume(size);
+        }
+        if (noFlowControl) {
+            return;
+        }
+        if (autoTuning && !released) {
+            sampleRtt(size);
+        }
+        consumedWindowSize += size;
         // As aligned with other language of tRpc, here will send increment feedback to peer if this end
         // has already consumed more than quarter of windowSize.
-        if (consumedWindowSize >= windowSize / 4) {
-            int increment = consumedWindowSize;
+        if (consumedWindowSize >= windowSize / 4 || pendingGrowth > 0) {
+            int consumed = consumedWindowSize;
             consumedWindowSize = 0;
-            feedback(increment);
+            if (autoTuning) {
+                feedbackTuned(consumed);
+            } else {
+                feedback(consumed);
+            }
+        }
+    }
+
+    /**
+     * Account the bytes received by the stream before they are consumed.
+     *
+     * @param size received bytes
+     */
+    public synchronized void buffer(int size) {
+        if (connectionBuffer == null || released) {
+            return;
+        }
+        bufferedBytes += size;
+        connectionBuffer.buffer(size);
+    }
+
+    /**
+     * Give the window committed by the stream and the bytes it did not consume back to the connection, called once
+     * the stream is finished.
+     */
+    public synchronized void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        if (connectionBuffer != null && bufferedBytes != 0) {
+            connectionBuffer.consume(bufferedBytes);
+            bufferedBytes = 0;
+        }
+        if (autoTuning) {
+            connectionWindow.release(windowSize + pendingShrink);
+        }
+    }
+
+    public synchronized int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * Smoothed round trip time sampled from the feedback timing, zero if not sampled yet.
+     *
+     * @return round trip time in nanoseconds
+     */
+    public synchronized long getSmoothedRttNanos() {
+        return smoothedRttNanos;
+    }
+
+    private void sampleRtt(int size) {
+        long now = System.nanoTime();
+        long start = consumedBytes;
+        consumedBytes += size;
+        if (probeNanos != 0 && start >= probeGrantedBytes) {
+            long sample = now - probeNanos;
+            probeNanos = 0;
+            smoothedRttNanos = smoothedRttNanos == 0 ? sample : (7 * smoothedRttNanos + sample) / 8;
+            // the peer used up the window granted before the feedback, and blocked if it stayed idle since then
+            if (now - lastConsumeNanos >= sample / 2) {
+                grow();
+            }
+        }
+        lastConsumeNanos = now;
+    }
+
+    private void grow() {
+        int wanted = (int) Math.min(maxWindowSize, 2L * windowSize) - windowSize;
+        int granted = connectionWindow.tryGrow(wanted);
+        if (granted > 0) {
+            windowSize += granted;
+            pendingGrowth += granted;
+            logger.debug("stream {} grows windowSize to {}, rtt {}us", streamId, windowSize,
+                    smoothedRttNanos / 1000);
+        }
+    }
+
+    private void feedbackTuned(int consumed) {
+        long now = System.nanoTime();
+        long elapsed = now - rateStartNanos;
+        // the rate is measured over two round trips at least so that the pauses of a blocked peer are included,
+        // and the window shrinks when it is far above the bandwidth-delay product
+        if (smoothedRttNanos > 0 && elapsed >= 2 * smoothedRttNanos) {
+            bytesPerNano = (double) (consumedBytes - rateStartBytes) / elapsed;
+            rateStartNanos = now;
+            rateStartBytes = consumedBytes;
+            long bdp = (long) (bytesPerNano * smoothedRttNanos);
+            if (pendingGrowth == 0 && windowSize > initialWindowSize && windowSize > 4 * bdp) {
+                int target = (int) Math.max(initialWindowSize, 2 * bdp);
+                pendingShrink += windowSize - target;
+                windowSize = target;
+                logger.debug("stream {} shrinks windowSize to {}, rtt {}us", streamId, windowSize,
+                        smoothedRttNanos / 1000);
+            }
+        }
+
+        int increment = consumed + pendingGrowth;
+        pendingGrowth = 0;
+        int deducted = Math.min(pendingShrink, increment);
+        if (deducted > 0) {
+            increment -= deducted;
+            pendingShrink -= deducted;
+            connectionWindow.release(deducted);
+        }
+        if (increment <= 0) {
+            return;
+        }
+        if (probeNanos == 0) {
+            probeNanos = now;
+            probeGrantedBytes = grantedBytes;
         }
+        grantedBytes += increment;
+        feedback(increment);
     }
 
     private void feedback(int increment) {
@@ -13,6 +13,7 @@ package com.tencent.trpc.proto.standard.stream;
 
 import com.tencent.trpc.core.logger.Logger;
 import com.tencent.trpc.core.logger.LoggerFactory;
+import com.tencent.trpc.core.metrics.StreamStats;
 import com.tencent.trpc.core.stream.transport.RpcConnection;
 import com.tencent.trpc.core.utils.PreconditionUtils;
 import com.tencent.trpc.core.worker.spi.WorkerPool;
@@ -21,6 +22,8 @@ import com.tencent.trpc.proto.standard.stream.codec.TRpcStreamFrameCodec;
 import com.tencent.trpc.proto.standard.stream.codec.TRpcStreamFrameHeaderCodec;
 import com.tencent.trpc.proto.standard.stream.config.TRpcStreamConstants;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.util.ReferenceCountUtil;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import javax.annotation.Nonnull;
@@ -32,6 +35,12 @@ import reactor.core.publisher.BaseSubscriber;
  * Remote consumption control class for local streams, used to subscribe to local streams and send data to the
  * remote end, while supporting flow control.
  *
+ * <p>By default the elements are requested and sent one by one. When a prefetch is set, the elements are requested
+ * in batches of up to prefetch elements, bounded by the remaining flow control window, and their DATA frames are
+ * gathered in a composite buffer sent at once when the batch is complete, when it reaches the flush bytes, or when the
+ * worker pool gets to the flush scheduled by the first frame of the batch, i.e. once the current drain of the
+ * upstream is over.</p>
+ *
  * @param <T> specific consumption object type
  */
 @ThreadSafe
@@ -63,6 +72,38 @@ public class StreamRemoteSubscriber<T> extends BaseSubscriber<T> {
 
     private final boolean noFlowControl;
 
+    /**
+     * Max elements requested at once, 0 to request them one by one.
+     */
+    private final int prefetch;
+    /**
+     * Send the gathered frames once they reach this size.
+     */
+    private final int flushBytes;
+    /**
+     * DATA frames not sent yet, guarded by this.
+     */
+    private CompositeByteBuf pendingFrames;
+    private int pendingFrameCount;
+    /**
+     * Elements requested and not received yet, guarded by this.
+     */
+    private long demand;
+    private boolean flushScheduled;
+    /**
+     * Frames and data bytes sent, used to estimate how many elements fit in the window, guarded by this.
+     */
+    private long sentFrames;
+    private long sentBytes;
+    /**
+     * Stats of the streams of the connection, null if not recorded.
+     */
+    private final StreamStats stats;
+    /**
+     * Time the window is used out, zero if it is not.
+     */
+    private volatile long stallStartNanos;
+
     /**
      * Create a remote flow consumption control class.
      *
@@ -74,6 +115,40 @@ public class StreamRemoteSubscriber<T> extends BaseSubscriber<T> {
      */
     public StreamRemoteSubscriber(WorkerPool workerPool, RpcConnection connection, TRpcStreamFrameCodec frameCodec,
             int streamId, int windowSize) {
+        this(workerPool, connection, frameCodec, streamId, windowSize, 0, 0);
+    }
+
+    /**
+     * Create a remote flow consumption control class sending the elements in batches.
+     *
+     * @param workerPool worker pool used to trigger flow control and flush the batches
+     * @param connection stream connection
+     * @param frameCodec frame codec
+     * @param streamId stream ID
+     * @param windowSize initialized window size, zero means no flow control
+     * @param prefetch max elements requested at once, zero means requesting them one by one
+     * @param flushBytes send the gathered frames once they reach this size
+     */
+    public StreamRemoteSubscriber(WorkerPool workerPool, RpcConnection connection, TRpcStreamFrameCodec frameCodec,
+            int streamId, int windowSize, int prefetch, int flushBytes) {
+        this(workerPool, connection, frameCodec, streamId, windowSize, prefetch, flushBytes, null);
+    }
+
+    /**
+     * Create a remote flow consumption control class sending the elements in batches and recording the sent frames
+     * and the time waiting for the window.
+     *
+     * @param workerPool worker pool used to trigger flow control and flush the batches
+     * @param connection stream connection
+     * @param frameCodec frame codec
+     * @param streamId stream ID
+     * @param windowSize initialized window size, zero means no flow control
+     * @param prefetch max elements requested at once, zero means requesting them one by one
+     * @param flushBytes send the gathered frames once they reach this size
+     * @param stats stats of the streams of the connection, not recorded if null
+     */
+    public StreamRemoteSubscriber(WorkerPool workerPool, RpcConnection connection, TRpcStreamFrameCodec frameCodec,
+            int streamId, int windowSize, int prefetch, int flushBytes, StreamStats stats) {
         this.workerPool = Objects.requireNonNull(workerPool, "workerPool is null");
         this.connection = Objects.requireNonNull(connection, "connection is null");
         this.frameCodec = Objects.requireNonNull(frameCodec, "frameCodec is null");
@@ -84,12 +159,19 @@ public class StreamRemoteSubscriber<T> extends BaseSubscriber<T> {
         this.initialWindowSize = windowSize;
         this.windowSize = windowSize;
         this.noFlowControl = windowSize == 0;
+        PreconditionUtils.checkArgument(prefetch >= 0 && flushBytes >= 0,
+                "create remote flow subscriber failed, prefetch=%d, flushBytes=%d", prefetch, flushBytes);
+        this.prefetch = prefetch;
+        this.flushBytes = flushBytes > 0 ? flushBytes : TRpcStreamConstants.DEFAULT_STREAM_FLUSH_BYTES;
+        this.stats = stats;
     }
 
     @Override
     protected void hookOnSubscribe(@Nonnull Subscription s) {
         if (noFlowControl) {
             s.request(Long.MAX_VALUE);
+        } else if (prefetch > 0) {
+            requestBatch();
         } else {
             s.request(1);
         }
@@ -103,8 +185,15 @@ public class StreamRemoteSubscriber<T> extends BaseSubscriber<T> {
      */
     @Override
     protected void hookOnNext(@Nonnull T value) {
+        if (prefetch > 0) {
+            batchOnNext(value);
+            return;
+        }
         ByteBuf dataFrame = frameCodec.encodeStreamDataFrame(streamId, value);
         connection.send(dataFrame);
+        if (stats != null) {
+            stats.frameSent();
+        }
 
         if (noFlowControl) {
             return;
@@ -121,8 +210,11 @@ public class StreamRemoteSubscriber<T> extends BaseSubscriber<T> {
      */
     @Override
     protected void hookOnComplete() {
-        connection.send(TRpcStreamFrameCodec.encodeStreamCloseFrame(connection.alloc(), streamId,
-                TRPCProtocol.TrpcRetCode.TRPC_INVOKE_SUCCESS_VALUE, TRpcStreamConstants.RPC_DEFAULT_RET_CODE_OK));
+        synchronized (this) {
+            flushPendingFrames();
+            connection.send(TRpcStreamFrameCodec.encodeStreamCloseFrame(connection.alloc(), streamId,
+                    TRPCProtocol.TrpcRetCode.TRPC_INVOKE_SUCCESS_VALUE, TRpcStreamConstants.RPC_DEFAULT_RET_CODE_OK));
+        }
     }
 
     /**
@@ -132,8 +224,23 @@ public class StreamRemoteSubscriber<T> extends BaseSubscriber<T> {
      */
     @Override
     protected void hookOnError(Throwable t) {
-        connection.send(TRpcStreamFrameCodec.encodeStreamCloseFrame(connection.alloc(), streamId,
-                TRPCProtocol.TrpcRetCode.TRPC_STREAM_UNKNOWN_ERR_VALUE, t.toString()));
+        synchronized (this) {
+            flushPendingFrames();
+            connection.send(TRpcStreamFrameCodec.encodeStreamCloseFrame(connection.alloc(), streamId,
+                    TRPCProtocol.TrpcRetCode.TRPC_STREAM_UNKNOWN_ERR_VALUE, t.toString()));
+        }
+    }
+
+    /**
+     * The stream is cancelled, drop the frames not sent yet.
+     */
+    @Override
+    protected synchronized void hookOnCancel() {
+        if (pendingFrames != null) {
+            ReferenceCountUtil.safeRelease(pendingFrames);
+            pendingFrames = null;
+            pendingFrameCount = 0;
+        }
     }
 
     /**
@@ -144,9 +251,107 @@ public class StreamRemoteSubscriber<T> extends BaseSubscriber<T> {
     public void incrementWindow(int size) {
         long window = WINDOW_SIZE.addAndGet(this, size);
         if (window - size <= 0 && window > 0) {
-            logger.info("stream {} has recovered {} windowSize, reconsuming", streamId, window);
-            workerPool.execute(() -> request(1));
+            long stallStart = stallStartNanos;
+            if (stallStart != 0) {
+                stallStartNanos = 0;
+                if (stats != null) {
+                    stats.recordWindowStall(System.nanoTime() - stallStart);
+                }
+            }
+            logger.debug("stream {} has recovered {} windowSize, reconsuming", streamId, window);
+            workerPool.execute(() -> {
+                if (prefetch > 0) {
+                    requestBatch();
+                } else {
+                    request(1);
+                }
+            });
+        }
+    }
+
+    /**
+     * Gather the DATA frame of an element into the current batch.
+     *
+     * @param value the consumed data
+     */
+    private void batchOnNext(T value) {
+        ByteBuf dataFrame = frameCodec.encodeStreamDataFrame(streamId, value);
+        // get the real data size, without frame header
+        int dataSize = dataFrame.readableBytes() - TRpcStreamFrameHeaderCodec.TRPC_FIX_HEADER_LENGTH;
+        boolean scheduleFlush = false;
+        boolean batchDone;
+        synchronized (this) {
+            if (pendingFrames == null) {
+                pendingFrames = connection.alloc().compositeBuffer(Math.max(prefetch, 2));
+            }
+            pendingFrames.addComponent(true, dataFrame);
+            pendingFrameCount++;
+            if (stats != null) {
+                stats.frameSent();
+            }
+            sentFrames++;
+            sentBytes += dataSize;
+            batchDone = !noFlowControl && --demand <= 0;
+            if (batchDone || pendingFrameCount >= prefetch || pendingFrames.readableBytes() >= flushBytes) {
+                flushPendingFrames();
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                scheduleFlush = true;
+            }
+        }
+        if (scheduleFlush) {
+            workerPool.execute(this::scheduledFlush);
+        }
+        if (noFlowControl) {
+            return;
         }
+        long window = WINDOW_SIZE.addAndGet(this, -dataSize);
+        if (window <= 0) {
+            windowUsedOut();
+        } else if (batchDone) {
+            requestBatch();
+        }
+    }
+
+    /**
+     * Request the next batch if the previous one is received and the window is not used out, the batch is bounded
+     * by the number of elements of the average size fitting in the window.
+     */
+    private void requestBatch() {
+        long n;
+        synchronized (this) {
+            int window = windowSize;
+            if (demand > 0 || window <= 0 || isDisposed()) {
+                return;
+            }
+            if (sentFrames == 0) {
+                // the size of the elements is unknown yet
+                n = 1;
+            } else {
+                long averageSize = Math.max(1, sentBytes / sentFrames);
+                n = Math.max(1, Math.min(prefetch, (window + averageSize - 1) / averageSize));
+            }
+            demand = n;
+        }
+        request(n);
+    }
+
+    private synchronized void scheduledFlush() {
+        flushScheduled = false;
+        flushPendingFrames();
+    }
+
+    /**
+     * Send the gathered frames, called with the lock held so that the frames of the stream are sent in order.
+     */
+    private void flushPendingFrames() {
+        if (pendingFrames == null) {
+            return;
+        }
+        ByteBuf frames = pendingFrames;
+        pendingFrames = null;
+        pendingFrameCount = 0;
+        connection.send(frames);
     }
 
     /**
@@ -159,8 +364,21 @@ public class StreamRemoteSubscriber<T> extends BaseSubscriber<T> {
         if (window > 0) {
             request(1);
         } else {
-            logger.warn("stream {} has used all {} windowSize, stop consuming", streamId, initialWindowSize);
+            windowUsedOut();
+        }
+    }
+
+    /**
+     * The window is used out, the stream stalls until the remote feeds back.
+     */
+    private void windowUsedOut() {
+        stallStartNanos = System.nanoTime();
+        // the feedback may have come before the stall starts
+        if (windowSize > 0) {
+            stallStartNanos = 0;
+            return;
         }
+        logger.warn("stream {} has used all {} windowSize, stop consuming", streamId, initialWindowSize);
     }
 
 }
@@ -13,6 +13,9 @@ package com.tencent.trpc.proto.standard.stream;
 
 import com.tencent.trpc.core.rpc.InvokeMode;
 import com.tencent.trpc.core.rpc.RpcContext;
+import com.tencent.trpc.core.rpc.stub.MethodDescriptor;
+import com.tencent.trpc.core.rpc.stub.ServiceDispatcher;
+import com.tencent.trpc.core.rpc.stub.ServiceStub;
 import com.tencent.trpc.core.stream.StreamCall;
 import com.tencent.trpc.core.utils.RpcUtils;
 import java.lang.reflect.Method;
@@ -39,18 +42,46 @@ public class StreamServiceInvoker implements StreamCall {
      * Method type.
      */
     final InvokeMode invokeMode;
+    /**
+     * Dispatcher of the generated service stub, null if the method is invoked by reflection.
+     */
+    final ServiceDispatcher<Object> dispatcher;
+    /**
+     * Method of the generated service stub, null if the method is invoked by reflection.
+     */
+    final MethodDescriptor stubMethod;
 
     public StreamServiceInvoker(Object service, Method method) {
+        this(service, method, null);
+    }
+
+    /**
+     * Create an invoker that prefers the dispatcher of the generated service stub.
+     *
+     * @param service service instance
+     * @param method service method
+     * @param stub generated stub of the service interface, may be null
+     */
+    public StreamServiceInvoker(Object service, Method method, ServiceStub<?> stub) {
         this.service = Objects.requireNonNull(service, "service is null");
         this.method = Objects.requireNonNull(method, "method is null");
-        this.invokeMode = RpcUtils.parseInvokeMode(method);
+        MethodDescriptor descriptor = stub == null ? null : stub.getDescriptor().getMethod(method);
+        if (descriptor != null) {
+            this.dispatcher = (ServiceDispatcher<Object>) stub.getDispatcher();
+            this.stubMethod = descriptor;
+            this.invokeMode = descriptor.getInvokeMode();
+        } else {
+            this.dispatcher = null;
+            this.stubMethod = null;
+            this.invokeMode = RpcUtils.parseInvokeMode(method);
+        }
     }
 
     @Override
     public <ReqT, RspT> Flux<RspT> serverStream(RpcContext ctx, ReqT request) {
         try {
             checkInvokeMode(InvokeMode.SERVER_STREAM);
-            return (Flux<RspT>) method.invoke(service, ctx, request);
+            return (Flux<RspT>) call(ctx, request);
         } catch (Throwable t) {
             return Flux.error(t);
         }
@@ -60,7 +91,7 @@ public class StreamServiceInvoker implements StreamCall {
     public <ReqT, RspT> Mono<RspT> clientStream(RpcContext ctx, Publisher<ReqT> requests) {
         try {
             checkInvokeMode(InvokeMode.CLIENT_STREAM);
-            return (Mono<RspT>) method.invoke(service, ctx, requests);
+            return (Mono<RspT>) call(ctx, requests);
         } catch (Throwable t) {
             return Mono.error(t);
         }
@@ -70,12 +101,26 @@ public class StreamServiceInvoker implements StreamCall {
     public <ReqT, RspT> Flux<RspT> duplexStream(RpcContext ctx, Publisher<ReqT> requests) {
         try {
             checkInvokeMode(InvokeMode.DUPLEX_STREAM);
-            return (Flux<RspT>) method.invoke(service, ctx, requests);
+            return (Flux<RspT>) call(ctx, requests);
         } catch (Throwable t) {
             return Flux.error(t);
         }
     }
 
+    /**
+     * Call the service method, directly through the stub dispatcher when there is one.
+     *
+     * @param ctx the server context
+     * @param argument the request or the request publisher
+     * @return the response publisher
+     */
+    private Object call(RpcContext ctx, Object argument) throws Exception {
+        if (dispatcher != null) {
+            return dispatcher.dispatch(service, stubMethod, ctx, new Object[]{argument});
+        }
+        return method.invoke(service, ctx, argument);
+    }
+
     /**
      * Check if the method supports the current call invokeMode.
      *
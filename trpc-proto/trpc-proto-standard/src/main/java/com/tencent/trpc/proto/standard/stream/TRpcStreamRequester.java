@@ -18,6 +18,7 @@ import com.tencent.trpc.core.common.config.ProtocolConfig;
 import com.tencent.trpc.core.exception.TRpcException;
 import com.tencent.trpc.core.logger.Logger;
 import com.tencent.trpc.core.logger.LoggerFactory;
+import com.tencent.trpc.core.metrics.StreamStats;
 import com.tencent.trpc.core.rpc.RpcContext;
 import com.tencent.trpc.core.rpc.RpcContextValueKeys;
 import com.tencent.trpc.core.rpc.RpcInvocation;
@@ -43,6 +44,8 @@ import reactor.core.publisher.Mono;
 import reactor.core.publisher.Sinks;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
 
 /**
  * TRPC protocol streaming request utility class.
@@ -54,7 +57,8 @@ public class TRpcStreamRequester extends BaseTRpcStreamRequesterResponder implem
     /**
      * Stream initializer listener.
      */
-    private final ConcurrentMap<Integer, Sinks.One<TrpcStreamInitMeta>> streamSetups = Maps.newConcurrentMap();
+    private final ConcurrentMap<Integer, Sinks.One<Tuple2<TrpcStreamInitMeta, Integer>>> streamSetups =
+            Maps.newConcurrentMap();
     /**
      * Stream ID generator, each connection has its own independent stream ID generation.
      */
@@ -72,7 +76,7 @@ public class TRpcStreamRequester extends BaseTRpcStreamRequesterResponder implem
 
     public TRpcStreamRequester(ProtocolConfig protocolConfig, RpcConnection connection,
             BackendConfig backendConfig) {
-        super(protocolConfig, connection);
+        super(protocolConfig, connection, StreamStats.CLIENT);
         this.backendConfig = Objects.requireNonNull(backendConfig, "backendConfig is null");
         this.workerPool = backendConfig.getWorkerPoolObj();
         this.scheduler = Schedulers.fromExecutor(workerPool.toExecutor());
@@ -96,11 +100,15 @@ public class TRpcStreamRequester extends BaseTRpcStreamRequesterResponder implem
         RpcInvocation invocation = RpcContextUtils.getValueMapValue(ctx, RpcContextValueKeys.RPC_INVOCATION_KEY);
         Objects.requireNonNull(invocation, "invocation");
         final int streamId = streamIdGenerator.getAndIncrement();
+        if (!tryOpenStream(streamId)) {
+            return Flux.error(TRpcException.newFrameException(TrpcRetCode.TRPC_CLIENT_LIMITED_ERR_VALUE,
+                    "too many concurrent streams"));
+        }
         // stream receive buffer size
         int recvBufSize = getWindowSize(this.protocolConfig.getReceiveBuffer());
 
         // stream initializing signal, triggered by the remote init response
-        Sinks.One<TrpcStreamInitMeta> setup = Sinks.one();
+        Sinks.One<Tuple2<TrpcStreamInitMeta, Integer>> setup = Sinks.one();
         streamSetups.put(streamId, setup);
 
         // create subsequent communication stream
@@ -131,24 +139,34 @@ public class TRpcStreamRequester extends BaseTRpcStreamRequesterResponder implem
                     }
                 })
                 .doFinally(s -> streamSetups.remove(streamId))
-                .flatMapMany(initMeta -> {
+                .flatMapMany(init -> {
+                    TrpcStreamInitMeta initMeta = init.getT1();
                     // create data frame encoder and decoder
                     TRpcStreamFrameCodec frameCodec = TRpcStreamFrameCodec.newDataFrameCodec(protocolConfig,
-                            connection.alloc(), initMeta.getContentEncoding(), initMeta.getContentType());
+                            connection.alloc(), initMeta.getContentEncoding(), initMeta.getContentType(),
+                            init.getT2());
 
-                    StreamRemoteSubscriber<ReqT> subscriber = new StreamRemoteSubscriber<>(this.workerPool,
-                            connection, frameCodec, streamId, initMeta.getInitWindowSize());
+                    StreamRemoteSubscriber<ReqT> subscriber = newRemoteSubscriber(this.workerPool, frameCodec,
+                            streamId, initMeta.getInitWindowSize());
                     subscribers.put(streamId, subscriber);
                     Flux.from(requests)
                             .subscribeOn(scheduler)
-                            .doFinally(s -> subscribers.remove(streamId))
+                            .doFinally(s -> {
+                                subscribers.remove(streamId);
+                                frameCodec.releaseEncodeContext();
+                            })
                             .subscribe(subscriber);
 
                     // adapt receiver stream to the subsequent communication stream
+                    StreamLocalConsumer consumer = newLocalConsumer(streamId, recvBufSize);
                     return receiver
                             .asFlux()
                             .publishOn(scheduler) // switch subsequent consumption thread
-                            .doOnNext(new StreamLocalConsumer(connection, streamId, recvBufSize))
+                            .doOnNext(consumer)
+                            .doFinally(s -> {
+                                releaseLocalConsumer(streamId);
+                                frameCodec.releaseDecodeContext();
+                            })
                             .map(data -> {
                                 try {
                                     // decode data
@@ -160,7 +178,10 @@ public class TRpcStreamRequester extends BaseTRpcStreamRequesterResponder implem
                                 }
                             });
                 })
-                .doFinally(signal -> receivers.remove(streamId));
+                .doFinally(signal -> {
+                    receivers.remove(streamId);
+                    closeStream(streamId);
+                });
     }
 
     /**
@@ -182,8 +203,8 @@ public class TRpcStreamRequester extends BaseTRpcStreamRequesterResponder implem
     }
 
     @Override
-    protected void handleStreamInit(int streamId, ByteBuf data) {
-        Sinks.One<TrpcStreamInitMeta> setupMonoSink = this.streamSetups.get(streamId);
+    protected void handleStreamInit(int streamId, int flags, ByteBuf data) {
+        Sinks.One<Tuple2<TrpcStreamInitMeta, Integer>> setupMonoSink = this.streamSetups.get(streamId);
         if (setupMonoSink == null) {
             errorResetStream(streamId, TrpcRetCode.TRPC_STREAM_UNKNOWN_ERR_VALUE, "not found stream");
             return;
@@ -197,7 +218,7 @@ public class TRpcStreamRequester extends BaseTRpcStreamRequesterResponder implem
             setupMonoSink.emitError(TRpcException.newFrameException(responseMeta.getRet(),
                     responseMeta.getErrorMsg().toStringUtf8()), Sinks.EmitFailureHandler.FAIL_FAST);
         } else {
-            setupMonoSink.emitValue(frameInitMeta, Sinks.EmitFailureHandler.FAIL_FAST);
+            setupMonoSink.emitValue(Tuples.of(frameInitMeta, flags), Sinks.EmitFailureHandler.FAIL_FAST);
         }
     }
 
@@ -16,6 +16,7 @@ import com.tencent.trpc.core.common.config.ProtocolConfig;
 import com.tencent.trpc.core.exception.ErrorCode;
 import com.tencent.trpc.core.logger.Logger;
 import com.tencent.trpc.core.logger.LoggerFactory;
+import com.tencent.trpc.core.metrics.StreamStats;
 import com.tencent.trpc.core.rpc.CallInfo;
 import com.tencent.trpc.core.rpc.ProviderInvoker;
 import com.tencent.trpc.core.rpc.RpcContext;
@@ -23,6 +24,7 @@ import com.tencent.trpc.core.rpc.RpcServerContext;
 import com.tencent.trpc.core.rpc.common.RpcMethodInfo;
 import com.tencent.trpc.core.rpc.common.RpcMethodInfoAndInvoker;
 import com.tencent.trpc.core.rpc.def.DefMethodInfoRegister;
+import com.tencent.trpc.core.rpc.stub.ServiceStubs;
 import com.tencent.trpc.core.stream.transport.RpcConnection;
 import com.tencent.trpc.core.worker.spi.WorkerPool;
 import com.tencent.trpc.proto.standard.common.TRPCProtocol.TrpcRetCode;
@@ -58,13 +60,13 @@ public class TRpcStreamResponder extends BaseTRpcStreamRequesterResponder {
 
     public TRpcStreamResponder(ProtocolConfig protocolConfig, RpcConnection connection,
             DefMethodInfoRegister methodInfoRegister) {
-        super(protocolConfig, connection);
+        super(protocolConfig, connection, StreamStats.SERVER);
         this.methodInfoRegister = Objects.requireNonNull(methodInfoRegister, "methodInfoRegister is null");
         logger.debug("created new rpcResponder for {}", protocolConfig);
     }
 
     @Override
-    protected void handleStreamInit(int streamId, ByteBuf frame) {
+    protected void handleStreamInit(int streamId, int flags, ByteBuf frame) {
         TrpcStreamInitMeta initMeta = TRpcStreamFrameCodec.decodeStreamInitFrame(frame);
         TrpcStreamInitRequestMeta requestMeta = initMeta.getRequestMeta();
         String func = requestMeta.getFunc().toStringUtf8();
@@ -76,17 +78,22 @@ public class TRpcStreamResponder extends BaseTRpcStreamRequesterResponder {
             return;
         }
         // get the request invoker
+        if (!tryOpenStream(streamId)) {
+            errorInitStream(streamId, TrpcRetCode.TRPC_SERVER_OVERLOAD_ERR_VALUE, "too many concurrent streams");
+            return;
+        }
         ProviderInvoker<?> providerInvoker = methodInfoAndInvoker.getInvoker();
         RpcMethodInfo methodInfo = methodInfoAndInvoker.getMethodInfo();
         StreamServiceInvoker streamServiceInvoker = services.computeIfAbsent(func, key ->
-                new StreamServiceInvoker(providerInvoker.getImpl(), methodInfo.getMethod()));
+                new StreamServiceInvoker(providerInvoker.getImpl(), methodInfo.getMethod(),
+                        ServiceStubs.lookup(providerInvoker.getInterface())));
         // consume client messages and send to downstream server
         Sinks.Many<ByteBuf> receiver = Sinks.many().unicast().onBackpressureBuffer();
         receivers.put(streamId, receiver);
 
         // create data frame encoder and decoder
         TRpcStreamFrameCodec frameCodec = TRpcStreamFrameCodec.newDataFrameCodec(protocolConfig, connection.alloc(),
-                initMeta.getContentEncoding(), initMeta.getContentType());
+                initMeta.getContentEncoding(), initMeta.getContentType(), flags);
         final WorkerPool workerPool = providerInvoker.getConfig().getWorkerPoolObj();
         // server size flow control is firstly decided by the client init meta then by configuration.
         int recvBufSize = initMeta.getInitWindowSize() == 0 ? 0 : getWindowSize(this.protocolConfig.getReceiveBuffer());
@@ -94,9 +101,10 @@ public class TRpcStreamResponder extends BaseTRpcStreamRequesterResponder {
         // Call the service. Streaming service calls are asynchronous, need to limit the stream consumption thread in
         // the worker thread pool.
         Scheduler scheduler = Schedulers.fromExecutor(workerPool.toExecutor());
+        StreamLocalConsumer consumer = newLocalConsumer(streamId, recvBufSize);
         Flux<?> receiverFlux = receiver.asFlux()
                 .publishOn(scheduler)
-                .doOnNext(new StreamLocalConsumer(connection, streamId, recvBufSize))
+                .doOnNext(consumer)
                 .map(data -> {
                     try {
                         // decode data
@@ -106,7 +114,11 @@ public class TRpcStreamResponder extends BaseTRpcStreamRequesterResponder {
                         ReferenceCountUtil.safeRelease(data);
                     }
                 })
-                .doFinally(signal -> receivers.remove(streamId));
+                .doFinally(signal -> {
+                    receivers.remove(streamId);
+                    releaseLocalConsumer(streamId);
+                    frameCodec.releaseDecodeContext();
+                });
 
         // use the thread pool to call the corresponding interface to prevent blocking the IO thread
         workerPool.execute(() -> {
@@ -130,6 +142,8 @@ public class TRpcStreamResponder extends BaseTRpcStreamRequesterResponder {
                 default:
                     errorInitStream(streamId, TrpcRetCode.TRPC_INVOKE_UNKNOWN_ERR_VALUE,
                             String.format("stream method not support invoke mode %s", streamServiceInvoker.invokeMode));
+                    releaseLocalConsumer(streamId);
+                    closeStream(streamId);
                     return;
             }
 
@@ -140,11 +154,16 @@ public class TRpcStreamResponder extends BaseTRpcStreamRequesterResponder {
                             TRpcStreamConstants.RPC_DEFAULT_RET_CODE_OK));
 
             // 2.Subscribe to the output stream and send it to the client side.
-            StreamRemoteSubscriber<Object> subscriber = new StreamRemoteSubscriber<>(workerPool,
-                    connection, frameCodec, streamId, initMeta.getInitWindowSize());
+            StreamRemoteSubscriber<Object> subscriber = newRemoteSubscriber(workerPool, frameCodec, streamId,
+                    initMeta.getInitWindowSize());
             subscribers.put(streamId, subscriber);
             Flux.from(resp)
-                    .doFinally(s -> subscribers.remove(streamId)) // remove cache if stream finished
+                    .doFinally(s -> {
+                        // remove cache if stream finished
+                        subscribers.remove(streamId);
+                        frameCodec.releaseEncodeContext();
+                        closeStream(streamId);
+                    })
                     .subscribe(subscriber);
         });
     }
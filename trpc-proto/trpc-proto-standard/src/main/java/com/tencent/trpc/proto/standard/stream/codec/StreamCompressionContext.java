@@ -0,0 +1,111 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.proto.standard.stream.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Deflate context kept across the messages of one direction of a stream.
+ *
+ * <p>Each message is deflated with a sync flush so that it can be inflated on its own once the previous ones are,
+ * while later messages still refer to the history of the earlier ones. Small and repetitive messages compress much
+ * better than one by one. The messages must be inflated in the order they are deflated.</p>
+ */
+@ThreadSafe
+public class StreamCompressionContext {
+
+    private static final int MIN_BUFFER_SIZE = 64;
+
+    private Deflater deflater;
+    private Inflater inflater;
+    private boolean closed;
+
+    /**
+     * Deflate a message with the history of the previous ones.
+     *
+     * @param src message
+     * @return deflated message
+     */
+    public synchronized byte[] deflate(byte[] src) {
+        checkNotClosed();
+        if (deflater == null) {
+            deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        }
+        deflater.setInput(src);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(MIN_BUFFER_SIZE, src.length / 2));
+        byte[] buffer = new byte[Math.max(MIN_BUFFER_SIZE, src.length / 2)];
+        int n;
+        // sync flush writes out all the input, the output is complete once the buffer is not filled up
+        do {
+            n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+            out.write(buffer, 0, n);
+        } while (n == buffer.length);
+        return out.toByteArray();
+    }
+
+    /**
+     * Inflate a message deflated by {@link #deflate} on the other end.
+     *
+     * @param src deflated message
+     * @return message
+     * @throws IOException if the data is not valid
+     */
+    public synchronized byte[] inflate(byte[] src) throws IOException {
+        checkNotClosed();
+        if (inflater == null) {
+            inflater = new Inflater(true);
+        }
+        inflater.setInput(src);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(MIN_BUFFER_SIZE, src.length * 2));
+        byte[] buffer = new byte[Math.max(MIN_BUFFER_SIZE, src.length * 2)];
+        try {
+            while (!inflater.needsInput() && !inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && !inflater.needsInput()) {
+                    throw new IOException("inflate stream message failed, no progress with "
+                            + inflater.getRemaining() + " bytes remaining");
+                }
+                out.write(buffer, 0, n);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("inflate stream message failed", e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Release the native resources, the context cannot be used anymore.
+     */
+    public synchronized void close() {
+        closed = true;
+        if (deflater != null) {
+            deflater.end();
+            deflater = null;
+        }
+        if (inflater != null) {
+            inflater.end();
+            inflater = null;
+        }
+    }
+
+    private void checkNotClosed() {
+        if (closed) {
+            throw new IllegalStateException("stream compression context is closed");
+        }
+    }
+
+}
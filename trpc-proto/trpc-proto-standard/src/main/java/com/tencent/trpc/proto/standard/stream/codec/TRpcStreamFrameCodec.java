@@ -14,6 +14,7 @@ package com.tencent.trpc.proto.standard.stream.codec;
 import com.google.protobuf.ByteString;
 import com.tencent.trpc.core.common.config.BackendConfig;
 import com.tencent.trpc.core.common.config.ProtocolConfig;
+import com.tencent.trpc.core.compressor.CompressType;
 import com.tencent.trpc.core.compressor.CompressorSupport;
 import com.tencent.trpc.core.compressor.spi.Compressor;
 import com.tencent.trpc.core.rpc.CallInfo;
@@ -41,6 +42,7 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.lang3.StringUtils;
 
 /**
@@ -48,9 +50,29 @@ import org.apache.commons.lang3.StringUtils;
  *
  * <p>Only need to create a TRpcStreamFrameCodec instance for encoding and decoding data frames, other frames can be
  * encoded and decoded through static methods.</p>
+ *
+ * <p>When both ends flag {@link TRpcStreamFrameHeaderCodec#INIT_FLAG_MESSAGE_COMPRESSION} in their init frames, the
+ * data frames are compressed message by message: the data starts with a byte telling how the message is encoded,
+ * the messages under {@code stream_compress_min_bytes} are not compressed, and with
+ * {@code stream_compression_context} the messages of a gzip stream are deflated with a context kept across the
+ * messages of the stream. Otherwise every message is
+ * compressed on its own as the ends not knowing the flag expect.</p>
  */
 public class TRpcStreamFrameCodec {
 
+    /**
+     * Message encoding of the per-message compression: not compressed.
+     */
+    static final byte MESSAGE_RAW = 0;
+    /**
+     * Message encoding of the per-message compression: compressed on its own by the stream compressor.
+     */
+    static final byte MESSAGE_COMPRESSED = 1;
+    /**
+     * Message encoding of the per-message compression: deflated with the stream compression context.
+     */
+    static final byte MESSAGE_CONTEXT_COMPRESSED = 2;
+
     /**
      * Protocol configuration
      */
@@ -60,13 +82,30 @@ public class TRpcStreamFrameCodec {
      */
     private final ByteBufAllocator allocator;
     /**
-     * Compressor
+     * Compressor of the received data, announced by the remote init frame
      */
     private final Compressor compressor;
+    /**
+     * Compressor of the sent data, announced to the remote end by the local init frame
+     */
+    private final Compressor encodeCompressor;
     /**
      * Serializer
      */
     private final Serialization serialization;
+    /**
+     * Whether the data frames are compressed message by message
+     */
+    private final boolean messageCompression;
+    /**
+     * Messages under this size are not compressed with the per-message compression
+     */
+    private final int compressMinBytes;
+    /**
+     * Compression contexts of the sent and received messages, only with the per-message compression
+     */
+    private final StreamCompressionContext encodeContext;
+    private final StreamCompressionContext decodeContext;
 
     /**
      * TRPC streaming frame protocol codec
@@ -77,13 +116,25 @@ public class TRpcStreamFrameCodec {
      * @param serializeType decoding serialization type
      */
     private TRpcStreamFrameCodec(ProtocolConfig protocolConfig, ByteBufAllocator allocator,
-            int compressType, int serializeType) {
+            int compressType, int serializeType, boolean messageCompression) {
         this.protocolConfig = Objects.requireNonNull(protocolConfig, "protocolConfig is null");
         this.allocator = Objects.requireNonNull(allocator, "allocator is null");
         this.compressor = Objects.requireNonNull(CompressorSupport.ofType(compressType),
                 "cannot find compressor of type " + compressType);
         this.serialization = Objects.requireNonNull(SerializationSupport.ofType(serializeType),
                 "cannot find serialization of type " + serializeType);
+        String compressorName = protocolConfig.getCompressor();
+        this.encodeCompressor = CompressorSupport.ofName(compressorName);
+        PreconditionUtils.checkArgument(encodeCompressor != null,
+                "cannot find compressor of type %s", compressorName);
+        this.messageCompression = messageCompression;
+        this.compressMinBytes = MapUtils.getIntValue(protocolConfig.getExtMap(),
+                TRpcStreamConstants.STREAM_COMPRESS_MIN_BYTES_KEY, 0);
+        // the context depends on the encoding announced to the remote end, which is what it decodes with
+        this.encodeContext = messageCompression && encodeCompressor.type() == CompressType.GZIP
+                && MapUtils.getBooleanValue(protocolConfig.getExtMap(),
+                TRpcStreamConstants.STREAM_COMPRESSION_CONTEXT_KEY, false) ? new StreamCompressionContext() : null;
+        this.decodeContext = messageCompression ? new StreamCompressionContext() : null;
     }
 
     /**
@@ -100,7 +151,23 @@ public class TRpcStreamFrameCodec {
      */
     public static TRpcStreamFrameCodec newDataFrameCodec(ProtocolConfig protocolConfig, ByteBufAllocator allocator,
             int compressType, int serializeType) {
-        return new TRpcStreamFrameCodec(protocolConfig, allocator, compressType, serializeType);
+        return new TRpcStreamFrameCodec(protocolConfig, allocator, compressType, serializeType, false);
+    }
+
+    /**
+     * Create a data frame codec according to the flags of the remote init frame
+     *
+     * @param protocolConfig protocol configuration for encoding
+     * @param allocator byteBuf allocator
+     * @param compressType decompress type
+     * @param serializeType decoding serialization type
+     * @param remoteInitFlags header flags of the init frame of the remote end
+     * @return a single stream data frame codec
+     */
+    public static TRpcStreamFrameCodec newDataFrameCodec(ProtocolConfig protocolConfig, ByteBufAllocator allocator,
+            int compressType, int serializeType, int remoteInitFlags) {
+        return new TRpcStreamFrameCodec(protocolConfig, allocator, compressType, serializeType,
+                (remoteInitFlags & TRpcStreamFrameHeaderCodec.INIT_FLAG_MESSAGE_COMPRESSION) != 0);
     }
 
     /**
@@ -146,7 +213,8 @@ public class TRpcStreamFrameCodec {
                 .setContentEncoding(compressor.type())
                 .build();
 
-        return encodeStreamFrame(allocator, streamId, TRpcFrameType.INIT, initMeta.toByteArray());
+        return encodeStreamFrame(allocator, streamId, TRpcFrameType.INIT,
+                TRpcStreamFrameHeaderCodec.INIT_FLAG_MESSAGE_COMPRESSION, initMeta.toByteArray());
     }
 
     /**
@@ -188,7 +256,8 @@ public class TRpcStreamFrameCodec {
             initMetaBuilder.setContentEncoding(compressor.type());
         }
 
-        return encodeStreamFrame(allocator, streamId, TRpcFrameType.INIT, initMetaBuilder.build().toByteArray());
+        return encodeStreamFrame(allocator, streamId, TRpcFrameType.INIT,
+                TRpcStreamFrameHeaderCodec.INIT_FLAG_MESSAGE_COMPRESSION, initMetaBuilder.build().toByteArray());
     }
 
     /**
@@ -252,6 +321,20 @@ public class TRpcStreamFrameCodec {
      */
     private static ByteBuf encodeStreamFrame(ByteBufAllocator allocator, int streamId, TRpcFrameType frameType,
             byte[] data) {
+        return encodeStreamFrame(allocator, streamId, frameType, 0, data);
+    }
+
+    /**
+     * Encode the stream frame with flags
+     *
+     * @param streamId stream id
+     * @param frameType frame type
+     * @param flags flags written in the reserved field
+     * @param data frame data
+     * @return encoded frame
+     */
+    private static ByteBuf encodeStreamFrame(ByteBufAllocator allocator, int streamId, TRpcFrameType frameType,
+            int flags, byte[] data) {
         PreconditionUtils.checkArgument(data != null, "frame data is null"); // 流式协议每帧必须有帧数据
         int totalLength = TRpcStreamFrameHeaderCodec.TRPC_FIX_HEADER_LENGTH + data.length;
         ByteBuf frame = allocator.buffer(totalLength);
@@ -262,7 +345,7 @@ public class TRpcStreamFrameCodec {
         frame.writeInt(totalLength);
         frame.writeShort(0);  // nohead
         frame.writeInt(streamId); // stream id
-        frame.writeShort(0);  // reserved
+        frame.writeShort(flags);  // reserved
         // write data
         frame.writeBytes(data);
         return frame;
@@ -348,12 +431,6 @@ public class TRpcStreamFrameCodec {
         PreconditionUtils.checkArgument(serialization != null,
                 "cannot find serialization of type %s", serializationName);
 
-        // get compression type
-        String compressorName = this.protocolConfig.getCompressor();
-        Compressor compressor = CompressorSupport.ofName(compressorName);
-        PreconditionUtils.checkArgument(compressor != null,
-                "cannot find compressor of type %s", compressorName);
-
         byte[] value;
         try {
             value = serialization.serialize(data);
@@ -361,17 +438,59 @@ public class TRpcStreamFrameCodec {
             throw new IllegalArgumentException("encode stream data failed", e);
         }
 
+        if (messageCompression) {
+            return encodeMessageDataFrame(streamId, encodeCompressor, value);
+        }
         try {
-            value = compressor.compress(value);
+            value = encodeCompressor.compress(value);
         } catch (IOException e) {
-            throw new IllegalArgumentException(compressor.getClass() + " compress stream data failed", e);
+            throw new IllegalArgumentException(encodeCompressor.getClass() + " compress stream data failed", e);
         }
 
         return encodeStreamFrame(this.allocator, streamId, TRpcFrameType.DATA, value);
     }
 
     /**
-     * Decode the binary body data in the data frame
+     * Encode the stream data frame with the per-message compression
+     *
+     * @param streamId stream id
+     * @param compressor compressor of the stream
+     * @param value serialized data
+     * @return encoded frame
+     */
+    private ByteBuf encodeMessageDataFrame(int streamId, Compressor compressor, byte[] value) {
+        byte encoding = MESSAGE_RAW;
+        // the messages under stream_compress_min_bytes are sent raw
+        if (compressor.type() != CompressType.NONE && value.length >= compressMinBytes) {
+            if (encodeContext != null) {
+                encoding = MESSAGE_CONTEXT_COMPRESSED;
+                value = encodeContext.deflate(value);
+            } else {
+                encoding = MESSAGE_COMPRESSED;
+                try {
+                    value = compressor.compress(value);
+                } catch (IOException e) {
+                    throw new IllegalArgumentException(compressor.getClass() + " compress stream data failed", e);
+                }
+            }
+        }
+        int totalLength = TRpcStreamFrameHeaderCodec.TRPC_FIX_HEADER_LENGTH + 1 + value.length;
+        ByteBuf frame = allocator.buffer(totalLength);
+        frame.writeShort(StandardFrame.TRPC_MAGIC);
+        frame.writeByte(TrpcDataFrameType.TRPC_STREAM_FRAME_VALUE);
+        frame.writeByte(TRpcFrameType.DATA.getEncodedType());
+        frame.writeInt(totalLength);
+        frame.writeShort(0);  // nohead
+        frame.writeInt(streamId); // stream id
+        frame.writeShort(0);  // reserved
+        frame.writeByte(encoding);
+        frame.writeBytes(value);
+        return frame;
+    }
+
+    /**
+     * Decode the binary body data in the data frame. The data not compressed is deserialized in place without being
+     * copied, the caller can release it right after the call.
      *
      * @param data binary data
      * @param clazz body type class
@@ -379,11 +498,30 @@ public class TRpcStreamFrameCodec {
      * @return decoded data body
      */
     public <T> T decodeDataFrameData(ByteBuf data, Class<T> clazz) {
+        byte encoding = messageCompression ? data.readByte() : MESSAGE_COMPRESSED;
+        if (encoding == MESSAGE_COMPRESSED && compressor.type() == CompressType.NONE) {
+            encoding = MESSAGE_RAW;
+        }
+        try {
+            if (encoding == MESSAGE_RAW) {
+                return this.serialization.deserialize(data, clazz);
+            }
+        } catch (Exception e) {
+            throw new IllegalArgumentException(
+                    " deserialize to " + clazz.getGenericSuperclass().getTypeName()
+                            + " error", e);
+        }
+
         byte[] value = new byte[data.readableBytes()];
         data.readBytes(value);
-
         try {
-            value = this.compressor.decompress(value);
+            if (encoding == MESSAGE_COMPRESSED) {
+                value = this.compressor.decompress(value);
+            } else if (encoding == MESSAGE_CONTEXT_COMPRESSED) {
+                value = this.decodeContext.inflate(value);
+            } else {
+                throw new IllegalArgumentException("unknown stream message encoding " + encoding);
+            }
         } catch (IOException e) {
             throw new IllegalArgumentException(compressor.getClass() + " decompress error", e);
         }
@@ -397,6 +535,24 @@ public class TRpcStreamFrameCodec {
         }
     }
 
+    /**
+     * Release the compression context of the sent messages, called once the local stream is finished.
+     */
+    public void releaseEncodeContext() {
+        if (encodeContext != null) {
+            encodeContext.close();
+        }
+    }
+
+    /**
+     * Release the compression context of the received messages, called once the remote stream is finished.
+     */
+    public void releaseDecodeContext() {
+        if (decodeContext != null) {
+            decodeContext.close();
+        }
+    }
+
     public static class RpcCallInfo {
 
         final String caller;
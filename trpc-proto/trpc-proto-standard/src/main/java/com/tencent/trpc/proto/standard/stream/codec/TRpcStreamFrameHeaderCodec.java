@@ -23,6 +23,12 @@ public class TRpcStreamFrameHeaderCodec {
 
     public static final int TRPC_FIX_HEADER_LENGTH = StandardFrame.FRAME_SIZE;
 
+    /**
+     * Flag of the init frame telling that its sender supports the per-message compression of the data frames. The
+     * flags are written in the reserved field of the header, which is zero for the ends not knowing them.
+     */
+    public static final int INIT_FLAG_MESSAGE_COMPRESSION = 0x1;
+
     /**
      * Parse the protocol magic number.
      *
@@ -64,6 +70,20 @@ public class TRpcStreamFrameHeaderCodec {
         return streamId;
     }
 
+    /**
+     * Decode the flags in the reserved field of the header.
+     *
+     * @param frameHeader data frame
+     * @return flags
+     */
+    public static int flags(ByteBuf frameHeader) {
+        frameHeader.markReaderIndex();
+        frameHeader.skipBytes(Short.BYTES + Byte.BYTES + Byte.BYTES + Integer.BYTES + Short.BYTES + Integer.BYTES);
+        int flags = frameHeader.readUnsignedShort();
+        frameHeader.resetReaderIndex();
+        return flags;
+    }
+
     /**
      * Decode frame type.
      *
@@ -23,6 +23,69 @@ public interface TRpcStreamConstants {
      */
     int DEFAULT_STREAM_WINDOW_SIZE = 64 * 1024;
 
+    /**
+     * Protocol ext key of the max elements of a stream requested at once, the DATA frames of a batch are sent
+     * together. 0 by default, the elements are requested and sent one by one.
+     */
+    String STREAM_PREFETCH_KEY = "stream_prefetch";
+
+    /**
+     * Protocol ext key of the size from which the gathered DATA frames of a stream are sent.
+     */
+    String STREAM_FLUSH_BYTES_KEY = "stream_flush_bytes";
+
+    /**
+     * Default size from which the gathered DATA frames of a stream are sent.
+     */
+    int DEFAULT_STREAM_FLUSH_BYTES = 64 * 1024;
+
+    /**
+     * Protocol ext key of the max receiving window size of a stream, the window is tuned from the bandwidth-delay
+     * product of the stream when above the configured receive buffer. 0 by default, the window is static.
+     */
+    String STREAM_MAX_WINDOW_SIZE_KEY = "stream_max_window_size";
+
+    /**
+     * Protocol ext key of the receiving window budget shared by the streams of a connection, the windows of the
+     * streams only grow while their sum is under the budget.
+     */
+    String STREAM_CONNECTION_WINDOW_SIZE_KEY = "stream_connection_window_size";
+
+    /**
+     * Default receiving window budget shared by the streams of a connection.
+     */
+    int DEFAULT_STREAM_CONNECTION_WINDOW_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Protocol ext key of the min size of the compressed stream messages, only when both ends support the
+     * per-message compression. 0 by default, all the messages are compressed, the {@code compress_min_bytes} of
+     * the unary calls does not apply to the streams.
+     */
+    String STREAM_COMPRESS_MIN_BYTES_KEY = "stream_compress_min_bytes";
+
+    /**
+     * Protocol ext key of whether the gzip stream messages are deflated with a context kept across the messages of
+     * a stream, only when both ends support the per-message compression. False by default.
+     */
+    String STREAM_COMPRESSION_CONTEXT_KEY = "stream_compression_context";
+
+    /**
+     * Protocol ext key of the max concurrent streams of a connection, the streams beyond it are rejected on init.
+     * 0 by default, the streams are not limited.
+     */
+    String STREAM_MAX_CONCURRENT_STREAMS_KEY = "stream_max_concurrent_streams";
+
+    /**
+     * Protocol ext key of the max received bytes buffered by the streams of a connection, the connection stops
+     * reading once they reach it and reads again once half of them are consumed. 0 means never stopping reading.
+     */
+    String STREAM_CONNECTION_BUFFER_SIZE_KEY = "stream_connection_buffer_size";
+
+    /**
+     * Default max received bytes buffered by the streams of a connection.
+     */
+    int DEFAULT_STREAM_CONNECTION_BUFFER_SIZE = 32 * 1024 * 1024;
+
     /**
      * Starting number for available stream IDs, 0-99 IDs are reserved for the system.
      */
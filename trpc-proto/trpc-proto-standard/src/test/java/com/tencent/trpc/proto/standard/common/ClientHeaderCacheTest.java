@@ -0,0 +1,44 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+
+package com.tencent.trpc.proto.standard.common;
+
+import com.google.protobuf.ByteString;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ClientHeaderCacheTest {
+
+    @After
+    public void tearDown() {
+        ClientHeaderCache.clear();
+    }
+
+    @Test
+    public void testFunc() {
+        ByteString func = ClientHeaderCache.func("/trpc.app.server.Greeter/sayHello");
+        Assert.assertEquals("/trpc.app.server.Greeter/sayHello", func.toStringUtf8());
+        Assert.assertSame(func, ClientHeaderCache.func("/trpc.app.server.Greeter/sayHello"));
+        Assert.assertTrue(ClientHeaderCache.func(null).isEmpty());
+    }
+
+    @Test
+    public void testServiceName() {
+        ByteString name = ClientHeaderCache.serviceName("app", "server", "Greeter");
+        Assert.assertEquals("trpc.app.server.Greeter", name.toStringUtf8());
+        Assert.assertSame(name, ClientHeaderCache.serviceName("app", "server", "Greeter"));
+        Assert.assertNotSame(name, ClientHeaderCache.serviceName("app", "server", "Hello"));
+        Assert.assertEquals("trpc.null.null.null", ClientHeaderCache.serviceName(null, null, null).toStringUtf8());
+    }
+
+}
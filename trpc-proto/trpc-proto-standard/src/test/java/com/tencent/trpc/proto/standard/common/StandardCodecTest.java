@@ -20,6 +20,7 @@ import com.tencent.trpc.core.compressor.support.GZipCompressor;
 import com.tencent.trpc.core.rpc.Request;
 import com.tencent.trpc.core.rpc.RpcClientContext;
 import com.tencent.trpc.core.rpc.RpcInvocation;
+import com.tencent.trpc.core.rpc.common.FuncRouteTable;
 import com.tencent.trpc.core.rpc.common.RpcMethodInfo;
 import com.tencent.trpc.core.rpc.def.DecodableValue;
 import com.tencent.trpc.core.rpc.def.DefRequest;
@@ -124,6 +125,39 @@ public class StandardCodecTest {
         }
     }
 
+    @Test
+    public void exportedFuncTest() throws NoSuchMethodException, SecurityException {
+        String func = "/helloservice/sayHello";
+        FuncRouteTable.register(func);
+        try {
+            RpcInvocation invocation = new RpcInvocation();
+            invocation.setRpcMethodInfo(new RpcMethodInfo(GreeterClientApi.class,
+                    GreeterClientApi.class.getMethod("asyncSayHello", RpcClientContext.class, HelloRequest.class)));
+            invocation.setArguments(new Object[]{
+                    HelloRequest.newBuilder().setMessage(ByteString.copyFromUtf8("hello standard")).build()});
+            invocation.setRpcServiceName("helloservice");
+            invocation.setRpcMethodName("sayHello");
+            invocation.setFunc(func);
+            DefRequest clientRequest = new DefRequest();
+            clientRequest.setInvocation(invocation);
+            clientRequest.setContext(new RpcClientContext());
+            ProtocolConfig config = new ProtocolConfig();
+            config.setIp("127.0.0.1");
+            config.setPort(125);
+            config.setDefault();
+            NettyChannel channel = new NettyChannel(null, config);
+            NettyChannelBuffer buffer = new NettyChannelBuffer(UnpooledByteBufAllocator.DEFAULT.buffer(65535));
+            new StandardClientCodec().encode(channel, buffer, clientRequest);
+            Request serverRequest = (Request) new StandardServerCodec().decode(channel, buffer);
+            // the exported func is resolved from the table instead of being decoded
+            Assert.assertSame(func, serverRequest.getInvocation().getFunc());
+            Assert.assertEquals("helloservice", serverRequest.getInvocation().getRpcServiceName());
+            Assert.assertEquals("sayHello", serverRequest.getInvocation().getRpcMethodName());
+        } finally {
+            FuncRouteTable.unregister(func);
+        }
+    }
+
     @Test
     public void compressTest() throws NoSuchMethodException, SecurityException, UnsupportedEncodingException {
         RpcInvocation invocation = new RpcInvocation();
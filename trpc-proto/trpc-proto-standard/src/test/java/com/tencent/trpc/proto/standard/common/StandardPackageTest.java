@@ -19,6 +19,8 @@ import com.tencent.trpc.core.common.config.ProtocolConfig;
 import com.tencent.trpc.proto.standard.common.TRPCProtocol.TrpcProtoVersion;
 import com.tencent.trpc.transport.netty.NettyChannel;
 import com.tencent.trpc.transport.netty.NettyChannelBuffer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.buffer.UnpooledByteBufAllocator;
 import org.apache.commons.lang3.ArrayUtils;
 import org.junit.Test;
@@ -66,4 +68,34 @@ public class StandardPackageTest {
         assertTrue(ArrayUtils.isEquals(newPkg.getHeadBytes(), head));
 
     }
+
+    @Test
+    public void testBodyBuffer() {
+        StandardPackage pkg = new StandardPackage();
+        ByteBuf body = Unpooled.directBuffer().writeBytes(new byte[]{1, 2, 3, 4});
+        pkg.setBodyBuffer(body);
+        byte[] head = TRPCProtocol.RequestProtocol.newBuilder()
+                .setVersion(TrpcProtoVersion.TRPC_PROTO_V1_VALUE)
+                .setRequestId(1)
+                .setFunc(ByteString.copyFromUtf8(""))
+                .build().toByteArray();
+        pkg.setHeadBytes(head);
+        pkg.getFrame().setHeadSize(head.length);
+        pkg.getFrame().setSize(body.readableBytes() + head.length + StandardFrame.FRAME_SIZE);
+        ProtocolConfig config = new ProtocolConfig();
+        config.setIp("127.0.0.1");
+        config.setPort(54321);
+        config.setDefault();
+        NettyChannel channel = new NettyChannel(null, config);
+        NettyChannelBuffer nettyChannelBuffer =
+                new NettyChannelBuffer(UnpooledByteBufAllocator.DEFAULT.buffer(65535));
+        pkg.write(nettyChannelBuffer);
+        // the buffer is not consumed, the encoder releases it
+        assertEquals(4, body.readableBytes());
+        body.release();
+
+        StandardPackage newPkg = (StandardPackage) StandardPackage
+                .decode(channel, nettyChannelBuffer, true);
+        assertTrue(ArrayUtils.isEquals(newPkg.getBodyBytes(), new byte[]{1, 2, 3, 4}));
+    }
 }
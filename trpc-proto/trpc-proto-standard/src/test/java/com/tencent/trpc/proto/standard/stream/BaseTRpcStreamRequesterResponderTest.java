@@ -0,0 +1,189 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.proto.standard.stream;
+
+import com.tencent.trpc.core.common.config.ProtocolConfig;
+import com.tencent.trpc.core.compressor.support.NoneCompressor;
+import com.tencent.trpc.core.metrics.StreamStats;
+import com.tencent.trpc.core.serialization.support.PBSerialization;
+import com.tencent.trpc.core.stream.transport.RpcConnection;
+import com.tencent.trpc.proto.standard.stream.codec.TRpcStreamFrameCodec;
+import com.tencent.trpc.proto.standard.stream.codec.TRpcStreamFrameHeaderCodec;
+import com.tencent.trpc.proto.standard.stream.common.HelloRequestProtocol.HelloRequest;
+import com.tencent.trpc.proto.standard.stream.config.TRpcStreamConstants;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.util.ReferenceCountUtil;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+public class BaseTRpcStreamRequesterResponderTest {
+
+    private final TestConnection connection = new TestConnection();
+
+    @After
+    public void tearDown() {
+        StreamStats.reset();
+    }
+
+    @Test
+    public void testMaxConcurrentStreams() {
+        ProtocolConfig protocolConfig = getProtocolConfig();
+        protocolConfig.getExtMap().put(TRpcStreamConstants.STREAM_MAX_CONCURRENT_STREAMS_KEY, 2);
+        TestRequesterResponder requesterResponder = new TestRequesterResponder(protocolConfig, connection);
+        StreamStats stats = requesterResponder.stats;
+        Assert.assertEquals(1, stats.getConnections());
+
+        Assert.assertTrue(requesterResponder.tryOpenStream(100));
+        Assert.assertTrue(requesterResponder.tryOpenStream(101));
+        Assert.assertFalse(requesterResponder.tryOpenStream(102));
+        Assert.assertEquals(2, stats.getOpenStreams());
+        Assert.assertEquals(1, stats.getRejectedStreams());
+
+        requesterResponder.closeStream(100);
+        requesterResponder.closeStream(100);
+        Assert.assertEquals(1, stats.getOpenStreams());
+        Assert.assertTrue(requesterResponder.tryOpenStream(102));
+
+        connection.dispose();
+        Assert.assertEquals(0, stats.getOpenStreams());
+        Assert.assertEquals(0, stats.getConnections());
+        Assert.assertFalse(requesterResponder.tryOpenStream(103));
+    }
+
+    @Test
+    public void testSuspendRead() {
+        ProtocolConfig protocolConfig = getProtocolConfig();
+        protocolConfig.getExtMap().put(TRpcStreamConstants.STREAM_CONNECTION_BUFFER_SIZE_KEY, 200);
+        TestRequesterResponder requesterResponder = new TestRequesterResponder(protocolConfig, connection);
+        TRpcStreamFrameCodec frameCodec = TRpcStreamFrameCodec.newDataFrameCodec(protocolConfig,
+                UnpooledByteBufAllocator.DEFAULT, 0, 0);
+        Sinks.Many<ByteBuf> receiver = Sinks.many().unicast().onBackpressureBuffer();
+        requesterResponder.receivers.put(100, receiver);
+        StreamLocalConsumer consumer = requesterResponder.newLocalConsumer(100, 0);
+        ManualSubscriber subscriber = new ManualSubscriber(consumer);
+        receiver.asFlux().subscribe(subscriber);
+
+        HelloRequest request = HelloRequest.newBuilder().setMessage(StringUtils.repeat('a', 60)).build();
+        int dataSize = frameCodec.encodeStreamDataFrame(100, request).readableBytes()
+                - TRpcStreamFrameHeaderCodec.TRPC_FIX_HEADER_LENGTH;
+        for (int i = 0; i < 4; i++) {
+            connection.inbound.tryEmitNext(frameCodec.encodeStreamDataFrame(100, request));
+        }
+        StreamStats stats = requesterResponder.stats;
+        Assert.assertEquals(4 * dataSize, stats.getBufferedBytes());
+        Assert.assertEquals(4, stats.getReceivedFrames());
+        Assert.assertEquals(1, stats.getSuspendedReads());
+        Assert.assertEquals(Boolean.FALSE, connection.autoRead);
+
+        // reads again once half of the max is consumed
+        subscriber.request(1);
+        Assert.assertEquals(Boolean.FALSE, connection.autoRead);
+        subscriber.request(2);
+        Assert.assertEquals(dataSize, stats.getBufferedBytes());
+        Assert.assertEquals(Boolean.TRUE, connection.autoRead);
+        Assert.assertEquals(0, stats.getSuspendedReads());
+
+        // the bytes not consumed are given back with the consumer
+        requesterResponder.releaseLocalConsumer(100);
+        Assert.assertEquals(0, stats.getBufferedBytes());
+        subscriber.cancel();
+    }
+
+    private static ProtocolConfig getProtocolConfig() {
+        ProtocolConfig protocolConfig = new ProtocolConfig();
+        protocolConfig.setIp("127.0.0.1");
+        protocolConfig.setPort(12345);
+        protocolConfig.setSerialization(PBSerialization.NAME);
+        protocolConfig.setCompressor(NoneCompressor.NAME);
+        return protocolConfig;
+    }
+
+    private static class TestRequesterResponder extends BaseTRpcStreamRequesterResponder {
+
+        TestRequesterResponder(ProtocolConfig protocolConfig, RpcConnection connection) {
+            super(protocolConfig, connection, StreamStats.SERVER);
+        }
+
+        @Override
+        protected void handleStreamInit(int streamId, int flags, ByteBuf data) {
+        }
+    }
+
+    private static class ManualSubscriber extends BaseSubscriber<ByteBuf> {
+
+        private final StreamLocalConsumer consumer;
+
+        ManualSubscriber(StreamLocalConsumer consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+        }
+
+        @Override
+        protected void hookOnNext(ByteBuf value) {
+            consumer.accept(value);
+            ReferenceCountUtil.safeRelease(value);
+        }
+    }
+
+    private static class TestConnection implements RpcConnection {
+
+        private final Sinks.Many<ByteBuf> inbound = Sinks.many().unicast().onBackpressureBuffer();
+        private final Sinks.Empty<Void> closed = Sinks.empty();
+        private final List<ByteBuf> sent = new ArrayList<>();
+        private Boolean autoRead;
+
+        @Override
+        public void send(ByteBuf frame) {
+            sent.add(frame);
+        }
+
+        @Override
+        public Flux<ByteBuf> receive() {
+            return inbound.asFlux();
+        }
+
+        @Override
+        public ByteBufAllocator alloc() {
+            return UnpooledByteBufAllocator.DEFAULT;
+        }
+
+        @Override
+        public void setAutoRead(boolean autoRead) {
+            this.autoRead = autoRead;
+        }
+
+        @Override
+        public Mono<Void> onClose() {
+            return closed.asMono();
+        }
+
+        @Override
+        public void dispose() {
+            closed.tryEmitEmpty();
+        }
+    }
+
+}
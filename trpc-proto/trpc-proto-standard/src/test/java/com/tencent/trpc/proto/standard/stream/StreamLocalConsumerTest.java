@@ -0,0 +1,142 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.proto.standard.stream;
+
+import com.tencent.trpc.core.stream.transport.RpcConnection;
+import com.tencent.trpc.proto.standard.stream.codec.TRpcStreamFrameCodec;
+import com.tencent.trpc.proto.standard.stream.codec.TRpcStreamFrameHeaderCodec;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class StreamLocalConsumerTest {
+
+    private static final int KB_16 = 16 * 1024;
+
+    private static final int KB_64 = 64 * 1024;
+
+    private final FeedbackConnection connection = new FeedbackConnection();
+
+    @Test
+    public void testStaticWindow() {
+        StreamLocalConsumer consumer = new StreamLocalConsumer(connection, 100, KB_64);
+        for (int i = 0; i < 8; i++) {
+            consumer.accept(Unpooled.wrappedBuffer(new byte[8 * 1024]));
+        }
+        Assert.assertEquals(Arrays.asList(KB_16, KB_16, KB_16, KB_16), connection.increments);
+        Assert.assertEquals(KB_64, consumer.getWindowSize());
+    }
+
+    @Test
+    public void testNoFlowControl() {
+        StreamLocalConsumer consumer = new StreamLocalConsumer(connection, 100, 0, KB_64 * 4,
+                new StreamConnectionWindow(KB_64));
+        consumer.accept(Unpooled.wrappedBuffer(new byte[KB_64]));
+        Assert.assertTrue(connection.increments.isEmpty());
+    }
+
+    @Test
+    public void testGrowAndShrink() throws InterruptedException {
+        StreamConnectionWindow connectionWindow = new StreamConnectionWindow(KB_64 * 4);
+        StreamLocalConsumer consumer = new StreamLocalConsumer(connection, 100, KB_64, KB_64 * 2,
+                connectionWindow);
+        Assert.assertEquals(KB_64, connectionWindow.getCommitted());
+
+        // the peer sends the whole window at once and then waits for the feedback
+        for (int i = 0; i < 4; i++) {
+            consumer.accept(Unpooled.wrappedBuffer(new byte[KB_16]));
+        }
+        Thread.sleep(20);
+        consumer.accept(Unpooled.wrappedBuffer(new byte[KB_16]));
+        Assert.assertTrue(consumer.getSmoothedRttNanos() >= 20_000_000L);
+        Assert.assertEquals(KB_64 * 2, consumer.getWindowSize());
+        Assert.assertEquals(KB_64 * 2, connectionWindow.getCommitted());
+        // the growth is fed back at once
+        Assert.assertEquals(Arrays.asList(KB_16, KB_16, KB_16, KB_16, KB_16 + KB_64), connection.increments);
+
+        // the peer becomes slow, the window shrinks back
+        connection.increments.clear();
+        for (int i = 0; i < 4; i++) {
+            Thread.sleep(100);
+            consumer.accept(Unpooled.wrappedBuffer(new byte[KB_16 * 2]));
+        }
+        Assert.assertEquals(KB_64, consumer.getWindowSize());
+        Assert.assertEquals(KB_64, connectionWindow.getCommitted());
+        // the shrunk window is deducted from the feedback first
+        Assert.assertEquals(Arrays.asList(KB_16 * 2, KB_16 * 2), connection.increments);
+
+        consumer.release();
+        consumer.release();
+        Assert.assertEquals(0, connectionWindow.getCommitted());
+    }
+
+    @Test
+    public void testConnectionWindow() throws InterruptedException {
+        StreamConnectionWindow connectionWindow = new StreamConnectionWindow(KB_64 * 2 + KB_16);
+        StreamLocalConsumer consumer = new StreamLocalConsumer(connection, 100, KB_64, KB_64 * 4,
+                connectionWindow);
+        StreamLocalConsumer other = new StreamLocalConsumer(connection, 101, KB_64, KB_64 * 4,
+                connectionWindow);
+        for (int i = 0; i < 4; i++) {
+            consumer.accept(Unpooled.wrappedBuffer(new byte[KB_16]));
+        }
+        Thread.sleep(20);
+        consumer.accept(Unpooled.wrappedBuffer(new byte[KB_16]));
+        // only the rest of the budget is granted
+        Assert.assertEquals(KB_64 + KB_16, consumer.getWindowSize());
+        Assert.assertEquals(0, connectionWindow.tryGrow(KB_16));
+
+        other.release();
+        Assert.assertEquals(KB_64 + KB_16, connectionWindow.getCommitted());
+        Assert.assertEquals(KB_16, connectionWindow.tryGrow(KB_16));
+    }
+
+    private static class FeedbackConnection implements RpcConnection {
+
+        private final List<Integer> increments = new ArrayList<>();
+
+        @Override
+        public void send(ByteBuf frame) {
+            ByteBuf data = frame.slice(TRpcStreamFrameHeaderCodec.TRPC_FIX_HEADER_LENGTH,
+                    frame.readableBytes() - TRpcStreamFrameHeaderCodec.TRPC_FIX_HEADER_LENGTH);
+            increments.add(TRpcStreamFrameCodec.decodeStreamFeedbackFrame(data).getWindowSizeIncrement());
+        }
+
+        @Override
+        public Flux<ByteBuf> receive() {
+            return Flux.empty();
+        }
+
+        @Override
+        public ByteBufAllocator alloc() {
+            return UnpooledByteBufAllocator.DEFAULT;
+        }
+
+        @Override
+        public Mono<Void> onClose() {
+            return Mono.never();
+        }
+
+        @Override
+        public void dispose() {
+        }
+    }
+
+}
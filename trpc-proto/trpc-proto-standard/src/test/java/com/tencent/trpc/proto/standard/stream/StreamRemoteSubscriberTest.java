@@ -0,0 +1,229 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.proto.standard.stream;
+
+import com.tencent.trpc.core.common.config.ProtocolConfig;
+import com.tencent.trpc.core.compressor.support.NoneCompressor;
+import com.tencent.trpc.core.management.PoolMXBean;
+import com.tencent.trpc.core.serialization.support.PBSerialization;
+import com.tencent.trpc.core.stream.transport.RpcConnection;
+import com.tencent.trpc.core.worker.spi.WorkerPool;
+import com.tencent.trpc.core.worker.spi.WorkerPool.Task;
+import com.tencent.trpc.proto.standard.common.TRpcFrameType;
+import com.tencent.trpc.proto.standard.stream.codec.TRpcStreamFrameCodec;
+import com.tencent.trpc.proto.standard.stream.codec.TRpcStreamFrameHeaderCodec;
+import com.tencent.trpc.proto.standard.stream.common.HelloRequestProtocol.HelloRequest;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class StreamRemoteSubscriberTest {
+
+    private final RecordingConnection connection = new RecordingConnection();
+
+    private final QueuedWorkerPool workerPool = new QueuedWorkerPool();
+
+    private final TRpcStreamFrameCodec frameCodec = TRpcStreamFrameCodec.newDataFrameCodec(getProtocolConfig(),
+            UnpooledByteBufAllocator.DEFAULT, 0, 0);
+
+    @Test
+    public void testSendOneByOne() {
+        StreamRemoteSubscriber<HelloRequest> subscriber = new StreamRemoteSubscriber<>(workerPool, connection,
+                frameCodec, 1, 0);
+        requests(10).subscribe(subscriber);
+
+        Assert.assertEquals(11, connection.sent.size());
+        Assert.assertEquals(Collections.nCopies(10, 1), connection.dataFramesPerSend());
+        Assert.assertEquals(TRpcFrameType.CLOSE, connection.lastFrameType());
+    }
+
+    @Test
+    public void testBatchWithoutFlowControl() {
+        StreamRemoteSubscriber<HelloRequest> subscriber = new StreamRemoteSubscriber<>(workerPool, connection,
+                frameCodec, 1, 0, 4, 0);
+        requests(10).subscribe(subscriber);
+
+        // batches of 4 frames, the rest flushed before the close frame
+        Assert.assertEquals(Arrays.asList(4, 4, 2), connection.dataFramesPerSend());
+        Assert.assertEquals(TRpcFrameType.CLOSE, connection.lastFrameType());
+        workerPool.runTasks();
+        Assert.assertEquals(4, connection.sent.size());
+    }
+
+    @Test
+    public void testBatchFlushBytes() {
+        StreamRemoteSubscriber<HelloRequest> subscriber = new StreamRemoteSubscriber<>(workerPool, connection,
+                frameCodec, 1, 0, 100, 250);
+        requests(5).subscribe(subscriber);
+
+        // each frame is larger than 100 bytes
+        Assert.assertEquals(Arrays.asList(3, 2), connection.dataFramesPerSend());
+    }
+
+    @Test
+    public void testBatchScheduledFlush() {
+        StreamRemoteSubscriber<HelloRequest> subscriber = new StreamRemoteSubscriber<>(workerPool, connection,
+                frameCodec, 1, 0, 100, 0);
+        Flux.concat(requests(3), Flux.never()).subscribe(subscriber);
+        Assert.assertTrue(connection.sent.isEmpty());
+
+        workerPool.runTasks();
+        Assert.assertEquals(Collections.singletonList(3), connection.dataFramesPerSend());
+        subscriber.cancel();
+    }
+
+    @Test
+    public void testBatchWithFlowControl() {
+        List<Long> requested = new ArrayList<>();
+        StreamRemoteSubscriber<HelloRequest> subscriber = new StreamRemoteSubscriber<>(workerPool, connection,
+                frameCodec, 1, 350, 8, 0);
+        requests(20).doOnRequest(requested::add).subscribe(subscriber);
+
+        // the first element gives the size of the next batch, which uses all the window
+        Assert.assertEquals(Arrays.asList(1L, 3L), requested);
+        Assert.assertEquals(Arrays.asList(1, 3), connection.dataFramesPerSend());
+
+        subscriber.incrementWindow(350);
+        workerPool.runTasks();
+        Assert.assertEquals(Arrays.asList(1L, 3L, 3L), requested);
+        Assert.assertEquals(Arrays.asList(1, 3, 3), connection.dataFramesPerSend());
+        subscriber.cancel();
+    }
+
+    @Test
+    public void testInvalidPrefetch() {
+        try {
+            new StreamRemoteSubscriber<>(workerPool, connection, frameCodec, 1, 0, -1, 0);
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+            Assert.assertTrue(ex.getMessage().contains("prefetch=-1"));
+        }
+    }
+
+    private static Flux<HelloRequest> requests(int count) {
+        return Flux.range(0, count)
+                .map(i -> HelloRequest.newBuilder().setMessage(StringUtils.repeat('a', 100)).build());
+    }
+
+    private static ProtocolConfig getProtocolConfig() {
+        ProtocolConfig protocolConfig = new ProtocolConfig();
+        protocolConfig.setSerialization(PBSerialization.NAME);
+        protocolConfig.setCompressor(NoneCompressor.NAME);
+        return protocolConfig;
+    }
+
+    private static class RecordingConnection implements RpcConnection {
+
+        private final List<ByteBuf> sent = new ArrayList<>();
+
+        @Override
+        public void send(ByteBuf frame) {
+            sent.add(frame);
+        }
+
+        @Override
+        public Flux<ByteBuf> receive() {
+            return Flux.empty();
+        }
+
+        @Override
+        public ByteBufAllocator alloc() {
+            return UnpooledByteBufAllocator.DEFAULT;
+        }
+
+        @Override
+        public Mono<Void> onClose() {
+            return Mono.never();
+        }
+
+        @Override
+        public void dispose() {
+        }
+
+        List<Integer> dataFramesPerSend() {
+            List<Integer> counts = new ArrayList<>();
+            for (ByteBuf buf : sent) {
+                ByteBuf frames = buf.duplicate();
+                int count = 0;
+                while (frames.isReadable()) {
+                    if (TRpcStreamFrameHeaderCodec.frameType(frames) == TRpcFrameType.DATA) {
+                        count++;
+                    }
+                    frames.skipBytes(TRpcStreamFrameHeaderCodec.frameSize(frames));
+                }
+                if (count > 0) {
+                    counts.add(count);
+                }
+            }
+            return counts;
+        }
+
+        TRpcFrameType lastFrameType() {
+            return TRpcStreamFrameHeaderCodec.frameType(sent.get(sent.size() - 1));
+        }
+    }
+
+    private static class QueuedWorkerPool implements WorkerPool {
+
+        private final Queue<Task> tasks = new ArrayDeque<>();
+
+        void runTasks() {
+            Task task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+
+        @Override
+        public String getName() {
+            return "queued";
+        }
+
+        @Override
+        public void execute(Task task) {
+            tasks.add(task);
+        }
+
+        @Override
+        public PoolMXBean report() {
+            return null;
+        }
+
+        @Override
+        public Executor toExecutor() {
+            return command -> tasks.add(command::run);
+        }
+
+        @Override
+        public void close(long timeoutMills) {
+        }
+
+        @Override
+        public UncaughtExceptionHandler getUncaughtExceptionHandler() {
+            return null;
+        }
+    }
+
+}
@@ -32,9 +32,12 @@ import com.tencent.trpc.proto.standard.stream.server.StreamGreeterService4;
 import com.tencent.trpc.proto.standard.stream.server.impl.StreamGreeterServiceImpl1;
 import com.tencent.trpc.proto.standard.stream.server.impl.StreamGreeterServiceImpl3;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -528,6 +531,66 @@ public class StreamTests {
         }
     }
 
+    @Test
+    public void testBatchedStream() throws InterruptedException {
+        ServiceConfig batchedServiceConfig = getTRpcServiceConfig(this.serviceConfig.getPort() + 3);
+        batchedServiceConfig.setExtMap(getBatchedExtMap());
+        ProviderConfig<StreamGreeterService> providerConfig = new ProviderConfig<>();
+        providerConfig.setRef(this.streamGreeterService);
+        startServer(batchedServiceConfig, Collections.singletonList(providerConfig));
+        try {
+            for (int size : new int[]{64, 1024, 64 * 1024}) {
+                long legacyCost = echo(getServiceProxy(), size);
+                long batchedCost = echo(getBatchedServiceProxy(batchedServiceConfig.getPort()), size);
+                System.out.println(">>>>echo 200 messages of " + size + " bytes, one by one: " + legacyCost
+                        + "ms, batched: " + batchedCost + "ms");
+            }
+        } finally {
+            batchedServiceConfig.unExport();
+        }
+    }
+
+    private long echo(StreamGreeterService proxy, int size) throws InterruptedException {
+        RpcClientContext context = new RpcClientContext();
+        // a flag printing little of the messages
+        RpcContextUtils.putRequestAttachValue(context, StreamGreeterServiceImpl1.TEST_FLAG,
+                StreamGreeterServiceImpl1.TEST_FLAG_OVERFLOW);
+        int count = 200;
+        String msg = RandomStringUtils.randomAlphanumeric(size);
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(1);
+        long start = System.currentTimeMillis();
+        proxy.allSayHellos(context, Flux.range(0, count)
+                        .map(id -> HelloRequest.newBuilder().setMessage(id + msg).build()))
+                .doOnNext(resp -> received.add(resp.getMessage()))
+                .doFinally(s -> latch.countDown())
+                .subscribe();
+        Assert.assertTrue(latch.await(1, TimeUnit.MINUTES));
+        long cost = System.currentTimeMillis() - start;
+        Assert.assertEquals(count, received.size());
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(i + msg, received.get(i));
+        }
+        return cost;
+    }
+
+    private StreamGreeterService getBatchedServiceProxy(int port) {
+        BackendConfig backendConfig = new BackendConfig();
+        backendConfig.setNamingUrl("ip://127.0.0.1:" + port);
+        backendConfig.setExtMap(getBatchedExtMap());
+        ConsumerConfig<StreamGreeterService> consumerConfig = new ConsumerConfig<>();
+        consumerConfig.setServiceInterface(StreamGreeterService.class);
+        return backendConfig.getProxy(consumerConfig);
+    }
+
+    private Map<String, Object> getBatchedExtMap() {
+        Map<String, Object> extMap = new HashMap<>();
+        extMap.put(TRpcStreamConstants.STREAM_PREFETCH_KEY, 32);
+        extMap.put(TRpcStreamConstants.STREAM_FLUSH_BYTES_KEY, 32 * 1024);
+        extMap.put(TRpcStreamConstants.STREAM_MAX_WINDOW_SIZE_KEY, 1024 * 1024);
+        return extMap;
+    }
+
     private StreamGreeterService getServiceProxy() {
         BackendConfig backendConfig = new BackendConfig();
         backendConfig.setNamingUrl("ip://127.0.0.1:" + serviceConfig.getPort());
@@ -11,14 +11,22 @@
 
 package com.tencent.trpc.proto.standard.stream.codec;
 
+import com.tencent.trpc.core.common.Constants;
 import com.tencent.trpc.core.common.config.BackendConfig;
 import com.tencent.trpc.core.common.config.ProtocolConfig;
+import com.tencent.trpc.core.compressor.CompressType;
+import com.tencent.trpc.core.compressor.support.GZipCompressor;
+import com.tencent.trpc.core.compressor.support.NoneCompressor;
 import com.tencent.trpc.core.compressor.support.SnappyCompressor;
 import com.tencent.trpc.core.serialization.support.PBSerialization;
 import com.tencent.trpc.proto.standard.common.TRPCProtocol.TrpcStreamFrameType;
 import com.tencent.trpc.proto.standard.stream.codec.TRpcStreamFrameCodec.RpcCallInfo;
+import com.tencent.trpc.proto.standard.stream.common.HelloRequestProtocol.HelloRequest;
+import com.tencent.trpc.proto.standard.stream.config.TRpcStreamConstants;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.buffer.UnpooledByteBufAllocator;
+import org.apache.commons.lang3.StringUtils;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -109,6 +117,183 @@ public class TRpcStreamFrameCodecTest {
     public void decodeDataFrameData() {
     }
 
+    @Test
+    public void testInitFrameFlags() {
+        ByteBuf frame = TRpcStreamFrameCodec.encodeStreamInitResponseFrame(UnpooledByteBufAllocator.DEFAULT, 1, 0,
+                getProtocolConfig(PBSerialization.NAME, GZipCompressor.NAME), 0, "OK");
+        Assert.assertEquals(TRpcStreamFrameHeaderCodec.INIT_FLAG_MESSAGE_COMPRESSION,
+                TRpcStreamFrameHeaderCodec.flags(frame));
+    }
+
+    @Test
+    public void testLegacyCompression() {
+        ProtocolConfig protocolConfig = getProtocolConfig(PBSerialization.NAME, GZipCompressor.NAME);
+        TRpcStreamFrameCodec frameCodec = TRpcStreamFrameCodec.newDataFrameCodec(protocolConfig,
+                UnpooledByteBufAllocator.DEFAULT, CompressType.GZIP, 0);
+        ByteBuf frame = frameCodec.encodeStreamDataFrame(1, newRequest(10));
+        // no encoding byte, the whole payload is gzip
+        Assert.assertEquals((byte) 0x1f, frame.getByte(TRpcStreamFrameHeaderCodec.TRPC_FIX_HEADER_LENGTH));
+        Assert.assertEquals(newRequest(10), frameCodec.decodeDataFrameData(dataOf(frame), HelloRequest.class));
+    }
+
+    @Test
+    public void testDecodeInPlace() {
+        ProtocolConfig protocolConfig = getProtocolConfig(PBSerialization.NAME, NoneCompressor.NAME);
+        TRpcStreamFrameCodec frameCodec = TRpcStreamFrameCodec.newDataFrameCodec(protocolConfig,
+                UnpooledByteBufAllocator.DEFAULT, CompressType.NONE, 0);
+        ByteBuf frame = frameCodec.encodeStreamDataFrame(1, newRequest(10));
+        ByteBuf data = Unpooled.directBuffer().writeBytes(dataOf(frame));
+        HelloRequest request = frameCodec.decodeDataFrameData(data, HelloRequest.class);
+        // the message does not refer to the released data
+        data.release();
+        Assert.assertEquals(newRequest(10), request);
+    }
+
+    @Test
+    public void testMessageCompressionThreshold() {
+        ProtocolConfig protocolConfig = getProtocolConfig(PBSerialization.NAME, GZipCompressor.NAME);
+        protocolConfig.getExtMap().put(TRpcStreamConstants.STREAM_COMPRESS_MIN_BYTES_KEY, 100);
+        TRpcStreamFrameCodec frameCodec = TRpcStreamFrameCodec.newDataFrameCodec(protocolConfig,
+                UnpooledByteBufAllocator.DEFAULT, CompressType.GZIP, 0,
+                TRpcStreamFrameHeaderCodec.INIT_FLAG_MESSAGE_COMPRESSION);
+
+        ByteBuf small = frameCodec.encodeStreamDataFrame(1, newRequest(10));
+        Assert.assertEquals(TRpcStreamFrameCodec.MESSAGE_RAW, encodingOf(small));
+        Assert.assertEquals(newRequest(10), frameCodec.decodeDataFrameData(dataOf(small), HelloRequest.class));
+
+        ByteBuf large = frameCodec.encodeStreamDataFrame(1, newRequest(1000));
+        Assert.assertEquals(TRpcStreamFrameCodec.MESSAGE_COMPRESSED, encodingOf(large));
+        Assert.assertEquals(newRequest(1000), frameCodec.decodeDataFrameData(dataOf(large), HelloRequest.class));
+    }
+
+    @Test
+    public void testMessageCompressionDefaultThreshold() {
+        // the compress_min_bytes of the unary calls does not apply, small messages are compressed by default
+        ProtocolConfig protocolConfig = getProtocolConfig(PBSerialization.NAME, GZipCompressor.NAME);
+        protocolConfig.setCompressMinBytes(Integer.parseInt(Constants.DEFAULT_COMPRESS_MIN_BYTES));
+        TRpcStreamFrameCodec frameCodec = TRpcStreamFrameCodec.newDataFrameCodec(protocolConfig,
+                UnpooledByteBufAllocator.DEFAULT, CompressType.GZIP, 0,
+                TRpcStreamFrameHeaderCodec.INIT_FLAG_MESSAGE_COMPRESSION);
+        ByteBuf small = frameCodec.encodeStreamDataFrame(1, newRequest(10));
+        Assert.assertEquals(TRpcStreamFrameCodec.MESSAGE_COMPRESSED, encodingOf(small));
+        Assert.assertEquals(newRequest(10), frameCodec.decodeDataFrameData(dataOf(small), HelloRequest.class));
+
+        protocolConfig.getExtMap().put(TRpcStreamConstants.STREAM_COMPRESSION_CONTEXT_KEY, true);
+        TRpcStreamFrameCodec contextCodec = TRpcStreamFrameCodec.newDataFrameCodec(protocolConfig,
+                UnpooledByteBufAllocator.DEFAULT, CompressType.GZIP, 0,
+                TRpcStreamFrameHeaderCodec.INIT_FLAG_MESSAGE_COMPRESSION);
+        small = contextCodec.encodeStreamDataFrame(1, newRequest(10));
+        Assert.assertEquals(TRpcStreamFrameCodec.MESSAGE_CONTEXT_COMPRESSED, encodingOf(small));
+        Assert.assertEquals(newRequest(10), contextCodec.decodeDataFrameData(dataOf(small), HelloRequest.class));
+        contextCodec.releaseEncodeContext();
+        contextCodec.releaseDecodeContext();
+    }
+
+    @Test
+    public void testContextCompressionThreshold() {
+        ProtocolConfig protocolConfig = getProtocolConfig(PBSerialization.NAME, GZipCompressor.NAME);
+        protocolConfig.getExtMap().put(TRpcStreamConstants.STREAM_COMPRESS_MIN_BYTES_KEY, 100);
+        protocolConfig.getExtMap().put(TRpcStreamConstants.STREAM_COMPRESSION_CONTEXT_KEY, true);
+        TRpcStreamFrameCodec frameCodec = TRpcStreamFrameCodec.newDataFrameCodec(protocolConfig,
+                UnpooledByteBufAllocator.DEFAULT, CompressType.GZIP, 0,
+                TRpcStreamFrameHeaderCodec.INIT_FLAG_MESSAGE_COMPRESSION);
+        for (int i = 0; i < 3; i++) {
+            ByteBuf small = frameCodec.encodeStreamDataFrame(1, newRequest(10));
+            Assert.assertEquals(TRpcStreamFrameCodec.MESSAGE_RAW, encodingOf(small));
+            Assert.assertEquals(newRequest(10), frameCodec.decodeDataFrameData(dataOf(small), HelloRequest.class));
+            ByteBuf large = frameCodec.encodeStreamDataFrame(1, newRequest(1000));
+            Assert.assertEquals(TRpcStreamFrameCodec.MESSAGE_CONTEXT_COMPRESSED, encodingOf(large));
+            Assert.assertEquals(newRequest(1000), frameCodec.decodeDataFrameData(dataOf(large), HelloRequest.class));
+        }
+        frameCodec.releaseEncodeContext();
+        frameCodec.releaseDecodeContext();
+    }
+
+    @Test
+    public void testContextCompression() {
+        ProtocolConfig protocolConfig = getProtocolConfig(PBSerialization.NAME, GZipCompressor.NAME);
+        TRpcStreamFrameCodec messageCodec = TRpcStreamFrameCodec.newDataFrameCodec(protocolConfig,
+                UnpooledByteBufAllocator.DEFAULT, CompressType.GZIP, 0,
+                TRpcStreamFrameHeaderCodec.INIT_FLAG_MESSAGE_COMPRESSION);
+        protocolConfig.getExtMap().put(TRpcStreamConstants.STREAM_COMPRESSION_CONTEXT_KEY, true);
+        TRpcStreamFrameCodec contextCodec = TRpcStreamFrameCodec.newDataFrameCodec(protocolConfig,
+                UnpooledByteBufAllocator.DEFAULT, CompressType.GZIP, 0,
+                TRpcStreamFrameHeaderCodec.INIT_FLAG_MESSAGE_COMPRESSION);
+
+        int messageBytes = 0;
+        int contextBytes = 0;
+        for (int i = 0; i < 20; i++) {
+            HelloRequest request = HelloRequest.newBuilder().setMessage("hello stream message " + i).build();
+            messageBytes += messageCodec.encodeStreamDataFrame(1, request).readableBytes();
+            ByteBuf frame = contextCodec.encodeStreamDataFrame(1, request);
+            contextBytes += frame.readableBytes();
+            Assert.assertEquals(TRpcStreamFrameCodec.MESSAGE_CONTEXT_COMPRESSED, encodingOf(frame));
+            Assert.assertEquals(request, contextCodec.decodeDataFrameData(dataOf(frame), HelloRequest.class));
+        }
+        // the later messages refer to the history of the earlier ones
+        Assert.assertTrue(contextBytes * 2 < messageBytes);
+
+        contextCodec.releaseEncodeContext();
+        contextCodec.releaseDecodeContext();
+        try {
+            contextCodec.encodeStreamDataFrame(1, newRequest(10));
+            Assert.fail();
+        } catch (IllegalStateException ex) {
+            Assert.assertTrue(ex.getMessage().contains("closed"));
+        }
+    }
+
+    @Test
+    public void testContextCompressionGzipOnly() {
+        ProtocolConfig protocolConfig = getProtocolConfig(PBSerialization.NAME, SnappyCompressor.NAME);
+        protocolConfig.getExtMap().put(TRpcStreamConstants.STREAM_COMPRESSION_CONTEXT_KEY, true);
+        TRpcStreamFrameCodec frameCodec = TRpcStreamFrameCodec.newDataFrameCodec(protocolConfig,
+                UnpooledByteBufAllocator.DEFAULT, CompressType.SNAPPY, 0,
+                TRpcStreamFrameHeaderCodec.INIT_FLAG_MESSAGE_COMPRESSION);
+        ByteBuf frame = frameCodec.encodeStreamDataFrame(1, newRequest(10));
+        Assert.assertEquals(TRpcStreamFrameCodec.MESSAGE_COMPRESSED, encodingOf(frame));
+        Assert.assertEquals(newRequest(10), frameCodec.decodeDataFrameData(dataOf(frame), HelloRequest.class));
+    }
+
+    @Test
+    public void testContextCompressionNegotiated() {
+        // the client announced gzip and the server announced snappy in their init frames
+        ProtocolConfig clientConfig = getProtocolConfig(PBSerialization.NAME, GZipCompressor.NAME);
+        clientConfig.getExtMap().put(TRpcStreamConstants.STREAM_COMPRESSION_CONTEXT_KEY, true);
+        TRpcStreamFrameCodec clientCodec = TRpcStreamFrameCodec.newDataFrameCodec(clientConfig,
+                UnpooledByteBufAllocator.DEFAULT, CompressType.SNAPPY, 0,
+                TRpcStreamFrameHeaderCodec.INIT_FLAG_MESSAGE_COMPRESSION);
+        ProtocolConfig serverConfig = getProtocolConfig(PBSerialization.NAME, SnappyCompressor.NAME);
+        serverConfig.getExtMap().put(TRpcStreamConstants.STREAM_COMPRESSION_CONTEXT_KEY, true);
+        TRpcStreamFrameCodec serverCodec = TRpcStreamFrameCodec.newDataFrameCodec(serverConfig,
+                UnpooledByteBufAllocator.DEFAULT, CompressType.GZIP, 0,
+                TRpcStreamFrameHeaderCodec.INIT_FLAG_MESSAGE_COMPRESSION);
+
+        ByteBuf request = clientCodec.encodeStreamDataFrame(1, newRequest(10));
+        Assert.assertEquals(TRpcStreamFrameCodec.MESSAGE_CONTEXT_COMPRESSED, encodingOf(request));
+        Assert.assertEquals(newRequest(10), serverCodec.decodeDataFrameData(dataOf(request), HelloRequest.class));
+
+        // the server encodes with the snappy it announced, without a context
+        ByteBuf response = serverCodec.encodeStreamDataFrame(1, newRequest(10));
+        Assert.assertEquals(TRpcStreamFrameCodec.MESSAGE_COMPRESSED, encodingOf(response));
+        Assert.assertEquals(newRequest(10), clientCodec.decodeDataFrameData(dataOf(response), HelloRequest.class));
+
+        clientCodec.releaseEncodeContext();
+        serverCodec.releaseDecodeContext();
+    }
+
+    private static HelloRequest newRequest(int length) {
+        return HelloRequest.newBuilder().setMessage(StringUtils.repeat('a', length)).build();
+    }
+
+    private static byte encodingOf(ByteBuf frame) {
+        return frame.getByte(TRpcStreamFrameHeaderCodec.TRPC_FIX_HEADER_LENGTH);
+    }
+
+    private static ByteBuf dataOf(ByteBuf frame) {
+        return frame.skipBytes(TRpcStreamFrameHeaderCodec.TRPC_FIX_HEADER_LENGTH);
+    }
+
     private BackendConfig getBackendConfig(String serialization, String compressor) {
         BackendConfig backendConfig = new BackendConfig();
         backendConfig.setSerialization(serialization);
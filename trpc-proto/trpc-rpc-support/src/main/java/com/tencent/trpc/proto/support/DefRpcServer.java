@@ -19,6 +19,9 @@ import com.tencent.trpc.core.exception.TRpcException;
 import com.tencent.trpc.core.extension.ExtensionLoader;
 import com.tencent.trpc.core.logger.Logger;
 import com.tencent.trpc.core.logger.LoggerFactory;
+import com.tencent.trpc.core.metrics.RequestStageStats;
+import com.tencent.trpc.core.metrics.RequestStageTimer;
+import com.tencent.trpc.core.metrics.RequestStageTimer.Stage;
 import com.tencent.trpc.core.rpc.AbstractRpcServer;
 import com.tencent.trpc.core.rpc.CallInfo;
 import com.tencent.trpc.core.rpc.ProviderInvoker;
@@ -43,6 +46,8 @@ import com.tencent.trpc.core.transport.spi.ServerTransportFactory;
 import com.tencent.trpc.core.utils.PreconditionUtils;
 import com.tencent.trpc.core.utils.RpcContextUtils;
 import com.tencent.trpc.core.utils.RpcUtils;
+import com.tencent.trpc.core.worker.bulkhead.MethodBulkhead;
+import com.tencent.trpc.core.worker.queue.AdmissionTask;
 import java.lang.reflect.Type;
 import java.util.List;
 import java.util.Objects;
@@ -210,6 +215,7 @@ public class DefRpcServer extends AbstractRpcServer {
          * Handle request
          */
         private void handle(Channel channel, Request request) {
+            RequestStageTimer.mark(request, Stage.ROUTE);
             RpcMethodInfoAndInvoker rpcMethodInfoAndInvoker;
             try {
                 rpcMethodInfoAndInvoker = route(request, false);
@@ -233,24 +239,52 @@ public class DefRpcServer extends AbstractRpcServer {
             }
             try {
                 ProviderInvoker<?> invoker = rpcMethodInfoAndInvoker.getInvoker();
-                invoker.getConfig().getWorkerPoolObj().execute(() -> {
-                    try {
-                        dispatch(channel, invoker, request);
-                    } catch (Throwable ex) {
-                        LOG.error("Dispatch request|" + request + " error", ex);
+                AdmissionTask task = new AdmissionTask() {
+                    @Override
+                    public Request getRequest() {
+                        return request;
                     }
-                });
-            } catch (Throwable ex) {
-                LOG.error("Dispatch request [" + request + "]  error", ex);
-                if (ex instanceof RejectedExecutionException) {
-                    errorReply(channel, request, ErrorCode.TRPC_SERVER_OVERLOAD_ERR, 0,
-                            "queue size full");
-                } else if (ex instanceof TRpcException) {
-                    errorReply(channel, request, ex);
+
+                    @Override
+                    public void reject(Throwable cause) {
+                        dispatchErrorReply(channel, request, cause);
+                    }
+
+                    @Override
+                    public void run() {
+                        RequestStageTimer.mark(request, Stage.DEQUEUE);
+                        try {
+                            dispatch(channel, invoker, request);
+                        } catch (Throwable ex) {
+                            LOG.error("Dispatch request|" + request + " error", ex);
+                        }
+                    }
+                };
+                MethodBulkhead bulkhead = rpcMethodInfoAndInvoker.getBulkhead();
+                RequestStageTimer.mark(request, Stage.ENQUEUE);
+                if (bulkhead != null) {
+                    bulkhead.execute(task, ex -> dispatchErrorReply(channel, request, ex));
                 } else {
-                    errorReply(channel, request, ErrorCode.TRPC_INVOKE_UNKNOWN_ERR, 0,
-                            ex.getMessage());
+                    invoker.getConfig().getWorkerPoolObj().execute(task);
                 }
+            } catch (Throwable ex) {
+                dispatchErrorReply(channel, request, ex);
+            }
+        }
+
+        /**
+         * Reply the request which can not be dispatched to the worker pool
+         */
+        private void dispatchErrorReply(Channel channel, Request request, Throwable ex) {
+            LOG.error("Dispatch request [" + request + "]  error", ex);
+            if (ex instanceof RejectedExecutionException) {
+                errorReply(channel, request, ErrorCode.TRPC_SERVER_OVERLOAD_ERR, 0,
+                        "queue size full");
+            } else if (ex instanceof TRpcException) {
+                errorReply(channel, request, ex);
+            } else {
+                errorReply(channel, request, ErrorCode.TRPC_INVOKE_UNKNOWN_ERR, 0,
+                        ex.getMessage());
             }
         }
 
@@ -381,6 +415,7 @@ public class DefRpcServer extends AbstractRpcServer {
                         printException(request, response.getException(), "response has exception");
                     }
                     channel.send(response).whenComplete((rx, tx) -> {
+                        RequestStageStats.complete(request);
                         if (tx != null) {
                             printException(request, tx, "sendResponse exception");
                         }
@@ -413,6 +448,7 @@ public class DefRpcServer extends AbstractRpcServer {
                             TRpcException.newException(errorCode, bizCode, msg));
             if (channel.isConnected()) {
                 channel.send(response).whenComplete((rx, tx) -> {
+                    RequestStageStats.complete(request);
                     if (tx != null) {
                         printException(request, tx, "sendResponse exception");
                     }
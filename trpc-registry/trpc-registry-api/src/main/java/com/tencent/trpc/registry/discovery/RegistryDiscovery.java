@@ -18,8 +18,8 @@ import com.tencent.trpc.core.exception.TRpcExtensionException;
 import com.tencent.trpc.core.registry.RegisterInfo;
 import com.tencent.trpc.core.selector.ServiceId;
 import com.tencent.trpc.core.selector.ServiceInstance;
+import com.tencent.trpc.core.selector.ServiceInstanceSnapshot;
 import com.tencent.trpc.core.selector.discovery.AbstractDiscovery;
-import com.tencent.trpc.core.utils.ConcurrentHashSet;
 import com.tencent.trpc.core.utils.FutureUtils;
 import com.tencent.trpc.core.utils.NetUtils;
 import com.tencent.trpc.core.utils.StringUtils;
@@ -27,8 +27,9 @@ import com.tencent.trpc.registry.center.AbstractRegistryCenter;
 import com.tencent.trpc.registry.center.NotifyListener;
 import com.tencent.trpc.registry.center.RegistryCenter;
 import com.tencent.trpc.registry.common.RegistryCenterEnum;
-import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -55,9 +56,9 @@ public class RegistryDiscovery extends AbstractDiscovery implements NotifyListen
     private final RegisterInfo registerInfo;
 
     /**
-     * The list of available services.
+     * The snapshot of available services, replaced as a whole on each notification.
      */
-    private Set<ServiceInstance> availableServiceInstances = new ConcurrentHashSet<>();
+    private volatile ServiceInstanceSnapshot snapshot = ServiceInstanceSnapshot.EMPTY;
 
     /**
      * The registry center.
@@ -110,18 +111,21 @@ public class RegistryDiscovery extends AbstractDiscovery implements NotifyListen
      * The callback interface when the subscribed service data changes. Currently, only the
      * {@link RegistryCenterEnum#PROVIDERS} type data is processed.
      *
-     * @param registerInfos The subscribed data. When the data is empty, the availableServiceInstances will be
-     *         cleared. It needs to be processed according to different data types {@link RegistryCenterEnum}.
+     * @param registerInfos The subscribed data. When the data is empty, the available service snapshot will be
+     *         emptied. It needs to be processed according to different data types {@link RegistryCenterEnum}.
      */
     @Override
     public void notify(List<RegisterInfo> registerInfos) {
-        Set<ServiceInstance> tempServiceInstances = new ConcurrentHashSet<>();
+        Set<ServiceInstance> tempServiceInstances = new LinkedHashSet<>();
         registerInfos.forEach(registerInfo -> {
+            // the parameters carry the tags of the instance, e.g. its zone, used by the routers
+            Map<String, Object> parameters = registerInfo.getParameters() == null ? new HashMap<>()
+                    : new HashMap<>(registerInfo.getParameters());
             ServiceInstance serviceInstance = new ServiceInstance(registerInfo.getHost(),
-                    registerInfo.getPort(), true);
+                    registerInfo.getPort(), true, parameters);
             tempServiceInstances.add(serviceInstance);
         });
-        this.availableServiceInstances = tempServiceInstances;
+        this.snapshot = ServiceInstanceSnapshot.of(tempServiceInstances);
     }
 
 
@@ -129,14 +133,15 @@ public class RegistryDiscovery extends AbstractDiscovery implements NotifyListen
      * Query all service providers for a service.
      *
      * @param serviceId The service to search for.
-     * @return All providers for the serviceId service.
+     * @return All providers for the serviceId service, the current {@link ServiceInstanceSnapshot} which is
+     *         immutable and returned without copying.
      */
     @Override
     public List<ServiceInstance> list(ServiceId serviceId) {
         if (!isValidServiceId(serviceId)) {
             return Collections.emptyList();
         }
-        return new ArrayList<>(availableServiceInstances);
+        return snapshot;
     }
 
     /**
@@ -165,10 +170,17 @@ public class RegistryDiscovery extends AbstractDiscovery implements NotifyListen
     }
 
     /**
-     * Get all available service providers in availableServiceInstances.
+     * Get all available service providers in the current snapshot.
      */
     public Set<ServiceInstance> getServiceInstances() {
-        return Collections.unmodifiableSet(availableServiceInstances);
+        return Collections.unmodifiableSet(new LinkedHashSet<>(snapshot));
+    }
+
+    /**
+     * Get the current snapshot of the available service providers.
+     */
+    public ServiceInstanceSnapshot getSnapshot() {
+        return snapshot;
     }
 
 
@@ -178,7 +190,7 @@ public class RegistryDiscovery extends AbstractDiscovery implements NotifyListen
     @Override
     public void destroy() throws TRpcExtensionException {
         unSubscribe();
-        availableServiceInstances.clear();
+        snapshot = ServiceInstanceSnapshot.EMPTY;
     }
 
     /**
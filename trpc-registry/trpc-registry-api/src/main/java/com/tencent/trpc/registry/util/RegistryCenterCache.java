@@ -19,19 +19,28 @@ import com.tencent.trpc.core.logger.LoggerFactory;
 import com.tencent.trpc.core.registry.RegisterInfo;
 import com.tencent.trpc.registry.common.RegistryCenterConfig;
 import com.tencent.trpc.registry.common.RegistryCenterData;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.RandomAccessFile;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -41,27 +50,38 @@ import org.apache.commons.lang3.StringUtils;
 
 /**
  * The data cache of the registry center, which can enable persistence through configuration options.
+ * <p>The cache file is binary: a header with the update time, the version and the expiration time of the cache,
+ * followed by one record per subscribed service. The file is read at once on startup but a record is only decoded
+ * when its service is first looked up, and a change only encodes the record of the changed service, the other records
+ * are written back as they are. The file is written to a temporary file then renamed, so that it is never seen half
+ * written. A cache file in the former Properties format is migrated on load.</p>
  */
 public class RegistryCenterCache {
 
     private static final Logger logger = LoggerFactory.getLogger(RegistryCenterCache.class);
 
     /**
-     * The key for the cache update time, with a value precision of seconds.
-     * There may be multiple versions at the same time, so PROPERTIES_TIME_KEY + PROPERTIES_VERSION_KEY is used to
-     * determine the unique version.
+     * The first bytes of a binary cache file, "TRCC".
+     */
+    private static final int MAGIC = 0x54524343;
+
+    /**
+     * The version of the binary format.
+     */
+    private static final byte FORMAT_VERSION = 1;
+
+    /**
+     * The key for the cache update time in the former Properties format.
      */
     private static final String UPDATE_TIME_SECS_KEY = "update_time_secs";
 
     /**
-     * The key for the cache version number.
+     * The key for the cache version number in the former Properties format.
      */
     private static final String UPDATE_VERSION_KEY = "update_version";
 
     /**
-     * The key for the cache expiration time.
-     * When disconnected from the registry center, it can be read from the cache. If it exceeds this time, the cache
-     * will expire.
+     * The key for the cache expiration time in the former Properties format.
      */
     private static final String EXPIRE_TIME_SECS_KEY = "expire_time_secs";
 
@@ -76,13 +96,9 @@ public class RegistryCenterCache {
     private static final int MAX_SAVE_RETRY_TIMES = 3;
 
     /**
-     * Local cache, mainly caching subscribed services and their providers.
-     * Additional caching of several special key-value pairs:
-     * Cache update time: UPDATE_TIME_SECS_KEY
-     * Cache version number: UPDATE_VERSION_KEY
-     * Cache expiration time: EXPIRE_TIME_SECS_KEY
+     * Local cache, the providers of each subscribed service.
      */
-    private final Properties properties = new Properties();
+    private final Map<String, CacheRecord> records = new ConcurrentHashMap<>();
     /**
      * Asynchronous persistence thread pool for cache.
      */
@@ -103,6 +119,25 @@ public class RegistryCenterCache {
      */
     private AtomicInteger saveRetryTimes = new AtomicInteger();
 
+    /**
+     * The cache update time, with a value precision of seconds.
+     * There may be multiple versions at the same time, so updateTimeSecs + updateVersion is used to determine the
+     * unique version.
+     */
+    private volatile long updateTimeSecs;
+
+    /**
+     * The cache version number.
+     */
+    private volatile long updateVersion;
+
+    /**
+     * The cache expiration time, 0 if not set.
+     * When disconnected from the registry center, it can be read from the cache. If it exceeds this time, the cache
+     * will expire.
+     */
+    private volatile long expireTimeSecs;
+
     /**
      * If cache persistence is enabled, create a cache persistence file and attempt to retrieve previous data from disk.
      *
@@ -129,11 +164,11 @@ public class RegistryCenterCache {
         if (expired()) {
             return registerInfos;
         }
-        String urlStr = properties.getProperty(serviceName);
-        if (StringUtils.isEmpty(urlStr)) {
+        CacheRecord record = records.get(serviceName);
+        if (record == null) {
             return registerInfos;
         }
-        Arrays.stream(urlStr.split(URL_SEPARATOR)).map(this::getRegisterInfoDecode)
+        record.getUrls().stream().map(this::getRegisterInfoDecode)
                 .filter(Objects::nonNull).forEach(registerInfos::add);
         return registerInfos;
     }
@@ -147,17 +182,17 @@ public class RegistryCenterCache {
         try {
             String serviceName = registerInfo.getServiceName();
             if (data.isEmpty()) {
-                properties.remove(serviceName);
+                records.remove(serviceName);
             } else {
-                String allUrls = data.getTypeToRegisterInfosMap().values().stream()
+                List<String> urls = data.getTypeToRegisterInfosMap().values().stream()
                         .flatMap(registerInfos -> registerInfos.stream().map(RegisterInfo::encode))
-                        .collect(Collectors.joining(URL_SEPARATOR));
-                properties.setProperty(serviceName, allUrls);
+                        .collect(Collectors.toList());
+                records.put(serviceName, CacheRecord.of(urls));
             }
 
             doSave();
         } catch (Throwable t) {
-            logger.warn("Registry save properties error, cause: {}", t.getMessage(), t);
+            logger.warn("Registry save cache error, cause: {}", t.getMessage(), t);
         }
     }
 
@@ -165,8 +200,7 @@ public class RegistryCenterCache {
      * Set an expiration time for the cache.
      */
     public void expireCache() {
-        long expireTime = getCurTimeSecs() + this.config.getCacheAliveTimeSecs();
-        properties.setProperty(EXPIRE_TIME_SECS_KEY, String.valueOf(expireTime));
+        this.expireTimeSecs = getCurTimeSecs() + this.config.getCacheAliveTimeSecs();
         doSave();
     }
 
@@ -174,7 +208,7 @@ public class RegistryCenterCache {
      * Cancel the expiration time set for the cache.
      */
     public void cancelExpireCache() {
-        properties.remove(EXPIRE_TIME_SECS_KEY);
+        this.expireTimeSecs = 0;
         doSave();
     }
 
@@ -198,24 +232,83 @@ public class RegistryCenterCache {
     }
 
     /**
-     * Read the subscribed service from the local cache file.
+     * Read the subscribed services from the local cache file, migrate it if it is in the former Properties format.
      */
     private void loadFromDisk() {
-        try (InputStream in = new FileInputStream(persistentFile)) {
-            properties.load(in);
+        if (!persistentFile.exists() || persistentFile.length() == 0) {
+            return;
+        }
+        try {
+            byte[] bytes = Files.readAllBytes(persistentFile.toPath());
+            if (bytes.length >= 4 && ((bytes[0] & 0xFF) << 24 | (bytes[1] & 0xFF) << 16 | (bytes[2] & 0xFF) << 8
+                    | (bytes[3] & 0xFF)) == MAGIC) {
+                loadBinary(bytes);
+            } else {
+                loadProperties(bytes);
+                logger.info("Migrate registry cache file {} from properties, {} services", persistentFile,
+                        records.size());
+                doSave();
+            }
         } catch (Throwable t) {
+            records.clear();
             logger.warn("Failed to load registry cache file: {}", persistentFile, t);
         }
     }
 
     /**
-     * The actual file persistence operation. When saving, add two keys: UPDATE_TIME_SECS_KEY and UPDATE_VERSION_KEY.
+     * Read the header and the index of the records, the records are decoded when looked up.
+     *
+     * @param bytes the content of the cache file
+     * @throws IOException if the file is malformed
+     */
+    private void loadBinary(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        in.readInt();
+        byte formatVersion = in.readByte();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Unsupported registry cache format version " + formatVersion);
+        }
+        updateTimeSecs = in.readLong();
+        updateVersion = in.readLong();
+        expireTimeSecs = in.readLong();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String serviceName = in.readUTF();
+            int length = in.readInt();
+            int offset = bytes.length - in.available();
+            if (length < 0 || in.skipBytes(length) != length) {
+                throw new IOException("Truncated registry cache record of " + serviceName);
+            }
+            records.put(serviceName, new CacheRecord(bytes, offset, length));
+        }
+    }
+
+    /**
+     * Read a cache file in the former Properties format.
+     *
+     * @param bytes the content of the cache file
+     * @throws IOException if the file can not be read
+     */
+    private void loadProperties(byte[] bytes) throws IOException {
+        Properties properties = new Properties();
+        properties.load(new ByteArrayInputStream(bytes));
+        expireTimeSecs = Long.parseLong(properties.getProperty(EXPIRE_TIME_SECS_KEY, "0"));
+        for (String key : properties.stringPropertyNames()) {
+            if (!UPDATE_TIME_SECS_KEY.equals(key) && !UPDATE_VERSION_KEY.equals(key)
+                    && !EXPIRE_TIME_SECS_KEY.equals(key) && StringUtils.isNotEmpty(properties.getProperty(key))) {
+                records.put(key, CacheRecord.of(Arrays.asList(properties.getProperty(key).split(URL_SEPARATOR))));
+            }
+        }
+    }
+
+    /**
+     * The actual file persistence operation, update the time and the version of the cache.
      */
     private void doSave() {
         long curTime = getCurTimeSecs();
         long version = lastVersion.incrementAndGet();
-        properties.setProperty(UPDATE_TIME_SECS_KEY, String.valueOf(curTime));
-        properties.setProperty(UPDATE_VERSION_KEY, String.valueOf(version));
+        this.updateTimeSecs = curTime;
+        this.updateVersion = version;
 
         if (persistentFile == null) {
             return;
@@ -245,7 +338,7 @@ public class RegistryCenterCache {
     }
 
     /**
-     * Save the properties file.
+     * Save the cache file.
      *
      * @throws IOException IO exception.
      */
@@ -264,13 +357,15 @@ public class RegistryCenterCache {
                         + persistentFile.getAbsolutePath());
             }
             try {
-                // 3. Create the local file if it does not exist.
-                if (!persistentFile.exists()) {
-                    persistentFile.createNewFile();
-                }
-                // 4. Write to the file.
-                try (FileOutputStream outputFile = new FileOutputStream(persistentFile)) {
-                    properties.store(outputFile, "Trpc Registry Center Cache");
+                // 3. Write to a temporary file next to the cache file.
+                File tempFile = new File(persistentFile.getAbsoluteFile() + ".tmp");
+                writeTo(tempFile);
+                // 4. Replace the cache file.
+                try {
+                    Files.move(tempFile.toPath(), persistentFile.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                            StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tempFile.toPath(), persistentFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
                 }
             } finally {
                 // 5. Release the lock on the lock file.
@@ -279,6 +374,33 @@ public class RegistryCenterCache {
         }
     }
 
+    /**
+     * Write the cache in the binary format.
+     *
+     * @param file the file to write
+     * @throws IOException IO exception.
+     */
+    private void writeTo(File file) throws IOException {
+        List<Map.Entry<String, CacheRecord>> entries = new ArrayList<>(records.entrySet());
+        try (FileOutputStream fileOut = new FileOutputStream(file);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+            out.writeInt(MAGIC);
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(updateTimeSecs);
+            out.writeLong(updateVersion);
+            out.writeLong(expireTimeSecs);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, CacheRecord> entry : entries) {
+                CacheRecord record = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeInt(record.length);
+                out.write(record.data, record.offset, record.length);
+            }
+            out.flush();
+            fileOut.getFD().sync();
+        }
+    }
+
     /**
      * Retry saving the file.
      *
@@ -311,7 +433,7 @@ public class RegistryCenterCache {
      * Check if the cache has expired.
      */
     private boolean expired() {
-        long expireTime = Long.parseLong(properties.getProperty(EXPIRE_TIME_SECS_KEY, "0"));
+        long expireTime = expireTimeSecs;
         return expireTime != 0 && getCurTimeSecs() > expireTime;
     }
 
@@ -340,4 +462,58 @@ public class RegistryCenterCache {
         }
         return r;
     }
+
+    /**
+     * The encoded providers of a service: their number followed by their encoded urls. A record loaded from the
+     * cache file refers to the content of the file and is decoded on the first lookup.
+     */
+    private static class CacheRecord {
+
+        private final byte[] data;
+        private final int offset;
+        private final int length;
+        private volatile List<String> urls;
+
+        CacheRecord(byte[] data, int offset, int length) {
+            this.data = data;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        static CacheRecord of(List<String> urls) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(urls.size());
+            for (String url : urls) {
+                out.writeUTF(url);
+            }
+            CacheRecord record = new CacheRecord(bytes.toByteArray(), 0, bytes.size());
+            record.urls = Collections.unmodifiableList(new ArrayList<>(urls));
+            return record;
+        }
+
+        List<String> getUrls() {
+            List<String> decoded = urls;
+            if (decoded == null) {
+                decoded = decode();
+                urls = decoded;
+            }
+            return decoded;
+        }
+
+        private List<String> decode() {
+            try {
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, offset, length));
+                int count = in.readInt();
+                List<String> decoded = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    decoded.add(in.readUTF());
+                }
+                return Collections.unmodifiableList(decoded);
+            } catch (IOException e) {
+                logger.warn("Decode registry cache record has error, cause: ", e);
+                return Collections.emptyList();
+            }
+        }
+    }
 }
@@ -20,6 +20,7 @@ import com.tencent.trpc.core.logger.Logger;
 import com.tencent.trpc.core.logger.LoggerFactory;
 import com.tencent.trpc.core.registry.RegisterInfo;
 import com.tencent.trpc.core.selector.ServiceId;
+import com.tencent.trpc.core.selector.ServiceInstanceSnapshot;
 import com.tencent.trpc.registry.center.AbstractRegistryCenter;
 
 import java.util.ArrayList;
@@ -94,6 +95,27 @@ public class RegistryDiscoveryTest {
 
     }
 
+    @Test
+    public void testSnapshot() {
+        this.testNotify();
+        ServiceId serviceId = new ServiceId();
+        serviceId.setServiceName("test.service1");
+        ServiceInstanceSnapshot snapshot = discovery.getSnapshot();
+        Assert.assertSame(snapshot, discovery.list(serviceId));
+        Assert.assertSame(snapshot, discovery.list(serviceId));
+
+        List<RegisterInfo> registerInfos = new ArrayList<>();
+        registerInfos.add(buildRegisterInfo(12000));
+        registerInfos.add(buildRegisterInfo(12000));
+        discovery.notify(registerInfos);
+        Assert.assertEquals(1, discovery.list(serviceId).size());
+        Assert.assertTrue(discovery.getSnapshot().getVersion() > snapshot.getVersion());
+        Assert.assertEquals(10, snapshot.size());
+
+        discovery.destroy();
+        Assert.assertSame(ServiceInstanceSnapshot.EMPTY, discovery.list(serviceId));
+    }
+
     @Test
     public void testAsyncList() throws ExecutionException, InterruptedException {
         this.testNotify();
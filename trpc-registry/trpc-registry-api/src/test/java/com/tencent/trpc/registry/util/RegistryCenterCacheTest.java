@@ -11,6 +11,7 @@
 
 package com.tencent.trpc.registry.util;
 
+import static com.tencent.trpc.registry.common.ConfigConstants.REGISTRY_CENTER_CACHE_ALIVE_TIME_SECS_KEY;
 import static com.tencent.trpc.registry.common.ConfigConstants.REGISTRY_CENTER_CACHE_FILE_PATH_KEY;
 import static com.tencent.trpc.registry.common.ConfigConstants.REGISTRY_CENTER_SAVE_CACHE_KEY;
 import static com.tencent.trpc.registry.common.ConfigConstants.REGISTRY_CENTER_SYNCED_SAVE_CACHE_KEY;
@@ -24,8 +25,14 @@ import com.tencent.trpc.registry.common.RegistryCenterConfig;
 import com.tencent.trpc.registry.common.RegistryCenterData;
 import com.tencent.trpc.registry.common.RegistryCenterEnum;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -84,6 +91,91 @@ public class RegistryCenterCacheTest {
         }
     }
 
+    @Test
+    public void testReload() throws Exception {
+        File file = new File(folder.getRoot(), "cache/registry.cache");
+        RegistryCenterCache cache = new RegistryCenterCache(new RegistryCenterConfig(
+                initPluginConfig(file.getAbsolutePath())));
+        RegisterInfo registerInfo = new RegisterInfo("trpc", "127.0.0.1", 12001, "test.service1");
+        RegistryCenterData registryCenterData = new RegistryCenterData();
+        registryCenterData.putRegisterInfo(RegistryCenterEnum.PROVIDERS, registerInfo);
+        registryCenterData.putRegisterInfo(RegistryCenterEnum.PROVIDERS,
+                new RegisterInfo("trpc", "127.0.0.1", 12002, "test.service1"));
+        cache.save(registerInfo, registryCenterData);
+        RegisterInfo registerInfo2 = new RegisterInfo("trpc", "127.0.0.1", 12003, "test.service2");
+        RegistryCenterData registryCenterData2 = new RegistryCenterData();
+        registryCenterData2.putRegisterInfo(RegistryCenterEnum.PROVIDERS, registerInfo2);
+        cache.save(registerInfo2, registryCenterData2);
+        Assert.assertEquals(2, cache.getRegisterInfos("test.service1").size());
+        Assert.assertFalse(new File(file.getAbsolutePath() + ".tmp").exists());
+
+        RegistryCenterCache reloaded = new RegistryCenterCache(new RegistryCenterConfig(
+                initPluginConfig(file.getAbsolutePath())));
+        List<RegisterInfo> registerInfos = reloaded.getRegisterInfos("test.service1");
+        Assert.assertEquals(2, registerInfos.size());
+        Assert.assertEquals(12001, registerInfos.get(0).getPort());
+        Assert.assertEquals(12003, reloaded.getRegisterInfos("test.service2").get(0).getPort());
+        Assert.assertTrue(reloaded.getRegisterInfos("test.service3").isEmpty());
+
+        // a record loaded from the file is written back as is
+        reloaded.save(registerInfo2, new RegistryCenterData());
+        RegistryCenterCache reloadedAgain = new RegistryCenterCache(new RegistryCenterConfig(
+                initPluginConfig(file.getAbsolutePath())));
+        Assert.assertEquals(2, reloadedAgain.getRegisterInfos("test.service1").size());
+        Assert.assertTrue(reloadedAgain.getRegisterInfos("test.service2").isEmpty());
+    }
+
+    @Test
+    public void testMigrateProperties() throws Exception {
+        File file = folder.newFile("registry.properties");
+        Properties properties = new Properties();
+        properties.setProperty("test.service1",
+                RegisterInfo.encode(new RegisterInfo("trpc", "127.0.0.1", 12001, "test.service1")) + ","
+                        + RegisterInfo.encode(new RegisterInfo("trpc", "127.0.0.1", 12002, "test.service1")));
+        properties.setProperty("update_time_secs", "1");
+        properties.setProperty("update_version", "1");
+        try (OutputStream out = new FileOutputStream(file)) {
+            properties.store(out, "Trpc Registry Center Cache");
+        }
+        RegistryCenterCache cache = new RegistryCenterCache(new RegistryCenterConfig(
+                initPluginConfig(file.getAbsolutePath())));
+        Assert.assertEquals(2, cache.getRegisterInfos("test.service1").size());
+        Assert.assertTrue(cache.getRegisterInfos("update_version").isEmpty());
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        Assert.assertEquals("TRCC", new String(bytes, 0, 4, "ISO-8859-1"));
+
+        RegistryCenterCache reloaded = new RegistryCenterCache(new RegistryCenterConfig(
+                initPluginConfig(file.getAbsolutePath())));
+        Assert.assertEquals(2, reloaded.getRegisterInfos("test.service1").size());
+    }
+
+    @Test
+    public void testExpire() throws Exception {
+        File file = new File(folder.getRoot(), "registry.cache");
+        Map<String, Object> properties = initPluginConfig(file.getAbsolutePath()).getProperties();
+        properties.put(REGISTRY_CENTER_CACHE_ALIVE_TIME_SECS_KEY, -10);
+        RegistryCenterCache cache = new RegistryCenterCache(new RegistryCenterConfig(
+                new PluginConfig("zookeeper", AbstractRegistryCenter.class, properties)));
+        RegisterInfo registerInfo = new RegisterInfo("trpc", "127.0.0.1", 12001, "test.service1");
+        RegistryCenterData registryCenterData = new RegistryCenterData();
+        registryCenterData.putRegisterInfo(RegistryCenterEnum.PROVIDERS, registerInfo);
+        cache.save(registerInfo, registryCenterData);
+        cache.expireCache();
+        Assert.assertTrue(cache.getRegisterInfos("test.service1").isEmpty());
+
+        RegistryCenterCache reloaded = new RegistryCenterCache(new RegistryCenterConfig(
+                new PluginConfig("zookeeper", AbstractRegistryCenter.class, properties)));
+        Assert.assertTrue(reloaded.getRegisterInfos("test.service1").isEmpty());
+        reloaded.cancelExpireCache();
+        Assert.assertEquals(1, reloaded.getRegisterInfos("test.service1").size());
+    }
+
+    private PluginConfig initPluginConfig(String cacheFilePath) {
+        PluginConfig pluginConfig = initPluginConfig();
+        pluginConfig.getProperties().put(REGISTRY_CENTER_CACHE_FILE_PATH_KEY, cacheFilePath);
+        return pluginConfig;
+    }
+
     private PluginConfig initPluginConfig() {
         Map<String, Object> properties = new HashMap<>();
         properties.put("ip", "0.0.0.0");
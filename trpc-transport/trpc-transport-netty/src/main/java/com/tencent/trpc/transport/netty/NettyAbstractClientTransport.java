@@ -50,6 +50,7 @@ public abstract class NettyAbstractClientTransport extends AbstractClientTranspo
                     SHARE_EVENT_LOOP_GROUP = new NioEventLoopGroup(
                             config.getIoThreads(), new DefaultThreadFactory(defaultThreadPoolName)
                     );
+                    NettyEventLoopMonitor.monitor(defaultThreadPoolName, SHARE_EVENT_LOOP_GROUP, true);
                 }
             }
         }
@@ -59,6 +60,7 @@ public abstract class NettyAbstractClientTransport extends AbstractClientTranspo
     protected void doClose() {
         if (bootstrap != null) {
             if (!config.isIoThreadGroupShare()) {
+                NettyEventLoopMonitor.unmonitor(bootstrap.config().group());
                 bootstrap.config().group().shutdownGracefully();
             } else {
                 closeShareEventLoopGroup();
@@ -81,6 +83,7 @@ public abstract class NettyAbstractClientTransport extends AbstractClientTranspo
         if (SHARE_EVENT_LOOP_GROUP_USED_NUMS.decrementAndGet() <= 0 && SHARE_EVENT_LOOP_GROUP != null) {
             synchronized (LOCK) {
                 if (SHARE_EVENT_LOOP_GROUP_USED_NUMS.get() <= 0 && SHARE_EVENT_LOOP_GROUP != null) {
+                    NettyEventLoopMonitor.unmonitor(SHARE_EVENT_LOOP_GROUP);
                     SHARE_EVENT_LOOP_GROUP.shutdownGracefully();
                     SHARE_EVENT_LOOP_GROUP = null;
                 }
@@ -14,6 +14,9 @@ package com.tencent.trpc.transport.netty;
 import com.google.common.base.Preconditions;
 import com.tencent.trpc.core.common.config.ProtocolConfig;
 import com.tencent.trpc.core.exception.TransportException;
+import com.tencent.trpc.core.metrics.RequestStageStats;
+import com.tencent.trpc.core.metrics.RequestStageTimer;
+import com.tencent.trpc.core.metrics.RequestStageTimer.Stage;
 import com.tencent.trpc.core.rpc.Request;
 import com.tencent.trpc.core.rpc.RequestMeta;
 import com.tencent.trpc.core.rpc.Response;
@@ -74,6 +77,7 @@ public class NettyCodecAdapter {
             ChannelBuffer buffer = new NettyChannelBuffer(out);
             Channel ch = ctx.channel();
             NettyChannel channel = NettyChannelManager.getOrAddChannel(ch, config);
+            markEncode(msg);
             try {
                 codec.encode(channel, buffer, msg);
             } finally {
@@ -104,6 +108,7 @@ public class NettyCodecAdapter {
                             .checkArgument(addr != null, "udp address could not be null, msg:%s",
                                     msg);
                     ioBuffer = ctx.alloc().directBuffer();
+                    markEncode(msg);
                     codec.encode(channel, new NettyChannelBuffer(ioBuffer), msg);
                     exception = false;
                 } finally {
@@ -137,6 +142,17 @@ public class NettyCodecAdapter {
         }
     }
 
+    /**
+     * Mark the encode stage of the request of a server response
+     *
+     * @param msg the message to encode
+     */
+    private static void markEncode(Object msg) {
+        if (msg instanceof Response) {
+            RequestStageTimer.mark(((Response) msg).getRequest(), Stage.ENCODE);
+        }
+    }
+
     /**
      * Call the underlying codec to decode msg
      *
@@ -150,12 +166,16 @@ public class NettyCodecAdapter {
         try {
             do {
                 int readIndex = message.readerIndex();
+                long decodeStartNanos = RequestStageStats.isEnabled() ? System.nanoTime() : 0;
                 Object msg = codec.decode(channel, message);
                 // reset remoteAddr
                 if (msg instanceof Request) {
                     RequestMeta meta = ((Request) msg).getMeta();
                     meta.setRemoteAddress((InetSocketAddress) (ctx.channel().remoteAddress()));
                     meta.setLocalAddress((InetSocketAddress) (ctx.channel().localAddress()));
+                    if (decodeStartNanos != 0) {
+                        RequestStageStats.start((Request) msg, decodeStartNanos);
+                    }
                 }
                 if (msg == Codec.DecodeResult.NOT_ENOUGH_DATA) {
                     message.readerIndex(readIndex);
@@ -190,11 +210,15 @@ public class NettyCodecAdapter {
                 try {
                     do {
                         int readIndex = message.readerIndex();
+                        long decodeStartNanos = RequestStageStats.isEnabled() ? System.nanoTime() : 0;
                         Object msg = codec.decode(channel, message);
                         // reset remoteAddr
                         if (msg instanceof Request) {
                             RequestMeta meta = ((Request) msg).getMeta();
                             meta.setRemoteAddress(sender);
+                            if (decodeStartNanos != 0) {
+                                RequestStageStats.start((Request) msg, decodeStartNanos);
+                            }
                         }
                         if (msg == Codec.DecodeResult.NOT_ENOUGH_DATA) {
                             break;
@@ -0,0 +1,172 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.transport.netty;
+
+import com.tencent.trpc.core.logger.Logger;
+import com.tencent.trpc.core.logger.LoggerFactory;
+import com.tencent.trpc.core.metrics.EventLoopStats;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoop;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Probes the event loops of the netty transports, see {@link EventLoopStats}.
+ * <p>A single daemon thread submits a no-op probe to each loop every probe interval, and measures how long the probe
+ * waits to run. A loop has at most one probe in flight, a probe still waiting after the stall threshold is reported
+ * once as a stall with the stack trace of the loop thread. Neither the stats nor the thread are created until a
+ * group is monitored with the monitor of its side enabled.</p>
+ */
+public class NettyEventLoopMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(NettyEventLoopMonitor.class);
+
+    private static final AtomicInteger GROUP_SEQ = new AtomicInteger();
+    private static final Map<EventLoopGroup, List<Probe>> PROBES = new ConcurrentHashMap<>();
+
+    private static volatile ScheduledExecutorService scheduler;
+
+    /**
+     * Monitor the event loops of a group, does nothing when the monitor of its side is disabled.
+     *
+     * @param groupName name of the group, usually its thread name prefix
+     * @param group the group
+     * @param client whether it is a group of the client transports
+     */
+    public static void monitor(String groupName, EventLoopGroup group, boolean client) {
+        if (client ? !EventLoopStats.isClientEnabled() : !EventLoopStats.isEnabled()) {
+            return;
+        }
+        String name = groupName + "-" + GROUP_SEQ.incrementAndGet();
+        List<Probe> probes = new ArrayList<>();
+        int index = 0;
+        for (EventExecutor loop : group) {
+            int ioRatio = loop instanceof NioEventLoop ? ((NioEventLoop) loop).getIoRatio() : -1;
+            probes.add(new Probe(loop, EventLoopStats.register(name, String.valueOf(index++), ioRatio)));
+        }
+        PROBES.put(group, probes);
+        startScheduler();
+    }
+
+    /**
+     * Stop monitoring the event loops of a group, called before it shuts down.
+     *
+     * @param group the group
+     */
+    public static void unmonitor(EventLoopGroup group) {
+        List<Probe> probes = PROBES.remove(group);
+        if (probes != null) {
+            probes.forEach(probe -> EventLoopStats.unregister(probe.stats));
+        }
+    }
+
+    private static void startScheduler() {
+        if (scheduler == null) {
+            synchronized (NettyEventLoopMonitor.class) {
+                if (scheduler == null) {
+                    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+                            new DefaultThreadFactory("Netty-EventLoop-Monitor", true));
+                    executor.schedule(NettyEventLoopMonitor::tick, EventLoopStats.getProbeIntervalMills(),
+                            TimeUnit.MILLISECONDS);
+                    scheduler = executor;
+                }
+            }
+        }
+    }
+
+    private static void tick() {
+        try {
+            if (EventLoopStats.isEnabled() || EventLoopStats.isClientEnabled()) {
+                long thresholdNanos = TimeUnit.MILLISECONDS.toNanos(EventLoopStats.getStallThresholdMills());
+                PROBES.forEach((group, probes) -> {
+                    if (group.isShuttingDown()) {
+                        unmonitor(group);
+                    } else {
+                        probes.forEach(probe -> probe.tick(thresholdNanos));
+                    }
+                });
+            }
+        } catch (Throwable ex) {
+            logger.error("Probe netty event loops failed", ex);
+        } finally {
+            scheduler.schedule(NettyEventLoopMonitor::tick, EventLoopStats.getProbeIntervalMills(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static class Probe implements Runnable {
+
+        private final EventExecutor loop;
+        private final EventLoopStats stats;
+        /**
+         * nanoTime the probe in flight was submitted, 0 if none
+         */
+        private volatile long submitNanos;
+        private volatile Thread thread;
+        private boolean stallReported;
+
+        Probe(EventExecutor loop, EventLoopStats stats) {
+            this.loop = loop;
+            this.stats = stats;
+        }
+
+        /**
+         * Runs on the loop.
+         */
+        @Override
+        public void run() {
+            long lagNanos = System.nanoTime() - submitNanos;
+            thread = Thread.currentThread();
+            int pendingTasks = loop instanceof SingleThreadEventExecutor
+                    ? ((SingleThreadEventExecutor) loop).pendingTasks() : -1;
+            stats.recordProbe(thread, lagNanos, pendingTasks);
+            submitNanos = 0;
+        }
+
+        /**
+         * Runs on the monitor thread, submit a probe or check the one in flight.
+         *
+         * @param thresholdNanos stall threshold
+         */
+        void tick(long thresholdNanos) {
+            long now = System.nanoTime();
+            long submitted = submitNanos;
+            if (submitted != 0) {
+                if (!stallReported && now - submitted >= thresholdNanos) {
+                    stallReported = true;
+                    Thread loopThread = thread;
+                    stats.recordStall(now - submitted, loopThread == null ? null : loopThread.getStackTrace());
+                }
+                return;
+            }
+            stallReported = false;
+            submitNanos = now;
+            try {
+                loop.execute(this);
+            } catch (RejectedExecutionException ex) {
+                // the loop is shutting down, unmonitored by the next tick
+                submitNanos = 0;
+            }
+        }
+    }
+
+}
@@ -44,9 +44,9 @@ public class NettyTcpClientTransport extends NettyAbstractClientTransport {
         bootstrap = new Bootstrap();
         NioEventLoopGroup myEventLoopGroup;
         if (!config.isIoThreadGroupShare()) {
-            myEventLoopGroup = new NioEventLoopGroup(config.getIoThreads(),
-                    new DefaultThreadFactory(
-                            "Netty-TcpClientWorker-" + config.getIp() + ":" + config.getPort()));
+            String groupName = "Netty-TcpClientWorker-" + config.getIp() + ":" + config.getPort();
+            myEventLoopGroup = new NioEventLoopGroup(config.getIoThreads(), new DefaultThreadFactory(groupName));
+            NettyEventLoopMonitor.monitor(groupName, myEventLoopGroup, true);
         } else {
             myEventLoopGroup = SHARE_EVENT_LOOP_GROUP;
             SHARE_EVENT_LOOP_GROUP_USED_NUMS.incrementAndGet();
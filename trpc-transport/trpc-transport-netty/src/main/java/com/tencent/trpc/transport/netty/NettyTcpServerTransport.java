@@ -92,6 +92,8 @@ public class NettyTcpServerTransport extends AbstractServerTransport {
                     new DefaultThreadFactory("Netty-NIO-TcpServerWorker"));
             channelClass = NioServerSocketChannel.class;
         }
+        NettyEventLoopMonitor.monitor(useEpoll ? "Netty-Epoll-TcpServerWorker" : "Netty-NIO-TcpServerWorker",
+                workerGroup, false);
 
         NettyServerHandler serverHandler =
                 new NettyServerHandler(new AcceptLimitHandler(getChannelHandler(), this), config,
@@ -211,6 +213,7 @@ public class NettyTcpServerTransport extends AbstractServerTransport {
                 bossGroup.shutdownGracefully();
             }
             if (workerGroup != null) {
+                NettyEventLoopMonitor.unmonitor(workerGroup);
                 workerGroup.shutdownGracefully();
             }
         } catch (Throwable e) {
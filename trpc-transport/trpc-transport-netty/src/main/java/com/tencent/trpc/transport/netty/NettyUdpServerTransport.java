@@ -70,6 +70,7 @@ public class NettyUdpServerTransport extends AbstractServerTransport {
                     new DefaultThreadFactory("Netty-UdpServerWorker"));
             channelClass = NioDatagramChannel.class;
         }
+        NettyEventLoopMonitor.monitor("Netty-UdpServerWorker", workerGroup, false);
         bootstrap.channel(channelClass).group(workerGroup)
                 .option(EpollChannelOption.SO_REUSEPORT, useEpoll)
                 .option(ChannelOption.SO_REUSEADDR, true)
@@ -137,6 +138,7 @@ public class NettyUdpServerTransport extends AbstractServerTransport {
         }
         try {
             if (workerGroup != null) {
+                NettyEventLoopMonitor.unmonitor(workerGroup);
                 workerGroup.shutdownGracefully();
             }
         } catch (Throwable e) {
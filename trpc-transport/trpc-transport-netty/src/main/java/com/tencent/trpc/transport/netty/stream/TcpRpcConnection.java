@@ -56,9 +56,15 @@ public class TcpRpcConnection implements RpcConnection {
         connection.outbound().send(sender.asFlux()).then().subscribe();
     }
 
+    /**
+     * Frames of a connection may be sent by several threads at the same time, e.g. the data of a stream flushed by a
+     * worker thread while the feedback of another one is sent by the IO thread, the sink must be emitted serially.
+     */
     @Override
     public void send(ByteBuf frame) {
-        sender.emitNext(frame, Sinks.EmitFailureHandler.FAIL_FAST);
+        synchronized (sender) {
+            sender.emitNext(frame, Sinks.EmitFailureHandler.FAIL_FAST);
+        }
     }
 
     @Override
@@ -71,6 +77,11 @@ public class TcpRpcConnection implements RpcConnection {
         return connection.channel().alloc();
     }
 
+    @Override
+    public void setAutoRead(boolean autoRead) {
+        connection.channel().config().setAutoRead(autoRead);
+    }
+
     public void doOnClose() {
         connection.dispose();
     }
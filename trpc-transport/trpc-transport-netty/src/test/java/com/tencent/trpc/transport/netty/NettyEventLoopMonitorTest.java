@@ -0,0 +1,86 @@
+/*
+ * Tencent is pleased to support the open source community by making tRPC available.
+ *
+ * Copyright (C) 2023 Tencent.
+ * All rights reserved.
+ *
+ * If you have downloaded a copy of the tRPC source code from Tencent,
+ * please note that tRPC source code is licensed under the Apache 2.0 License,
+ * A copy of the Apache 2.0 License can be found in the LICENSE file.
+ */
+
+package com.tencent.trpc.transport.netty;
+
+import com.tencent.trpc.core.metrics.EventLoopStats;
+import io.netty.channel.nio.NioEventLoopGroup;
+import java.util.function.BooleanSupplier;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NettyEventLoopMonitorTest {
+
+    private NioEventLoopGroup group;
+
+    @Before
+    public void setUp() {
+        EventLoopStats.configure(true, 20, 200);
+        group = new NioEventLoopGroup(1);
+    }
+
+    @After
+    public void tearDown() {
+        NettyEventLoopMonitor.unmonitor(group);
+        group.shutdownGracefully();
+        EventLoopStats.reset();
+    }
+
+    @Test
+    public void testStall() throws InterruptedException {
+        NettyEventLoopMonitor.monitor("test-group", group, false);
+        EventLoopStats stats = EventLoopStats.getLoopStats().values().stream()
+                .filter(s -> s.getGroup().startsWith("test-group-")).findFirst().orElse(null);
+        Assert.assertNotNull(stats);
+        Assert.assertEquals(50, stats.getIoRatio());
+        Assert.assertTrue(waitFor(() -> stats.getThreadName() != null));
+        Assert.assertEquals(0, stats.getStallCount());
+
+        group.execute(() -> {
+            try {
+                Thread.sleep(800);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Assert.assertTrue(waitFor(() -> stats.getStallCount() > 0));
+        Assert.assertTrue(stats.getLastStallStack().contains("Thread.sleep"));
+        Assert.assertTrue(waitFor(() -> stats.getMaxLagMicros() >= 200_000));
+        Assert.assertEquals(1, stats.getStallCount());
+
+        NettyEventLoopMonitor.unmonitor(group);
+        Assert.assertFalse(EventLoopStats.getLoopStats().containsValue(stats));
+    }
+
+    @Test
+    public void testDisabled() {
+        EventLoopStats.configure(false, 20, 200);
+        NettyEventLoopMonitor.monitor("test-server-group", group, false);
+        NettyEventLoopMonitor.monitor("test-client-group", group, true);
+        Assert.assertTrue(EventLoopStats.getLoopStats().isEmpty());
+
+        EventLoopStats.configureClient(true);
+        NettyEventLoopMonitor.monitor("test-client-group", group, true);
+        Assert.assertTrue(EventLoopStats.getLoopStats().values().stream()
+                .allMatch(s -> s.getGroup().startsWith("test-client-group-")));
+        Assert.assertEquals(1, EventLoopStats.getLoopStats().size());
+    }
+
+    private static boolean waitFor(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 500 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(10);
+        }
+        return condition.getAsBoolean();
+    }
+
+}